@@ -0,0 +1,286 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits the diff of two files into independent parts before anything is indexed:
+ *
+ * <ul>
+ * <li>the common prefix and suffix of the files are kept as they are;</li>
+ * <li>the lines between them that occur exactly once in each file are anchors, and the longest sequence of anchors
+ * that is in the same order in both files, found by patience sorting, is kept as well;</li>
+ * <li>the lines between two consecutive anchors are parts of their own, less their own common prefix and suffix,
+ * which are kept.</li>
+ * </ul>
+ *
+ * Only the lines between the prefix and the suffix are looked at again, so splitting two files that differ in a few
+ * lines takes time in the number of lines compared rather than in the size of the files.
+ *
+ * @since 1.0
+ */
+final class AnchorPartitioner {
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * Lines of the original file that are either kept as they are in the new file, or diffed against lines of the new
+     * file.
+     */
+    static final class Part {
+
+        final int originalFrom;
+
+        final int originalTo;
+
+        final int newFrom;
+
+        final int newTo;
+
+        final boolean kept;
+
+        /**
+         * Default constructor.
+         *
+         * @param originalFrom first line of the original file, inclusive.
+         * @param originalTo   last line of the original file, exclusive.
+         * @param newFrom      first line of the new file, inclusive.
+         * @param newTo        last line of the new file, exclusive.
+         * @param kept         whether the lines are the same in both files.
+         */
+        Part(final int originalFrom, final int originalTo, final int newFrom, final int newTo, final boolean kept) {
+            this.originalFrom = originalFrom;
+            this.originalTo = originalTo;
+            this.newFrom = newFrom;
+            this.newTo = newTo;
+            this.kept = kept;
+        }
+    }
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public AnchorPartitioner() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Splits the diff of {@code originalFile} and {@code newFile} into {@link Part}s, in the order of both files.
+     * Together they cover every line of both files, and kept parts and diffed parts alternate.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     *
+     * @return list of {@link Part}s.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    static List<Part> partition(final List<String> originalFile, final List<String> newFile) {
+
+        checkNotNull(originalFile);
+        checkNotNull(newFile);
+
+        final List<Part> parts = Lists.newArrayList();
+        final int prefix = commonPrefix(originalFile, 0, originalFile.size(), newFile, 0, newFile.size());
+        final int suffix = commonSuffix(originalFile, prefix, originalFile.size(), newFile, prefix, newFile.size());
+        addKept(parts, 0, 0, prefix);
+
+        final int originalTo = originalFile.size() - suffix;
+        final int newTo = newFile.size() - suffix;
+        int originalFrom = prefix;
+        int newFrom = prefix;
+        for (final int[] anchor : anchors(originalFile, prefix, originalTo, newFile, prefix, newTo)) {
+            addGap(parts, originalFile, originalFrom, anchor[0], newFile, newFrom, anchor[1]);
+            addKept(parts, anchor[0], anchor[1], 1);
+            originalFrom = anchor[0] + 1;
+            newFrom = anchor[1] + 1;
+        }
+        addGap(parts, originalFile, originalFrom, originalTo, newFile, newFrom, newTo);
+
+        addKept(parts, originalTo, newTo, suffix);
+        return parts;
+    }
+
+    /**
+     * Gets the number of lines that {@code originalFile} from {@code originalFrom} and {@code newFile} from {@code
+     * newFrom} start with.
+     *
+     * @param originalFile original file.
+     * @param originalFrom first line of the original file, inclusive.
+     * @param originalTo   last line of the original file, exclusive.
+     * @param newFile      new file.
+     * @param newFrom      first line of the new file, inclusive.
+     * @param newTo        last line of the new file, exclusive.
+     *
+     * @return number of common lines.
+     */
+    static int commonPrefix(final List<String> originalFile, final int originalFrom, final int originalTo,
+                            final List<String> newFile, final int newFrom, final int newTo) {
+        final int shorter = Math.min(originalTo - originalFrom, newTo - newFrom);
+        int prefix = 0;
+        while (prefix < shorter && originalFile.get(originalFrom + prefix).equals(newFile.get(newFrom + prefix))) {
+            prefix++;
+        }
+        return prefix;
+    }
+
+    /**
+     * Gets the number of lines that {@code originalFile} up to {@code originalTo} and {@code newFile} up to {@code
+     * newTo} end with.
+     *
+     * @param originalFile original file.
+     * @param originalFrom first line of the original file, inclusive.
+     * @param originalTo   last line of the original file, exclusive.
+     * @param newFile      new file.
+     * @param newFrom      first line of the new file, inclusive.
+     * @param newTo        last line of the new file, exclusive.
+     *
+     * @return number of common lines.
+     */
+    static int commonSuffix(final List<String> originalFile, final int originalFrom, final int originalTo,
+                            final List<String> newFile, final int newFrom, final int newTo) {
+        final int shorter = Math.min(originalTo - originalFrom, newTo - newFrom);
+        int suffix = 0;
+        while (suffix < shorter
+                && originalFile.get(originalTo - 1 - suffix).equals(newFile.get(newTo - 1 - suffix))) {
+            suffix++;
+        }
+        return suffix;
+    }
+
+    /**
+     * Gets the longest sequence of lines that occur exactly once in both ranges and are in the same order in both.
+     *
+     * @param originalFile original file.
+     * @param originalFrom first line of the original file, inclusive.
+     * @param originalTo   last line of the original file, exclusive.
+     * @param newFile      new file.
+     * @param newFrom      first line of the new file, inclusive.
+     * @param newTo        last line of the new file, exclusive.
+     *
+     * @return line of the original file and line of the new file of every anchor, in order.
+     */
+    private static List<int[]> anchors(final List<String> originalFile, final int originalFrom, final int originalTo,
+                                       final List<String> newFile, final int newFrom, final int newTo) {
+        if (originalFrom == originalTo || newFrom == newTo) {
+            return Lists.newArrayList();
+        }
+
+        // Number of occurrences in the original file, in the new file and the line in the original file.
+        final Map<String, int[]> occurrences = Maps.newHashMap();
+        for (int line = originalFrom; line < originalTo; line++) {
+            final int[] occurrence = occurrences.get(originalFile.get(line));
+            if (null == occurrence) {
+                occurrences.put(originalFile.get(line), new int[]{1, 0, line});
+            }
+            else {
+                occurrence[0]++;
+            }
+        }
+        for (int line = newFrom; line < newTo; line++) {
+            final int[] occurrence = occurrences.get(newFile.get(line));
+            if (null != occurrence) {
+                occurrence[1]++;
+            }
+        }
+
+        final List<int[]> unique = Lists.newArrayList();
+        for (int line = newFrom; line < newTo; line++) {
+            final int[] occurrence = occurrences.get(newFile.get(line));
+            if (null != occurrence && 1 == occurrence[0] && 1 == occurrence[1]) {
+                unique.add(new int[]{occurrence[2], line});
+            }
+        }
+        return longestIncreasing(unique);
+    }
+
+    /**
+     * Gets the longest subsequence of these {@code anchors}, which are in the order of the new file, that is in the
+     * order of the original file as well, by patience sorting.
+     *
+     * @param anchors line of the original file and line of the new file of every anchor.
+     *
+     * @return longest increasing subsequence of {@code anchors}.
+     */
+    private static List<int[]> longestIncreasing(final List<int[]> anchors) {
+        // Index of the anchor on top of every pile, and the top of the previous pile when every anchor was placed.
+        final int[] tops = new int[anchors.size()];
+        final int[] previous = new int[anchors.size()];
+        int piles = 0;
+        for (int i = 0; i < anchors.size(); i++) {
+            final int line = anchors.get(i)[0];
+            int low = 0;
+            int high = piles;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (anchors.get(tops[middle])[0] < line) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            previous[i] = 0 == low ? -1 : tops[low - 1];
+            tops[low] = i;
+            piles = Math.max(piles, low + 1);
+        }
+
+        final List<int[]> increasing = Lists.newArrayListWithCapacity(piles);
+        for (int i = 0 == piles ? -1 : tops[piles - 1]; -1 != i; i = previous[i]) {
+            increasing.add(anchors.get(i));
+        }
+        return Lists.reverse(increasing);
+    }
+
+    /**
+     * Adds the lines between two anchors: their common prefix and suffix are kept and the rest is diffed.
+     *
+     * @param parts        {@link Part}s to add to.
+     * @param originalFile original file.
+     * @param originalFrom first line of the original file, inclusive.
+     * @param originalTo   last line of the original file, exclusive.
+     * @param newFile      new file.
+     * @param newFrom      first line of the new file, inclusive.
+     * @param newTo        last line of the new file, exclusive.
+     */
+    private static void addGap(final List<Part> parts, final List<String> originalFile, final int originalFrom,
+                               final int originalTo, final List<String> newFile, final int newFrom,
+                               final int newTo) {
+        final int prefix = commonPrefix(originalFile, originalFrom, originalTo, newFile, newFrom, newTo);
+        final int suffix = commonSuffix(originalFile, originalFrom + prefix, originalTo, newFile, newFrom + prefix,
+                                        newTo);
+        addKept(parts, originalFrom, newFrom, prefix);
+        if (originalFrom + prefix < originalTo - suffix || newFrom + prefix < newTo - suffix) {
+            parts.add(new Part(originalFrom + prefix, originalTo - suffix, newFrom + prefix, newTo - suffix, false));
+        }
+        addKept(parts, originalTo - suffix, newTo - suffix, suffix);
+    }
+
+    /**
+     * Adds lines that are kept, unless there are none, to the last part if it is kept as well.
+     *
+     * @param parts        {@link Part}s to add to.
+     * @param originalFrom first line of the original file.
+     * @param newFrom      first line of the new file.
+     * @param length       number of lines.
+     */
+    private static void addKept(final List<Part> parts, final int originalFrom, final int newFrom, final int length) {
+        if (0 == length) {
+            return;
+        }
+        if (!parts.isEmpty() && parts.get(parts.size() - 1).kept) {
+            final Part last = parts.remove(parts.size() - 1);
+            parts.add(new Part(last.originalFrom, originalFrom + length, last.newFrom, newFrom + length, true));
+        }
+        else {
+            parts.add(new Part(originalFrom, originalFrom + length, newFrom, newFrom + length, true));
+        }
+    }
+}
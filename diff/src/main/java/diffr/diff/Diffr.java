@@ -1,15 +1,25 @@
 package diffr.diff;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.MatchingStatistics;
 import diffr.suffixtree.SuffixTree;
-import diffr.suffixtree.SuffixTree.Matcher;
+import diffr.suffixtree.SuffixTreeCache;
 import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.Tasks;
 import diffr.util.instruction.CopyInstruction;
 import diffr.util.instruction.InsertInstruction;
 import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionCosts;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -21,12 +31,23 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public final class Diffr {
 
+    /**
+     * Smallest number of lines of the new file that is worth a task of its own.
+     */
+    private static final int MIN_CHUNK = 1 << 14;
+
     private final List<String> originalFile;
 
     private final List<String> newFile;
 
+    private final Backend backend;
+
+    private final SuffixTree<String> originalIndex;
+
+    private final SuffixTreeCache cache;
+
     /**
-     * Default constructor.
+     * Default constructor. The original file is indexed by a {@link Backend#SUFFIX_TREE}.
      *
      * @param originalFile original file to be transform.
      * @param newFile      new file to transform {@code originalFile} to.
@@ -34,38 +55,458 @@ public final class Diffr {
      * @throws NullPointerException if any parameter is null.
      */
     public Diffr(final List<String> originalFile, final List<String> newFile) {
+        this(originalFile, newFile, Backend.SUFFIX_TREE);
+    }
+
+    /**
+     * Constructor that chooses the data structure that the original file is indexed by, e.g. {@link
+     * Backend#SUFFIX_ARRAY} for original files that are too large for a suffix tree.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     * @param backend      data structure to index {@code originalFile} by.
+     *
+     * @throws NullPointerException if any parameter is null.
+     * @since 1.0
+     */
+    public Diffr(final List<String> originalFile, final List<String> newFile, final Backend backend) {
         this.originalFile = checkNotNull(originalFile);
         this.newFile = checkNotNull(newFile);
+        this.backend = checkNotNull(backend);
+        this.originalIndex = null;
+        this.cache = null;
     }
 
     /**
-     * Gets the list of {@link Instruction}s to transform {@code originalFile} to {@code newFile}.
+     * Constructor that looks the index of the original file up in this {@code cache}, so that diffing several new
+     * files against the same original file indexes it once.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     * @param backend      data structure to index {@code originalFile} by.
+     * @param cache        {@link SuffixTreeCache} to look the index of {@code originalFile} up in.
+     *
+     * @throws NullPointerException if any parameter is null.
+     * @since 1.0
+     */
+    public Diffr(final List<String> originalFile, final List<String> newFile, final Backend backend,
+                 final SuffixTreeCache cache) {
+        this.originalFile = checkNotNull(originalFile);
+        this.newFile = checkNotNull(newFile);
+        this.backend = checkNotNull(backend);
+        this.originalIndex = null;
+        this.cache = checkNotNull(cache);
+    }
+
+    /**
+     * Constructor that diffs against an original file that is already indexed, e.g. by {@link
+     * SuffixTrees#openSuffixIndex(java.io.File)}, so that the original file is neither read nor indexed again.
+     *
+     * @param originalIndex {@link SuffixTree} of the original file to be transform.
+     * @param newFile       new file to transform the original file to.
+     *
+     * @throws NullPointerException if any parameter is null.
+     * @since 1.0
+     */
+    public Diffr(final SuffixTree<String> originalIndex, final List<String> newFile) {
+        this.originalFile = null;
+        this.newFile = checkNotNull(newFile);
+        this.backend = null;
+        this.originalIndex = checkNotNull(originalIndex);
+        this.cache = null;
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s to transform {@code originalFile} to {@code newFile}. The new file is
+     * parsed greedily using the {@link MatchingStatistics} of its lines against the original file: the longest match
+     * that starts at the current line is copied, or the line is inserted if it does not occur in the original file.
+     * Therefore a line that breaks a match can start the next one, without matching it from the root again.
      *
      * @return list of {@link Instruction}s.
      */
     public List<Instruction> diff() {
+        return instructions(suffixTree(null).matchingStatistics(this.newFile));
+    }
 
+    /**
+     * Parses the new file greedily using its {@link MatchingStatistics} into a list of {@link Instruction}s.
+     *
+     * @param statistics {@link MatchingStatistics} of the new file.
+     *
+     * @return list of {@link Instruction}s.
+     */
+    private List<Instruction> instructions(final MatchingStatistics statistics) {
         final List<Instruction> instructions = Lists.newArrayList();
-        final SuffixTree<String> suffixTree = SuffixTrees.newSuffixTree(this.originalFile);
+        parse(statistics, new ParseListener() {
+            @Override
+            public void copy(final int start, final int end) {
+                instructions.add(new CopyInstruction(Ranges.closed(start, end)));
+            }
 
-        Matcher<String> matcher = suffixTree.matcher();
+            @Override
+            public void insert(final int index) {
+                instructions.add(new InsertInstruction(newFile.get(index)));
+            }
+        });
+        return instructions;
+    }
+
+    /**
+     * Receives the copies and inserts of a greedy parse as indices of lines, so that the parse itself does not
+     * allocate anything and only the listener decides what to make of them.
+     */
+    interface ParseListener {
 
-        for (final String newFileLine : newFile) {
+        /**
+         * Receives the next copy.
+         *
+         * @param start first line of the original file to copy.
+         * @param end   last line of the original file to copy.
+         */
+        void copy(int start, int end);
 
-            if (!matcher.matchNext(newFileLine).isMatched()) {
-                if (!matcher.isRoot()) {
-                    instructions.add(new CopyInstruction(matcher.range()));
-                }
-                instructions.add(new InsertInstruction(newFileLine));
-                matcher = suffixTree.matcher();
+        /**
+         * Receives the next insert.
+         *
+         * @param index index of the line of the new file to insert.
+         */
+        void insert(int index);
+    }
+
+    /**
+     * Parses the new file greedily using its {@link MatchingStatistics}: the longest match that starts at the current
+     * line is copied, or the line is inserted if it does not occur in the original file.
+     *
+     * @param statistics {@link MatchingStatistics} of the new file.
+     * @param listener   {@link ParseListener} to receive the copies and inserts.
+     */
+    static void parse(final MatchingStatistics statistics, final ParseListener listener) {
+        int index = 0;
+        while (index < statistics.size()) {
+            final int length = statistics.length(index);
+            if (0 == length) {
+                listener.insert(index);
+                index++;
+            }
+            else {
+                final int start = statistics.start(index);
+                listener.copy(start, start + length - 1);
+                index += length;
+            }
+        }
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s of the smallest patch file that transforms {@code originalFile} to {@code
+     * newFile}, see {@link InstructionCosts}. Rather than always copying the longest match, the new file is parsed by
+     * dynamic programming over the same {@link MatchingStatistics} as {@link #diff()}: a copy may be cut short so that
+     * the next copy is longer, and a short line is inserted when that is cheaper than copying it. The patch is
+     * therefore never larger than the one of {@link #diff()}.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @since 1.0
+     */
+    public List<Instruction> optimalDiff() {
+        return OptimalParser.parse(newFile, suffixTree(null).matchingStatistics(newFile));
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s to transform {@code originalFile} to {@code newFile} with whichever engine
+     * is expected to be faster, see {@link EngineSelector}: files that differ in a few lines, e.g. two versions of a
+     * file, are diffed by {@link MyersDiffr} without indexing the original file, other files like {@link #diff()}
+     * does. {@link MyersDiffr} only copies lines in order, so the patch may be larger than the one of {@link
+     * #diff()} when lines are moved. A {@link Diffr} of an already indexed original file always diffs like {@link
+     * #diff()}.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @since 1.0
+     */
+    public List<Instruction> adaptiveDiff() {
+        if (null != originalFile && EngineSelector.prefersMyers(originalFile, newFile)) {
+            final Optional<List<Instruction>> instructions = MyersDiffr.diff(originalFile, newFile,
+                                                                             MyersDiffr.MAX_EDITS);
+            if (instructions.isPresent()) {
+                return instructions.get();
             }
         }
+        return diff();
+    }
 
-        if (!matcher.isRoot()) {
-            instructions.add(new CopyInstruction(matcher.range()));
+    /**
+     * Gets the list of {@link Instruction}s to transform {@code originalFile} to {@code newFile} by splitting the
+     * files into independent parts first, see {@link AnchorPartitioner}: their common prefix and suffix, and the lines
+     * that occur once in each file and in the same order, are copied as they are, and every part between them is
+     * diffed on its own by {@link #adaptiveDiff()}. Only the lines that differ are therefore indexed, if at all, so
+     * small edits to large files take time in the size of the edits. Lines are only copied from the part of the
+     * original file that they are diffed against, so the patch may be larger than the one of {@link #diff()} when
+     * lines are moved past an anchor. A {@link Diffr} of an already indexed original file always diffs like {@link
+     * #diff()}.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @since 1.0
+     */
+    public List<Instruction> partitionedDiff() {
+        if (null == originalFile) {
+            return diff();
         }
 
+        final List<AnchorPartitioner.Part> parts = AnchorPartitioner.partition(originalFile, newFile);
+        final List<Instruction> instructions = Lists.newArrayList();
+        for (final AnchorPartitioner.Part part : parts) {
+            appendPart(instructions, part, part.kept ? null : diffPart(part));
+        }
         return instructions;
     }
 
+    /**
+     * Gets the list of {@link Instruction}s like {@link #partitionedDiff()}, diffing the parts concurrently on this
+     * {@code executor}. A {@link Diffr} of an already indexed original file diffs like {@link
+     * #diff(ExecutorService)}.
+     *
+     * @param executor {@link ExecutorService} to diff the parts on.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @throws NullPointerException  if {@code executor} is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     * @since 1.0
+     */
+    public List<Instruction> partitionedDiff(final ExecutorService executor) {
+        checkNotNull(executor);
+        if (null == originalFile) {
+            return diff(executor);
+        }
+
+        final List<AnchorPartitioner.Part> parts = AnchorPartitioner.partition(originalFile, newFile);
+        final List<Callable<List<Instruction>>> callables = Lists.newArrayList();
+        for (final AnchorPartitioner.Part part : parts) {
+            if (!part.kept) {
+                callables.add(new Callable<List<Instruction>>() {
+                    @Override
+                    public List<Instruction> call() {
+                        return diffPart(part);
+                    }
+                });
+            }
+        }
+        final List<List<Instruction>> diffs = Tasks.invokeAll(executor, callables);
+
+        final List<Instruction> instructions = Lists.newArrayList();
+        int diff = 0;
+        for (final AnchorPartitioner.Part part : parts) {
+            appendPart(instructions, part, part.kept ? null : diffs.get(diff++));
+        }
+        return instructions;
+    }
+
+    /**
+     * Diffs the lines of a part that is not kept.
+     *
+     * @param part part to diff.
+     *
+     * @return list of {@link Instruction}s, whose copies copy lines of the part rather than of the original file.
+     */
+    private List<Instruction> diffPart(final AnchorPartitioner.Part part) {
+        final List<String> newLines = newFile.subList(part.newFrom, part.newTo);
+        if (part.originalFrom == part.originalTo) {
+            final List<Instruction> instructions = Lists.newArrayListWithCapacity(newLines.size());
+            for (final String line : newLines) {
+                instructions.add(new InsertInstruction(line));
+            }
+            return instructions;
+        }
+        return new Diffr(originalFile.subList(part.originalFrom, part.originalTo), newLines, backend).adaptiveDiff();
+    }
+
+    /**
+     * Appends the {@link Instruction}s of a part, joining copies that are contiguous.
+     *
+     * @param instructions {@link Instruction}s to append to.
+     * @param part         part to append.
+     * @param diff         {@link Instruction}s of the lines of {@code part} if it is not kept, or {@code null}.
+     */
+    private static void appendPart(final List<Instruction> instructions, final AnchorPartitioner.Part part,
+                                   final List<Instruction> diff) {
+        if (part.kept) {
+            appendCopy(instructions, part.originalFrom, part.originalTo - 1);
+            return;
+        }
+        for (final Instruction instruction : diff) {
+            if (instruction instanceof CopyInstruction) {
+                final Range<Integer> range = ((CopyInstruction) instruction).getRange();
+                appendCopy(instructions, part.originalFrom + range.lowerEndpoint(),
+                           part.originalFrom + range.upperEndpoint());
+            }
+            else {
+                instructions.add(instruction);
+            }
+        }
+    }
+
+    /**
+     * Appends a copy, or extends the last {@link Instruction} if it is a copy that ends just before it.
+     *
+     * @param instructions {@link Instruction}s to append to.
+     * @param start        first line of the original file to copy.
+     * @param end          last line of the original file to copy.
+     */
+    private static void appendCopy(final List<Instruction> instructions, final int start, final int end) {
+        if (!instructions.isEmpty() && instructions.get(instructions.size() - 1) instanceof CopyInstruction) {
+            final Range<Integer> last = ((CopyInstruction) instructions.get(instructions.size() - 1)).getRange();
+            if (last.upperEndpoint() + 1 == start) {
+                instructions.set(instructions.size() - 1,
+                                 new CopyInstruction(Ranges.closed(last.lowerEndpoint(), end)));
+                return;
+            }
+        }
+        instructions.add(new CopyInstruction(Ranges.closed(start, end)));
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s to transform {@code originalFile} to {@code newFile} on this {@code
+     * executor}: the new file is split into chunks whose {@link MatchingStatistics} are computed concurrently against
+     * the one index of the original file, which is also built on {@code executor} unless it is given. A match that
+     * reaches the end of its chunk is matched again past it, for as long as it continues, so the statistics of every
+     * line are the ones of the whole new file and the list is the same as the one of {@link #diff()}.
+     *
+     * @param executor {@link ExecutorService} to run the tasks on.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @throws NullPointerException  if {@code executor} is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     * @since 1.0
+     */
+    public List<Instruction> diff(final ExecutorService executor) {
+        return diff(executor, tasks(newFile.size()));
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s on this {@code executor}, see {@link #diff(ExecutorService)}.
+     *
+     * @param executor {@link ExecutorService} to run the tasks on.
+     * @param tasks    number of chunks to split the new file into.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @throws NullPointerException     if {@code executor} is null.
+     * @throws IllegalArgumentException if {@code tasks} is not positive.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     */
+    List<Instruction> diff(final ExecutorService executor, final int tasks) {
+
+        checkNotNull(executor);
+        checkArgument(tasks > 0, "Tasks must be positive: %s", tasks);
+        final SuffixTree<String> suffixTree = suffixTree(executor);
+        final int chunkSize = Math.max(1, (newFile.size() + tasks - 1) / tasks);
+
+        // Every task fills in the statistics of its own chunk.
+        final int[] lengths = new int[newFile.size()];
+        final int[] starts = new int[newFile.size()];
+        final List<Callable<Void>> callables = Lists.newArrayList();
+        for (int start = 0; start < newFile.size(); start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(start + chunkSize, newFile.size());
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    matchChunk(suffixTree, from, to, lengths, starts);
+                    return null;
+                }
+            });
+        }
+        Tasks.invokeAll(executor, callables);
+
+        return instructions(new MatchingStatistics(lengths, starts));
+    }
+
+    /**
+     * Computes the {@link MatchingStatistics} of the lines of the new file between these indices. The matches that
+     * are cut short by the end of the chunk are matched again from the first of them, over twice as many lines each
+     * time, until the match of the last line of the chunk ends before the lines that are matched.
+     *
+     * @param suffixTree {@link SuffixTree} of the original file.
+     * @param from       index of the first line of the chunk, inclusive.
+     * @param to         index of the last line of the chunk, exclusive.
+     * @param lengths    lengths of the matches of the new file, to fill in between {@code from} and {@code to}.
+     * @param starts     starts of the matches of the new file, to fill in between {@code from} and {@code to}.
+     */
+    private void matchChunk(final SuffixTree<String> suffixTree, final int from, final int to, final int[] lengths,
+                            final int[] starts) {
+
+        final MatchingStatistics statistics = suffixTree.matchingStatistics(newFile.subList(from, to));
+        // A match that ends at the end of the chunk may continue past it. The match of the next line is at most one
+        // line shorter, so the matches that are cut short are the ones of the last lines of the chunk.
+        int cut = to;
+        while (cut > from && to < newFile.size() && cut - 1 + statistics.length(cut - 1 - from) == to) {
+            cut--;
+        }
+        copy(statistics, from, cut, lengths, starts);
+        if (cut == to) {
+            return;
+        }
+
+        int end = to;
+        MatchingStatistics extended;
+        do {
+            end = (int) Math.min(newFile.size(), 2L * end - cut);
+            extended = suffixTree.matchingStatistics(newFile.subList(cut, end));
+        }
+        while (end < newFile.size() && to - 1 + extended.length(to - 1 - cut) == end);
+        copy(extended, cut, to, lengths, starts);
+    }
+
+    /**
+     * Copies {@link MatchingStatistics} of the lines of the new file between these indices into arrays.
+     *
+     * @param statistics {@link MatchingStatistics} of the lines starting at {@code from}.
+     * @param from       index of the first line to copy, inclusive.
+     * @param to         index of the last line to copy, exclusive.
+     * @param lengths    lengths of the matches of the new file.
+     * @param starts     starts of the matches of the new file.
+     */
+    private static void copy(final MatchingStatistics statistics, final int from, final int to, final int[] lengths,
+                             final int[] starts) {
+        for (int index = from; index < to; index++) {
+            lengths[index] = statistics.length(index - from);
+            if (0 != lengths[index]) {
+                starts[index] = statistics.start(index - from);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the original file: the given one, the one in the cache or a new one, built on this {@code
+     * executor} if it is not null.
+     *
+     * @param executor {@link ExecutorService} to build the index on, or {@code null} to build it on this thread.
+     *
+     * @return {@link SuffixTree} of the original file.
+     */
+    private SuffixTree<String> suffixTree(final ExecutorService executor) {
+        if (null != originalIndex) {
+            return originalIndex;
+        }
+        if (null != cache) {
+            return cache.get(this.originalFile, backend);
+        }
+        return null == executor
+                ? SuffixTrees.newSuffixTree(this.originalFile, backend)
+                : SuffixTrees.newSuffixTree(this.originalFile, backend, executor);
+    }
+
+    /**
+     * Gets the number of chunks to split a new file of {@code size} lines into: a few per processor, so that the
+     * threads stay busy when the chunks are uneven, but none smaller than {@value #MIN_CHUNK} lines.
+     *
+     * @param size number of lines.
+     *
+     * @return number of chunks.
+     */
+    static int tasks(final int size) {
+        return Tasks.tasks(size, MIN_CHUNK);
+    }
 }
@@ -0,0 +1,98 @@
+package diffr.diff;
+
+import com.google.common.collect.Sets;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Chooses between diffing with {@link MyersDiffr}, which takes time in the number of edits, and indexing the original
+ * file in a suffix tree, which takes time in the size of the files. The number of edits is estimated cheaply:
+ *
+ * <ul>
+ * <li>the common prefix and suffix of the files are kept, so only the lines between them can be edits;</li>
+ * <li>a sample of the lines of the new file between them is looked up in the lines of the original file between
+ * them, and the sampled lines that are not found are taken as the rate of lines inserted;</li>
+ * <li>whatever the new file does not insert or keep of the lines between them is deleted.</li>
+ * </ul>
+ *
+ * Lines that are moved rather than inserted are not seen by the estimate, which is why {@link MyersDiffr} gives up
+ * once it exceeds its edits.
+ *
+ * @since 1.0
+ */
+final class EngineSelector {
+
+    /**
+     * Number of lines of the new file that are looked up in the original file.
+     */
+    static final int SAMPLE_SIZE = 64;
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public EngineSelector() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Whether {@link MyersDiffr} is expected to diff these files faster than a suffix tree: when the estimated number
+     * of edits is at most half of {@link MyersDiffr#MAX_EDITS}.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     *
+     * @return {@code true} to diff with {@link MyersDiffr}.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    static boolean prefersMyers(final List<String> originalFile, final List<String> newFile) {
+        return estimateEdits(originalFile, newFile) <= MyersDiffr.MAX_EDITS / 2;
+    }
+
+    /**
+     * Estimates the number of lines inserted or deleted to transform {@code originalFile} to {@code newFile}.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     *
+     * @return estimated number of edits, exact if the files only differ in their common prefix and suffix.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    static long estimateEdits(final List<String> originalFile, final List<String> newFile) {
+
+        checkNotNull(originalFile);
+        checkNotNull(newFile);
+        final int prefix = AnchorPartitioner.commonPrefix(originalFile, 0, originalFile.size(),
+                                                          newFile, 0, newFile.size());
+        final int suffix = AnchorPartitioner.commonSuffix(originalFile, prefix, originalFile.size(),
+                                                          newFile, prefix, newFile.size());
+
+        final int originalMiddle = originalFile.size() - prefix - suffix;
+        final int newMiddle = newFile.size() - prefix - suffix;
+        if (0 == originalMiddle || 0 == newMiddle) {
+            return originalMiddle + newMiddle;
+        }
+
+        final Set<String> originalLines = Sets.newHashSet(originalFile.subList(prefix, prefix + originalMiddle));
+        final int samples = Math.min(SAMPLE_SIZE, newMiddle);
+        int missing = 0;
+        for (int i = 0; i < samples; i++) {
+            // Evenly spaced, so that an edit anywhere between the prefix and the suffix can be sampled.
+            if (!originalLines.contains(newFile.get(prefix + (int) ((long) i * newMiddle / samples)))) {
+                missing++;
+            }
+        }
+
+        final long inserted = ((long) missing * newMiddle + samples - 1) / samples;
+        final long deleted = Math.max(0, originalMiddle - (newMiddle - inserted));
+        return inserted + deleted;
+    }
+}
@@ -1,18 +1,32 @@
 package diffr.diff;
 
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
+import com.google.common.primitives.Ints;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
 import diffr.util.ArgumentsProcessor;
 import diffr.util.instruction.Instruction;
-import diffr.util.instruction.InstructionComposer;
+import diffr.util.instruction.InstructionOptimizer;
+import diffr.util.instruction.InstructionParser;
+import diffr.util.instruction.InstructionSink;
 import diffr.util.instruction.Instructions;
+import diffr.util.io.LineIndex;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main entry point to diffr's DIFF tool.
@@ -24,6 +38,30 @@ import java.util.List;
  * <li>&lt;new-file&gt; - The new version of the original file to diff.</li>
  * </ul>
  * </p>
+ * <p>
+ * An original file that is diffed often can be indexed once with {@code --write-index <original-file>
+ * <index-file>} and then diffed with {@code --index <index-file> <new-file>}, which opens the index instead of
+ * reading and indexing the original file.
+ * </p>
+ * <p>
+ * Files that are too large to be held in memory can be diffed with {@code --window <lines> <original-file>
+ * <new-file>}, which only holds a window of that many lines of the original file, see {@link WindowedDiffr}.
+ * </p>
+ * <p>
+ * The new file is streamed rather than read up front and every instruction is written as soon as it is known, see
+ * {@link StreamingDiffr}. A new file of {@code -} is read from the standard input, so that the tool can be used in a
+ * pipeline, e.g. {@code generate | diffr original.txt - | compress}.
+ * </p>
+ * <p>
+ * {@code --optimal <original-file> <new-file>} reads the whole new file and writes the smallest patch, see {@link
+ * Diffr#optimalDiff()}, for patches that are sent to many hosts, and {@code --optimize <original-file>
+ * <patch-file>} rewrites an existing patch file with an {@link InstructionOptimizer}.
+ * </p>
+ * <p>
+ * {@code --adaptive <original-file> <new-file>} reads both files, splits them into the parts that differ and diffs
+ * every part with whichever engine is expected to be faster, see {@link Diffr#partitionedDiff()}, so two versions of
+ * a file are diffed without indexing the original file.
+ * </p>
  *
  * @author Jakub D Kozlowski
  * @author Sarina Gurung
@@ -31,13 +69,44 @@ import java.util.List;
  */
 public final class Main {
 
+    private static final String WRITE_INDEX_ARGUMENT = "--write-index";
+
+    private static final String INDEX_ARGUMENT = "--index";
+
+    private static final String WINDOW_ARGUMENT = "--window";
+
+    private static final String OPTIMAL_ARGUMENT = "--optimal";
+
+    private static final String OPTIMIZE_ARGUMENT = "--optimize";
+
+    private static final String ADAPTIVE_ARGUMENT = "--adaptive";
+
+    private static final String STDIN_ARGUMENT = "-";
+
+    /**
+     * Largest copy that {@value #OPTIMIZE_ARGUMENT} replaces by inserts, no copy of more lines can be cheaper.
+     */
+    private static final int MAX_INLINED_LINES = 8;
+
     /**
      * Prints the usage of this tool.
      */
     private static void printUsage() {
         System.out.println("Usage: \n" +
                                    "    diffr <original-file> <new-file>\n" +
-                                   "    diffr <original-file> <new-file> -o <output-file>");
+                                   "    diffr <original-file> <new-file> -o <output-file>\n" +
+                                   "    diffr --write-index <original-file> <index-file>\n" +
+                                   "    diffr --index <index-file> <new-file>\n" +
+                                   "    diffr --index <index-file> <new-file> -o <output-file>\n" +
+                                   "    diffr --window <lines> <original-file> <new-file>\n" +
+                                   "    diffr --window <lines> <original-file> <new-file> -o <output-file>\n" +
+                                   "    diffr --optimal <original-file> <new-file>\n" +
+                                   "    diffr --optimal <original-file> <new-file> -o <output-file>\n" +
+                                   "    diffr --optimize <original-file> <patch-file>\n" +
+                                   "    diffr --optimize <original-file> <patch-file> -o <output-file>\n" +
+                                   "    diffr --adaptive <original-file> <new-file>\n" +
+                                   "    diffr --adaptive <original-file> <new-file> -o <output-file>\n" +
+                                   "A <new-file> of - is read from the standard input.");
     }
 
     /**
@@ -49,48 +118,104 @@ public final class Main {
      */
     public static int run(String... args) {
         try {
-            if (ArgumentsProcessor.containsHelpArgument(args)
-                    || (2 != args.length
-                    && 4 != args.length)) {
+            if (ArgumentsProcessor.containsHelpArgument(args)) {
+                printUsage();
+                return -1;
+            }
+
+            if (0 < args.length && WRITE_INDEX_ARGUMENT.equals(args[0])) {
+                return writeIndex(args);
+            }
+
+            if (0 < args.length && OPTIMIZE_ARGUMENT.equals(args[0])) {
+                return optimize(args);
+            }
+
+            final boolean indexed = 0 < args.length && INDEX_ARGUMENT.equals(args[0]);
+            final boolean windowed = 0 < args.length && WINDOW_ARGUMENT.equals(args[0]);
+            final boolean optimal = 0 < args.length && OPTIMAL_ARGUMENT.equals(args[0]);
+            final boolean adaptive = 0 < args.length && ADAPTIVE_ARGUMENT.equals(args[0]);
+            final int offset = indexed || optimal || adaptive ? 1 : windowed ? 2 : 0;
+            if (2 + offset != args.length
+                    && 4 + offset != args.length) {
+                printUsage();
+                return -1;
+            }
+
+            final Integer windowSize = windowed ? parseWindowSize(args[1]) : null;
+            if (windowed && null == windowSize) {
                 printUsage();
                 return -1;
             }
 
-            final File firstFile = new File(args[0]);
-            final File secondFile = new File(args[1]);
+            final File firstFile = new File(args[offset]);
+            final boolean fromStdin = STDIN_ARGUMENT.equals(args[offset + 1]);
+            final File secondFile = new File(args[offset + 1]);
 
             if (!firstFile.exists()) {
                 System.err.println("File " + firstFile + " not found.");
                 return -1;
             }
 
-            if (!secondFile.exists()) {
+            if (!fromStdin && !secondFile.exists()) {
                 System.err.println("File " + secondFile + " not found.");
                 return -1;
             }
 
-            final List<String> originalFile = Files.readLines(firstFile, Charset.defaultCharset());
-            final List<String> newFile = Files.readLines(secondFile, Charset.defaultCharset());
-
-            final List<Instruction> instructions = new Diffr(originalFile, newFile).diff();
-
             final Optional<String> outputFile = ArgumentsProcessor.extractOutputFile(args);
+            final boolean toFile = 4 + offset == args.length && outputFile.isPresent();
 
-            if (4 == args.length
-                    && outputFile.isPresent()) {
-
-                final File file = new File(outputFile.get());
-                final BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file));
-                for (final Instruction instruction : instructions) {
-                    Instructions.writeInstruction(instruction, bufferedWriter);
+            // Only the original file, or its window, is held in memory: the new file is streamed through and every
+            // instruction is written as soon as it is known.
+            final BufferedReader newReader = fromStdin
+                    ? new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()))
+                    : Files.newReader(secondFile, Charset.defaultCharset());
+            final BufferedWriter writer = toFile
+                    ? Files.newWriter(new File(outputFile.get()), Charset.defaultCharset())
+                    : new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+            final InstructionSink sink = Instructions.newWriterSink(writer);
+            try {
+                if (windowed) {
+                    final BufferedReader originalReader = Files.newReader(firstFile, Charset.defaultCharset());
+                    try {
+                        new WindowedDiffr(originalReader, newReader, windowSize).diff(sink);
+                    }
+                    finally {
+                        originalReader.close();
+                    }
+                }
+                else if (adaptive) {
+                    final Diffr diffr = new Diffr(Files.readLines(firstFile, Charset.defaultCharset()),
+                                                  CharStreams.readLines(newReader));
+                    for (final Instruction instruction : diffr.partitionedDiff()) {
+                        sink.accept(instruction);
+                    }
+                }
+                else {
+                    final SuffixTree<String> originalIndex = indexed
+                            ? SuffixTrees.openSuffixIndex(firstFile)
+                            : indexLines(firstFile);
+                    if (optimal) {
+                        final List<String> newFile = CharStreams.readLines(newReader);
+                        for (final Instruction instruction : new Diffr(originalIndex, newFile).optimalDiff()) {
+                            sink.accept(instruction);
+                        }
+                    }
+                    else {
+                        new StreamingDiffr(originalIndex).diff(newReader, sink);
+                    }
                 }
-                bufferedWriter.close();
             }
-            else {
-                for (final Instruction instruction : instructions) {
-                    System.out.println(InstructionComposer.composeString(instruction));
+            finally {
+                if (!fromStdin) {
+                    newReader.close();
+                }
+                if (toFile) {
+                    writer.close();
+                }
+                else {
+                    writer.flush();
                 }
-                System.out.flush();
             }
 
             return 0;
@@ -101,6 +226,171 @@ public final class Main {
         }
     }
 
+    /**
+     * Indexes an original file on every processor and writes the index to an index file.
+     *
+     * @param args arguments to this tool, starting with {@value #WRITE_INDEX_ARGUMENT}.
+     *
+     * @return exit code.
+     *
+     * @throws IOException if the original file cannot be read or the index file cannot be written.
+     */
+    private static int writeIndex(final String... args) throws IOException {
+        if (3 != args.length) {
+            printUsage();
+            return -1;
+        }
+
+        final File originalFile = new File(args[1]);
+        if (!originalFile.exists()) {
+            System.err.println("File " + originalFile + " not found.");
+            return -1;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            final LineIndex lineIndex = LineIndex.open(originalFile, Charset.defaultCharset(), executor);
+            try {
+                SuffixTrees.writeSuffixIndex(decodedLines(lineIndex), new File(args[2]), executor);
+            }
+            finally {
+                lineIndex.close();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the number of lines of the window of {@value #WINDOW_ARGUMENT}.
+     *
+     * @param argument argument to parse.
+     *
+     * @return number of lines, or {@code null} if {@code argument} is not a number of at least {@code 2}.
+     */
+    private static Integer parseWindowSize(final String argument) {
+        final Integer windowSize = Ints.tryParse(argument);
+        return null == windowSize || windowSize < 2 ? null : windowSize;
+    }
+
+    /**
+     * Rewrites a patch file of an original file with an {@link InstructionOptimizer}.
+     *
+     * @param args arguments to this tool, starting with {@value #OPTIMIZE_ARGUMENT}.
+     *
+     * @return exit code.
+     *
+     * @throws IOException if the files cannot be read or the output file cannot be written.
+     */
+    private static int optimize(final String... args) throws IOException {
+        if (3 != args.length && 5 != args.length) {
+            printUsage();
+            return -1;
+        }
+
+        final File originalFile = new File(args[1]);
+        final File patchFile = new File(args[2]);
+        for (final File file : new File[]{originalFile, patchFile}) {
+            if (!file.exists()) {
+                System.err.println("File " + file + " not found.");
+                return -1;
+            }
+        }
+
+        // The patch file is validated before anything is written, so that an illegal line neither leaves a partial
+        // output file nor cuts off the instructions that the optimizer holds back.
+        final Optional<String> illegalLine = findIllegalLine(patchFile);
+        if (illegalLine.isPresent()) {
+            System.err.println("Illegal patch instruction: " + illegalLine.get());
+            return -1;
+        }
+
+        final Optional<String> outputFile = ArgumentsProcessor.extractOutputFile(args);
+        final boolean toFile = 5 == args.length && outputFile.isPresent();
+        final LineIndex lineIndex = LineIndex.open(originalFile);
+        final BufferedReader patchReader = Files.newReader(patchFile, Charset.defaultCharset());
+        final BufferedWriter writer = toFile
+                ? Files.newWriter(new File(outputFile.get()), Charset.defaultCharset())
+                : new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()));
+        try {
+            // Only the lines of the copies that are inlined are decoded.
+            final InstructionOptimizer optimizer = new InstructionOptimizer(
+                    Instructions.newWriterSink(writer), decodedLines(lineIndex), MAX_INLINED_LINES);
+            for (String line = patchReader.readLine(); null != line; line = patchReader.readLine()) {
+                optimizer.accept(InstructionParser.parseInstruction(line).get());
+            }
+            optimizer.finish();
+            return 0;
+        }
+        finally {
+            patchReader.close();
+            lineIndex.close();
+            if (toFile) {
+                writer.close();
+            }
+            else {
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Indexes the lines of an original file with a {@link Backend#SUFFIX_TREE}. The file is mapped rather than read,
+     * and every line is decoded once to be interned, so only its distinct lines are held in memory.
+     *
+     * @param originalFile original file to index.
+     *
+     * @return {@link SuffixTree} of the lines of {@code originalFile}.
+     *
+     * @throws IOException if the original file cannot be read.
+     */
+    private static SuffixTree<String> indexLines(final File originalFile) throws IOException {
+        final LineIndex lineIndex = LineIndex.open(originalFile);
+        try {
+            return SuffixTrees.newSuffixTree(decodedLines(lineIndex), Backend.SUFFIX_TREE);
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    /**
+     * Gets a view of the lines of this {@code lineIndex} that decodes a line every time it is read.
+     *
+     * @param lineIndex {@link LineIndex} of a file.
+     *
+     * @return decoded lines of {@code lineIndex}.
+     */
+    private static List<String> decodedLines(final LineIndex lineIndex) {
+        return Lists.transform(lineIndex, Functions.toStringFunction());
+    }
+
+    /**
+     * Finds the first line of a patch file that is not an {@link Instruction}.
+     *
+     * @param patchFile patch file to read.
+     *
+     * @return the first illegal line, or {@link Optional#absent()} if every line is an {@link Instruction}.
+     *
+     * @throws IOException if the patch file cannot be read.
+     */
+    private static Optional<String> findIllegalLine(final File patchFile) throws IOException {
+        final BufferedReader patchReader = Files.newReader(patchFile, Charset.defaultCharset());
+        try {
+            for (String line = patchReader.readLine(); null != line; line = patchReader.readLine()) {
+                if (!InstructionParser.parseInstruction(line).isPresent()) {
+                    return Optional.of(line);
+                }
+            }
+            return Optional.absent();
+        }
+        finally {
+            patchReader.close();
+        }
+    }
+
     /**
      * Invokes {@link #run(String...)} and calls {@link System#exit(int)}.
      *
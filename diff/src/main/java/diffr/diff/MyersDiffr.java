@@ -0,0 +1,189 @@
+package diffr.diff;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.token.LineTokenizer;
+import diffr.util.token.SymbolTable;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Diffs two files with Myers' {@code O(ND)} algorithm, where {@code N} is the number of lines of both files and
+ * {@code D} the number of lines inserted or deleted. Nothing is indexed: the shortest edit script is found by
+ * extending the furthest reaching paths of {@code d} edits on every diagonal for {@code d = 0, 1, ...} until one
+ * reaches the end of both files, so files that differ in a few lines are diffed in little more than the time it
+ * takes to compare them. Both files are tokenized into one {@link SymbolTable} first, so that comparing two lines
+ * compares two {@code int}s however long the lines are.
+ * <p/>
+ * <p>
+ * The lines that are kept are copied in the order of the original file and the lines that are added are inserted,
+ * so moved lines are inserted again rather than copied from where they were. The furthest reaching paths of every
+ * round are kept to recover the edit script, i.e. {@code O(D^2)} memory, so the number of edits is bounded and the
+ * diff gives up once it is exceeded, see {@link EngineSelector}.
+ * </p>
+ *
+ * @since 1.0
+ */
+final class MyersDiffr {
+
+    /**
+     * Largest number of edits that {@link Diffr#adaptiveDiff()} lets this engine find, about 4MB of paths.
+     */
+    static final int MAX_EDITS = 1024;
+
+    // Marks a diagonal that no path of that many edits reaches without leaving the files.
+    private static final int NONE = -1;
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public MyersDiffr() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Gets the list of {@link Instruction}s of the shortest edit script that transforms {@code originalFile} to
+     * {@code newFile}, if it takes at most {@code maxEdits} lines inserted or deleted.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     * @param maxEdits     largest number of lines inserted or deleted to look for.
+     *
+     * @return list of {@link Instruction}s, or absent if it takes more than {@code maxEdits} edits.
+     *
+     * @throws NullPointerException     if {@code originalFile} or {@code newFile} is null.
+     * @throws IllegalArgumentException if {@code maxEdits} is negative.
+     */
+    static Optional<List<Instruction>> diff(final List<String> originalFile, final List<String> newFile,
+                                            final int maxEdits) {
+
+        checkNotNull(originalFile);
+        checkNotNull(newFile);
+        checkArgument(maxEdits >= 0, "Negative maximum edits: %s", maxEdits);
+
+        final SymbolTable symbolTable = new SymbolTable();
+        final int[] original = LineTokenizer.tokenize(originalFile, symbolTable);
+        final int[] revised = LineTokenizer.tokenize(newFile, symbolTable);
+        final int n = original.length;
+        final int m = revised.length;
+        // Furthest x reached on every diagonal k = x - y, from -d to d, by paths of d edits.
+        final List<int[]> paths = Lists.newArrayList();
+        for (int d = 0; d <= Math.min(maxEdits, n + m); d++) {
+            final int[] previous = 0 == d ? null : paths.get(d - 1);
+            final int[] current = new int[2 * d + 1];
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (0 == d) {
+                    x = 0;
+                }
+                else if (down(previous, d, k, n, m)) {
+                    x = previous[k + 1 + d - 1];
+                }
+                else if (right(previous, d, k, n)) {
+                    x = previous[k - 1 + d - 1] + 1;
+                }
+                else {
+                    current[k + d] = NONE;
+                    continue;
+                }
+                int y = x - k;
+                while (x < n && y < m && original[x] == revised[y]) {
+                    x++;
+                    y++;
+                }
+                current[k + d] = x;
+                if (n == x && m == y) {
+                    paths.add(current);
+                    return Optional.of(instructions(paths, newFile, n, m));
+                }
+            }
+            paths.add(current);
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Whether the path of {@code d} edits on diagonal {@code k} is best reached by inserting a line of the new file,
+     * moving down from diagonal {@code k + 1}, rather than by deleting a line of the original file.
+     *
+     * @param previous furthest reaching paths of {@code d - 1} edits.
+     * @param d        number of edits.
+     * @param k        diagonal.
+     * @param n        number of lines of the original file.
+     * @param m        number of lines of the new file.
+     *
+     * @return {@code true} to move down from diagonal {@code k + 1}.
+     */
+    private static boolean down(final int[] previous, final int d, final int k, final int n, final int m) {
+        if (k + 1 > d - 1 || NONE == previous[k + 1 + d - 1] || previous[k + 1 + d - 1] - (k + 1) >= m) {
+            return false;
+        }
+        // A tie goes down, so that inserts come before deletes.
+        return !right(previous, d, k, n) || previous[k - 1 + d - 1] + 1 <= previous[k + 1 + d - 1];
+    }
+
+    /**
+     * Whether the path of {@code d} edits on diagonal {@code k} can be reached by deleting a line of the original
+     * file, moving right from diagonal {@code k - 1}.
+     *
+     * @param previous furthest reaching paths of {@code d - 1} edits.
+     * @param d        number of edits.
+     * @param k        diagonal.
+     * @param n        number of lines of the original file.
+     *
+     * @return {@code true} to move right from diagonal {@code k - 1}.
+     */
+    private static boolean right(final int[] previous, final int d, final int k, final int n) {
+        return k - 1 >= -(d - 1) && NONE != previous[k - 1 + d - 1] && previous[k - 1 + d - 1] < n;
+    }
+
+    /**
+     * Recovers the {@link Instruction}s of the path that reaches the end of both files by walking its edits back.
+     *
+     * @param paths   furthest reaching paths of every number of edits, the last of which reaches the end.
+     * @param newFile new file to transform the original file to.
+     * @param n       number of lines of the original file.
+     * @param m       number of lines of the new file.
+     *
+     * @return list of {@link Instruction}s.
+     */
+    private static List<Instruction> instructions(final List<int[]> paths, final List<String> newFile, final int n,
+                                                  final int m) {
+        final List<Instruction> instructions = Lists.newArrayList();
+        int x = n;
+        int y = m;
+        for (int d = paths.size() - 1; 0 <= d; d--) {
+            final int k = x - y;
+            final int[] previous = 0 == d ? null : paths.get(d - 1);
+            final boolean down = 0 < d && down(previous, d, k, n, m);
+            final int startX = 0 == d ? 0 : down ? previous[k + 1 + d - 1] : previous[k - 1 + d - 1] + 1;
+            final int startY = startX - k;
+            if (startX < x) {
+                instructions.add(new CopyInstruction(Ranges.closed(startX, x - 1)));
+            }
+            if (0 < d && down) {
+                instructions.add(new InsertInstruction(newFile.get(startY - 1)));
+                x = startX;
+                y = startY - 1;
+            }
+            else {
+                x = startX - 1;
+                y = startY;
+            }
+        }
+        Collections.reverse(instructions);
+        return instructions;
+    }
+}
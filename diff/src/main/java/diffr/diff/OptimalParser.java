@@ -0,0 +1,192 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionCosts;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parses a new file into the {@link Instruction}s of the smallest patch file, see {@link InstructionCosts}, given
+ * the {@link MatchingStatistics} of the new file against the original file. Any prefix of the longest match that
+ * starts at a line can be copied, so, going backwards from the end of the new file, the cheapest patch of the lines
+ * from {@code i} is the cheapest of:
+ *
+ * <ul>
+ * <li>inserting line {@code i}, followed by the cheapest patch of the lines from {@code i + 1};</li>
+ * <li>copying {@code l} lines for any {@code l} up to the length of the match at {@code i}, followed by the cheapest
+ * patch of the lines from {@code i + l}.</li>
+ * </ul>
+ *
+ * The cost of a copy only changes with the number of digits of its last line, so the copies are split into runs of
+ * lengths whose last lines have the same number of digits, and the cheapest patch after each run is found by a range
+ * minimum query on a segment tree of the costs computed so far. Parsing therefore takes {@code O(n log n)} time for
+ * {@code n} lines of the new file, however long the matches are. Ties are broken towards longer copies, so that the
+ * patch also has as few {@link Instruction}s as possible.
+ *
+ * @since 1.0
+ */
+final class OptimalParser {
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+                                                 100000000L, 1000000000L, 10000000000L};
+
+    private final long[] costs;
+
+    // Segment tree of the positions with the cheapest patch, leaves start at size; -1 marks a position not computed.
+    private final int[] tree;
+
+    private final int size;
+
+    /**
+     * Default constructor.
+     *
+     * @param positions number of positions, i.e. the number of lines of the new file plus one.
+     */
+    private OptimalParser(final int positions) {
+        int size = 1;
+        while (size < positions) {
+            size <<= 1;
+        }
+        this.size = size;
+        this.costs = new long[positions];
+        this.tree = new int[2 * size];
+        Arrays.fill(tree, -1);
+    }
+
+    /**
+     * Parses this {@code newFile} into the {@link Instruction}s of the smallest patch file.
+     *
+     * @param newFile    new file to transform the original file to.
+     * @param statistics {@link MatchingStatistics} of {@code newFile} against the original file.
+     *
+     * @return list of {@link Instruction}s.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if {@code statistics} are not of the size of {@code newFile}.
+     */
+    static List<Instruction> parse(final List<String> newFile, final MatchingStatistics statistics) {
+
+        checkNotNull(newFile);
+        checkNotNull(statistics);
+        final int n = newFile.size();
+        checkArgument(statistics.size() == n, "Statistics of %s lines for %s lines", statistics.size(), n);
+
+        final OptimalParser parser = new OptimalParser(n + 1);
+        // Length of the copy at every line, or 0 to insert it.
+        final int[] choices = new int[n];
+        parser.set(n, 0);
+
+        for (int i = n - 1; 0 <= i; i--) {
+            long best = InstructionCosts.insertCost(newFile.get(i)) + parser.costs[i + 1];
+            int choice = 0;
+
+            final int length = statistics.length(i);
+            if (0 < length) {
+                final int start = statistics.start(i);
+                int from = 1;
+                while (from <= length) {
+                    // The longest run of lengths whose last lines have as many digits as the one of length from.
+                    final int digits = InstructionCosts.digits(start + from - 1);
+                    final int to = (int) Math.min(length, POWERS_OF_TEN[digits] - start);
+
+                    final int position = parser.min(i + from, i + to);
+                    final long cost = InstructionCosts.copyCost(start, start + position - i - 1)
+                            + parser.costs[position];
+                    // Later runs are longer, so a tie goes to the longer copy.
+                    if (cost <= best) {
+                        best = cost;
+                        choice = position - i;
+                    }
+                    from = to + 1;
+                }
+            }
+
+            choices[i] = choice;
+            parser.set(i, best);
+        }
+
+        final List<Instruction> instructions = Lists.newArrayList();
+        int index = 0;
+        while (index < n) {
+            if (0 == choices[index]) {
+                instructions.add(new InsertInstruction(newFile.get(index)));
+                index++;
+            }
+            else {
+                final int start = statistics.start(index);
+                instructions.add(new CopyInstruction(Ranges.closed(start, start + choices[index] - 1)));
+                index += choices[index];
+            }
+        }
+        return instructions;
+    }
+
+    /**
+     * Sets the cost of the cheapest patch of the lines from this {@code position}.
+     *
+     * @param position position to set the cost of.
+     * @param cost     cost of the cheapest patch of the lines from {@code position}.
+     */
+    private void set(final int position, final long cost) {
+        costs[position] = cost;
+        int node = size + position;
+        tree[node] = position;
+        for (node >>= 1; 0 < node; node >>= 1) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Gets the position with the cheapest patch between {@code from} and {@code to}, inclusive, all of which must
+     * have been set.
+     *
+     * @param from first position.
+     * @param to   last position.
+     *
+     * @return position with the cheapest patch, the last one of the cheapest.
+     */
+    private int min(final int from, final int to) {
+        int best = -1;
+        for (int lo = from + size, hi = to + size + 1; lo < hi; lo >>= 1, hi >>= 1) {
+            if (1 == (lo & 1)) {
+                best = better(best, tree[lo++]);
+            }
+            if (1 == (hi & 1)) {
+                best = better(best, tree[--hi]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the position with the cheaper patch of these two, the later one if they are as cheap.
+     *
+     * @param first  first position, or {@code -1}.
+     * @param second second position, or {@code -1}.
+     *
+     * @return the better position, or {@code -1} if both are {@code -1}.
+     */
+    private int better(final int first, final int second) {
+        if (-1 == first) {
+            return second;
+        }
+        if (-1 == second) {
+            return first;
+        }
+        final long firstCost = costs[first];
+        final long secondCost = costs[second];
+        if (firstCost != secondCost) {
+            return firstCost < secondCost ? first : second;
+        }
+        return Math.max(first, second);
+    }
+}
@@ -0,0 +1,163 @@
+package diffr.diff;
+
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTree.Matcher;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionSink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates the {@link Instruction}s to transform an original file into a new file that is read one line at a time,
+ * and passes every {@link Instruction} to an {@link InstructionSink} as soon as it is known. Only the index of the
+ * original file is held in memory: a line of the new file is dropped as soon as it has been matched, so the new file
+ * can be of any size or come from a pipe.
+ * <p/>
+ * The new file is parsed greedily, like {@link Diffr#diff()} does: the lines of the new file are matched in the
+ * index of the original file for as long as they continue the match, the copy is passed on when a line breaks it and
+ * that line is matched again from the root. A line that does not occur in the original file is inserted.
+ *
+ * @since 1.0
+ */
+public final class StreamingDiffr {
+
+    private final SuffixTree<String> originalIndex;
+
+    /**
+     * Default constructor.
+     *
+     * @param originalIndex {@link SuffixTree} of the original file to be transform, e.g. built by {@link
+     *                      diffr.suffixtree.SuffixTrees#newSuffixTree(java.util.List,
+     *                      diffr.suffixtree.SuffixTrees.Backend)} or opened by {@link
+     *                      diffr.suffixtree.SuffixTrees#openSuffixIndex(java.io.File)}.
+     *
+     * @throws NullPointerException if {@code originalIndex} is null.
+     */
+    public StreamingDiffr(final SuffixTree<String> originalIndex) {
+        this.originalIndex = checkNotNull(originalIndex);
+    }
+
+    /**
+     * Reads the new file to the end and passes the {@link Instruction}s to transform the original file to it to this
+     * {@code sink}, see {@link #diff(Iterator, InstructionSink)}.
+     *
+     * @param newFile new file to transform the original file to, it is not closed.
+     * @param sink    {@link InstructionSink} to pass the {@link Instruction}s to.
+     *
+     * @throws NullPointerException if any parameter is null.
+     * @throws IOException          if {@code newFile} cannot be read or {@code sink} throws it.
+     */
+    public void diff(final BufferedReader newFile, final InstructionSink sink) throws IOException {
+        checkNotNull(newFile);
+        checkNotNull(sink);
+        final Parser parser = new Parser(sink);
+        for (String line = newFile.readLine(); null != line; line = newFile.readLine()) {
+            parser.next(line);
+        }
+        parser.finish();
+    }
+
+    /**
+     * Passes the {@link Instruction}s to transform the original file to the lines of this {@code newFile} to this
+     * {@code sink}. A copy is passed as soon as the line that breaks it is read, and an insert as soon as its line is
+     * read.
+     *
+     * @param newFile lines of the new file to transform the original file to.
+     * @param sink    {@link InstructionSink} to pass the {@link Instruction}s to.
+     *
+     * @throws NullPointerException if any parameter or any of the lines is null.
+     * @throws IOException          if {@code sink} throws it.
+     */
+    public void diff(final Iterator<String> newFile, final InstructionSink sink) throws IOException {
+        checkNotNull(newFile);
+        checkNotNull(sink);
+        final Parser parser = new Parser(sink);
+        while (newFile.hasNext()) {
+            parser.next(newFile.next());
+        }
+        parser.finish();
+    }
+
+    /**
+     * Greedy parser of the new file, that is fed one line at a time.
+     */
+    private final class Parser {
+
+        private final InstructionSink sink;
+
+        private final Matcher<String> matcher;
+
+        // Number of lines of the current copy and the index of its last line in the original file.
+        private int matched;
+
+        private int lastIndex;
+
+        /**
+         * Default constructor.
+         *
+         * @param sink {@link InstructionSink} to pass the {@link Instruction}s to.
+         */
+        private Parser(final InstructionSink sink) {
+            this.sink = sink;
+            this.matcher = originalIndex.matcher();
+        }
+
+        /**
+         * Parses the next line of the new file.
+         *
+         * @param line next line.
+         *
+         * @throws NullPointerException if {@code line} is null.
+         * @throws IOException          if {@code sink} throws it.
+         */
+        private void next(final String line) throws IOException {
+            checkNotNull(line);
+            if (matcher.matchNext(line).isMatched()) {
+                matched++;
+                lastIndex = matcher.lastIndex();
+                return;
+            }
+
+            matcher.reset();
+            if (0 < matched) {
+                // The line broke the copy, so it may start the next one.
+                flush();
+                if (matcher.matchNext(line).isMatched()) {
+                    matched++;
+                    lastIndex = matcher.lastIndex();
+                    return;
+                }
+                matcher.reset();
+            }
+            sink.accept(new InsertInstruction(line));
+        }
+
+        /**
+         * Passes the last copy, if there is one, to the sink.
+         *
+         * @throws IOException if {@code sink} throws it.
+         */
+        private void finish() throws IOException {
+            if (0 < matched) {
+                flush();
+            }
+        }
+
+        /**
+         * Passes the current copy to the sink.
+         *
+         * @throws IOException if {@code sink} throws it.
+         */
+        private void flush() throws IOException {
+            sink.accept(new CopyInstruction(Ranges.closed(lastIndex - matched + 1, lastIndex)));
+            matched = 0;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionSink;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates the {@link Instruction}s to transform an original file into a new file while holding only a window of
+ * both files in memory, so that files of any size can be diffed. Neither file is read up front:
+ *
+ * <ul>
+ * <li>the new file is read in blocks of {@code windowSize / 2} lines;</li>
+ * <li>every block is matched against a window of {@code windowSize} lines of the original file, centred on where
+ * the block is expected to be in the original file, i.e. shifted by the distance between the last copy and the lines
+ * that it was copied to, so the window follows lines that were inserted or removed;</li>
+ * <li>the window only ever slides forward and the lines that slid out of it are dropped.</li>
+ * </ul>
+ *
+ * Lines that only occur in the original file outside the window are inserted rather than copied, so the patch is
+ * larger than the one of {@link Diffr} when lines move further than the window. Copies that were split by the end of
+ * a block are joined again. The peak memory is therefore proportional to {@code windowSize}, whatever the size of the
+ * files.
+ *
+ * @since 1.0
+ */
+public final class WindowedDiffr {
+
+    private final BufferedReader originalFile;
+
+    private final BufferedReader newFile;
+
+    private final int windowSize;
+
+    private final Backend backend;
+
+    /**
+     * Default constructor. The window of the original file is indexed by a {@link Backend#SUFFIX_TREE}.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     * @param windowSize   number of lines of the original file to hold in memory.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if {@code windowSize} is less than {@code 2}.
+     */
+    public WindowedDiffr(final BufferedReader originalFile, final BufferedReader newFile, final int windowSize) {
+        this(originalFile, newFile, windowSize, Backend.SUFFIX_TREE);
+    }
+
+    /**
+     * Constructor that chooses the data structure that the window of the original file is indexed by.
+     *
+     * @param originalFile original file to be transform.
+     * @param newFile      new file to transform {@code originalFile} to.
+     * @param windowSize   number of lines of the original file to hold in memory.
+     * @param backend      data structure to index the window of {@code originalFile} by.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if {@code windowSize} is less than {@code 2}.
+     */
+    public WindowedDiffr(final BufferedReader originalFile, final BufferedReader newFile, final int windowSize,
+                         final Backend backend) {
+        checkArgument(windowSize >= 2, "Window size less than 2: %s", windowSize);
+        this.originalFile = checkNotNull(originalFile);
+        this.newFile = checkNotNull(newFile);
+        this.windowSize = windowSize;
+        this.backend = checkNotNull(backend);
+    }
+
+    /**
+     * Reads both files to the end and passes the {@link Instruction}s to transform the original file to the new file
+     * to this {@code sink}, a block of the new file at a time. Every block is parsed greedily, like {@link
+     * Diffr#diff()} parses the whole new file.
+     *
+     * @param sink {@link InstructionSink} to pass the {@link Instruction}s to.
+     *
+     * @throws NullPointerException if {@code sink} is null.
+     * @throws IOException          if either file cannot be read or {@code sink} throws it.
+     */
+    public void diff(final InstructionSink sink) throws IOException {
+
+        checkNotNull(sink);
+        final int blockSize = windowSize / 2;
+        final List<String> window = Lists.newArrayListWithCapacity(windowSize);
+        final List<String> block = Lists.newArrayListWithCapacity(blockSize);
+        int windowStart = 0;
+        int blockStart = 0;
+
+        // Distance from the lines of the new file to the lines of the original file that they were last copied from.
+        int shift = 0;
+
+        // The last copy, held back until it is known that the next copy does not continue it.
+        int copyStart = -1;
+        int copyEnd = -1;
+
+        while (readLines(newFile, block, blockSize)) {
+
+            // Slide the window so that the block is in its middle, but never back to lines that were dropped.
+            final int newWindowStart = Math.max(windowStart, blockStart + shift - (windowSize - blockSize) / 2);
+            final int dropped = newWindowStart - windowStart;
+            if (dropped < window.size()) {
+                window.subList(0, dropped).clear();
+            }
+            else {
+                skipLines(originalFile, dropped - window.size());
+                window.clear();
+            }
+            windowStart = newWindowStart;
+            readLines(originalFile, window, windowSize - window.size());
+
+            final SuffixTree<String> suffixTree = SuffixTrees.newSuffixTree(window, backend);
+            final MatchingStatistics statistics = suffixTree.matchingStatistics(block);
+
+            int index = 0;
+            while (index < statistics.size()) {
+                final int length = statistics.length(index);
+                if (0 == length) {
+                    if (-1 != copyStart) {
+                        sink.accept(new CopyInstruction(Ranges.closed(copyStart, copyEnd)));
+                        copyStart = -1;
+                    }
+                    sink.accept(new InsertInstruction(block.get(index)));
+                    index++;
+                }
+                else {
+                    final int start = windowStart + statistics.start(index);
+                    if (-1 == copyStart || copyEnd + 1 != start) {
+                        if (-1 != copyStart) {
+                            sink.accept(new CopyInstruction(Ranges.closed(copyStart, copyEnd)));
+                        }
+                        copyStart = start;
+                    }
+                    copyEnd = start + length - 1;
+                    shift = start - blockStart - index;
+                    index += length;
+                }
+            }
+
+            blockStart += block.size();
+            block.clear();
+        }
+
+        if (-1 != copyStart) {
+            sink.accept(new CopyInstruction(Ranges.closed(copyStart, copyEnd)));
+        }
+    }
+
+    /**
+     * Skips up to {@code count} lines of this {@code reader}.
+     *
+     * @param reader reader to skip the lines of.
+     * @param count  maximum number of lines to skip.
+     *
+     * @throws IOException if {@code reader} cannot be read.
+     */
+    private static void skipLines(final BufferedReader reader, final int count) throws IOException {
+        for (int i = 0; i < count && null != reader.readLine(); i++) {
+            // Skip the line.
+        }
+    }
+
+    /**
+     * Reads up to {@code count} lines from this {@code reader} into these {@code lines}.
+     *
+     * @param reader reader to read from.
+     * @param lines  list to add the lines to.
+     * @param count  maximum number of lines to read.
+     *
+     * @return {@code true} if any line was read.
+     *
+     * @throws IOException if {@code reader} cannot be read.
+     */
+    private static boolean readLines(final BufferedReader reader, final List<String> lines, final int count)
+            throws IOException {
+        int read = 0;
+        String line;
+        while (read < count && null != (line = reader.readLine())) {
+            lines.add(line);
+            read++;
+        }
+        return 0 < read;
+    }
+}
@@ -0,0 +1,121 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link AnchorPartitioner}.
+ *
+ * @since 1.0
+ */
+public class AnchorPartitionerTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new AnchorPartitioner();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testPartitionNullOriginalFile() {
+        AnchorPartitioner.partition(null, Collections.<String>emptyList());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testPartitionNullNewFile() {
+        AnchorPartitioner.partition(Collections.<String>emptyList(), null);
+    }
+
+    @Test
+    public void testPartitionEmpty() {
+        assertThat(describe(AnchorPartitioner.partition(Collections.<String>emptyList(),
+                                                        Collections.<String>emptyList())),
+                   is(Collections.<String>emptyList()));
+        assertThat(describe(AnchorPartitioner.partition(Collections.<String>emptyList(), Arrays.asList("a"))),
+                   is(Arrays.asList("diff 0-0 0-1")));
+    }
+
+    @Test
+    public void testPartitionPrefixAndSuffix() {
+        final List<String> originalFile = Arrays.asList("a", "b", "c", "d", "e");
+        assertThat(describe(AnchorPartitioner.partition(originalFile, Lists.newArrayList(originalFile))),
+                   is(Arrays.asList("keep 0-5 0-5")));
+        assertThat(describe(AnchorPartitioner.partition(originalFile, Arrays.asList("a", "b", "x", "y", "d", "e"))),
+                   is(Arrays.asList("keep 0-2 0-2", "diff 2-3 2-4", "keep 3-5 4-6")));
+        assertThat(describe(AnchorPartitioner.partition(originalFile, Arrays.asList("a", "e"))),
+                   is(Arrays.asList("keep 0-1 0-1", "diff 1-4 1-1", "keep 4-5 1-2")));
+    }
+
+    @Test
+    public void testPartitionAnchors() {
+        // "u", "v" and "c" are the anchors: "w" is not unique in the new file and "a", "b" and "z" are out of order.
+        final List<String> originalFile = Arrays.asList("a", "x", "u", "x", "w", "z", "b", "v", "x", "c");
+        final List<String> newFile = Arrays.asList("b", "z", "x", "u", "x", "w", "w", "y", "v", "c", "a");
+        assertThat(describe(AnchorPartitioner.partition(originalFile, newFile)),
+                   is(Arrays.asList("diff 0-1 0-2", "keep 1-5 2-6", "diff 5-7 6-8", "keep 7-8 8-9", "diff 8-9 9-9",
+                                    "keep 9-10 9-10", "diff 10-10 10-11")));
+    }
+
+    @Test
+    public void testPartitionRandom() {
+        final Random random = new Random(29);
+        for (int test = 0; test < 200; test++) {
+            final List<String> originalFile = Lists.newArrayList();
+            for (int i = random.nextInt(100); 0 < i; i--) {
+                originalFile.add("line " + random.nextInt(60));
+            }
+            final List<String> newFile = Lists.newArrayList(originalFile);
+            for (int edits = random.nextInt(10); 0 < edits; edits--) {
+                if (random.nextBoolean() || newFile.isEmpty()) {
+                    newFile.add(random.nextInt(newFile.size() + 1), "line " + random.nextInt(80));
+                }
+                else {
+                    newFile.remove(random.nextInt(newFile.size()));
+                }
+            }
+
+            int originalLine = 0;
+            int newLine = 0;
+            Boolean kept = null;
+            for (final AnchorPartitioner.Part part : AnchorPartitioner.partition(originalFile, newFile)) {
+                assertThat(part.originalFrom, is(originalLine));
+                assertThat(part.newFrom, is(newLine));
+                if (part.kept) {
+                    assertThat(newFile.subList(part.newFrom, part.newTo),
+                               is(originalFile.subList(part.originalFrom, part.originalTo)));
+                }
+                if (null != kept) {
+                    assertThat(part.kept, is(!kept));
+                }
+                kept = part.kept;
+                originalLine = part.originalTo;
+                newLine = part.newTo;
+            }
+            assertThat(originalLine, is(originalFile.size()));
+            assertThat(newLine, is(newFile.size()));
+        }
+    }
+
+    /**
+     * Describes these {@code parts}.
+     *
+     * @param parts {@link AnchorPartitioner.Part}s to describe.
+     *
+     * @return description of every part.
+     */
+    private static List<String> describe(final List<AnchorPartitioner.Part> parts) {
+        final List<String> descriptions = Lists.newArrayList();
+        for (final AnchorPartitioner.Part part : parts) {
+            descriptions.add((part.kept ? "keep " : "diff ") + part.originalFrom + "-" + part.originalTo + " "
+                                     + part.newFrom + "-" + part.newTo);
+        }
+        return descriptions;
+    }
+}
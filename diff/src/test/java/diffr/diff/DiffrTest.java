@@ -1,12 +1,21 @@
 package diffr.diff;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
 import com.google.common.io.Files;
 import com.google.common.io.LineProcessor;
 import com.google.common.io.Resources;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTreeCache;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.RandomFiles;
+import diffr.util.instruction.CopyInstruction;
 import diffr.util.instruction.Instruction;
 import diffr.util.instruction.InstructionComposer;
 import diffr.util.instruction.InstructionParser;
+import javolution.text.Text;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -17,9 +26,14 @@ import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static diffr.util.Allocations.allocatedBytes;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 /**
  * Tests {@link Diffr}.
@@ -30,10 +44,10 @@ import static org.hamcrest.Matchers.is;
  */
 public class DiffrTest {
 
-    private static final String DEFAULT_PROVIDER = "default-provider";
+    static final String DEFAULT_PROVIDER = "default-provider";
 
-    @DataProvider(name = "default-provider")
-    public Object[][] getFiles() throws URISyntaxException, IOException {
+    @DataProvider(name = DEFAULT_PROVIDER)
+    public static Object[][] getFiles() throws URISyntaxException, IOException {
 
         final List<Object[]> files = Lists.newArrayList();
 
@@ -67,7 +81,7 @@ public class DiffrTest {
 
     @Test(expectedExceptions = NullPointerException.class)
     public void testConstructorNullOriginalFile() {
-        new Diffr(null, Collections.EMPTY_LIST);
+        new Diffr((List<String>) null, Collections.EMPTY_LIST);
     }
 
     @Test(expectedExceptions = NullPointerException.class)
@@ -75,16 +89,50 @@ public class DiffrTest {
         new Diffr(Collections.EMPTY_LIST, null);
     }
 
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullBackend() {
+        new Diffr(Collections.EMPTY_LIST, Collections.EMPTY_LIST, null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullCache() {
+        new Diffr(Collections.EMPTY_LIST, Collections.EMPTY_LIST, Backend.SUFFIX_ARRAY, null);
+    }
+
     @Test(dataProvider = DEFAULT_PROVIDER)
-    public void testDiff(final List<String> originalFile,
-                          final List<String> newFile,
-                          final List<Instruction> patchFile)
-            throws IOException, URISyntaxException {
+    public void testDiffCache(final List<String> originalFile,
+                              final List<String> newFile,
+                              final List<Instruction> patchFile) {
 
+        final SuffixTreeCache cache = new SuffixTreeCache(Long.MAX_VALUE);
+        new Diffr(originalFile, newFile, Backend.SUFFIX_ARRAY, cache).diff();
+        final Iterator<Instruction> actualInstructions = new Diffr(Lists.newArrayList(originalFile), newFile,
+                                                                   Backend.SUFFIX_ARRAY, cache).diff().iterator();
 
-        final Diffr d = new Diffr(originalFile, newFile);
+        for (final Instruction expected : patchFile) {
+            final Instruction actual = actualInstructions.next();
+            assertThat(InstructionComposer.composeString(actual),
+                       is(InstructionComposer.composeString(expected)));
+        }
+        assertThat(cache.stats().hitCount(), is(1L));
+    }
 
-        final Iterator<Instruction> actualInstructions = d.diff().iterator();
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullOriginalIndex() {
+        new Diffr((SuffixTree<String>) null, Collections.EMPTY_LIST);
+    }
+
+    @Test(dataProvider = DEFAULT_PROVIDER)
+    public void testDiffSuffixIndex(final List<String> originalFile,
+                                    final List<String> newFile,
+                                    final List<Instruction> patchFile) throws IOException {
+
+        final File indexFile = File.createTempFile("diffr", ".idx");
+        indexFile.deleteOnExit();
+        SuffixTrees.writeSuffixIndex(originalFile, indexFile);
+
+        final Iterator<Instruction> actualInstructions = new Diffr(SuffixTrees.openSuffixIndex(indexFile), newFile)
+                .diff().iterator();
 
         for (final Instruction expected : patchFile) {
             final Instruction actual = actualInstructions.next();
@@ -92,4 +140,293 @@ public class DiffrTest {
                        is(InstructionComposer.composeString(expected)));
         }
     }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullExecutor() {
+        new Diffr(Collections.EMPTY_LIST, Collections.EMPTY_LIST).diff(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDiffNoTasks() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new Diffr(Collections.EMPTY_LIST, Collections.EMPTY_LIST).diff(executor, 0);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(dataProvider = DEFAULT_PROVIDER)
+    public void testDiffParallel(final List<String> originalFile,
+                                 final List<String> newFile,
+                                 final List<Instruction> patchFile) {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final int tasks : new int[]{1, 2, 3, 7}) {
+                final List<Instruction> actualInstructions = new Diffr(originalFile, newFile).diff(executor, tasks);
+                assertThat(actualInstructions.size(), is(patchFile.size()));
+                for (int i = 0; i < patchFile.size(); i++) {
+                    assertThat(InstructionComposer.composeString(actualInstructions.get(i)),
+                               is(InstructionComposer.composeString(patchFile.get(i))));
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiffParallelRandom() {
+        final Random random = new Random(17);
+        final List<String> originalFile = Lists.newArrayList();
+        final List<String> newFile = Lists.newArrayList();
+        for (int i = 0; i < 5000; i++) {
+            originalFile.add("line " + random.nextInt(100));
+        }
+        for (int i = 0; i < 100; i++) {
+            final int start = random.nextInt(originalFile.size() - 100);
+            newFile.addAll(originalFile.subList(start, start + random.nextInt(100)));
+            newFile.add("new line " + i);
+        }
+
+        final List<Instruction> expected = new Diffr(originalFile, newFile, Backend.SUFFIX_ARRAY).diff();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final int tasks : new int[]{2, 10, 100, newFile.size()}) {
+                final List<Instruction> actual = new Diffr(originalFile, newFile, Backend.SUFFIX_ARRAY)
+                        .diff(executor, tasks);
+                assertThat(actual.size(), is(expected.size()));
+                for (int i = 0; i < expected.size(); i++) {
+                    assertThat(actual.get(i).getType(), is(expected.get(i).getType()));
+                    if (Instruction.Type.Copy == actual.get(i).getType()) {
+                        final Range<Integer> range = ((CopyInstruction) actual.get(i)).getRange();
+                        assertThat(range, is(((CopyInstruction) expected.get(i)).getRange()));
+                    }
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiffParallelJoinsChunks() {
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 3000; i++) {
+            originalFile.add("line " + i);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // The match of the first line crosses every chunk, so it stays one copy.
+            for (final Backend backend : Backend.values()) {
+                final List<Instruction> instructions = new Diffr(originalFile, originalFile, backend).diff(executor, 7);
+                assertThat(instructions.size(), is(1));
+                assertThat(InstructionComposer.composeString(instructions.get(0)),
+                           is(InstructionComposer.composeString(
+                                   new CopyInstruction(Ranges.closed(0, originalFile.size() - 1)))));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiffParallelRematchesChunks() {
+        // The first chunk alone would copy the first a b, after which c d does not continue.
+        final List<String> originalFile = Lists.newArrayList("a", "b", "c", "x", "a", "b", "c", "d");
+        final List<String> newFile = Lists.newArrayList("a", "b", "c", "d");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (final Backend backend : Backend.values()) {
+                final List<Instruction> instructions = new Diffr(originalFile, newFile, backend).diff(executor, 2);
+                assertThat(instructions.size(), is(1));
+                assertThat(InstructionComposer.composeString(instructions.get(0)),
+                           is(InstructionComposer.composeString(new CopyInstruction(Ranges.closed(4, 7)))));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDiffParallelRepetitive() {
+        // Few distinct lines, so most matches cross the ends of several chunks.
+        final Random random = new Random(23);
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 2000; i++) {
+            originalFile.add("line " + random.nextInt(3));
+        }
+        final List<String> newFile = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            final int start = random.nextInt(originalFile.size() - 200);
+            newFile.addAll(originalFile.subList(start, start + random.nextInt(200)));
+            newFile.add("line " + random.nextInt(4));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final Backend backend : Backend.values()) {
+                final List<Instruction> expected = new Diffr(originalFile, newFile, backend).diff();
+                for (final int tasks : new int[]{2, 7, 100, newFile.size()}) {
+                    final List<Instruction> actual = new Diffr(originalFile, newFile, backend).diff(executor, tasks);
+                    assertThat(actual.size(), is(expected.size()));
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertThat(InstructionComposer.composeString(actual.get(i)),
+                                   is(InstructionComposer.composeString(expected.get(i))));
+                    }
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(dataProvider = DEFAULT_PROVIDER)
+    public void testAdaptiveDiff(final List<String> originalFile,
+                                 final List<String> newFile,
+                                 final List<Instruction> patchFile) {
+
+        assertThat(MyersDiffrTest.patch(originalFile, new Diffr(originalFile, newFile).adaptiveDiff()), is(newFile));
+    }
+
+    @Test
+    public void testAdaptiveDiffMoves() {
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 3000; i++) {
+            originalFile.add("line " + i);
+        }
+        // Looks like a few edits, but the halves are swapped, so it takes more edits than Myers looks for.
+        final List<String> newFile = Lists.newArrayList(originalFile.subList(1500, 3000));
+        newFile.addAll(originalFile.subList(0, 1500));
+        assertThat(EngineSelector.prefersMyers(originalFile, newFile), is(true));
+
+        final List<Instruction> instructions = new Diffr(originalFile, newFile).adaptiveDiff();
+        assertThat(MyersDiffrTest.patch(originalFile, instructions), is(newFile));
+        assertThat(instructions.size(), is(2));
+    }
+
+    @Test(dataProvider = DEFAULT_PROVIDER)
+    public void testPartitionedDiff(final List<String> originalFile,
+                                    final List<String> newFile,
+                                    final List<Instruction> patchFile) {
+
+        final List<Instruction> instructions = new Diffr(originalFile, newFile).partitionedDiff();
+        assertThat(MyersDiffrTest.patch(originalFile, instructions), is(newFile));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Instruction> parallel = new Diffr(originalFile, newFile).partitionedDiff(executor);
+            assertThat(parallel.size(), is(instructions.size()));
+            for (int i = 0; i < instructions.size(); i++) {
+                assertThat(InstructionComposer.composeString(parallel.get(i)),
+                           is(InstructionComposer.composeString(instructions.get(i))));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testPartitionedDiffNullExecutor() {
+        new Diffr(Collections.<String>emptyList(), Collections.<String>emptyList()).partitionedDiff(null);
+    }
+
+    @Test
+    public void testPartitionedDiffRandom() {
+        final Random random = new Random(31);
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 100000; i++) {
+            originalFile.add(0 == i % 10 ? "}" : "line " + i);
+        }
+        final List<String> newFile = Lists.newArrayList(originalFile);
+        for (int i = 0; i < 50; i++) {
+            final int line = random.nextInt(newFile.size() - 10);
+            newFile.set(line, "new line " + i);
+            newFile.add(line, "}");
+            newFile.subList(line + 2, line + 2 + random.nextInt(10)).clear();
+        }
+
+        final List<Instruction> instructions = new Diffr(originalFile, newFile).partitionedDiff();
+        assertThat(MyersDiffrTest.patch(originalFile, instructions), is(newFile));
+        // Every edit inserts two lines and splits a copy in two, unless it copies the "}" from elsewhere.
+        assertThat(instructions.size() <= 4 * 50 + 1, is(true));
+        assertThat(instructions.size() > 50, is(true));
+    }
+
+    @DataProvider(name = "backend-provider")
+    public static Object[][] getFilesAndBackends() throws URISyntaxException, IOException {
+        final List<Object[]> filesAndBackends = Lists.newArrayList();
+        for (final Object[] files : getFiles()) {
+            for (final Backend backend : Backend.values()) {
+                filesAndBackends.add(new Object[]{files[0], files[1], files[2], backend});
+            }
+        }
+        return filesAndBackends.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "backend-provider")
+    public void testDiff(final List<String> originalFile,
+                         final List<String> newFile,
+                         final List<Instruction> patchFile,
+                         final Backend backend) {
+
+        final Iterator<Instruction> actualInstructions = new Diffr(originalFile, newFile, backend).diff().iterator();
+
+        for (final Instruction expected : patchFile) {
+            final Instruction actual = actualInstructions.next();
+            assertThat(InstructionComposer.composeString(actual),
+                       is(InstructionComposer.composeString(expected)));
+        }
+        assertThat(actualInstructions.hasNext(), is(false));
+    }
+
+    @Test
+    public void testMatchAndParseAllocateOnlyTheStatistics() {
+        final List<String> originalFile = Lists.newArrayList();
+        for (final Text line : RandomFiles.getRandomFile(2000, 1341376661708488015L)) {
+            originalFile.add(line.toString());
+        }
+        final List<String> newFile = Lists.newArrayList(originalFile.subList(1000, 2000));
+        for (int i = 0; i < 100; i++) {
+            newFile.add(10 * i, "new line " + i);
+        }
+        newFile.addAll(originalFile.subList(0, 1000));
+
+        // Matching and parsing run per line and must not allocate anything per line.
+        final SuffixTree<String> suffixTree = SuffixTrees.newSuffixTree(originalFile);
+        final int[] parsed = new int[2];
+        final Diffr.ParseListener listener = new Diffr.ParseListener() {
+            @Override
+            public void copy(final int start, final int end) {
+                parsed[0] += end - start + 1;
+            }
+
+            @Override
+            public void insert(final int index) {
+                parsed[1]++;
+            }
+        };
+
+        final long bytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                parsed[0] = 0;
+                parsed[1] = 0;
+                Diffr.parse(suffixTree.matchingStatistics(newFile), listener);
+            }
+        });
+        // The symbols of the new file and the two arrays of its statistics, nothing per line or per instruction.
+        final long arrayBytes = 16 + 4L * newFile.size();
+        assertThat(bytes, lessThanOrEqualTo(3 * arrayBytes + 64));
+        // Counted on the last run only.
+        assertThat(parsed[0] + parsed[1], is(newFile.size()));
+        assertThat(parsed[1], is(100));
+    }
 }
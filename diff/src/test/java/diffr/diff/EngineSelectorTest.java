@@ -0,0 +1,84 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests {@link EngineSelector}.
+ *
+ * @since 1.0
+ */
+public class EngineSelectorTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new EngineSelector();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testEstimateEditsNullOriginalFile() {
+        EngineSelector.estimateEdits(null, Collections.<String>emptyList());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testEstimateEditsNullNewFile() {
+        EngineSelector.estimateEdits(Collections.<String>emptyList(), null);
+    }
+
+    @Test
+    public void testEstimateEditsPrefixAndSuffix() {
+        final List<String> originalFile = lines("line", 0, 10000);
+        assertThat(EngineSelector.estimateEdits(originalFile, Lists.newArrayList(originalFile)), is(0L));
+
+        final List<String> newFile = Lists.newArrayList(originalFile);
+        newFile.remove(5000);
+        newFile.add(7000, "new line");
+        newFile.add("last line");
+        assertThat(EngineSelector.estimateEdits(originalFile, newFile), is(lessThan(10L)));
+        // Exact, as the original file has no lines between the prefix and the suffix.
+        assertThat(EngineSelector.estimateEdits(Arrays.asList("a", "b"), Arrays.asList("a", "x", "y", "b")), is(2L));
+        assertThat(EngineSelector.prefersMyers(originalFile, newFile), is(true));
+    }
+
+    @Test
+    public void testEstimateEditsDissimilar() {
+        final List<String> originalFile = lines("line", 0, 10000);
+        final List<String> newFile = lines("other line", 0, 10000);
+        assertThat(EngineSelector.estimateEdits(originalFile, newFile), is(20000L));
+        assertThat(EngineSelector.prefersMyers(originalFile, newFile), is(false));
+
+        // Half of the lines are new.
+        final List<String> mixed = Lists.newArrayList();
+        for (int i = 0; i < 10000; i++) {
+            mixed.add(0 == i % 2 ? originalFile.get(i) : newFile.get(i));
+        }
+        assertThat(EngineSelector.estimateEdits(originalFile, mixed), is(greaterThan((long) MyersDiffr.MAX_EDITS)));
+        assertThat(EngineSelector.prefersMyers(originalFile, mixed), is(false));
+    }
+
+    /**
+     * Gets distinct lines that start with this {@code prefix}.
+     *
+     * @param prefix prefix of the lines.
+     * @param from   number of the first line.
+     * @param to     number of the line after the last line.
+     *
+     * @return list of lines.
+     */
+    private static List<String> lines(final String prefix, final int from, final int to) {
+        final List<String> lines = Lists.newArrayList();
+        for (int i = from; i < to; i++) {
+            lines.add(prefix + " " + i);
+        }
+        return lines;
+    }
+}
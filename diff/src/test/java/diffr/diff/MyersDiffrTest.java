@@ -0,0 +1,171 @@
+package diffr.diff;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionComposer;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link MyersDiffr}.
+ *
+ * @since 1.0
+ */
+public class MyersDiffrTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new MyersDiffr();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullOriginalFile() {
+        MyersDiffr.diff(null, Collections.<String>emptyList(), 1);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullNewFile() {
+        MyersDiffr.diff(Collections.<String>emptyList(), null, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDiffNegativeMaxEdits() {
+        MyersDiffr.diff(Collections.<String>emptyList(), Collections.<String>emptyList(), -1);
+    }
+
+    @Test
+    public void testDiffEmpty() {
+        assertThat(compose(MyersDiffr.diff(Collections.<String>emptyList(), Collections.<String>emptyList(), 0)),
+                   is(Collections.<String>emptyList()));
+        assertThat(compose(MyersDiffr.diff(Collections.<String>emptyList(), Arrays.asList("a", "b"), 2)),
+                   is(Arrays.asList("> a", "> b")));
+        assertThat(compose(MyersDiffr.diff(Arrays.asList("a", "b"), Collections.<String>emptyList(), 2)),
+                   is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testDiffIdentical() {
+        final List<String> file = Arrays.asList("a", "b", "c");
+        assertThat(compose(MyersDiffr.diff(file, Lists.newArrayList(file), 0)), is(Arrays.asList("0,2")));
+    }
+
+    @Test
+    public void testDiff() {
+        final List<String> originalFile = Arrays.asList("a", "b", "c", "a", "b", "b", "a");
+        final List<String> newFile = Arrays.asList("c", "b", "a", "b", "a", "c");
+        // The classic example of Myers' paper takes 5 edits.
+        assertThat(MyersDiffr.diff(originalFile, newFile, 4).isPresent(), is(false));
+        final Optional<List<Instruction>> instructions = MyersDiffr.diff(originalFile, newFile, 5);
+        assertThat(patch(originalFile, instructions.get()), is(newFile));
+        assertThat(compose(instructions), is(Arrays.asList("2,2", "> b", "3,4", "6,6", "> c")));
+    }
+
+    @Test
+    public void testDiffRandom() {
+        final Random random = new Random(23);
+        for (int test = 0; test < 200; test++) {
+            final List<String> originalFile = Lists.newArrayList();
+            for (int i = random.nextInt(50); 0 < i; i--) {
+                originalFile.add("line " + random.nextInt(5));
+            }
+            final List<String> newFile = Lists.newArrayList(originalFile);
+            for (int edits = random.nextInt(10); 0 < edits; edits--) {
+                if (random.nextBoolean() || newFile.isEmpty()) {
+                    newFile.add(random.nextInt(newFile.size() + 1), "line " + random.nextInt(7));
+                }
+                else {
+                    newFile.remove(random.nextInt(newFile.size()));
+                }
+            }
+
+            final int edits = editDistance(originalFile, newFile);
+            if (0 < edits) {
+                assertThat(MyersDiffr.diff(originalFile, newFile, edits - 1).isPresent(), is(false));
+            }
+            final List<Instruction> instructions = MyersDiffr.diff(originalFile, newFile, edits).get();
+            assertThat(patch(originalFile, instructions), is(newFile));
+            int inserted = 0;
+            for (final Instruction instruction : instructions) {
+                if (instruction instanceof InsertInstruction) {
+                    inserted++;
+                }
+            }
+            // The shortest edit script keeps all the other lines of the new file.
+            assertThat(2 * inserted, is(edits + newFile.size() - originalFile.size()));
+        }
+    }
+
+    /**
+     * Gets the number of lines inserted or deleted by the shortest edit script, by dynamic programming.
+     *
+     * @param originalFile original file.
+     * @param newFile      new file.
+     *
+     * @return number of edits.
+     */
+    private static int editDistance(final List<String> originalFile, final List<String> newFile) {
+        final int[][] distances = new int[originalFile.size() + 1][newFile.size() + 1];
+        for (int x = 0; x <= originalFile.size(); x++) {
+            for (int y = 0; y <= newFile.size(); y++) {
+                if (0 == x || 0 == y) {
+                    distances[x][y] = x + y;
+                }
+                else if (originalFile.get(x - 1).equals(newFile.get(y - 1))) {
+                    distances[x][y] = distances[x - 1][y - 1];
+                }
+                else {
+                    distances[x][y] = 1 + Math.min(distances[x - 1][y], distances[x][y - 1]);
+                }
+            }
+        }
+        return distances[originalFile.size()][newFile.size()];
+    }
+
+    /**
+     * Composes these {@code instructions}.
+     *
+     * @param instructions {@link Instruction}s to compose, which must be present.
+     *
+     * @return composed {@link Instruction}s.
+     */
+    private static List<String> compose(final Optional<List<Instruction>> instructions) {
+        final List<String> composed = Lists.newArrayList();
+        for (final Instruction instruction : instructions.get()) {
+            composed.add(InstructionComposer.composeString(instruction));
+        }
+        return composed;
+    }
+
+    /**
+     * Applies these {@code instructions} to this {@code originalFile}.
+     *
+     * @param originalFile original file.
+     * @param instructions {@link Instruction}s to apply.
+     *
+     * @return the patched file.
+     */
+    static List<String> patch(final List<String> originalFile, final List<Instruction> instructions) {
+        final List<String> patched = Lists.newArrayList();
+        for (final Instruction instruction : instructions) {
+            if (instruction instanceof CopyInstruction) {
+                final CopyInstruction copy = (CopyInstruction) instruction;
+                patched.addAll(originalFile.subList(copy.getRange().lowerEndpoint(),
+                                                    copy.getRange().upperEndpoint() + 1));
+            }
+            else {
+                patched.add(((InsertInstruction) instruction).getText());
+            }
+        }
+        return patched;
+    }
+}
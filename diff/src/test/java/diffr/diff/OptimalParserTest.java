@@ -0,0 +1,192 @@
+package diffr.diff;
+
+import com.google.common.collect.Lists;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionComposer;
+import diffr.util.instruction.InstructionCosts;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Tests {@link OptimalParser}.
+ *
+ * @since 1.0
+ */
+public class OptimalParserTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testParseNullNewFile() {
+        OptimalParser.parse(null, new MatchingStatistics(new int[0], new int[0]));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testParseNullStatistics() {
+        OptimalParser.parse(Collections.<String>emptyList(), null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseOtherSize() {
+        OptimalParser.parse(Arrays.asList("a"), new MatchingStatistics(new int[0], new int[0]));
+    }
+
+    @Test
+    public void testParseEmpty() {
+        assertThat(OptimalParser.parse(Collections.<String>emptyList(),
+                                       new MatchingStatistics(new int[0], new int[0])).size(), is(0));
+    }
+
+    @Test
+    public void testParseSplitsCopies() {
+        // Greedily, "b" to "y" is copied from the first copy, which splits the copy of "x" to "z" into three.
+        final List<String> originalFile = Lists.newArrayList("a line", "b line", "c line", "d line", "y line",
+                                                             "line 0", "line 1", "line 2", "line 3", "line 4",
+                                                             "x line", "b line", "c line", "d line", "y line",
+                                                             "z line");
+        final List<String> newFile = Lists.newArrayList("a line", "b line", "c line", "d line", "y line",
+                                                        "b line", "c line", "d line", "y line", "z line");
+        final Diffr diffr = new Diffr(originalFile, newFile, Backend.SUFFIX_ARRAY);
+        final List<Instruction> greedy = diffr.diff();
+        final List<Instruction> optimal = diffr.optimalDiff();
+
+        assertThat(patch(originalFile, optimal), is(newFile));
+        assertThat(cost(optimal), is(lessThanOrEqualTo(cost(greedy))));
+        assertThat(cost(optimal), is(bruteForce(newFile, SuffixTrees.newSuffixTree(originalFile, Backend.SUFFIX_ARRAY)
+                .matchingStatistics(newFile))));
+    }
+
+    @Test
+    public void testParseInsertsShortLines() {
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 1000; i++) {
+            originalFile.add("line " + i);
+        }
+        originalFile.add("x");
+        final List<String> newFile = Lists.newArrayList("x");
+        final List<Instruction> optimal = new Diffr(originalFile, newFile).optimalDiff();
+        assertThat(InstructionComposer.composeString(optimal.get(0)), is("> x"));
+    }
+
+    @Test
+    public void testParseRandom() {
+        final Random random = new Random(18);
+        for (int test = 0; test < 50; test++) {
+            final List<String> originalFile = randomLines(random, 1 + random.nextInt(300), 20);
+            final List<String> newFile = randomLines(random, random.nextInt(300), 25);
+            final MatchingStatistics statistics = SuffixTrees.newSuffixTree(originalFile, Backend.SUFFIX_ARRAY)
+                                                             .matchingStatistics(newFile);
+            final List<Instruction> optimal = OptimalParser.parse(newFile, statistics);
+
+            assertThat(patch(originalFile, optimal), is(newFile));
+            assertThat(cost(optimal), is(bruteForce(newFile, statistics)));
+        }
+    }
+
+    @Test(dataProviderClass = DiffrTest.class, dataProvider = DiffrTest.DEFAULT_PROVIDER)
+    public void testOptimalDiff(final List<String> originalFile,
+                                final List<String> newFile,
+                                final List<Instruction> patchFile) {
+        final List<Instruction> optimal = new Diffr(originalFile, newFile).optimalDiff();
+        assertThat(patch(originalFile, optimal), is(newFile));
+        assertThat(cost(optimal), is(lessThanOrEqualTo(cost(patchFile))));
+    }
+
+    @Test
+    public void testOptimalDiffSmaller() {
+        final Random random = new Random(19);
+        final List<String> originalFile = randomLines(random, 20000, 50);
+        final List<String> newFile = randomLines(random, 20000, 60);
+        final Diffr diffr = new Diffr(originalFile, newFile, Backend.SUFFIX_ARRAY);
+        assertThat(cost(diffr.optimalDiff()), is(lessThan(cost(diffr.diff()))));
+    }
+
+    /**
+     * Gets the cost of the cheapest patch by trying every length of copy at every line.
+     *
+     * @param newFile    new file.
+     * @param statistics {@link MatchingStatistics} of {@code newFile}.
+     *
+     * @return cost of the cheapest patch.
+     */
+    private static long bruteForce(final List<String> newFile, final MatchingStatistics statistics) {
+        final long[] costs = new long[newFile.size() + 1];
+        for (int i = newFile.size() - 1; 0 <= i; i--) {
+            costs[i] = InstructionCosts.insertCost(newFile.get(i)) + costs[i + 1];
+            for (int length = 1; length <= statistics.length(i); length++) {
+                costs[i] = Math.min(costs[i], InstructionCosts.copyCost(statistics.start(i),
+                                                                        statistics.start(i) + length - 1)
+                        + costs[i + length]);
+            }
+        }
+        return costs[0];
+    }
+
+    /**
+     * Gets the cost of these {@code instructions}.
+     *
+     * @param instructions {@link Instruction}s to get the cost of.
+     *
+     * @return total cost.
+     */
+    private static long cost(final List<Instruction> instructions) {
+        long cost = 0;
+        for (final Instruction instruction : instructions) {
+            cost += InstructionCosts.cost(instruction);
+        }
+        return cost;
+    }
+
+    /**
+     * Applies these {@code instructions} to this {@code originalFile}.
+     *
+     * @param originalFile original file.
+     * @param instructions {@link Instruction}s to apply.
+     *
+     * @return the patched file.
+     */
+    private static List<String> patch(final List<String> originalFile, final List<Instruction> instructions) {
+        final List<String> patched = Lists.newArrayList();
+        for (final Instruction instruction : instructions) {
+            if (instruction instanceof CopyInstruction) {
+                final CopyInstruction copy = (CopyInstruction) instruction;
+                patched.addAll(originalFile.subList(copy.getRange().lowerEndpoint(),
+                                                    copy.getRange().upperEndpoint() + 1));
+            }
+            else {
+                patched.add(((InsertInstruction) instruction).getText());
+            }
+        }
+        return patched;
+    }
+
+    /**
+     * Gets random lines of random lengths over a small set of lines, so that they repeat.
+     *
+     * @param random   {@link Random} to use.
+     * @param size     number of lines.
+     * @param distinct number of distinct lines.
+     *
+     * @return random lines.
+     */
+    private static List<String> randomLines(final Random random, final int size, final int distinct) {
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            final int line = random.nextInt(distinct);
+            lines.add(line % 3 == 0 ? String.valueOf(line) : "line number " + line);
+        }
+        return lines;
+    }
+}
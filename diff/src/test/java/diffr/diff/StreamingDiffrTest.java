@@ -0,0 +1,144 @@
+package diffr.diff;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionComposer;
+import diffr.util.instruction.InstructionSink;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link StreamingDiffr}.
+ *
+ * @since 1.0
+ */
+public class StreamingDiffrTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullOriginalIndex() {
+        new StreamingDiffr(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullNewFile() throws IOException {
+        newStreamingDiffr(Collections.<String>emptyList()).diff((BufferedReader) null, new CollectingSink());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullSink() throws IOException {
+        newStreamingDiffr(Collections.<String>emptyList()).diff(Collections.<String>emptyList().iterator(), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullLine() throws IOException {
+        newStreamingDiffr(Arrays.asList("a")).diff(Arrays.asList("a", null).iterator(), new CollectingSink());
+    }
+
+    @Test(dataProviderClass = DiffrTest.class, dataProvider = DiffrTest.DEFAULT_PROVIDER)
+    public void testDiff(final List<String> originalFile,
+                         final List<String> newFile,
+                         final List<Instruction> patchFile) throws IOException {
+
+        final CollectingSink sink = new CollectingSink();
+        newStreamingDiffr(originalFile).diff(new BufferedReader(new StringReader(Joiner.on('\n').join(newFile))),
+                                             sink);
+
+        assertThat(sink.instructions.size(), is(patchFile.size()));
+        final Iterator<String> actualInstructions = sink.instructions.iterator();
+        for (final Instruction expected : patchFile) {
+            assertThat(actualInstructions.next(), is(InstructionComposer.composeString(expected)));
+        }
+    }
+
+    @Test
+    public void testDiffRandom() throws IOException {
+        final Random random = new Random(16);
+        final List<String> originalFile = Lists.newArrayList();
+        final List<String> newFile = Lists.newArrayList();
+        for (int i = 0; i < 5000; i++) {
+            originalFile.add("line " + random.nextInt(200));
+            newFile.add("line " + random.nextInt(250));
+        }
+
+        for (final Backend backend : Backend.values()) {
+            final CollectingSink sink = new CollectingSink();
+            new StreamingDiffr(SuffixTrees.newSuffixTree(originalFile, backend)).diff(newFile.iterator(), sink);
+
+            final List<String> expected = Lists.newArrayList();
+            for (final Instruction instruction : new Diffr(originalFile, newFile, backend).diff()) {
+                expected.add(InstructionComposer.composeString(instruction));
+            }
+            assertThat(sink.instructions.size(), is(expected.size()));
+        }
+    }
+
+    @Test
+    public void testDiffPassesInstructionsEarly() throws IOException {
+        final List<String> originalFile = Arrays.asList("a", "b", "c");
+        final CollectingSink sink = new CollectingSink();
+        final Iterator<String> newFile = new Iterator<String>() {
+
+            private final Iterator<String> lines = Arrays.asList("a", "b", "x", "c").iterator();
+
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public String next() {
+                // The copy of "a", "b" is passed on once "x" is read, the insert of "x" as soon as it is read.
+                assertThat(sink.instructions.size(), is(read < 3 ? 0 : 2));
+                read++;
+                return lines.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        newStreamingDiffr(originalFile).diff(newFile, sink);
+        assertThat(sink.instructions, is((List<String>) Lists.newArrayList("0,1", "> x", "2,2")));
+    }
+
+    /**
+     * Creates a {@link StreamingDiffr} for this {@code originalFile}.
+     *
+     * @param originalFile original file.
+     *
+     * @return new {@link StreamingDiffr}.
+     */
+    private static StreamingDiffr newStreamingDiffr(final List<String> originalFile) {
+        return new StreamingDiffr(SuffixTrees.newSuffixTree(originalFile, Backend.SUFFIX_TREE));
+    }
+
+    /**
+     * {@link InstructionSink} that collects the {@link Instruction}s that it receives, composed to strings.
+     */
+    private static final class CollectingSink implements InstructionSink {
+
+        private final List<String> instructions = Lists.newArrayList();
+
+        @Override
+        public void accept(final Instruction instruction) {
+            instructions.add(InstructionComposer.composeString(instruction));
+        }
+    }
+}
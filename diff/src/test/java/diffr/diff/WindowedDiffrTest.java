@@ -0,0 +1,202 @@
+package diffr.diff;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionComposer;
+import diffr.util.instruction.InstructionSink;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests {@link WindowedDiffr}.
+ *
+ * @since 1.0
+ */
+public class WindowedDiffrTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullOriginalFile() {
+        new WindowedDiffr(null, reader(Collections.<String>emptyList()), 2);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullNewFile() {
+        new WindowedDiffr(reader(Collections.<String>emptyList()), null, 2);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullBackend() {
+        new WindowedDiffr(reader(Collections.<String>emptyList()), reader(Collections.<String>emptyList()), 2, null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorWindowSizeTooSmall() {
+        new WindowedDiffr(reader(Collections.<String>emptyList()), reader(Collections.<String>emptyList()), 1);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testDiffNullSink() throws IOException {
+        new WindowedDiffr(reader(Collections.<String>emptyList()), reader(Collections.<String>emptyList()), 2)
+                .diff(null);
+    }
+
+    @Test
+    public void testDiffEmpty() throws IOException {
+        assertThat(diff(Collections.<String>emptyList(), Collections.<String>emptyList(), 2).size(), is(0));
+        assertThat(diff(Collections.<String>emptyList(), Arrays.asList("a"), 2).size(), is(1));
+        assertThat(diff(Arrays.asList("a"), Collections.<String>emptyList(), 2).size(), is(0));
+    }
+
+    @Test
+    public void testDiffLargeWindow() throws IOException {
+        final Random random = new Random(15);
+        final List<String> originalFile = randomLines(random, 2000);
+        final List<String> newFile = edit(random, originalFile);
+
+        // A window that holds the whole original file gives the same instructions as Diffr.
+        final List<String> expected = Lists.newArrayList();
+        for (final Instruction instruction : new Diffr(originalFile, newFile).diff()) {
+            expected.add(InstructionComposer.composeString(instruction));
+        }
+        final List<String> actual = Lists.newArrayList();
+        for (final Instruction instruction : diff(originalFile, newFile, 2 * newFile.size())) {
+            actual.add(InstructionComposer.composeString(instruction));
+        }
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void testDiffSmallWindow() throws IOException {
+        final Random random = new Random(16);
+        final List<String> originalFile = randomLines(random, 5000);
+        final List<String> newFile = edit(random, originalFile);
+
+        for (final int windowSize : new int[]{2, 3, 10, 100, 1000}) {
+            final List<Instruction> instructions = diff(originalFile, newFile, windowSize);
+            assertThat(patch(originalFile, instructions), is(newFile));
+        }
+        assertThat(diff(originalFile, newFile, 1000).size(), is(lessThan(diff(originalFile, newFile, 10).size())));
+    }
+
+    @Test
+    public void testDiffJoinsCopies() throws IOException {
+        final List<String> lines = randomLines(new Random(17), 1000);
+        final List<Instruction> instructions = diff(lines, lines, 10);
+        assertThat(instructions.size(), is(1));
+        assertThat(((CopyInstruction) instructions.get(0)).getRange().upperEndpoint(), is(lines.size() - 1));
+    }
+
+    /**
+     * Diffs these files with a {@link WindowedDiffr}.
+     *
+     * @param originalFile original file.
+     * @param newFile      new file.
+     * @param windowSize   number of lines of the window.
+     *
+     * @return the {@link Instruction}s generated by the {@link WindowedDiffr}.
+     *
+     * @throws IOException if the files cannot be read.
+     */
+    private static List<Instruction> diff(final List<String> originalFile, final List<String> newFile,
+                                          final int windowSize) throws IOException {
+        final List<Instruction> instructions = Lists.newArrayList();
+        new WindowedDiffr(reader(originalFile), reader(newFile), windowSize).diff(new InstructionSink() {
+            @Override
+            public void accept(final Instruction instruction) {
+                instructions.add(instruction);
+            }
+        });
+        return instructions;
+    }
+
+    /**
+     * Applies these {@code instructions} to this {@code originalFile}.
+     *
+     * @param originalFile original file.
+     * @param instructions {@link Instruction}s to apply.
+     *
+     * @return the patched file.
+     */
+    private static List<String> patch(final List<String> originalFile, final List<Instruction> instructions) {
+        final List<String> patched = Lists.newArrayList();
+        for (final Instruction instruction : instructions) {
+            if (instruction instanceof CopyInstruction) {
+                final CopyInstruction copy = (CopyInstruction) instruction;
+                patched.addAll(originalFile.subList(copy.getRange().lowerEndpoint(),
+                                                    copy.getRange().upperEndpoint() + 1));
+            }
+            else {
+                patched.add(((InsertInstruction) instruction).getText());
+            }
+        }
+        return patched;
+    }
+
+    /**
+     * Gets a copy of this {@code originalFile} with random lines removed, changed and moved by a few lines.
+     *
+     * @param random       {@link Random} to use.
+     * @param originalFile file to edit.
+     *
+     * @return edited file.
+     */
+    private static List<String> edit(final Random random, final List<String> originalFile) {
+        final List<String> newFile = Lists.newArrayList(originalFile);
+        for (int i = 0; i < originalFile.size() / 50; i++) {
+            final int index = random.nextInt(newFile.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    newFile.remove(index);
+                    break;
+                case 1:
+                    newFile.set(index, "changed " + i);
+                    break;
+                default:
+                    newFile.add(Math.min(newFile.size(), index + random.nextInt(20)), newFile.remove(index));
+                    break;
+            }
+        }
+        return newFile;
+    }
+
+    /**
+     * Gets random lines that are mostly distinct.
+     *
+     * @param random {@link Random} to use.
+     * @param size   number of lines.
+     *
+     * @return random lines.
+     */
+    private static List<String> randomLines(final Random random, final int size) {
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            lines.add("line " + random.nextInt(10 * size));
+        }
+        return lines;
+    }
+
+    /**
+     * Gets a reader of these {@code lines}.
+     *
+     * @param lines lines to read.
+     *
+     * @return reader of {@code lines}.
+     */
+    private static BufferedReader reader(final List<String> lines) {
+        return new BufferedReader(new StringReader(Joiner.on('\n').join(lines)));
+    }
+}
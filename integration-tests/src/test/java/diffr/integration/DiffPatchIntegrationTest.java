@@ -1,5 +1,7 @@
 package diffr.integration;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import diffr.patch.IllegalPatchFileException;
@@ -8,6 +10,8 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -50,6 +54,53 @@ public class DiffPatchIntegrationTest {
         testDiffrPatchr("kernel33.txt", "kernel26.txt");
     }
 
+    @Test
+    public void testKernel01ToKernel26Index() throws IllegalPatchFileException, URISyntaxException, IOException {
+
+        final File originalFile = getFile("kernel01.txt");
+        final File newFile = getFile("kernel26.txt");
+
+        final File tmpIndexFile = File.createTempFile("diffr", "index", Files.createTempDir());
+        final File tmpPatchFile = File.createTempFile("diffr", "patch", Files.createTempDir());
+        final File tmpNewFile = File.createTempFile("diffr", "new", Files.createTempDir());
+
+        assertThat(diffr.diff.Main.run("--write-index", originalFile.getAbsolutePath(),
+                                       tmpIndexFile.getAbsolutePath()), is(0));
+
+        assertThat(diffr.diff.Main.run("--index", tmpIndexFile.getAbsolutePath(), newFile.getAbsolutePath(), "-o",
+                                       tmpPatchFile.getAbsolutePath()), is(0));
+
+        diffr.patch.Main.run(originalFile.getAbsolutePath(), tmpPatchFile.getAbsolutePath(), "-o",
+                             tmpNewFile.getAbsolutePath());
+
+        assertThat(Files.equal(newFile, tmpNewFile), is(true));
+    }
+
+    @Test
+    public void testCarriageReturn() throws IllegalPatchFileException, IOException {
+
+        final File originalFile = File.createTempFile("diffr", "original", Files.createTempDir());
+        final File newFile = File.createTempFile("diffr", "new", Files.createTempDir());
+        Files.write("x\ra\nb\n", originalFile, Charsets.UTF_8);
+        Files.write("a\nb\n", newFile, Charsets.UTF_8);
+
+        // Every diff mode and patchr must split the lone '\r' into a line of its own.
+        for (final String[] mode : new String[][]{{}, {"--adaptive"}, {"--window", "2"}}) {
+            final File tmpPatchFile = File.createTempFile("diffr", "patch", Files.createTempDir());
+            final File tmpNewFile = File.createTempFile("diffr", "new", Files.createTempDir());
+
+            final List<String> diffArgs = Lists.newArrayList(mode);
+            diffArgs.addAll(Arrays.asList(originalFile.getAbsolutePath(), newFile.getAbsolutePath(), "-o",
+                                          tmpPatchFile.getAbsolutePath()));
+            assertThat(diffr.diff.Main.run(diffArgs.toArray(new String[diffArgs.size()])), is(0));
+
+            assertThat(diffr.patch.Main.run(originalFile.getAbsolutePath(), tmpPatchFile.getAbsolutePath(), "-o",
+                                            tmpNewFile.getAbsolutePath()), is(0));
+
+            assertThat(Files.equal(newFile, tmpNewFile), is(true));
+        }
+    }
+
     /**
      * Runs diffr on {@code originalFileName} and {@code newFileName}, runs patchr on the resulting patch file and
      * {@code originalFileName} and compares the result to {@code newFileName}.
@@ -0,0 +1,110 @@
+package diffr.integration;
+
+import com.google.caliper.Param;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTree.Matcher;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static diffr.integration.DiffPatchIntegrationTest.getFile;
+
+/**
+ * Performance tests for the {@link Backend}s of {@link SuffixTrees} on the kernel files.
+ *
+ * @since 1.0
+ */
+@Test(groups = "performance-tests")
+public class SuffixTreeBackendPerfTest {
+
+    @Test
+    public void testPerformance() {
+        Runner.main(SuffixTreeBackendBenchmark.class, new String[]{"--trials", "2",
+                                                                   "-Dbackend=SUFFIX_TREE,SUFFIX_AUTOMATON",
+                                                                   "-DoriginalFileName=kernel01.txt,kernel26.txt"});
+    }
+
+    /**
+     * Benchmarks building a {@link SuffixTree} for one kernel file and matching the other kernel file against it.
+     */
+    public static class SuffixTreeBackendBenchmark extends SimpleBenchmark {
+
+        List<String> originalLines;
+
+        List<String> newLines;
+
+        SuffixTree<String> suffixTree;
+
+        @Param
+        Backend backend;
+
+        @Param
+        String originalFileName;
+
+        @Override
+        protected void setUp() throws Exception {
+            final String newFileName = "kernel01.txt".equals(originalFileName) ? "kernel26.txt" : "kernel01.txt";
+            originalLines = Files.readLines(getFile(originalFileName), Charsets.UTF_8);
+            newLines = Files.readLines(getFile(newFileName), Charsets.UTF_8);
+            suffixTree = SuffixTrees.newSuffixTree(originalLines, backend);
+        }
+
+        /**
+         * Build the {@link SuffixTree} {@code reps} times.
+         *
+         * @param reps number of repetitions.
+         */
+        public void timeBuild(int reps) {
+            for (int i = 0; i < reps; i++) {
+                SuffixTrees.newSuffixTree(originalLines, backend);
+            }
+        }
+
+        /**
+         * Match the longest prefixes of the new lines from left to right, the way a greedy parse does, {@code reps}
+         * times.
+         *
+         * @param reps number of repetitions.
+         *
+         * @return number of lines matched, so that the matching cannot be optimised away.
+         */
+        public int timeMatchLeftToRight(int reps) {
+            int matched = 0;
+            final Matcher<String> matcher = suffixTree.matcher();
+            for (int i = 0; i < reps; i++) {
+                int line = 0;
+                while (line < newLines.size()) {
+                    matcher.reset();
+                    final int start = line;
+                    while (line < newLines.size() && matcher.matchNext(newLines.get(line)).isMatched()) {
+                        line++;
+                    }
+                    line = Math.max(line, start + 1);
+                    matched += line - start;
+                }
+            }
+            return matched;
+        }
+
+        /**
+         * Compute the matching statistics of the new lines {@code reps} times.
+         *
+         * @param reps number of repetitions.
+         *
+         * @return number of lines matched, so that the matching cannot be optimised away.
+         */
+        public int timeMatchingStatistics(int reps) {
+            int matched = 0;
+            for (int i = 0; i < reps; i++) {
+                matched += suffixTree.matchingStatistics(newLines).size();
+            }
+            return matched;
+        }
+    }
+}
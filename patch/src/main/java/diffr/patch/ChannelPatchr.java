@@ -0,0 +1,236 @@
+package diffr.patch;
+
+import com.google.common.collect.Range;
+import diffr.util.instruction.BlockInsertInstruction;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionSink;
+import diffr.util.io.LineIndex;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies a patch to the original file by writing the patched file straight to a {@link WritableByteChannel}, rather
+ * than building it as a list of lines like {@link Patchr} does.
+ * <p/>
+ * <p>
+ * The lines of a {@link CopyInstruction} are a range of bytes of the original file, found with its {@link LineIndex},
+ * and are copied with {@link LineIndex#transferTo(long, long, WritableByteChannel)}, so that they are never decoded
+ * nor copied onto the heap; consecutive copies of consecutive lines are copied as one range. The lines of inserts are
+ * encoded with the charset of the {@link LineIndex} into a direct buffer, which is written when it is full or before
+ * the next copy.
+ * </p>
+ * <p>
+ * Copied lines keep their original line ends. Inserted lines, and a copied last line that has none, end with the line
+ * end of the first line of the original file, {@code "\r\n"} or {@code '\n'}, so that a patched file has the line
+ * ends of its original file. Nothing is written until the buffer is full, so {@link #flush()} must be called after the
+ * last {@link Instruction}.
+ * </p>
+ *
+ * @since 1.0
+ */
+public final class ChannelPatchr implements InstructionSink, Flushable {
+
+    /**
+     * Size of the buffer for the lines of inserts.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private static final CharSequence NEWLINE = "\n";
+
+    private final LineIndex originalFile;
+
+    private final WritableByteChannel output;
+
+    private final CharsetEncoder encoder;
+
+    private final ByteBuffer buffer;
+
+    private final CharSequence lineEnd;
+
+    // Range of bytes of the original file that is still to be copied, empty if copyFrom == copyTo.
+    private long copyFrom;
+
+    private long copyTo;
+
+    /**
+     * Default constructor.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param output       channel to write the patched file to, which is neither flushed nor closed.
+     *
+     * @throws NullPointerException if {@code originalFile} or {@code output} is null.
+     */
+    public ChannelPatchr(final LineIndex originalFile, final WritableByteChannel output) {
+        this.originalFile = checkNotNull(originalFile);
+        this.output = checkNotNull(output);
+        this.encoder = originalFile.charset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.lineEnd = lineEnd(originalFile);
+    }
+
+    /**
+     * Gets the line end of the first line of this {@code originalFile}.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     *
+     * @return the line end of the first line of {@code originalFile}, or {@code "\n"} if it is not terminated.
+     */
+    private static CharSequence lineEnd(final LineIndex originalFile) {
+        return 0 < originalFile.size() && originalFile.isTerminated(0) ? originalFile.lineEnd(0) : NEWLINE;
+    }
+
+    /**
+     * Applies these {@code instructions} to the original file and writes the patched file to this {@code output}.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param instructions instructions of the patch.
+     * @param output       channel to write the patched file to, which is neither flushed nor closed.
+     *
+     * @throws NullPointerException      if any of the arguments or instructions is null.
+     * @throws IndexOutOfBoundsException if an instruction copies a line that is not in the original file.
+     * @throws IOException               if the patched file cannot be written.
+     */
+    public static void patch(final LineIndex originalFile, final Iterable<? extends Instruction> instructions,
+                             final WritableByteChannel output) throws IOException {
+        checkNotNull(instructions);
+        final ChannelPatchr patchr = new ChannelPatchr(originalFile, output);
+        for (final Instruction instruction : instructions) {
+            patchr.accept(instruction);
+        }
+        patchr.flush();
+    }
+
+    /**
+     * Applies the next {@link Instruction} of the patch.
+     *
+     * @param instruction the next {@link Instruction}.
+     *
+     * @throws NullPointerException      if {@code instruction} is null.
+     * @throws IndexOutOfBoundsException if {@code instruction} copies a line that is not in the original file.
+     * @throws IOException               if the patched file cannot be written.
+     */
+    @Override
+    public void accept(final Instruction instruction) throws IOException {
+        switch (instruction.getType()) {
+            case Copy:
+                final Range<Integer> range = ((CopyInstruction) instruction).getRange();
+                copy(range.lowerEndpoint(), range.upperEndpoint());
+                break;
+            case Insert:
+                insert(((InsertInstruction) instruction).getText());
+                break;
+            case BlockInsert:
+                for (final String line : ((BlockInsertInstruction) instruction).getLines()) {
+                    insert(line);
+                }
+        }
+    }
+
+    /**
+     * Writes everything that is still to be written to the output.
+     *
+     * @throws IOException if the patched file cannot be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeCopy();
+        writeBuffer();
+    }
+
+    /**
+     * Copies the lines between these indices of the original file.
+     *
+     * @param from index of the first line, inclusive.
+     * @param to   index of the last line, inclusive.
+     *
+     * @throws IndexOutOfBoundsException if a line is not in the original file.
+     * @throws IOException               if the patched file cannot be written.
+     */
+    private void copy(final int from, final int to) throws IOException {
+        checkElementIndex(from, originalFile.size());
+        checkElementIndex(to, originalFile.size());
+        final long start = originalFile.start(from);
+        if (copyFrom == copyTo || copyTo != start) {
+            writeCopy();
+            writeBuffer();
+            copyFrom = start;
+        }
+        copyTo = originalFile.next(to);
+        if (!originalFile.isTerminated(to)) {
+            writeCopy();
+            encode(lineEnd);
+        }
+    }
+
+    /**
+     * Inserts this {@code line}.
+     *
+     * @param line the line.
+     *
+     * @throws IOException if the patched file cannot be written.
+     */
+    private void insert(final String line) throws IOException {
+        writeCopy();
+        encode(line);
+        encode(lineEnd);
+    }
+
+    /**
+     * Encodes these {@code characters} into the buffer, writing the buffer whenever it is full.
+     *
+     * @param characters characters to encode.
+     *
+     * @throws IOException if the patched file cannot be written.
+     */
+    private void encode(final CharSequence characters) throws IOException {
+        final CharBuffer input = CharBuffer.wrap(characters);
+        encoder.reset();
+        CoderResult result = encoder.encode(input, buffer, true);
+        while (result.isOverflow()) {
+            writeBuffer();
+            result = encoder.encode(input, buffer, true);
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Copies the range of bytes of the original file that is still to be copied.
+     *
+     * @throws IOException if the patched file cannot be written.
+     */
+    private void writeCopy() throws IOException {
+        if (copyFrom != copyTo) {
+            originalFile.transferTo(copyFrom, copyTo, output);
+            copyFrom = copyTo;
+        }
+    }
+
+    /**
+     * Writes the encoded bytes in the buffer.
+     *
+     * @throws IOException if the patched file cannot be written.
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -3,13 +3,14 @@ package diffr.patch;
 import com.google.common.base.Optional;
 import com.google.common.io.Files;
 import diffr.util.ArgumentsProcessor;
+import diffr.util.io.LineIndex;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 /**
  * Main entry point to diffr's PATCH tool.
@@ -21,6 +22,10 @@ import java.util.List;
  * <li>&lt;diff-file&gt; - The diff file created using the diff tool.</li>
  * </ul>
  * </p>
+ * <p>
+ * With {@code -o <output-file>} the patched file is written to a temporary file next to the output file, which only
+ * replaces the output file once the whole patch has been applied, so an illegal patch file leaves no partial output.
+ * </p>
  *
  * @author Jakub D Kozlowski
  * @author Amaury Couste
@@ -68,31 +73,28 @@ public final class Main {
                 return -1;
             }
 
-            final List<String> firstFileStrings = Files.readLines(firstFile, Charset.defaultCharset());
-            final List<String> patchFileStrings = Files.readLines(patchFile, Charset.defaultCharset());
-
-            final Patchr patchr = new Patchr(firstFileStrings, patchFileStrings);
-
-            final List<String> newFileStrings = patchr.patch();
-
             final Optional<String> outputFile = ArgumentsProcessor.extractOutputFile(args);
 
-            if (4 == args.length
-                    && outputFile.isPresent()) {
-
-                final File file = new File(outputFile.get());
-                final BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file));
-                for (final String line : newFileStrings) {
-                    bufferedWriter.write(line);
-                    bufferedWriter.write("\n");
+            final LineIndex originalFile = LineIndex.open(firstFile);
+            try {
+                final FileChannel patchFileChannel = new FileInputStream(patchFile).getChannel();
+                try {
+                    if (4 == args.length
+                            && outputFile.isPresent()) {
+
+                        patchToFile(originalFile, patchFileChannel, new File(outputFile.get()));
+                    }
+                    else {
+                        StreamingPatchr.patch(originalFile, patchFileChannel, Channels.newChannel(System.out));
+                        System.out.flush();
+                    }
                 }
-                bufferedWriter.close();
-            }
-            else {
-                for (final String line : newFileStrings) {
-                    System.out.println(line);
+                finally {
+                    patchFileChannel.close();
                 }
-                System.out.flush();
+            }
+            finally {
+                originalFile.close();
             }
 
             return 0;
@@ -105,6 +107,44 @@ public final class Main {
             System.err.println("The patch file is incorrect, exiting.");
             return -1;
         }
+        catch (final IndexOutOfBoundsException ioobe) {
+            System.err.println("The patch file does not match the original file, exiting.");
+            return -1;
+        }
+    }
+
+    /**
+     * Applies a patch and writes the patched file to a temporary file in the directory of this {@code outputFile},
+     * which is moved to {@code outputFile} once the whole patch has been applied and deleted otherwise.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param patchFile    channel of the patch file.
+     * @param outputFile   file to write the patched file to.
+     *
+     * @throws IllegalPatchFileException if a line of the patch file is not an instruction.
+     * @throws IndexOutOfBoundsException if an instruction copies a line that is not in the original file.
+     * @throws IOException               if the patch file cannot be read or the patched file cannot be written.
+     */
+    private static void patchToFile(final LineIndex originalFile, final FileChannel patchFile, final File outputFile)
+            throws IOException, IllegalPatchFileException {
+        final File tempFile = File.createTempFile("diffr", ".tmp", outputFile.getAbsoluteFile().getParentFile());
+        boolean patched = false;
+        try {
+            final FileChannel output = new FileOutputStream(tempFile).getChannel();
+            try {
+                StreamingPatchr.patch(originalFile, patchFile, output);
+            }
+            finally {
+                output.close();
+            }
+            Files.move(tempFile, outputFile);
+            patched = true;
+        }
+        finally {
+            if (!patched) {
+                tempFile.delete();
+            }
+        }
     }
 
     /**
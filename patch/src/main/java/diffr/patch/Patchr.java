@@ -51,6 +51,9 @@ public class Patchr {
                 case Insert:
                     final InsertInstruction insertInstruction = (InsertInstruction) instruction;
                     patchedFile.add(insertInstruction.getText());
+                    break;
+                case BlockInsert:
+                    patchedFile.addAll(((BlockInsertInstruction) instruction).getLines());
             }
         }
         return patchedFile;
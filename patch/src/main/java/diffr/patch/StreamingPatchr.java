@@ -0,0 +1,125 @@
+package diffr.patch;
+
+import com.google.common.base.Optional;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.InstructionParser;
+import diffr.util.io.LineIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies a patch while it is read: every line of the patch file is parsed into an {@link Instruction} and applied
+ * with a {@link ChannelPatchr} before the next line is read, so neither the patch nor the patched file is ever held
+ * in memory, only the {@link LineIndex} of the original file, one line of the patch and the buffer of the
+ * {@link ChannelPatchr}.
+ * <p/>
+ * <p>
+ * The patched file is written as the patch is read, so when a line of the patch is illegal, the patched file has
+ * already been written up to that line. Callers that write to a file should write to a temporary file and only move
+ * it into place once the patch has been applied, like {@link Main} does.
+ * </p>
+ *
+ * @since 1.0
+ */
+public final class StreamingPatchr {
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public StreamingPatchr() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Applies the patch read from this {@code patchFile} to the original file and writes the patched file to this
+     * {@code output}. Neither {@code patchFile} nor {@code output} is closed.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param patchFile    reader of the patch file.
+     * @param output       channel to write the patched file to.
+     *
+     * @return number of instructions that were applied.
+     *
+     * @throws NullPointerException      if any of the arguments is null.
+     * @throws IllegalPatchFileException if a line of the patch file is not an instruction.
+     * @throws IndexOutOfBoundsException if an instruction copies a line that is not in the original file.
+     * @throws IOException               if the patch file cannot be read or the patched file cannot be written.
+     */
+    public static long patch(final LineIndex originalFile, final Reader patchFile, final WritableByteChannel output)
+            throws IOException, IllegalPatchFileException {
+        checkNotNull(patchFile);
+        final ChannelPatchr patchr = new ChannelPatchr(originalFile, output);
+        final BufferedReader reader = patchFile instanceof BufferedReader
+                ? (BufferedReader) patchFile
+                : new BufferedReader(patchFile);
+        long instructions = 0;
+        for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+            final Optional<Instruction> instruction = InstructionParser.parseInstruction(line);
+            if (!instruction.isPresent()) {
+                patchr.flush();
+                throw new IllegalPatchFileException("Error. Illegal patch Instruction at line " + (instructions + 1)
+                                                            + ": " + line);
+            }
+            patchr.accept(instruction.get());
+            instructions++;
+        }
+        patchr.flush();
+        return instructions;
+    }
+
+    /**
+     * Applies the patch read from this {@code patchFile} to the original file and writes the patched file to this
+     * {@code output}, see {@link #patch(LineIndex, Reader, WritableByteChannel)}. The output stream is not flushed.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param patchFile    reader of the patch file.
+     * @param output       stream to write the patched file to.
+     *
+     * @return number of instructions that were applied.
+     *
+     * @throws NullPointerException      if any of the arguments is null.
+     * @throws IllegalPatchFileException if a line of the patch file is not an instruction.
+     * @throws IndexOutOfBoundsException if an instruction copies a line that is not in the original file.
+     * @throws IOException               if the patch file cannot be read or the patched file cannot be written.
+     */
+    public static long patch(final LineIndex originalFile, final Reader patchFile, final OutputStream output)
+            throws IOException, IllegalPatchFileException {
+        return patch(originalFile, patchFile, Channels.newChannel(checkNotNull(output)));
+    }
+
+    /**
+     * Applies the patch read from this {@code patchFile}, which is decoded with the charset of the original file, to
+     * the original file and writes the patched file to this {@code output}, see {@link #patch(LineIndex, Reader,
+     * WritableByteChannel)}.
+     *
+     * @param originalFile {@link LineIndex} of the original file.
+     * @param patchFile    channel of the patch file.
+     * @param output       channel to write the patched file to.
+     *
+     * @return number of instructions that were applied.
+     *
+     * @throws NullPointerException      if any of the arguments is null.
+     * @throws IllegalPatchFileException if a line of the patch file is not an instruction.
+     * @throws IndexOutOfBoundsException if an instruction copies a line that is not in the original file.
+     * @throws IOException               if the patch file cannot be read or the patched file cannot be written.
+     */
+    public static long patch(final LineIndex originalFile, final ReadableByteChannel patchFile,
+                             final WritableByteChannel output) throws IOException, IllegalPatchFileException {
+        checkNotNull(originalFile);
+        return patch(originalFile, new InputStreamReader(Channels.newInputStream(checkNotNull(patchFile)),
+                                                         originalFile.charset()), output);
+    }
+}
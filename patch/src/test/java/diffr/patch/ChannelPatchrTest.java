@@ -0,0 +1,212 @@
+package diffr.patch;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+import com.google.common.io.Files;
+import diffr.util.instruction.BlockInsertInstruction;
+import diffr.util.instruction.CopyInstruction;
+import diffr.util.instruction.InsertInstruction;
+import diffr.util.instruction.Instruction;
+import diffr.util.instruction.Instructions;
+import diffr.util.io.LineIndex;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link ChannelPatchr}.
+ *
+ * @since 1.0
+ */
+public class ChannelPatchrTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterClass
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullOriginalFile() {
+        new ChannelPatchr(null, Channels.newChannel(new ByteArrayOutputStream()));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullOutput() throws IOException {
+        final LineIndex originalFile = LineIndex.open(file("a\n"));
+        try {
+            new ChannelPatchr(originalFile, null);
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testCopyMissingLine() throws IOException {
+        final LineIndex originalFile = LineIndex.open(file("a\nb\n"));
+        try {
+            patch(originalFile, Collections.<Instruction>singletonList(new CopyInstruction(Ranges.closed(1, 2))));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @DataProvider(name = "patches")
+    public Object[][] patches() {
+        return new Object[][]{
+                {"hello world!\n2\n\n", ImmutableList.of("> hello world.", "1,1", "> 3", "1,2", "0,0"),
+                        "hello world.\n2\n3\n2\n\nhello world!\n"},
+                // Consecutive copies, and a last line without an end.
+                {"a\nb\nc", ImmutableList.of("0,0", "1,1", "2,2", "0,1"), "a\nb\nc\na\nb\n"},
+                {"a\nb\nc", ImmutableList.of("2,2", "> d", "1,2"), "c\nd\nb\nc\n"},
+                // Inserts and a last line without an end take the line end of the original file.
+                {"a\r\nb\r\n", ImmutableList.of("1,1", "> c", "0,1"), "b\r\nc\r\na\r\nb\r\n"},
+                {"a\r\nb", ImmutableList.of("1,1", "> c", "0,0"), "b\r\nc\r\na\r\n"},
+                // Copies keep their own line ends.
+                {"a\nb\r\n", ImmutableList.of("1,1", "> c", "0,0"), "b\r\nc\na\n"},
+                {"a\n", ImmutableList.<String>of(), ""},
+                {"", ImmutableList.of("> é", "> "), "é\n\n"},
+        };
+    }
+
+    @Test(dataProvider = "patches")
+    public void testPatch(final String original, final List<String> patch, final String expected) throws Exception {
+        final LineIndex originalFile = LineIndex.open(file(original), Charsets.UTF_8, executor);
+        try {
+            assertThat(patch(originalFile, Instructions.readInstructions(patch)), is(expected));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatchBlockInsert() throws IOException {
+        // Lines that do not fit in the buffer.
+        final String longLine = Strings.repeat("é", ChannelPatchr.BUFFER_SIZE);
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            lines.add("line " + i);
+        }
+        lines.add(longLine);
+
+        final LineIndex originalFile = LineIndex.open(file("a\nb\n"), Charsets.UTF_8, executor);
+        try {
+            final List<Instruction> instructions = ImmutableList.of(
+                    new CopyInstruction(Ranges.closed(1, 1)),
+                    new BlockInsertInstruction(lines),
+                    new InsertInstruction(longLine),
+                    new CopyInstruction(Ranges.closed(0, 1)));
+            assertThat(patch(originalFile, instructions),
+                       is("b\n" + Joiner.on('\n').join(lines) + "\n" + longLine + "\na\nb\n"));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatchCrlf() throws IOException {
+        final LineIndex originalFile = LineIndex.open(file("a\r\nb\r\nc"), Charsets.UTF_8, executor);
+        try {
+            final List<Instruction> instructions = ImmutableList.of(
+                    new CopyInstruction(Ranges.closed(2, 2)),
+                    new BlockInsertInstruction(ImmutableList.of("d", "e")),
+                    new CopyInstruction(Ranges.closed(0, 2)),
+                    new InsertInstruction("f"));
+            // Every line of the patched file ends like the lines of the original file.
+            assertThat(patch(originalFile, instructions), is("c\r\nd\r\ne\r\na\r\nb\r\nc\r\nf\r\n"));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatchCarriageReturn() throws IOException {
+        final LineIndex originalFile = LineIndex.open(file("a\rb\rc"), Charsets.UTF_8, executor);
+        try {
+            final List<Instruction> instructions = ImmutableList.of(
+                    new CopyInstruction(Ranges.closed(1, 2)),
+                    new InsertInstruction("d"));
+            assertThat(patch(originalFile, instructions), is("b\rc\rd\r"));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatchToFile() throws Exception {
+        final LineIndex originalFile = LineIndex.open(file("a\nb\nc\n"));
+        try {
+            final File patchedFile = file("");
+            final FileChannel output = new FileOutputStream(patchedFile).getChannel();
+            try {
+                ChannelPatchr.patch(originalFile, Instructions.readInstructions(
+                        ImmutableList.of("1,2", "> d", "0,0")), output);
+            }
+            finally {
+                output.close();
+            }
+            assertThat(Files.readLines(patchedFile, Charsets.UTF_8), is((List<String>) ImmutableList.of(
+                    "b", "c", "d", "a")));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    /**
+     * Applies these {@code instructions} to this {@code originalFile}.
+     *
+     * @param originalFile the original file.
+     * @param instructions instructions of the patch.
+     *
+     * @return the patched file.
+     *
+     * @throws IOException if the patch cannot be applied.
+     */
+    private static String patch(final LineIndex originalFile, final List<Instruction> instructions)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelPatchr.patch(originalFile, instructions, Channels.newChannel(bytes));
+        return new String(bytes.toByteArray(), Charsets.UTF_8);
+    }
+
+    /**
+     * Writes this {@code content} to a new temporary file.
+     *
+     * @param content content of the file.
+     *
+     * @return the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    static File file(final String content) throws IOException {
+        final File file = File.createTempFile("diffr", "patch", Files.createTempDir());
+        Files.write(content, file, Charsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,102 @@
+package diffr.patch;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import diffr.util.io.LineIndex;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link StreamingPatchr}.
+ *
+ * @since 1.0
+ */
+public class StreamingPatchrTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new StreamingPatchr();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testPatchNullPatchFile() throws Exception {
+        final LineIndex originalFile = LineIndex.open(ChannelPatchrTest.file("a\n"));
+        try {
+            StreamingPatchr.patch(originalFile, (StringReader) null, new ByteArrayOutputStream());
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatchIllegalInstruction() throws Exception {
+        final LineIndex originalFile = LineIndex.open(ChannelPatchrTest.file("a\nb\n"));
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                StreamingPatchr.patch(originalFile, new StringReader("1,1\n> c\nbrokenInstruction\n0,0\n"), output);
+                throw new AssertionError("The patch file is illegal");
+            }
+            catch (final IllegalPatchFileException ipfe) {
+                assertThat(ipfe.getMessage(), is("Error. Illegal patch Instruction at line 3: brokenInstruction"));
+            }
+            // Everything before the illegal line has been applied.
+            assertThat(new String(output.toByteArray(), Charsets.UTF_8), is("b\nc\n"));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    @Test
+    public void testPatch() throws Exception {
+        final LineIndex originalFile = LineIndex.open(ChannelPatchrTest.file("hello world!\n2\n\n"));
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            assertThat(StreamingPatchr.patch(originalFile, new StringReader("> hello world.\n1,1\n> 3\n1,2\n0,0"),
+                                             output), is(5L));
+            assertThat(new String(output.toByteArray(), Charsets.UTF_8), is("hello world.\n2\n3\n2\n\nhello world!\n"));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+
+    /**
+     * Tests that streaming a patch gives the same file as {@link Patchr}.
+     */
+    @Test
+    public void testExistingFiles() throws Exception {
+        final File file = new File(Resources.getResource("files/copyright.txt").toURI());
+        final File patchFile = new File(Resources.getResource("patches/cp.patch").toURI());
+        final Charset charset = Charset.defaultCharset();
+        final List<String> expected = new Patchr(Files.readLines(file, charset),
+                                                 Files.readLines(patchFile, charset)).patch();
+
+        final LineIndex originalFile = LineIndex.open(file);
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            StreamingPatchr.patch(originalFile,
+                                  Channels.newChannel(new ByteArrayInputStream(Files.toByteArray(patchFile))),
+                                  Channels.newChannel(output));
+            assertThat(new String(output.toByteArray(), charset).replace("\r\n", "\n"),
+                       is(Joiner.on('\n').join(expected) + (expected.isEmpty() ? "" : "\n")));
+        }
+        finally {
+            originalFile.close();
+        }
+    }
+}
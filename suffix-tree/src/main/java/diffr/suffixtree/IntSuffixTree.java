@@ -0,0 +1,111 @@
+package diffr.suffixtree;
+
+import com.google.common.collect.Range;
+import diffr.suffixtree.SuffixTree.Matched;
+
+/**
+ * {@link IntSuffixTree} is a primitive specialisation of {@link SuffixTree} for a sequence of {@code int} symbols,
+ * e.g. ids of interned lines. Comparing two elements is a single {@code int} comparison, so the cost of matching
+ * does not depend on the size of the elements that the symbols stand for.
+ *
+ * @since 1.0
+ */
+public interface IntSuffixTree {
+
+    /**
+     * Interface for traversing the {@link IntSuffixTree} in order to match suffixes. It follows the contract of
+     * {@link SuffixTree.Matcher}, but takes {@code int} symbols.
+     *
+     * @since 1.0
+     */
+    public interface IntMatcher {
+
+        /**
+         * Tries to match the next symbol in the suffix from the current position in the {@link IntSuffixTree}.
+         * Negative symbols never match.
+         *
+         * @param symbol next symbol to match.
+         *
+         * @return {@link Matched#YES} if {@code symbol} was matched, {@link Matched#NO} otherwise.
+         *
+         * @throws IllegalStateException if this {@link IntMatcher} is finished, i.e. there was a previous call to
+         *                               {@link #matchNext(int)} that resulted in {@link Matched#NO}.
+         */
+        Matched matchNext(final int symbol);
+
+        /**
+         * Checks if this {@link IntMatcher} has already returned {@link Matched#NO}.
+         *
+         * @return {@code true} if this {@link IntMatcher} has not yet returned {@link Matched#NO},
+         *         {@code false} otherwise.
+         */
+        boolean isFinished();
+
+        /**
+         * Checks if this {@link IntMatcher} is still at the root, i.e. it either did not match any symbols or it
+         * failed to match the first symbol.
+         *
+         * @return {@code true} if this {@link IntMatcher} still points to the root of the {@link IntSuffixTree},
+         *         {@code false} otherwise.
+         */
+        boolean isRoot();
+
+        /**
+         * Gets the index of the last matched symbol.
+         *
+         * @return index of last matched symbol.
+         *
+         * @throws IllegalStateException if this {@link IntMatcher} did not match any symbols yet.
+         */
+        int lastIndex();
+
+        /**
+         * Gets a continuous range of symbols that were matched so far.
+         *
+         * @return range of symbols that were matched so far.
+         *
+         * @throws IllegalStateException if this {@link IntMatcher} did not match any symbols yet.
+         */
+        Range<Integer> range();
+
+        /**
+         * Resets this {@link IntMatcher} to the root of the {@link IntSuffixTree}, so that it can be reused to
+         * match another suffix as if it was a new {@link IntMatcher}.
+         */
+        void reset();
+    }
+
+    /**
+     * Gets the number of symbols in this {@link IntSuffixTree}.
+     *
+     * @return number of symbols.
+     */
+    int size();
+
+    /**
+     * Gets the {@link IntMatcher} for this {@link IntSuffixTree}.
+     *
+     * @return matcher implementation for this {@link IntSuffixTree}.
+     */
+    IntMatcher matcher();
+
+    /**
+     * Estimates the average number of bytes held by this {@link IntSuffixTree} per symbol, e.g. to bound the memory
+     * held by a cache of {@link IntSuffixTree}s.
+     *
+     * @return number of bytes per symbol.
+     */
+    double bytesPerElement();
+
+    /**
+     * Computes the {@link MatchingStatistics} of these {@code symbols}, following the contract of {@link
+     * SuffixTree#matchingStatistics(java.util.List)}. Negative symbols never match.
+     *
+     * @param symbols symbols to compute the {@link MatchingStatistics} of.
+     *
+     * @return {@link MatchingStatistics} of {@code symbols}.
+     *
+     * @throws NullPointerException if {@code symbols} is null.
+     */
+    MatchingStatistics matchingStatistics(final int[] symbols);
+}
@@ -0,0 +1,97 @@
+package diffr.suffixtree;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Matching statistics of a sequence of elements against a {@link SuffixTree}: for every index {@code i} of the
+ * sequence, the length of the longest prefix of the sequence starting at {@code i} that occurs in the {@link
+ * SuffixTree}, together with the index where one such occurrence starts.
+ *
+ * @since 1.0
+ */
+public final class MatchingStatistics {
+
+    private final int[] lengths;
+
+    private final int[] starts;
+
+    /**
+     * Default constructor. The arrays are not copied, so they must not be modified afterwards.
+     *
+     * @param lengths lengths of the longest matches, one for each index of the sequence.
+     * @param starts  indices in the {@link SuffixTree} where the longest matches start, ignored where the length is
+     *                {@code 0}.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the arrays are of different lengths.
+     */
+    public MatchingStatistics(final int[] lengths, final int[] starts) {
+        this.lengths = checkNotNull(lengths);
+        this.starts = checkNotNull(starts);
+        checkArgument(lengths.length == starts.length);
+    }
+
+    /**
+     * Gets the number of elements in the sequence that these {@link MatchingStatistics} were computed for.
+     *
+     * @return number of elements in the sequence.
+     */
+    public int size() {
+        return lengths.length;
+    }
+
+    /**
+     * Gets the length of the longest match that starts at this {@code index} of the sequence.
+     *
+     * @param index index of the sequence.
+     *
+     * @return length of the longest match, {@code 0} if the element at {@code index} does not occur in the {@link
+     *         SuffixTree}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public int length(final int index) {
+        checkElementIndex(index, lengths.length);
+        return lengths[index];
+    }
+
+    /**
+     * Gets the index in the {@link SuffixTree} where the longest match that starts at this {@code index} of the
+     * sequence starts.
+     *
+     * @param index index of the sequence.
+     *
+     * @return index in the {@link SuffixTree} where the longest match starts.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     * @throws IllegalArgumentException  if there is no match at {@code index}.
+     */
+    public int start(final int index) {
+        // checkArgument with a message template would box the index on every call.
+        if (0 == length(index)) {
+            throw new IllegalArgumentException("No match at: " + index);
+        }
+        return starts[index];
+    }
+
+    /**
+     * Gets the range of elements in the {@link SuffixTree} that the longest match that starts at this {@code index}
+     * of the sequence is equal to.
+     *
+     * @param index index of the sequence.
+     *
+     * @return range of elements in the {@link SuffixTree}.
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     * @throws IllegalArgumentException  if there is no match at {@code index}.
+     */
+    public Range<Integer> range(final int index) {
+        final int start = start(index);
+        return Ranges.closed(start, start + lengths[index] - 1);
+    }
+}
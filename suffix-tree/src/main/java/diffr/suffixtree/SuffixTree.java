@@ -2,6 +2,8 @@ package diffr.suffixtree;
 
 import com.google.common.collect.Range;
 
+import java.util.List;
+
 /**
  * {@link SuffixTree} is a sequence of elements structured as a tree of suffixes that allows for quick retrieval of
  * sub sequences.
@@ -72,6 +74,14 @@ public interface SuffixTree<E extends Comparable> {
          *                               the first attempt, i.e. the call to {@link #matchNext(Object)} failed.
          */
         Range<Integer> range();
+
+        /**
+         * Resets this {@link Matcher} to the root of the {@link SuffixTree}, so that it can be reused to match
+         * another suffix as if it was a new {@link Matcher}.
+         *
+         * @since 1.0
+         */
+        void reset();
     }
 
     /**
@@ -101,4 +111,19 @@ public interface SuffixTree<E extends Comparable> {
      * @since 0.2
      */
     Matcher<E> matcher();
+
+    /**
+     * Computes the {@link MatchingStatistics} of these {@code elements}, i.e. for every index of {@code elements}
+     * the longest prefix of the elements starting at that index that occurs in this {@link SuffixTree}. Rather than
+     * matching every index from the root, the match of the next index is found by following suffix links from the
+     * match of the previous one, so the total time is linear in the number of {@code elements}.
+     *
+     * @param elements elements to compute the {@link MatchingStatistics} of.
+     *
+     * @return {@link MatchingStatistics} of {@code elements}.
+     *
+     * @throws NullPointerException if {@code elements} or any of the elements is null.
+     * @since 1.0
+     */
+    MatchingStatistics matchingStatistics(final List<E> elements);
 }
@@ -0,0 +1,179 @@
+package diffr.suffixtree;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.suffixtree.impl.InternedSuffixTree;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of the {@link SuffixTree}s built by {@link SuffixTrees#newSuffixTree(List, Backend)}, so that diffing several
+ * new files against the same original file builds its {@link SuffixTree} once. The {@link SuffixTree}s are:
+ *
+ * <ul>
+ * <li>keyed on the backend and the content of the elements, so equal lists of elements share a {@link SuffixTree}
+ * whichever list they are;</li>
+ * <li>weighed by the bytes that they are estimated to hold, including the key, and the least recently used ones are
+ * evicted once the total weight exceeds the maximum;</li>
+ * <li>built once for every key, a thread that asks for a key that is being built waits for that build.</li>
+ * </ul>
+ *
+ * The elements must not be modified while they are in the cache.
+ *
+ * @since 1.0
+ */
+public final class SuffixTreeCache {
+
+    // Estimated bytes held by the key per element, i.e. a reference to the element.
+    private static final int KEY_BYTES = 8;
+
+    private final Cache<Key, InternedSuffixTree<?>> cache;
+
+    /**
+     * Default constructor.
+     *
+     * @param maximumBytes maximum number of bytes that the cached {@link SuffixTree}s are estimated to hold.
+     *
+     * @throws IllegalArgumentException if {@code maximumBytes} is negative.
+     */
+    public SuffixTreeCache(final long maximumBytes) {
+        checkArgument(maximumBytes >= 0, "Negative maximum bytes: %s", maximumBytes);
+        // A single segment, so that the maximum is not split between segments and eviction is least recently used
+        // across the whole cache; builds of different keys still run concurrently.
+        this.cache = CacheBuilder.newBuilder()
+                                 .concurrencyLevel(1)
+                                 .maximumWeight(maximumBytes)
+                                 .weigher(new Weigher<Key, InternedSuffixTree<?>>() {
+                                     @Override
+                                     public int weigh(final Key key, final InternedSuffixTree<?> suffixTree) {
+                                         return weight(key, suffixTree);
+                                     }
+                                 })
+                                 .build();
+    }
+
+    /**
+     * Gets the {@link SuffixTree} for these {@code elements} backed by this {@code backend}, building it only if it
+     * is not in the cache.
+     *
+     * @param elements elements to get the {@link SuffixTree} for.
+     * @param backend  data structure to back the {@link SuffixTree} by.
+     * @param <E>      type of elements.
+     *
+     * @return {@link SuffixTree} for these {@code elements}.
+     *
+     * @throws NullPointerException if any parameter or any of the elements is null.
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Comparable> InternedSuffixTree<E> get(final List<E> elements, final Backend backend) {
+
+        final Key key = new Key(ImmutableList.copyOf(checkNotNull(elements)), checkNotNull(backend));
+        try {
+            return (InternedSuffixTree<E>) cache.get(key, new Callable<InternedSuffixTree<?>>() {
+                @Override
+                public InternedSuffixTree<?> call() {
+                    return SuffixTrees.newSuffixTree((List<E>) key.elements, key.backend);
+                }
+            });
+        }
+        catch (final ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        catch (final UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Gets the statistics of this cache: the hits, the misses, i.e. the {@link SuffixTree}s built, and the
+     * evictions.
+     *
+     * @return statistics of this cache.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the number of {@link SuffixTree}s in this cache.
+     *
+     * @return number of {@link SuffixTree}s.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Evicts all the {@link SuffixTree}s from this cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Estimates the bytes held by this {@code suffixTree} and its {@code key}.
+     *
+     * @param key        key of {@code suffixTree}.
+     * @param suffixTree {@link SuffixTree} to weigh.
+     *
+     * @return estimated number of bytes, at most {@link Integer#MAX_VALUE}.
+     */
+    private static int weight(final Key key, final InternedSuffixTree<?> suffixTree) {
+        final double bytes = (suffixTree.bytesPerElement() + KEY_BYTES) * key.elements.size();
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(bytes));
+    }
+
+    /**
+     * Key of the cache: the elements and the backend. The hash code of the elements is computed once, so looking up
+     * a key only compares the elements when the hash codes are equal.
+     */
+    private static final class Key {
+
+        private final ImmutableList<?> elements;
+
+        private final Backend backend;
+
+        private final int hashCode;
+
+        /**
+         * Default constructor.
+         *
+         * @param elements elements of the {@link SuffixTree}.
+         * @param backend  backend of the {@link SuffixTree}.
+         */
+        private Key(final ImmutableList<?> elements, final Backend backend) {
+            this.elements = elements;
+            this.backend = backend;
+            this.hashCode = Objects.hashCode(elements, backend);
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) object;
+            return hashCode == other.hashCode && backend == other.backend && elements.equals(other.elements);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
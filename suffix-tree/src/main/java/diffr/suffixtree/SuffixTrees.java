@@ -1,8 +1,22 @@
 package diffr.suffixtree;
 
+import com.google.common.collect.Maps;
+import diffr.suffixtree.impl.AppendableSuffixTree;
+import diffr.suffixtree.impl.CompactSuffixTree;
+import diffr.suffixtree.impl.FmIndex;
+import diffr.suffixtree.impl.InternedSuffixTree;
+import diffr.suffixtree.impl.SuffixArray;
+import diffr.suffixtree.impl.SuffixAutomaton;
+import diffr.suffixtree.impl.SuffixIndexFile;
 import diffr.suffixtree.impl.SuffixTreeImpl;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Factory method for creating {@link SuffixTree}s.
@@ -14,6 +28,89 @@ public final class SuffixTrees {
 
     private static final String ERROR_MSG = "This class should not be instantiated";
 
+    /**
+     * Data structures that the {@link SuffixTree}s created by {@link #newSuffixTree(List, Backend)} can be backed by.
+     *
+     * @since 1.0
+     */
+    public enum Backend {
+
+        /**
+         * {@link CompactSuffixTree}, a suffix tree in flat primitive arrays: the fastest to match.
+         */
+        SUFFIX_TREE {
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols) {
+                return CompactSuffixTree.newSuffixTree(symbols);
+            }
+        },
+
+        /**
+         * {@link SuffixArray}, a suffix array with an LCP array: several times less memory than {@link
+         * #SUFFIX_TREE} and better locality when building, at the cost of a logarithmic factor when matching.
+         */
+        SUFFIX_ARRAY {
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols) {
+                return SuffixArray.newSuffixArray(symbols);
+            }
+
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols, final ExecutorService executor) {
+                return SuffixArray.newSuffixArray(symbols, executor);
+            }
+        },
+
+        /**
+         * {@link FmIndex}, a compressed full-text index that does not keep the elements: a fraction of the memory of
+         * {@link #SUFFIX_ARRAY} for very large elements, at the cost of slower matching and locating.
+         */
+        FM_INDEX {
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols) {
+                return FmIndex.newFmIndex(symbols);
+            }
+
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols, final ExecutorService executor) {
+                return FmIndex.newFmIndex(symbols, executor);
+            }
+        },
+
+        /**
+         * {@link SuffixAutomaton}, a suffix automaton: matching a symbol is a single lookup of a transition, which
+         * suits matching from left to right, and it does not keep the elements.
+         */
+        SUFFIX_AUTOMATON {
+            @Override
+            IntSuffixTree newIntSuffixTree(final int[] symbols) {
+                return SuffixAutomaton.newSuffixAutomaton(symbols);
+            }
+        };
+
+        /**
+         * Builds an {@link IntSuffixTree} backed by this {@link Backend}.
+         *
+         * @param symbols symbols to build the {@link IntSuffixTree} for, they are copied.
+         *
+         * @return {@link IntSuffixTree} for these {@code symbols}.
+         */
+        abstract IntSuffixTree newIntSuffixTree(final int[] symbols);
+
+        /**
+         * Builds an {@link IntSuffixTree} backed by this {@link Backend} on this {@code executor}. Backends that are
+         * built online, one symbol at a time, are built on the calling thread.
+         *
+         * @param symbols  symbols to build the {@link IntSuffixTree} for, they are copied.
+         * @param executor {@link ExecutorService} to build the {@link IntSuffixTree} on.
+         *
+         * @return {@link IntSuffixTree} for these {@code symbols}.
+         */
+        IntSuffixTree newIntSuffixTree(final int[] symbols, final ExecutorService executor) {
+            return newIntSuffixTree(symbols);
+        }
+    }
+
     /**
      * This class should not be instantiated.
      *
@@ -35,4 +132,183 @@ public final class SuffixTrees {
     public static <E extends Comparable> SuffixTree<E> newSuffixTree(final List<E> elements) {
         return SuffixTreeImpl.newSuffixTree(elements);
     }
+
+    /**
+     * Gets an empty {@link SuffixTree} that grows as elements are appended to it, in amortized constant time per
+     * element. Its {@link SuffixTree.Matcher}s match against the elements appended before they were created.
+     *
+     * @param <E> type of elements.
+     *
+     * @return new empty {@link AppendableSuffixTree}.
+     *
+     * @since 1.0
+     */
+    public static <E extends Comparable> AppendableSuffixTree<E> newAppendableSuffixTree() {
+        return AppendableSuffixTree.newAppendableSuffixTree();
+    }
+
+    /**
+     * Gets a {@link SuffixTree} for these {@code elements} that keeps its nodes and edges in flat primitive arrays,
+     * optimised for indexing large {@code elements} on a limited heap. The elements are interned to {@code int}
+     * symbols and the tree is built by {@link #newIntSuffixTree(int[])}.
+     *
+     * @param elements elements to build the {@link SuffixTree} for.
+     * @param <E>      type of elements.
+     *
+     * @return {@link SuffixTree} for these {@code elements}.
+     *
+     * @throws NullPointerException if {@code elements} or any of the elements is null.
+     * @since 1.0
+     */
+    public static <E extends Comparable> InternedSuffixTree<E> newCompactSuffixTree(final List<E> elements) {
+        return InternedSuffixTree.newCompactSuffixTree(elements);
+    }
+
+    /**
+     * Gets a {@link SuffixTree} for these {@code elements} backed by this {@code backend}. The elements are interned
+     * to {@code int} symbols and the backend is built by {@link #newIntSuffixTree(int[], Backend)}.
+     *
+     * @param elements elements to build the {@link SuffixTree} for.
+     * @param backend  data structure to back the {@link SuffixTree} by.
+     * @param <E>      type of elements.
+     *
+     * @return {@link SuffixTree} for these {@code elements}.
+     *
+     * @throws NullPointerException if any parameter or any of the elements is null.
+     * @since 1.0
+     */
+    public static <E extends Comparable> InternedSuffixTree<E> newSuffixTree(final List<E> elements,
+                                                                            final Backend backend) {
+        checkNotNull(backend);
+        final Map<E, Integer> symbols = Maps.newHashMap();
+        final int[] text = InternedSuffixTree.intern(checkNotNull(elements), symbols);
+        return new InternedSuffixTree<E>(symbols, backend.newIntSuffixTree(text));
+    }
+
+    /**
+     * Gets a {@link SuffixTree} for these {@code elements} backed by this {@code backend} and built in parallel on
+     * this {@code executor}, see {@link #newIntSuffixTree(int[], Backend, ExecutorService)}.
+     *
+     * @param elements elements to build the {@link SuffixTree} for.
+     * @param backend  data structure to back the {@link SuffixTree} by.
+     * @param executor {@link ExecutorService} to build the {@link SuffixTree} on.
+     * @param <E>      type of elements.
+     *
+     * @return {@link SuffixTree} for these {@code elements}.
+     *
+     * @throws NullPointerException  if any parameter or any of the elements is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     * @since 1.0
+     */
+    public static <E extends Comparable> InternedSuffixTree<E> newSuffixTree(final List<E> elements,
+                                                                            final Backend backend,
+                                                                            final ExecutorService executor) {
+        checkNotNull(backend);
+        checkNotNull(executor);
+        final Map<E, Integer> symbols = Maps.newHashMap();
+        final int[] text = InternedSuffixTree.intern(checkNotNull(elements), symbols);
+        return new InternedSuffixTree<E>(symbols, backend.newIntSuffixTree(text, executor));
+    }
+
+    /**
+     * Gets an {@link IntSuffixTree} for these {@code symbols}, e.g. the ids of interned lines.
+     *
+     * @param symbols symbols to build the {@link IntSuffixTree} for, they are copied.
+     *
+     * @return {@link IntSuffixTree} for these {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     * @since 1.0
+     */
+    public static IntSuffixTree newIntSuffixTree(final int[] symbols) {
+        return CompactSuffixTree.newSuffixTree(symbols);
+    }
+
+    /**
+     * Gets an {@link IntSuffixTree} for these {@code symbols} backed by this {@code backend}.
+     *
+     * @param symbols symbols to build the {@link IntSuffixTree} for, they are copied.
+     * @param backend data structure to back the {@link IntSuffixTree} by.
+     *
+     * @return {@link IntSuffixTree} for these {@code symbols}.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     * @since 1.0
+     */
+    public static IntSuffixTree newIntSuffixTree(final int[] symbols, final Backend backend) {
+        return checkNotNull(backend).newIntSuffixTree(symbols);
+    }
+
+    /**
+     * Gets an {@link IntSuffixTree} for these {@code symbols} backed by this {@code backend} and built in parallel
+     * on this {@code executor}: {@link Backend#SUFFIX_ARRAY} and {@link Backend#FM_INDEX} sort the suffixes in
+     * parallel, the other backends are built online on the calling thread. Either way the result is immutable and
+     * the calling thread waits for it, so it must not be one of the threads of {@code executor}.
+     *
+     * @param symbols  symbols to build the {@link IntSuffixTree} for, they are copied.
+     * @param backend  data structure to back the {@link IntSuffixTree} by.
+     * @param executor {@link ExecutorService} to build the {@link IntSuffixTree} on.
+     *
+     * @return {@link IntSuffixTree} for these {@code symbols}.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     * @since 1.0
+     */
+    public static IntSuffixTree newIntSuffixTree(final int[] symbols, final Backend backend,
+                                                 final ExecutorService executor) {
+        return checkNotNull(backend).newIntSuffixTree(symbols, checkNotNull(executor));
+    }
+
+    /**
+     * Indexes these {@code lines} and writes the index to this {@code file}, so that it can be opened by {@link
+     * #openSuffixIndex(File)} without indexing the lines again, see {@link SuffixIndexFile}.
+     *
+     * @param lines lines to index.
+     * @param file  file to write the index to, it is overwritten.
+     *
+     * @throws NullPointerException if any parameter or any of the lines is null.
+     * @throws IOException          if the file cannot be written.
+     * @since 1.0
+     */
+    public static void writeSuffixIndex(final List<String> lines, final File file) throws IOException {
+        SuffixIndexFile.write(lines, file);
+    }
+
+    /**
+     * Indexes these {@code lines} on this {@code executor} and writes the index to this {@code file}, like {@link
+     * #writeSuffixIndex(List, File)} does.
+     *
+     * @param lines    lines to index.
+     * @param file     file to write the index to, it is overwritten.
+     * @param executor {@link ExecutorService} to index the lines on.
+     *
+     * @throws NullPointerException  if any parameter or any of the lines is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     * @throws IOException           if the file cannot be written.
+     * @since 1.0
+     */
+    public static void writeSuffixIndex(final List<String> lines, final File file, final ExecutorService executor)
+            throws IOException {
+        SuffixIndexFile.write(lines, file, executor);
+    }
+
+    /**
+     * Opens an index written by {@link #writeSuffixIndex(List, File)}. The file is memory-mapped and queried in place,
+     * so opening it takes the same time whatever the size of the indexed lines.
+     *
+     * @param file file to open.
+     *
+     * @return {@link SuffixTree} over the indexed lines.
+     *
+     * @throws NullPointerException if {@code file} is null.
+     * @throws IOException          if the file cannot be read, is not an index or is of another version.
+     * @since 1.0
+     */
+    public static InternedSuffixTree<String> openSuffixIndex(final File file) throws IOException {
+        return SuffixIndexFile.open(file);
+    }
 }
@@ -0,0 +1,151 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.SuffixTree.Matched;
+import diffr.suffixtree.SuffixTree.Matcher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link Matcher} implementation for {@link AppendableSuffixTree}. It matches against the snapshot of the first
+ * {@code size} elements of the tree: edges added by later appends are ignored and edges that were only split by later
+ * appends are still leaves, see {@link SuffixTreeImpl#edgeEnd(Edge, int)}.
+ *
+ * @since 1.0
+ */
+class AppendableMatcher<E extends Comparable> implements Matcher<E> {
+
+    private final AppendableSuffixTree<E> suffixTree;
+
+    private final int snapshotLastIndex;
+
+    private Edge curEdge;
+
+    private int lastIndex;
+
+    private int edgeEnd;
+
+    private boolean leaf;
+
+    private boolean finished;
+
+    private int matched;
+
+    /**
+     * Default constructor.
+     *
+     * @param suffixTree {@link AppendableSuffixTree} to traverse.
+     * @param size       number of elements of the snapshot to match against.
+     *
+     * @throws NullPointerException     if {@code suffixTree} is null.
+     * @throws IllegalArgumentException if {@code size} is negative.
+     */
+    AppendableMatcher(final AppendableSuffixTree<E> suffixTree, final int size) {
+        checkArgument(size >= 0);
+        this.suffixTree = checkNotNull(suffixTree);
+        this.snapshotLastIndex = size - 1;
+        reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final E element) {
+
+        checkNotNull(element);
+        checkState(!finished);
+
+        // We are at root or at the end of the current edge
+        if (null == curEdge || lastIndex == edgeEnd) {
+
+            // The end of a leaf in the snapshot is the end of the snapshot, even if the tree has grown past it.
+            if (leaf) {
+                return notMatched();
+            }
+
+            final Edge edgeLookup = suffixTree.getEdge(null == curEdge ? suffixTree.getRoot() : curEdge.getChild(),
+                                                       element, snapshotLastIndex);
+            if (null == edgeLookup) {
+                return notMatched();
+            }
+
+            final Range<Integer> range = edgeLookup.getRange();
+            curEdge = edgeLookup;
+            lastIndex = range.lowerEndpoint();
+            edgeEnd = SuffixTreeImpl.edgeEnd(edgeLookup, snapshotLastIndex);
+            leaf = SuffixTreeImpl.isOpen(edgeLookup, snapshotLastIndex);
+            matched++;
+            return Matched.YES;
+        }
+
+        final E edgeElement = suffixTree.getElement(lastIndex + 1);
+        if (edgeElement.hashCode() == element.hashCode() && edgeElement.equals(element)) {
+            lastIndex++;
+            matched++;
+            return Matched.YES;
+        }
+
+        return notMatched();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return null == curEdge;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        checkState(null != curEdge);
+        return lastIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        checkState(null != curEdge);
+        return Ranges.closed(lastIndex - matched + 1, lastIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.curEdge = null;
+        this.lastIndex = -1;
+        this.edgeEnd = -1;
+        this.leaf = false;
+        this.finished = false;
+        this.matched = 0;
+    }
+
+    /**
+     * Sets {@code finished} to {@code true} and returns {@link Matched#NO}.
+     *
+     * @return {@link Matched#NO}.
+     */
+    private Matched notMatched() {
+        finished = true;
+        return Matched.NO;
+    }
+}
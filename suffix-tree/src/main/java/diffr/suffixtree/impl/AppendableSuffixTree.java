@@ -0,0 +1,179 @@
+package diffr.suffixtree.impl;
+
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree;
+import javolution.util.FastCollection.Record;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link SuffixTree} that grows as elements are appended to it, so that an original file that is only ever appended
+ * to, e.g. a log, is indexed once rather than rebuilt for every diff. Appending runs one phase of Ukkonen's algorithm
+ * per element, see {@link SuffixTreeImpl.Builder#append(Comparable)}, so it takes amortized constant time.
+ * <p/>
+ * Appending only ever splits edges, keeping the elements that they span, and adds edges that start at the element
+ * appended. A {@link Matcher} and {@link #matchingStatistics(List)} therefore see a consistent snapshot of the tree:
+ * the elements appended before the {@link Matcher} was created or the statistics were computed, whatever is appended
+ * meanwhile. Appends are serialised against each other and against reads by a {@link ReadWriteLock}, so the tree can
+ * be appended to and queried from different threads.
+ *
+ * @since 1.0
+ */
+public final class AppendableSuffixTree<E extends Comparable> implements SuffixTree<E> {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SuffixTreeImpl.Builder<E> builder;
+
+    /**
+     * Default constructor.
+     */
+    private AppendableSuffixTree() {
+        this.builder = new SuffixTreeImpl.Builder<E>(0);
+    }
+
+    /**
+     * Factory for empty {@link AppendableSuffixTree}s.
+     *
+     * @param <E> type of elements.
+     *
+     * @return new empty {@link AppendableSuffixTree}.
+     */
+    public static <E extends Comparable> AppendableSuffixTree<E> newAppendableSuffixTree() {
+        return new AppendableSuffixTree<E>();
+    }
+
+    /**
+     * Appends this {@code element} to the end of this {@link AppendableSuffixTree}.
+     *
+     * @param element element to append.
+     *
+     * @throws NullPointerException if {@code element} is null.
+     */
+    public void append(final E element) {
+        checkNotNull(element);
+        lock.writeLock().lock();
+        try {
+            builder.append(element);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends these {@code elements}, in order, to the end of this {@link AppendableSuffixTree}. Readers see either
+     * none or all of them.
+     *
+     * @param elements elements to append.
+     *
+     * @throws NullPointerException if {@code elements} or any of the elements is null, in which case nothing is
+     *                              appended.
+     */
+    public void appendAll(final List<E> elements) {
+        for (final E element : checkNotNull(elements)) {
+            checkNotNull(element);
+        }
+        lock.writeLock().lock();
+        try {
+            builder.appendAll(elements);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of elements appended so far.
+     *
+     * @return number of elements.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return builder.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The {@link Matcher} matches against the elements appended before it was created.
+     */
+    @Override
+    public Matcher<E> matcher() {
+        return new AppendableMatcher<E>(this, size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final List<E> elements) {
+        checkNotNull(elements);
+        lock.readLock().lock();
+        try {
+            return builder.matchingStatistics(builder.symbolsOf(elements), builder.size() - 1);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the edge from this {@code parent} to this {@code element} in the snapshot of the first {@code lastIndex +
+     * 1} elements.
+     *
+     * @param parent    parent of the {@link Edge} to get.
+     * @param element   the first element of the {@code Edge} to get.
+     * @param lastIndex index of the last element of the snapshot.
+     *
+     * @return edge from this {@code parent} to this {@code element} or {@code null} if there is no such edge.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    Edge getEdge(final Record parent, final E element, final int lastIndex) {
+        checkNotNull(parent);
+        checkNotNull(element);
+        lock.readLock().lock();
+        try {
+            return builder.getEdge(parent, element, lastIndex);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the element at this {@code index}.
+     *
+     * @param index index of the element.
+     *
+     * @return element at this {@code index}.
+     */
+    E getElement(final int index) {
+        lock.readLock().lock();
+        try {
+            return builder.getElement(index);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the root node.
+     *
+     * @return root of the tree.
+     */
+    Record getRoot() {
+        return builder.getRoot();
+    }
+}
@@ -0,0 +1,133 @@
+package diffr.suffixtree.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable sequence of bits that answers rank queries in constant time. The bits are packed into {@code long}
+ * words and the number of ones before every block of {@value #BLOCK_WORDS} words is precomputed, which costs an
+ * extra eighth of the bits.
+ *
+ * @since 1.0
+ */
+final class BitVector {
+
+    private static final int BLOCK_WORDS = 4;
+
+    private static final int BLOCK_SHIFT = 8;
+
+    private final long[] words;
+
+    private final int[] blockRanks;
+
+    private final int size;
+
+    /**
+     * Default constructor.
+     *
+     * @param words bits packed into words, bit {@code i} is bit {@code i & 63} of word {@code i >>> 6}. The words are
+     *              not copied.
+     * @param size  number of bits.
+     *
+     * @throws NullPointerException     if {@code words} is null.
+     * @throws IllegalArgumentException if {@code words} cannot hold {@code size} bits.
+     */
+    BitVector(final long[] words, final int size) {
+        this.words = checkNotNull(words);
+        checkArgument(size >= 0 && words.length == words(size));
+        this.size = size;
+
+        this.blockRanks = new int[(size >>> BLOCK_SHIFT) + 1];
+        int rank = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (0 == i % BLOCK_WORDS) {
+                blockRanks[i / BLOCK_WORDS] = rank;
+            }
+            rank += Long.bitCount(words[i]);
+        }
+        if (0 == words.length % BLOCK_WORDS && words.length / BLOCK_WORDS < blockRanks.length) {
+            blockRanks[words.length / BLOCK_WORDS] = rank;
+        }
+    }
+
+    /**
+     * Gets the number of words needed to hold this number of bits.
+     *
+     * @param size number of bits.
+     *
+     * @return number of words.
+     */
+    static int words(final int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Sets the bit at this {@code index} in these {@code words}.
+     *
+     * @param words bits packed into words.
+     * @param index index of the bit to set.
+     */
+    static void set(final long[] words, final int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Gets the bit at this {@code index}.
+     *
+     * @param index index of the bit.
+     *
+     * @return {@code true} if the bit is one.
+     */
+    boolean get(final int index) {
+        return 0 != (words[index >>> 6] & (1L << index));
+    }
+
+    /**
+     * Gets the number of ones before this {@code index}.
+     *
+     * @param index index in {@code [0, size]}.
+     *
+     * @return number of ones in {@code [0, index)}.
+     */
+    int rank1(final int index) {
+        final int word = index >>> 6;
+        int rank = blockRanks[index >>> BLOCK_SHIFT];
+        for (int i = (index >>> BLOCK_SHIFT) * BLOCK_WORDS; i < word; i++) {
+            rank += Long.bitCount(words[i]);
+        }
+        final int bit = index & 63;
+        if (0 != bit) {
+            rank += Long.bitCount(words[word] & ((1L << bit) - 1));
+        }
+        return rank;
+    }
+
+    /**
+     * Gets the number of zeros before this {@code index}.
+     *
+     * @param index index in {@code [0, size]}.
+     *
+     * @return number of zeros in {@code [0, index)}.
+     */
+    int rank0(final int index) {
+        return index - rank1(index);
+    }
+
+    /**
+     * Gets the number of bits.
+     *
+     * @return number of bits.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes held by the arrays of this {@link BitVector}.
+     *
+     * @return number of bytes held by this {@link BitVector}.
+     */
+    long bytes() {
+        return 8L * words.length + 4L * blockRanks.length;
+    }
+}
@@ -0,0 +1,200 @@
+package diffr.suffixtree.impl;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Open-addressing hash table that maps a {@code [parent, symbol]} pair to a child. The pair is packed into a single
+ * {@code long} key and the keys and children are held in two flat arrays, so neither lookups nor inserts allocate
+ * (apart from growing the arrays). Collisions are resolved by linear probing.
+ *
+ * @since 1.0
+ */
+final class ChildTable {
+
+    /**
+     * Value returned by {@link #get(int, int)} if there is no child for the {@code [parent, symbol]} pair.
+     */
+    static final int NO_CHILD = Integer.MIN_VALUE;
+
+    private static final long EMPTY = -1L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    private int[] children;
+
+    private int size;
+
+    private int mask;
+
+    private int resizeAt;
+
+    /**
+     * Default constructor.
+     *
+     * @param expectedSize number of children expected to be put into this {@link ChildTable}.
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative.
+     */
+    ChildTable(final int expectedSize) {
+        checkArgument(expectedSize >= 0);
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Gets the child of this {@code parent} whose edge starts with this {@code symbol}.
+     *
+     * @param parent parent of the child, must not be negative.
+     * @param symbol first symbol of the edge to the child, must not be negative.
+     *
+     * @return the child or {@link #NO_CHILD} if there is no such child.
+     */
+    int get(final int parent, final int symbol) {
+        final long key = key(parent, symbol);
+        int slot = slot(key);
+        long current;
+        while (EMPTY != (current = keys[slot])) {
+            if (current == key) {
+                return children[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_CHILD;
+    }
+
+    /**
+     * Puts the {@code child} of this {@code parent} whose edge starts with this {@code symbol}, replacing the
+     * previous child if there was one.
+     *
+     * @param parent parent of the child, must not be negative.
+     * @param symbol first symbol of the edge to the child, must not be negative.
+     * @param child  the child, must not be {@link #NO_CHILD}.
+     */
+    void put(final int parent, final int symbol, final int child) {
+        final long key = key(parent, symbol);
+        int slot = slot(key);
+        long current;
+        while (EMPTY != (current = keys[slot])) {
+            if (current == key) {
+                children[slot] = child;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        children[slot] = child;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Gets the number of children in this {@link ChildTable}.
+     *
+     * @return number of children.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Shrinks this {@link ChildTable} to the smallest capacity that can hold its children.
+     */
+    void trim() {
+        final int capacity = capacityFor(size);
+        if (capacity < keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Gets the number of bytes held by the arrays of this {@link ChildTable}.
+     *
+     * @return number of bytes held by this {@link ChildTable}.
+     */
+    long bytes() {
+        return 8L * keys.length + 4L * children.length;
+    }
+
+    /**
+     * Packs {@code parent} and {@code symbol} into a single key.
+     *
+     * @param parent parent of the child.
+     * @param symbol first symbol of the edge to the child.
+     *
+     * @return the key.
+     */
+    private static long key(final int parent, final int symbol) {
+        return ((long) parent << 32) | (symbol & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the first slot to probe for this {@code key}.
+     *
+     * @param key key to get the slot for.
+     *
+     * @return the first slot to probe.
+     */
+    private int slot(final long key) {
+        // Finaliser of MurmurHash3, so that consecutive parents and symbols spread across the table.
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    /**
+     * Gets the power of two capacity that keeps the load factor under {@code 3/4} for {@code size} children.
+     *
+     * @param size number of children.
+     *
+     * @return capacity for {@code size} children.
+     */
+    private static int capacityFor(final int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity - (capacity >>> 2) <= size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Allocates empty arrays of this {@code capacity}.
+     *
+     * @param capacity power of two capacity.
+     */
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        children = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    /**
+     * Moves all the children into new arrays of this {@code capacity}.
+     *
+     * @param capacity power of two capacity.
+     */
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldChildren = children;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (EMPTY != oldKeys[i]) {
+                int slot = slot(oldKeys[i]);
+                while (EMPTY != keys[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                children[slot] = oldChildren[i];
+            }
+        }
+    }
+}
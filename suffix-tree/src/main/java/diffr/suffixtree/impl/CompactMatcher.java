@@ -0,0 +1,143 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link IntMatcher} implementation for {@link CompactSuffixTree}. The position in the tree is held in plain {@code
+ * int} fields: the child that the current edge leads to and the index of the last matched element on that edge, so
+ * matching does not allocate and the same instance can be reused by calling {@link #reset()}.
+ *
+ * @since 1.0
+ */
+public class CompactMatcher implements IntMatcher {
+
+    private static final int NO_EDGE = ChildTable.NO_CHILD;
+
+    private final CompactSuffixTree suffixTree;
+
+    private int edge;
+
+    private int edgeEnd;
+
+    private int lastIndex;
+
+    private int matched;
+
+    private boolean finished;
+
+    /**
+     * Default constructor.
+     *
+     * @param suffixTree {@link IntSuffixTree} to traverse.
+     *
+     * @throws NullPointerException if {@code suffixTree} is null.
+     */
+    public CompactMatcher(final CompactSuffixTree suffixTree) {
+        this.suffixTree = checkNotNull(suffixTree);
+        reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final int symbol) {
+
+        checkState(!finished);
+
+        if (symbol < 0) {
+            return notMatched();
+        }
+
+        // We are at root or at the end of the current edge
+        if (NO_EDGE == edge || lastIndex + 1 == edgeEnd) {
+
+            final int node = NO_EDGE == edge ? CompactSuffixTree.ROOT : edge;
+            if (CompactSuffixTree.isLeaf(node)) {
+                return notMatched();
+            }
+
+            final int child = suffixTree.child(node, symbol);
+            if (ChildTable.NO_CHILD == child) {
+                return notMatched();
+            }
+
+            edge = child;
+            edgeEnd = suffixTree.edgeEnd(child);
+            lastIndex = suffixTree.edgeStart(child);
+            matched++;
+            return Matched.YES;
+        }
+
+        if (suffixTree.symbolAt(lastIndex + 1) == symbol) {
+            lastIndex++;
+            matched++;
+            return Matched.YES;
+        }
+
+        return notMatched();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return NO_EDGE == edge;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        checkState(!isRoot());
+        return lastIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        checkState(!isRoot());
+        return Ranges.closed(lastIndex - matched + 1, lastIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.edge = NO_EDGE;
+        this.edgeEnd = 0;
+        this.lastIndex = -1;
+        this.finished = false;
+        this.matched = 0;
+    }
+
+    /**
+     * Sets {@code finished} to {@code true} and returns {@link Matched#NO}.
+     *
+     * @return {@link Matched#NO}.
+     */
+    private Matched notMatched() {
+        finished = true;
+        return Matched.NO;
+    }
+}
@@ -0,0 +1,403 @@
+package diffr.suffixtree.impl;
+
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.MatchingStatistics;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link IntSuffixTree} implementation that keeps its nodes and edges in flat primitive arrays, rather than in
+ * objects:
+ *
+ * <ul>
+ * <li>internal nodes are {@code int} ids that index the arrays of edge starts, edge ends and suffix links;</li>
+ * <li>leaves are implicit: a leaf is encoded as the complement of the start of its edge, because every leaf edge
+ * ends at the end of the elements;</li>
+ * <li>the edges are indexed by a {@link ChildTable} keyed on the parent id and the first symbol of the edge.</li>
+ * </ul>
+ *
+ * The tree is built online using Ukkonen's algorithm.
+ *
+ * @since 1.0
+ */
+public final class CompactSuffixTree implements IntSuffixTree {
+
+    static final int ROOT = 0;
+
+    private static final int NO_NODE = -1;
+
+    private final int[] text;
+
+    private final ChildTable children;
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private int[] suffixLinks;
+
+    private int nodes;
+
+    /**
+     * Default constructor.
+     *
+     * @param symbols symbols that this {@link CompactSuffixTree} will be built for.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    private CompactSuffixTree(final int[] symbols) {
+        this.text = checkNotNull(symbols).clone();
+        for (final int symbol : text) {
+            checkArgument(symbol >= 0, "Negative symbol: %s", symbol);
+        }
+
+        this.children = new ChildTable(text.length + (text.length >>> 1));
+        final int capacity = (text.length >>> 1) + 1;
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.suffixLinks = new int[capacity];
+        this.nodes = 1;
+    }
+
+    /**
+     * Inserts all the suffixes of {@code text} using Ukkonen's algorithm.
+     */
+    private void build() {
+
+        // Active point: the end of the longest suffix that is already in the tree, stored as a node,
+        // the index of the first element of the edge going out of that node and the number of elements
+        // matched along that edge.
+        int activeNode = ROOT;
+        int activeEdgeIndex = 0;
+        int activeLength = 0;
+
+        // Number of suffixes that still need to be inserted explicitly.
+        int remainder = 0;
+
+        for (int i = 0; i < text.length; i++) {
+
+            final int symbol = text[i];
+            int lastBranch = NO_NODE;
+            remainder++;
+
+            while (remainder > 0) {
+
+                if (0 == activeLength) {
+                    activeEdgeIndex = i;
+                }
+
+                final int child = children.get(activeNode, text[activeEdgeIndex]);
+                if (ChildTable.NO_CHILD == child) {
+                    children.put(activeNode, symbol, leaf(i));
+                    if (NO_NODE != lastBranch) {
+                        suffixLinks[lastBranch] = activeNode;
+                        lastBranch = NO_NODE;
+                    }
+                }
+                else {
+                    final int start = edgeStart(child);
+                    final int edgeLength = (isLeaf(child) ? i + 1 : ends[child]) - start;
+
+                    // Skip/count trick: jump over whole edges.
+                    if (activeLength >= edgeLength) {
+                        activeEdgeIndex += edgeLength;
+                        activeLength -= edgeLength;
+                        activeNode = child;
+                        continue;
+                    }
+
+                    if (text[start + activeLength] == symbol) {
+                        // The suffix is already in the tree, so are all the shorter ones: end the phase.
+                        if (NO_NODE != lastBranch && ROOT != activeNode) {
+                            suffixLinks[lastBranch] = activeNode;
+                        }
+                        activeLength++;
+                        break;
+                    }
+
+                    final int branch = split(activeNode, child, activeLength, i);
+                    if (NO_NODE != lastBranch) {
+                        suffixLinks[lastBranch] = branch;
+                    }
+                    lastBranch = branch;
+                }
+
+                remainder--;
+
+                if (ROOT == activeNode && activeLength > 0) {
+                    activeLength--;
+                    activeEdgeIndex = i - remainder + 1;
+                }
+                else if (ROOT != activeNode) {
+                    activeNode = suffixLinks[activeNode];
+                }
+            }
+        }
+
+        starts = Arrays.copyOf(starts, nodes);
+        ends = Arrays.copyOf(ends, nodes);
+        suffixLinks = Arrays.copyOf(suffixLinks, nodes);
+        children.trim();
+    }
+
+    /**
+     * Splits the edge from {@code parent} to {@code child} after {@code length} elements, inserting a new branch
+     * node with a new leaf that starts at {@code leafStart}.
+     *
+     * @param parent    parent of the edge to split.
+     * @param child     child of the edge to split.
+     * @param length    number of elements of the edge that stay above the branch node.
+     * @param leafStart start of the edge of the new leaf.
+     *
+     * @return the new branch node.
+     */
+    private int split(final int parent, final int child, final int length, final int leafStart) {
+
+        final int start = edgeStart(child);
+        final int branch = newNode(start, start + length);
+        children.put(parent, text[start], branch);
+
+        final int lowerChild;
+        if (isLeaf(child)) {
+            lowerChild = leaf(start + length);
+        }
+        else {
+            starts[child] = start + length;
+            lowerChild = child;
+        }
+        children.put(branch, text[start + length], lowerChild);
+        children.put(branch, text[leafStart], leaf(leafStart));
+
+        return branch;
+    }
+
+    /**
+     * Creates a new internal node, whose edge refers to elements in {@code [start, end)}.
+     *
+     * @param start index of the first element of the edge.
+     * @param end   index after the last element of the edge.
+     *
+     * @return id of the new node.
+     */
+    private int newNode(final int start, final int end) {
+        if (nodes == starts.length) {
+            final int capacity = nodes + (nodes >>> 1) + 1;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            suffixLinks = Arrays.copyOf(suffixLinks, capacity);
+        }
+        starts[nodes] = start;
+        ends[nodes] = end;
+        return nodes++;
+    }
+
+    /**
+     * Encodes a leaf whose edge starts at {@code start}.
+     *
+     * @param start index of the first element of the leaf edge.
+     *
+     * @return the encoded leaf.
+     */
+    static int leaf(final int start) {
+        return ~start;
+    }
+
+    /**
+     * Checks if this {@code child} is a leaf.
+     *
+     * @param child child to check.
+     *
+     * @return {@code true} if {@code child} is a leaf, {@code false} if it is an internal node.
+     */
+    static boolean isLeaf(final int child) {
+        return child < 0;
+    }
+
+    /**
+     * Gets the index of the first element of the edge to this {@code child}.
+     *
+     * @param child leaf or internal node.
+     *
+     * @return index of the first element of the edge.
+     */
+    int edgeStart(final int child) {
+        return isLeaf(child) ? ~child : starts[child];
+    }
+
+    /**
+     * Gets the index after the last element of the edge to this {@code child}.
+     *
+     * @param child leaf or internal node.
+     *
+     * @return index after the last element of the edge.
+     */
+    int edgeEnd(final int child) {
+        return isLeaf(child) ? text.length : ends[child];
+    }
+
+    /**
+     * Gets the child of this internal {@code node} whose edge starts with this {@code symbol}.
+     *
+     * @param node   internal node.
+     * @param symbol first symbol of the edge.
+     *
+     * @return the child or {@link ChildTable#NO_CHILD} if there is no such child.
+     */
+    int child(final int node, final int symbol) {
+        return children.get(node, symbol);
+    }
+
+    /**
+     * Gets the suffix link of this internal {@code node}. Nodes that do not have a suffix link are linked to the
+     * root.
+     *
+     * @param node internal node.
+     *
+     * @return suffix link of {@code node}.
+     */
+    int suffixLink(final int node) {
+        return suffixLinks[node];
+    }
+
+    /**
+     * Gets the symbol at this {@code index}.
+     *
+     * @param index index of the symbol.
+     *
+     * @return symbol at {@code index}.
+     */
+    int symbolAt(final int index) {
+        return text[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return text.length;
+    }
+
+    /**
+     * Gets the number of internal nodes, including the root, in this {@link CompactSuffixTree}.
+     *
+     * @return number of internal nodes.
+     */
+    int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the average number of bytes held by the arrays of this {@link CompactSuffixTree} per symbol.
+     *
+     * @return number of bytes per symbol.
+     */
+    @Override
+    public double bytesPerElement() {
+        final long bytes = 4L * (text.length + starts.length + ends.length + suffixLinks.length) + children.bytes();
+        return (double) bytes / Math.max(1, text.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompactMatcher matcher() {
+        return new CompactMatcher(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final int[] symbols) {
+
+        checkNotNull(symbols);
+        final int[] lengths = new int[symbols.length];
+        final int[] matchStarts = new int[symbols.length];
+
+        // The current match is symbols[i, i + length): it passes through the internal node at depth nodeDepth
+        // and ends on the edge to child, or at the node itself if there is no child.
+        int node = ROOT;
+        int nodeDepth = 0;
+        int child = ChildTable.NO_CHILD;
+        int length = 0;
+
+        for (int i = 0; i < symbols.length; i++) {
+
+            // Extend the match for as long as possible.
+            while (i + length < symbols.length && symbols[i + length] >= 0) {
+                final int symbol = symbols[i + length];
+                if (ChildTable.NO_CHILD != child && edgeStart(child) + length - nodeDepth < edgeEnd(child)) {
+                    if (text[edgeStart(child) + length - nodeDepth] != symbol) {
+                        break;
+                    }
+                }
+                else {
+                    if (ChildTable.NO_CHILD != child) {
+                        if (isLeaf(child)) {
+                            break;
+                        }
+                        node = child;
+                        nodeDepth = length;
+                        child = ChildTable.NO_CHILD;
+                    }
+                    final int next = children.get(node, symbol);
+                    if (ChildTable.NO_CHILD == next) {
+                        break;
+                    }
+                    child = next;
+                }
+                length++;
+            }
+
+            lengths[i] = length;
+            if (0 == length) {
+                continue;
+            }
+            final int end = ChildTable.NO_CHILD == child ? edgeEnd(node) : edgeStart(child) + length - nodeDepth;
+            matchStarts[i] = end - length;
+
+            // The match for i + 1 is at least symbols[i + 1, i + length): follow the suffix link and use the
+            // skip/count trick to walk down the rest of it.
+            length--;
+            if (ROOT != node) {
+                node = suffixLinks[node];
+                nodeDepth--;
+            }
+            child = ChildTable.NO_CHILD;
+            while (nodeDepth < length) {
+                final int next = children.get(node, symbols[i + 1 + nodeDepth]);
+                final int edgeLength = edgeEnd(next) - edgeStart(next);
+                if (length - nodeDepth <= edgeLength) {
+                    child = next;
+                    break;
+                }
+                node = next;
+                nodeDepth += edgeLength;
+            }
+        }
+
+        return new MatchingStatistics(lengths, matchStarts);
+    }
+
+    /**
+     * Factory for {@link CompactSuffixTree}s.
+     *
+     * @param symbols symbols to build the {@link CompactSuffixTree} for, they are copied.
+     *
+     * @return new {@link CompactSuffixTree} for {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    public static CompactSuffixTree newSuffixTree(final int[] symbols) {
+        final CompactSuffixTree suffixTree = new CompactSuffixTree(symbols);
+        suffixTree.build();
+        return suffixTree;
+    }
+}
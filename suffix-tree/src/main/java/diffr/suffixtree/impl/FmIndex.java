@@ -0,0 +1,378 @@
+package diffr.suffixtree.impl;
+
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.MatchingStatistics;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link IntSuffixTree} implementation backed by a compressed full-text index, rather than by a tree: a
+ * bidirectional FM-index. The symbols themselves are not kept, instead:
+ *
+ * <ul>
+ * <li>the Burrows-Wheeler transform (BWT) of the symbols and the BWT of the reversed symbols are held in {@link
+ * WaveletMatrix}es, which take a little more than {@code log2(alphabet size)} bits per symbol each;</li>
+ * <li>the suffix array of the symbols is sampled at every {@value #SAMPLE_RATE}th position of the symbols, so that
+ * the occurrence of a match is found in at most {@value #SAMPLE_RATE} steps of the LF-mapping;</li>
+ * <li>the LCP array of the rows of the BWT of the symbols, with {@link LcpIntervals}, so that a match can be
+ * shortened.</li>
+ * </ul>
+ *
+ * A match is an interval of rows in each of the two transforms and the intervals are kept in sync. Backward search
+ * in the BWT of the reversed symbols appends a symbol to the match, as {@link IntSuffixTree.IntMatcher#matchNext(int)}
+ * needs, and backward search in the BWT of the symbols prepends a symbol to the match, so that the {@link
+ * MatchingStatistics} are computed from right to left. When a symbol cannot be prepended, the match is shortened to
+ * its parent in the equivalent suffix tree through the LCP array rather than matched again, so they take linear
+ * time up to the logarithmic factors of the rank and LCP interval queries.
+ *
+ * @since 1.0
+ */
+public final class FmIndex implements IntSuffixTree {
+
+    private static final int SAMPLE_RATE = 32;
+
+    private final int size;
+
+    private final int[] alphabet;
+
+    private final int alphabetSize;
+
+    private final WaveletMatrix forward;
+
+    private final WaveletMatrix reverse;
+
+    private final BitVector sampled;
+
+    private final int[] samples;
+
+    private final int[] lcp;
+
+    private final LcpIntervals lcpIntervals;
+
+    /**
+     * Default constructor.
+     *
+     * @param size         number of symbols.
+     * @param alphabet     sorted distinct symbols if they were replaced by their ranks, {@code null} otherwise.
+     * @param alphabetSize number of symbols of the transforms, including the sentinel.
+     * @param forward      BWT of the symbols.
+     * @param reverse      BWT of the reversed symbols.
+     * @param sampled      rows of {@code forward} whose position is sampled.
+     * @param samples      positions of the sampled rows.
+     * @param lcp          LCP array of the rows of {@code forward}.
+     */
+    private FmIndex(final int size, final int[] alphabet, final int alphabetSize, final WaveletMatrix forward,
+                    final WaveletMatrix reverse, final BitVector sampled, final int[] samples, final int[] lcp) {
+        this.size = size;
+        this.alphabet = alphabet;
+        this.alphabetSize = alphabetSize;
+        this.forward = forward;
+        this.reverse = reverse;
+        this.sampled = sampled;
+        this.samples = samples;
+        this.lcp = lcp;
+        this.lcpIntervals = new LcpIntervals(IntBuffer.wrap(lcp));
+    }
+
+    /**
+     * Gets the symbol of the transforms for this {@code symbol}: symbols are shifted by one to make room for the
+     * sentinel {@code 0}, after they are replaced by their ranks if the alphabet is sparse.
+     *
+     * @param symbol symbol to map.
+     *
+     * @return symbol of the transforms or {@code -1} if {@code symbol} does not occur.
+     */
+    int mapSymbol(final int symbol) {
+        if (symbol < 0) {
+            return -1;
+        }
+        if (null == alphabet) {
+            return symbol + 1 < alphabetSize ? symbol + 1 : -1;
+        }
+        final int rank = Arrays.binarySearch(alphabet, symbol);
+        return rank < 0 ? -1 : rank + 1;
+    }
+
+    /**
+     * Gets the number of symbols, including the sentinel, that are smaller than this {@code symbol} of the
+     * transforms, i.e. the first row whose suffix starts with {@code symbol}.
+     *
+     * @param symbol symbol of the transforms.
+     *
+     * @return first row whose suffix starts with {@code symbol}.
+     */
+    int firstRow(final int symbol) {
+        return forward.rankLess(symbol, 0, size + 1);
+    }
+
+    /**
+     * Gets the BWT of the symbols.
+     *
+     * @return BWT of the symbols.
+     */
+    WaveletMatrix forward() {
+        return forward;
+    }
+
+    /**
+     * Gets the BWT of the reversed symbols.
+     *
+     * @return BWT of the reversed symbols.
+     */
+    WaveletMatrix reverse() {
+        return reverse;
+    }
+
+    /**
+     * Gets the position of the suffix at this {@code row} of the BWT of the symbols, walking the LF-mapping back to
+     * the closest sampled position.
+     *
+     * @param row row of the BWT of the symbols.
+     *
+     * @return position of the suffix at {@code row}.
+     */
+    int locate(int row) {
+        int steps = 0;
+        while (!sampled.get(row)) {
+            final int symbol = forward.access(row);
+            row = firstRow(symbol) + forward.rank(symbol, row);
+            steps++;
+        }
+        return samples[sampled.rank1(row)] + steps;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the average number of bytes held by this {@link FmIndex} per symbol.
+     *
+     * @return number of bytes per symbol.
+     */
+    @Override
+    public double bytesPerElement() {
+        final long bytes = forward.bytes() + reverse.bytes() + sampled.bytes() + 4L * samples.length
+                           + 4L * lcp.length + lcpIntervals.bytes() + (null == alphabet ? 0L : 4L * alphabet.length);
+        return (double) bytes / Math.max(1, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FmIndexMatcher matcher() {
+        return new FmIndexMatcher(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final int[] symbols) {
+
+        checkNotNull(symbols);
+        final int[] lengths = new int[symbols.length];
+        final int[] starts = new int[symbols.length];
+
+        // The current match is symbols[i, i + length) and its rows are [from, to) in the BWT of the symbols. The
+        // occurrence at row is at position, which is only located when it cannot be derived from the previous one.
+        int from = 0;
+        int to = size + 1;
+        int length = 0;
+        int row = 0;
+        int position = -1;
+
+        for (int i = symbols.length - 1; i >= 0; i--) {
+
+            final int symbol = mapSymbol(symbols[i]);
+            if (symbol < 0) {
+                from = 0;
+                to = size + 1;
+                length = 0;
+                continue;
+            }
+
+            // Prepend the symbol to the match of i + 1, contracting the match to its parent, i.e. its longest
+            // proper prefix that is a node of the equivalent suffix tree, for as long as the symbol cannot be
+            // prepended. Every row of the match is a row of its parent, so the occurrence is kept.
+            int lower = forward.rank(symbol, from);
+            int upper = forward.rank(symbol, to);
+            while (lower == upper && length > 0) {
+                length = Math.max(lcp[from], to <= size ? lcp[to] : 0);
+                if (0 == length) {
+                    from = 0;
+                    to = size + 1;
+                }
+                else {
+                    from = lcpIntervals.from(from, length);
+                    to = lcpIntervals.to(to - 1, length);
+                }
+                lower = forward.rank(symbol, from);
+                upper = forward.rank(symbol, to);
+            }
+            if (lower == upper) {
+                continue;
+            }
+
+            final int firstRow = firstRow(symbol);
+            if (length > 0 && position >= 0 && forward.access(row) == symbol) {
+                row = firstRow + forward.rank(symbol, row);
+                position--;
+            }
+            else {
+                row = firstRow + lower;
+                position = -1;
+            }
+            from = firstRow + lower;
+            to = firstRow + upper;
+            length++;
+
+            lengths[i] = length;
+            if (position < 0) {
+                position = locate(row);
+            }
+            starts[i] = position;
+        }
+
+        return new MatchingStatistics(lengths, starts);
+    }
+
+    /**
+     * Sorts the suffixes of {@code s}.
+     *
+     * @param s        symbols in {@code [0, k)}, the last of which must be a unique sentinel {@code 0}.
+     * @param k        size of the alphabet.
+     * @param executor {@link ExecutorService} to sort the suffixes on, or {@code null} to sort them on the calling
+     *                 thread.
+     *
+     * @return the suffix array of {@code s}.
+     */
+    private static int[] sortSuffixes(final int[] s, final int k, final ExecutorService executor) {
+        return null == executor ? SuffixArray.sortSuffixes(s, k)
+                                : ParallelSuffixSorter.sortSuffixes(s, executor, ParallelSuffixSorter.tasks(s.length));
+    }
+
+    /**
+     * Factory for {@link FmIndex}es.
+     *
+     * @param symbols symbols to build the {@link FmIndex} for, they are not kept.
+     *
+     * @return new {@link FmIndex} for {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    public static FmIndex newFmIndex(final int[] symbols) {
+        return build(symbols, null);
+    }
+
+    /**
+     * Factory for {@link FmIndex}es that sorts the suffixes on this {@code executor}. The calling thread waits for
+     * the tasks, so it must not be one of the threads of {@code executor}.
+     *
+     * @param symbols  symbols to build the {@link FmIndex} for, they are not kept.
+     * @param executor {@link ExecutorService} to sort the suffixes on.
+     *
+     * @return new {@link FmIndex} for {@code symbols}.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     */
+    public static FmIndex newFmIndex(final int[] symbols, final ExecutorService executor) {
+        return build(symbols, checkNotNull(executor));
+    }
+
+    /**
+     * Builds an {@link FmIndex}.
+     *
+     * @param symbols  symbols to build the {@link FmIndex} for, they are not kept.
+     * @param executor {@link ExecutorService} to sort the suffixes on, or {@code null} to sort them on the calling
+     *                 thread.
+     *
+     * @return new {@link FmIndex} for {@code symbols}.
+     */
+    private static FmIndex build(final int[] symbols, final ExecutorService executor) {
+
+        checkNotNull(symbols);
+        final int n = symbols.length;
+
+        int max = 0;
+        for (final int symbol : symbols) {
+            checkArgument(symbol >= 0, "Negative symbol: %s", symbol);
+            max = Math.max(max, symbol);
+        }
+
+        // Shift the symbols by one to make room for the sentinel, replacing them by their ranks if the alphabet is
+        // sparse.
+        final int[] text = new int[n + 1];
+        final int[] alphabet;
+        final int alphabetSize;
+        if (max <= n) {
+            alphabet = null;
+            alphabetSize = max + 2;
+            for (int i = 0; i < n; i++) {
+                text[i] = symbols[i] + 1;
+            }
+        }
+        else {
+            final int[] distinct = symbols.clone();
+            Arrays.sort(distinct);
+            int distinctSize = 0;
+            for (int i = 0; i < n; i++) {
+                if (0 == i || distinct[i] != distinct[i - 1]) {
+                    distinct[distinctSize++] = distinct[i];
+                }
+            }
+            alphabet = Arrays.copyOf(distinct, distinctSize);
+            alphabetSize = distinctSize + 1;
+            for (int i = 0; i < n; i++) {
+                text[i] = Arrays.binarySearch(alphabet, symbols[i]) + 1;
+            }
+        }
+        final int levels = 32 - Integer.numberOfLeadingZeros(alphabetSize - 1);
+
+        // BWT of the symbols, with the sampled positions of the suffix array.
+        int[] suffixes = sortSuffixes(text, alphabetSize, executor);
+        final int[] bwt = new int[n + 1];
+        final long[] sampledWords = new long[BitVector.words(n + 1)];
+        final int[] samples = new int[n / SAMPLE_RATE + 1];
+        int sampleCount = 0;
+        for (int row = 0; row <= n; row++) {
+            bwt[row] = 0 == suffixes[row] ? 0 : text[suffixes[row] - 1];
+            if (0 == suffixes[row] % SAMPLE_RATE) {
+                BitVector.set(sampledWords, row);
+                samples[sampleCount++] = suffixes[row];
+            }
+        }
+        final WaveletMatrix forward = new WaveletMatrix(bwt, levels);
+        final int[] lcp = new int[n + 1];
+        SuffixArray.computeRanksAndLcp(text, suffixes, new int[n + 1], lcp, executor,
+                                       ParallelSuffixSorter.tasks(n + 1));
+
+        // BWT of the reversed symbols.
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            final int swap = text[i];
+            text[i] = text[j];
+            text[j] = swap;
+        }
+        suffixes = sortSuffixes(text, alphabetSize, executor);
+        for (int row = 0; row <= n; row++) {
+            bwt[row] = 0 == suffixes[row] ? 0 : text[suffixes[row] - 1];
+        }
+        final WaveletMatrix reverse = new WaveletMatrix(bwt, levels);
+
+        return new FmIndex(n, alphabet, alphabetSize, forward, reverse, new BitVector(sampledWords, n + 1), samples,
+                           lcp);
+    }
+}
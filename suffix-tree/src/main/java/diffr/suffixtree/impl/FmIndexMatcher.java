@@ -0,0 +1,128 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link IntMatcher} implementation for {@link FmIndex}. The position in the tree is the interval of rows that
+ * start with the symbols matched so far in each of the two transforms, so matching a symbol is a step of backward
+ * search in the BWT of the reversed symbols and does not allocate. The occurrence of the match is only located when
+ * it is asked for.
+ *
+ * @since 1.0
+ */
+public class FmIndexMatcher implements IntMatcher {
+
+    private final FmIndex fmIndex;
+
+    private int forwardRow;
+
+    private int reverseRow;
+
+    private int rows;
+
+    private int matched;
+
+    private boolean finished;
+
+    /**
+     * Default constructor.
+     *
+     * @param fmIndex {@link FmIndex} to traverse.
+     *
+     * @throws NullPointerException if {@code fmIndex} is null.
+     */
+    public FmIndexMatcher(final FmIndex fmIndex) {
+        this.fmIndex = checkNotNull(fmIndex);
+        reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final int symbol) {
+
+        checkState(!finished);
+
+        final int mapped = fmIndex.mapSymbol(symbol);
+        if (mapped < 0) {
+            return notMatched();
+        }
+
+        final WaveletMatrix reverse = fmIndex.reverse();
+        final int lower = reverse.rank(mapped, reverseRow);
+        final int upper = reverse.rank(mapped, reverseRow + rows);
+        if (lower == upper) {
+            return notMatched();
+        }
+
+        forwardRow += reverse.rankLess(mapped, reverseRow, reverseRow + rows);
+        reverseRow = fmIndex.firstRow(mapped) + lower;
+        rows = upper - lower;
+        matched++;
+        return Matched.YES;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return 0 == matched;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        checkState(!isRoot());
+        return fmIndex.locate(forwardRow) + matched - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        checkState(!isRoot());
+        final int start = fmIndex.locate(forwardRow);
+        return Ranges.closed(start, start + matched - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.forwardRow = 0;
+        this.reverseRow = 0;
+        this.rows = fmIndex.size() + 1;
+        this.finished = false;
+        this.matched = 0;
+    }
+
+    /**
+     * Sets {@code finished} to {@code true} and returns {@link Matched#NO}.
+     *
+     * @return {@link Matched#NO}.
+     */
+    private Matched notMatched() {
+        finished = true;
+        return Matched.NO;
+    }
+}
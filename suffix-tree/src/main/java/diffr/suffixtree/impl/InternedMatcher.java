@@ -0,0 +1,82 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+import diffr.suffixtree.SuffixTree.Matcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link Matcher} implementation for {@link InternedSuffixTree}: looks up the symbol of each element and delegates
+ * to an {@link IntMatcher}.
+ *
+ * @since 1.0
+ */
+public class InternedMatcher<E extends Comparable> implements Matcher<E> {
+
+    private final InternedSuffixTree<E> suffixTree;
+
+    private final IntMatcher intMatcher;
+
+    /**
+     * Default constructor.
+     *
+     * @param suffixTree {@link InternedSuffixTree} to traverse.
+     * @param intMatcher {@link IntMatcher} of the {@link InternedSuffixTree#getIntSuffixTree()}.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    public InternedMatcher(final InternedSuffixTree<E> suffixTree, final IntMatcher intMatcher) {
+        this.suffixTree = checkNotNull(suffixTree);
+        this.intMatcher = checkNotNull(intMatcher);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final E element) {
+        return intMatcher.matchNext(suffixTree.symbolOf(element));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return intMatcher.isFinished();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return intMatcher.isRoot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        return intMatcher.lastIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        return intMatcher.range();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        intMatcher.reset();
+    }
+}
@@ -0,0 +1,156 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link SuffixTree} that interns its elements to {@code int} symbols and delegates to an {@link IntSuffixTree}
+ * built for those symbols. Each distinct element is held once and matching an element costs one lookup in the
+ * table of symbols, after which only symbols are compared.
+ *
+ * @since 1.0
+ */
+public final class InternedSuffixTree<E extends Comparable> implements SuffixTree<E> {
+
+    // Estimated bytes held by the table of symbols per distinct element: the entry, its slot and the boxed symbol,
+    // but not the element itself.
+    private static final int SYMBOL_BYTES = 56;
+
+    private final Map<E, Integer> symbols;
+
+    private final IntSuffixTree intSuffixTree;
+
+    /**
+     * Default constructor.
+     *
+     * @param symbols       symbols that the elements were interned to.
+     * @param intSuffixTree {@link IntSuffixTree} built for the interned elements.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    public InternedSuffixTree(final Map<E, Integer> symbols, final IntSuffixTree intSuffixTree) {
+        this.symbols = checkNotNull(symbols);
+        this.intSuffixTree = checkNotNull(intSuffixTree);
+    }
+
+    /**
+     * Gets the symbol that this {@code element} was interned to.
+     *
+     * @param element element to get the symbol of.
+     *
+     * @return symbol of {@code element} or {@code -1} if {@code element} does not occur in this tree.
+     *
+     * @throws NullPointerException if {@code element} is null.
+     */
+    public int symbolOf(final E element) {
+        final Integer symbol = symbols.get(checkNotNull(element));
+        return null == symbol ? -1 : symbol;
+    }
+
+    /**
+     * Gets the {@link IntSuffixTree} that this {@link InternedSuffixTree} delegates to.
+     *
+     * @return the {@link IntSuffixTree} for the interned elements.
+     */
+    public IntSuffixTree getIntSuffixTree() {
+        return intSuffixTree;
+    }
+
+    /**
+     * Estimates the average number of bytes held by this {@link InternedSuffixTree} per element: the bytes of its
+     * {@link IntSuffixTree} and of its table of symbols, but not of the distinct elements themselves.
+     *
+     * @return number of bytes per element.
+     */
+    public double bytesPerElement() {
+        final int size = intSuffixTree.size();
+        return 0 == size ? 0 : intSuffixTree.bytesPerElement() + (double) SYMBOL_BYTES * symbols.size() / size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InternedMatcher<E> matcher() {
+        return new InternedMatcher<E>(this, intSuffixTree.matcher());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final List<E> elements) {
+        return intSuffixTree.matchingStatistics(symbolsOf(elements, symbols));
+    }
+
+    /**
+     * Interns these {@code elements}: the first occurrence of each distinct element is given the next free symbol,
+     * starting from {@code 0}.
+     *
+     * @param elements elements to intern.
+     * @param symbols  map to put the symbols of the distinct elements into.
+     * @param <E>      type of elements.
+     *
+     * @return symbols of {@code elements}.
+     *
+     * @throws NullPointerException if any parameter or any of the elements is null.
+     */
+    public static <E> int[] intern(final List<E> elements, final Map<E, Integer> symbols) {
+        checkNotNull(symbols);
+        final int[] text = new int[elements.size()];
+        for (int i = 0; i < text.length; i++) {
+            final E element = checkNotNull(elements.get(i));
+            Integer symbol = symbols.get(element);
+            if (null == symbol) {
+                symbol = symbols.size();
+                symbols.put(element, symbol);
+            }
+            text[i] = symbol;
+        }
+        return text;
+    }
+
+    /**
+     * Gets the symbols that these {@code elements} were interned to, without interning new elements.
+     *
+     * @param elements elements to get the symbols of.
+     * @param symbols  symbols of the interned elements.
+     * @param <E>      type of elements.
+     *
+     * @return symbols of {@code elements}, {@code -1} for the elements that were not interned.
+     *
+     * @throws NullPointerException if any parameter or any of the elements is null.
+     */
+    static <E> int[] symbolsOf(final List<E> elements, final Map<E, Integer> symbols) {
+        checkNotNull(symbols);
+        final int[] text = new int[elements.size()];
+        for (int i = 0; i < text.length; i++) {
+            final Integer symbol = symbols.get(checkNotNull(elements.get(i)));
+            text[i] = null == symbol ? -1 : symbol;
+        }
+        return text;
+    }
+
+    /**
+     * Factory for {@link InternedSuffixTree}s backed by a {@link CompactSuffixTree}.
+     *
+     * @param elements elements to build the {@link InternedSuffixTree} for.
+     * @param <E>      type of elements.
+     *
+     * @return new {@link InternedSuffixTree} for {@code elements}.
+     *
+     * @throws NullPointerException if {@code elements} or any of the elements is null.
+     */
+    public static <E extends Comparable> InternedSuffixTree<E> newCompactSuffixTree(final List<E> elements) {
+        final Map<E, Integer> symbols = Maps.newHashMap();
+        final int[] text = intern(checkNotNull(elements), symbols);
+        return new InternedSuffixTree<E>(symbols, CompactSuffixTree.newSuffixTree(text));
+    }
+}
@@ -0,0 +1,157 @@
+package diffr.suffixtree.impl;
+
+import java.nio.IntBuffer;
+
+/**
+ * Finds the LCP interval of a suffix array that encloses a suffix: the widest interval of ranks around it
+ * whose suffixes all share their first {@code length} symbols, i.e. the node of the equivalent suffix tree whose
+ * string depth is at least {@code length}. It takes the place of the suffix links and the parents of a suffix tree
+ * when {@link SuffixArray} and {@link FmIndex} compute matching statistics.
+ * <p/>
+ * <p>
+ * The LCP array is split into blocks of {@value #BLOCK_SIZE} ranks and a sparse table holds the minimum of every
+ * power of two of consecutive blocks. An interval is widened by scanning the block of the suffix, jumping over whole
+ * blocks by the sparse table, and scanning the block where the interval ends, so it takes {@code O(log n)} time
+ * however wide the interval is. The table takes {@code log(n / BLOCK_SIZE)} integers per {@value #BLOCK_SIZE}
+ * symbols.
+ * </p>
+ *
+ * @since 1.0
+ */
+final class LcpIntervals {
+
+    /**
+     * Number of ranks of a block, which are scanned rather than looked up.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    private final IntBuffer lcp;
+
+    // minima[j][b] is the smallest LCP of the blocks [b, b + 2^j).
+    private final int[][] minima;
+
+    /**
+     * Default constructor.
+     *
+     * @param lcp length of the longest common prefix of every suffix and the suffix before it, in the order of the
+     *            suffix array. It is read in place and must not change.
+     */
+    LcpIntervals(final IntBuffer lcp) {
+        this.lcp = lcp;
+        final int size = lcp.limit();
+        final int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final int levels = 0 == blocks ? 0 : 32 - Integer.numberOfLeadingZeros(blocks);
+        this.minima = new int[levels][];
+        if (0 == levels) {
+            return;
+        }
+        minima[0] = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+            int minimum = Integer.MAX_VALUE;
+            for (int rank = block * BLOCK_SIZE, end = Math.min(size, rank + BLOCK_SIZE); rank < end; rank++) {
+                minimum = Math.min(minimum, lcp.get(rank));
+            }
+            minima[0][block] = minimum;
+        }
+        for (int level = 1; level < levels; level++) {
+            final int[] previous = minima[level - 1];
+            final int half = 1 << (level - 1);
+            final int[] current = new int[blocks - (1 << level) + 1];
+            for (int block = 0; block < current.length; block++) {
+                current[block] = Math.min(previous[block], previous[block + half]);
+            }
+            minima[level] = current;
+        }
+    }
+
+    /**
+     * Gets the first rank of the interval around this {@code rank} whose suffixes share their first {@code length}
+     * symbols: the greatest rank that is not greater than {@code rank} and whose LCP is smaller than {@code length},
+     * or {@code 0}.
+     *
+     * @param rank   rank of a suffix.
+     * @param length number of symbols that the suffixes of the interval share, positive.
+     *
+     * @return first rank of the interval.
+     */
+    int from(final int rank, final int length) {
+        // Within the block of the rank.
+        final int blockStart = rank - rank % BLOCK_SIZE;
+        for (int r = rank; r >= blockStart; r--) {
+            if (lcp.get(r) < length) {
+                return r;
+            }
+        }
+
+        // Over the blocks before it, all of whose LCPs are at least length, then within the block where it ends.
+        int block = blockStart / BLOCK_SIZE;
+        for (int level = minima.length - 1; level >= 0; level--) {
+            if (block >= (1 << level) && minima[level][block - (1 << level)] >= length) {
+                block -= 1 << level;
+            }
+        }
+        if (0 == block) {
+            return 0;
+        }
+        for (int r = block * BLOCK_SIZE - 1; ; r--) {
+            if (lcp.get(r) < length) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Gets the rank after the interval around this {@code rank} whose suffixes share their first {@code length}
+     * symbols: the least rank that is greater than {@code rank} and whose LCP is smaller than {@code length}, or the
+     * number of suffixes.
+     *
+     * @param rank   rank of a suffix.
+     * @param length number of symbols that the suffixes of the interval share, positive.
+     *
+     * @return rank after the interval.
+     */
+    int to(final int rank, final int length) {
+        final int size = lcp.limit();
+
+        // Within the block of the rank.
+        final int blockEnd = Math.min(size, rank - rank % BLOCK_SIZE + BLOCK_SIZE);
+        for (int r = rank + 1; r < blockEnd; r++) {
+            if (lcp.get(r) < length) {
+                return r;
+            }
+        }
+        if (blockEnd == size) {
+            return size;
+        }
+
+        // Over the blocks after it, all of whose LCPs are at least length, then within the block where it ends.
+        final int blocks = 0 == minima.length ? 0 : minima[0].length;
+        int block = blockEnd / BLOCK_SIZE;
+        for (int level = minima.length - 1; level >= 0; level--) {
+            if (block + (1 << level) <= blocks && minima[level][block] >= length) {
+                block += 1 << level;
+            }
+        }
+        if (block >= blocks) {
+            return size;
+        }
+        for (int r = block * BLOCK_SIZE; ; r++) {
+            if (lcp.get(r) < length) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes held by the table, not counting the LCP array.
+     *
+     * @return number of bytes.
+     */
+    long bytes() {
+        long bytes = 0;
+        for (final int[] level : minima) {
+            bytes += 4L * level.length;
+        }
+        return bytes;
+    }
+}
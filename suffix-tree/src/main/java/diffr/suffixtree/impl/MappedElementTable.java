@@ -0,0 +1,188 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import diffr.util.token.SymbolTable;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-only {@link Map} from the distinct elements of a {@link SuffixIndexFile} to their symbols that is read in
+ * place from buffers, so that opening the file does not rebuild a hash table:
+ *
+ * <ul>
+ * <li>the characters of the elements are held one after another, in the order of their symbols;</li>
+ * <li>the 64-bit fingerprints of the elements are held sorted, each with the symbol of its element.</li>
+ * </ul>
+ *
+ * Looking up an element is a binary search for its fingerprint, see {@link SymbolTable#fingerprint(CharSequence)},
+ * followed by a comparison of its characters with the characters of every element with that fingerprint, so a
+ * collision of fingerprints never gives a wrong symbol.
+ *
+ * @since 1.0
+ */
+final class MappedElementTable extends AbstractMap<String, Integer> {
+
+    private final LongBuffer fingerprints;
+
+    private final IntBuffer fingerprintSymbols;
+
+    private final IntBuffer offsets;
+
+    private final CharBuffer chars;
+
+    /**
+     * Default constructor. The buffers are not copied and are only read from.
+     *
+     * @param fingerprints       sorted fingerprints of the elements.
+     * @param fingerprintSymbols symbol of the element of every fingerprint.
+     * @param offsets            offset of the characters of every symbol in {@code chars}, followed by the number of
+     *                           characters.
+     * @param chars              characters of the elements in the order of their symbols.
+     *
+     * @throws NullPointerException if any parameter is null.
+     */
+    MappedElementTable(final LongBuffer fingerprints, final IntBuffer fingerprintSymbols, final IntBuffer offsets,
+                       final CharBuffer chars) {
+        this.fingerprints = checkNotNull(fingerprints);
+        this.fingerprintSymbols = checkNotNull(fingerprintSymbols);
+        this.offsets = checkNotNull(offsets);
+        this.chars = checkNotNull(chars);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final String element = (String) key;
+        final long fingerprint = SymbolTable.fingerprint(element);
+
+        int from = 0;
+        int to = fingerprints.limit();
+        while (from < to) {
+            final int middle = (from + to) >>> 1;
+            if (fingerprints.get(middle) < fingerprint) {
+                from = middle + 1;
+            }
+            else {
+                to = middle;
+            }
+        }
+
+        for (int i = from; i < fingerprints.limit() && fingerprints.get(i) == fingerprint; i++) {
+            final int symbol = fingerprintSymbols.get(i);
+            if (matches(symbol, element)) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return null != get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return fingerprints.limit();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+        return new AbstractSet<Entry<String, Integer>>() {
+            @Override
+            public Iterator<Entry<String, Integer>> iterator() {
+                return new Iterator<Entry<String, Integer>>() {
+
+                    private int symbol = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return symbol < size();
+                    }
+
+                    @Override
+                    public Entry<String, Integer> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final Entry<String, Integer> entry = Maps.immutableEntry(element(symbol), symbol);
+                        symbol++;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MappedElementTable.this.size();
+            }
+        };
+    }
+
+    /**
+     * Gets the element of this {@code symbol}.
+     *
+     * @param symbol symbol of the element.
+     *
+     * @return the element.
+     */
+    String element(final int symbol) {
+        final int offset = offsets.get(symbol);
+        final char[] element = new char[offsets.get(symbol + 1) - offset];
+        for (int i = 0; i < element.length; i++) {
+            element[i] = chars.get(offset + i);
+        }
+        return new String(element);
+    }
+
+    /**
+     * Checks if the characters of this {@code symbol} are the characters of this {@code element}, without
+     * allocating.
+     *
+     * @param symbol  symbol to check.
+     * @param element element to compare to.
+     *
+     * @return {@code true} if {@code symbol} is the symbol of {@code element}.
+     */
+    private boolean matches(final int symbol, final String element) {
+        final int offset = offsets.get(symbol);
+        if (offsets.get(symbol + 1) - offset != element.length()) {
+            return false;
+        }
+        for (int i = 0; i < element.length(); i++) {
+            if (chars.get(offset + i) != element.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
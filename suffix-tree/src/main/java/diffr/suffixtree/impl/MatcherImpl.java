@@ -1,6 +1,5 @@
 package diffr.suffixtree.impl;
 
-import com.google.common.base.Optional;
 import com.google.common.collect.Range;
 import com.google.common.collect.Ranges;
 import diffr.suffixtree.SuffixTree;
@@ -8,13 +7,13 @@ import diffr.suffixtree.SuffixTree.Matched;
 import diffr.suffixtree.SuffixTree.Matcher;
 import javolution.util.FastCollection.Record;
 
-import java.util.ListIterator;
-
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
- * {@link Matcher} implementation for {@link SuffixTreeImpl}.
+ * {@link Matcher} implementation for {@link SuffixTreeImpl}. It is a cursor over the tree: the position is held in
+ * the current {@link Edge} and plain {@code int} fields, so matching does not allocate and the same instance can be
+ * reused for many suffixes by calling {@link #reset()}.
  *
  * @author Jakub D Kozlowski
  * @since 0.2
@@ -23,9 +22,11 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
 
     private final SuffixTreeImpl<E> suffixTree;
 
-    private Optional<Edge> curEdge;
+    private Edge curEdge;
+
+    private int lastIndex;
 
-    private Optional<ListIterator<E>> curEdgeIterator;
+    private int edgeEnd;
 
     private boolean finished;
 
@@ -40,10 +41,7 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     public MatcherImpl(final SuffixTreeImpl<E> suffixTree) {
         this.suffixTree = checkNotNull(suffixTree);
-        this.curEdge = Optional.absent();
-        this.curEdgeIterator = Optional.absent();
-        this.finished = false;
-        this.matched = 0;
+        reset();
     }
 
     /**
@@ -55,42 +53,30 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
         checkNotNull(element);
         checkState(!finished);
 
-        // We are at root
-        if (!curEdge.isPresent()) {
-            final Optional<Edge> edgeLookup = suffixTree.getEdge(suffixTree.getRoot(), element);
-            if (!edgeLookup.isPresent()) {
-                return notMatched();
-            }
-
-            curEdge = edgeLookup;
-            curEdgeIterator = Optional.of(curEdge.get().iterator(suffixTree));
-            curEdgeIterator.get().next();
-            matched++;
-            return Matched.YES;
-        }
+        // We are at root or at the end of the current edge
+        if (null == curEdge || lastIndex == edgeEnd) {
 
-        checkStarted();
-        if (!curEdgeIterator.get().hasNext()) {
-
-            final Optional<Edge> edgeLookup = suffixTree.getEdge(curEdge.get().getChild(), element);
-            if (!edgeLookup.isPresent()) {
+            final Edge edgeLookup = suffixTree.getEdge(null == curEdge ? suffixTree.getRoot() : curEdge.getChild(),
+                                                       element);
+            if (null == edgeLookup) {
                 return notMatched();
             }
 
+            final Range<Integer> range = edgeLookup.getRange();
             curEdge = edgeLookup;
-            curEdgeIterator = Optional.of(curEdge.get().iterator(suffixTree));
-            curEdgeIterator.get().next();
+            lastIndex = range.lowerEndpoint();
+            edgeEnd = range.hasUpperBound() ? range.upperEndpoint() : suffixTree.size() - 1;
             matched++;
             return Matched.YES;
         }
 
-        final E edgeElement = curEdgeIterator.get().next();
+        final E edgeElement = suffixTree.getElement(lastIndex + 1);
         if (edgeElement.hashCode() == element.hashCode() && edgeElement.equals(element)) {
+            lastIndex++;
             matched++;
             return Matched.YES;
         }
 
-        curEdgeIterator.get().previous();
         return notMatched();
     }
 
@@ -107,7 +93,7 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     @Override
     public boolean isRoot() {
-        return !curEdge.isPresent();
+        return null == curEdge;
     }
 
     /**
@@ -115,9 +101,8 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     @Override
     public int lastIndex() {
-        checkStarted();
-        checkState(curEdge.isPresent());
-        return curEdgeIterator.get().previousIndex();
+        checkState(null != curEdge);
+        return lastIndex;
     }
 
     /**
@@ -125,10 +110,20 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     @Override
     public Range<Integer> range() {
-        checkStarted();
-        checkState(curEdge.isPresent());
-        return Ranges.closed(curEdgeIterator.get().previousIndex() - matched + 1,
-                             curEdgeIterator.get().previousIndex());
+        checkState(null != curEdge);
+        return Ranges.closed(lastIndex - matched + 1, lastIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.curEdge = null;
+        this.lastIndex = -1;
+        this.edgeEnd = -1;
+        this.finished = false;
+        this.matched = 0;
     }
 
     /**
@@ -138,7 +133,7 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     public boolean edgeHasNext() {
         checkStarted();
-        return curEdgeIterator.isPresent() ? curEdgeIterator.get().hasNext() : false;
+        return null != curEdge && lastIndex < edgeEnd;
     }
 
     /**
@@ -150,8 +145,8 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     public Edge lastEdge() {
         checkStarted();
-        if (curEdge.isPresent()) {
-            return curEdge.get();
+        if (null != curEdge) {
+            return curEdge;
         }
         throw new IllegalStateException();
     }
@@ -165,8 +160,8 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
      */
     public Record lastNode() {
         checkStarted();
-        if (curEdge.isPresent()) {
-            return curEdge.get().getChild();
+        if (null != curEdge) {
+            return curEdge.getChild();
         }
         return suffixTree.getRoot();
     }
@@ -179,8 +174,7 @@ public class MatcherImpl<E extends Comparable> implements Matcher<E> {
     private void checkStarted() {
 
         if (!finished) {
-            checkState(curEdge.isPresent());
-            checkState(curEdgeIterator.isPresent());
+            checkState(null != curEdge);
         }
     }
 
@@ -0,0 +1,410 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Lists;
+import diffr.util.Tasks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Sorts the suffixes of a sequence of symbols on an {@link ExecutorService} by prefix doubling: the suffixes are
+ * first sorted by their first symbol and then, in every round, each group of suffixes that share their first {@code
+ * h} symbols is sorted by the rank of the suffix {@code h} symbols further on, which sorts them by their first {@code
+ * 2h} symbols. The groups are disjoint, so they are sorted in parallel, and every round only touches the groups that
+ * are not yet sorted.
+ *
+ * <p>Every round has two phases separated by a barrier, so that no task reads a rank that another task is
+ * writing: the groups are sorted reading the ranks of the previous round, then the new ranks are assigned. A group
+ * larger than a task is sorted by all the tasks, as sorted runs that are merged.</p>
+ *
+ * @since 1.0
+ */
+final class ParallelSuffixSorter {
+
+    /**
+     * Smallest number of indices that is worth a task of its own.
+     */
+    private static final int MIN_CHUNK = 1 << 14;
+
+    /**
+     * Work to do on a chunk of a range of indices.
+     */
+    interface Chunk {
+
+        /**
+         * Does the work on the indices in {@code [from, to)}.
+         *
+         * @param from first index of the chunk.
+         * @param to   index after the last index of the chunk.
+         */
+        void run(final int from, final int to);
+    }
+
+    private final int[] s;
+
+    private final ExecutorService executor;
+
+    private final int tasks;
+
+    private final int[] suffixes;
+
+    private final int[] ranks;
+
+    private final int[] keys;
+
+    private final long[] packed;
+
+    private long[] buffer;
+
+    /**
+     * Default constructor.
+     *
+     * @param s        symbols to sort the suffixes of.
+     * @param executor {@link ExecutorService} to run the tasks on.
+     * @param tasks    number of tasks to split every round into.
+     */
+    private ParallelSuffixSorter(final int[] s, final ExecutorService executor, final int tasks) {
+        this.s = s;
+        this.executor = executor;
+        this.tasks = tasks;
+        this.suffixes = new int[s.length];
+        this.ranks = new int[s.length];
+        this.keys = new int[s.length];
+        this.packed = new long[s.length];
+    }
+
+    /**
+     * Sorts the suffixes.
+     *
+     * @return the suffix array.
+     */
+    private int[] sort() {
+
+        final int n = s.length;
+        for (int i = 0; i < n; i++) {
+            suffixes[i] = i;
+        }
+
+        // Groups of suffixes that are not yet sorted, as pairs of [start, end) in the suffix array.
+        int[] groups = {0, n};
+        int groupCount = n > 1 ? 1 : 0;
+        int h = 0;
+
+        while (groupCount > 0) {
+
+            // Split the groups into batches of at least n / tasks suffixes. A group that is larger than that is a
+            // batch of its own and is sorted by all the tasks.
+            int unsorted = 0;
+            for (int g = 0; g < groupCount; g++) {
+                unsorted += groups[2 * g + 1] - groups[2 * g];
+            }
+            final int batchSize = Math.max(1, (unsorted + tasks - 1) / tasks);
+            final List<int[]> batches = Lists.newArrayList();
+            int batchStart = 0;
+            int batchSuffixes = 0;
+            for (int g = 0; g < groupCount; g++) {
+                final int groupSize = groups[2 * g + 1] - groups[2 * g];
+                if (groupSize > batchSize) {
+                    if (batchStart < g) {
+                        batches.add(new int[]{batchStart, g});
+                    }
+                    batches.add(new int[]{g, g + 1});
+                    batchStart = g + 1;
+                    batchSuffixes = 0;
+                }
+                else {
+                    batchSuffixes += groupSize;
+                    if (batchSuffixes >= batchSize) {
+                        batches.add(new int[]{batchStart, g + 1});
+                        batchStart = g + 1;
+                        batchSuffixes = 0;
+                    }
+                }
+            }
+            if (batchStart < groupCount) {
+                batches.add(new int[]{batchStart, groupCount});
+            }
+
+            // Sort every group by the keys of its suffixes.
+            final int[] currentGroups = groups;
+            final int depth = h;
+            final List<Callable<Void>> sortTasks = Lists.newArrayList();
+            for (final int[] batch : batches) {
+                final int from = currentGroups[2 * batch[0]];
+                final int to = currentGroups[2 * batch[0] + 1];
+                if (batch[1] - batch[0] == 1 && to - from > batchSize) {
+                    sortLargeGroup(from, to, depth);
+                }
+                else {
+                    sortTasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            for (int g = batch[0]; g < batch[1]; g++) {
+                                sortGroup(currentGroups[2 * g], currentGroups[2 * g + 1], depth);
+                            }
+                            return null;
+                        }
+                    });
+                }
+            }
+            Tasks.invokeAll(executor, sortTasks);
+
+            // Assign the new ranks and collect the groups that are still not sorted.
+            final List<Callable<int[]>> splitTasks = Lists.newArrayList();
+            for (final int[] batch : batches) {
+                splitTasks.add(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        int[] nextGroups = new int[8];
+                        int nextGroupCount = 0;
+                        for (int g = batch[0]; g < batch[1]; g++) {
+                            final int end = currentGroups[2 * g + 1];
+                            int start = currentGroups[2 * g];
+                            for (int j = start; j < end; j++) {
+                                if (keys[j] != keys[start]) {
+                                    if (j - start > 1) {
+                                        if (2 * nextGroupCount + 2 > nextGroups.length) {
+                                            nextGroups = Arrays.copyOf(nextGroups, nextGroups.length << 1);
+                                        }
+                                        nextGroups[2 * nextGroupCount] = start;
+                                        nextGroups[2 * nextGroupCount + 1] = j;
+                                        nextGroupCount++;
+                                    }
+                                    start = j;
+                                }
+                                ranks[suffixes[j]] = start;
+                            }
+                            if (end - start > 1) {
+                                if (2 * nextGroupCount + 2 > nextGroups.length) {
+                                    nextGroups = Arrays.copyOf(nextGroups, nextGroups.length << 1);
+                                }
+                                nextGroups[2 * nextGroupCount] = start;
+                                nextGroups[2 * nextGroupCount + 1] = end;
+                                nextGroupCount++;
+                            }
+                        }
+                        return Arrays.copyOf(nextGroups, 2 * nextGroupCount);
+                    }
+                });
+            }
+            final List<int[]> nextGroups = Tasks.invokeAll(executor, splitTasks);
+
+            groupCount = 0;
+            for (final int[] batchGroups : nextGroups) {
+                groupCount += batchGroups.length >>> 1;
+            }
+            groups = new int[2 * groupCount];
+            int offset = 0;
+            for (final int[] batchGroups : nextGroups) {
+                System.arraycopy(batchGroups, 0, groups, offset, batchGroups.length);
+                offset += batchGroups.length;
+            }
+
+            h = 0 == h ? 1 : h << 1;
+        }
+
+        return suffixes;
+    }
+
+    /**
+     * Gets the key to sort the suffix at {@code i} by in the round that compares the symbols at {@code depth}.
+     *
+     * @param i     start of the suffix.
+     * @param depth number of symbols that the suffixes in the group of {@code i} share.
+     *
+     * @return key of the suffix at {@code i}.
+     */
+    private int key(final int i, final int depth) {
+        if (0 == depth) {
+            return s[i];
+        }
+        // A suffix that ends at depth is smaller than any suffix that goes on.
+        return i + depth < s.length ? ranks[i + depth] + 1 : 0;
+    }
+
+    /**
+     * Packs the key and the start of every suffix in {@code [from, to)} of the suffix array into {@link #packed}.
+     *
+     * @param from  first index in the suffix array.
+     * @param to    index after the last index in the suffix array.
+     * @param depth number of symbols that the suffixes share.
+     */
+    private void pack(final int from, final int to, final int depth) {
+        for (int j = from; j < to; j++) {
+            final int i = suffixes[j];
+            packed[j] = ((long) key(i, depth) << 32) | i;
+        }
+    }
+
+    /**
+     * Unpacks {@link #packed} in {@code [from, to)} into the suffix array and the keys.
+     *
+     * @param from first index in the suffix array.
+     * @param to   index after the last index in the suffix array.
+     */
+    private void unpack(final int from, final int to) {
+        for (int j = from; j < to; j++) {
+            suffixes[j] = (int) packed[j];
+            keys[j] = (int) (packed[j] >>> 32);
+        }
+    }
+
+    /**
+     * Sorts the group in {@code [from, to)} of the suffix array on the calling thread.
+     *
+     * @param from  first index of the group.
+     * @param to    index after the last index of the group.
+     * @param depth number of symbols that the suffixes in the group share.
+     */
+    private void sortGroup(final int from, final int to, final int depth) {
+        pack(from, to, depth);
+        Arrays.sort(packed, from, to);
+        unpack(from, to);
+    }
+
+    /**
+     * Sorts the group in {@code [from, to)} of the suffix array with all the tasks: every task sorts a run and the
+     * runs are merged pairwise, the merges of every level in parallel.
+     *
+     * @param from  first index of the group.
+     * @param to    index after the last index of the group.
+     * @param depth number of symbols that the suffixes in the group share.
+     */
+    private void sortLargeGroup(final int from, final int to, final int depth) {
+
+        final int runSize = Math.max(1, (to - from + tasks - 1) / tasks);
+        forEachChunk(executor, from, to, tasks, new Chunk() {
+            @Override
+            public void run(final int chunkFrom, final int chunkTo) {
+                pack(chunkFrom, chunkTo, depth);
+                Arrays.sort(packed, chunkFrom, chunkTo);
+            }
+        });
+
+        if (null == buffer) {
+            buffer = new long[s.length];
+        }
+        long[] source = packed;
+        long[] target = buffer;
+        for (int width = runSize; width < to - from; width <<= 1) {
+            final List<Callable<Void>> merges = Lists.newArrayList();
+            for (int start = from; start < to; start += 2 * width) {
+                final int mergeFrom = start;
+                final int middle = Math.min(start + width, to);
+                final int mergeTo = Math.min(start + 2 * width, to);
+                final long[] mergeSource = source;
+                final long[] mergeTarget = target;
+                merges.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        merge(mergeSource, mergeTarget, mergeFrom, middle, mergeTo);
+                        return null;
+                    }
+                });
+            }
+            Tasks.invokeAll(executor, merges);
+            final long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != packed) {
+            System.arraycopy(source, from, packed, from, to - from);
+        }
+
+        forEachChunk(executor, from, to, tasks, new Chunk() {
+            @Override
+            public void run(final int chunkFrom, final int chunkTo) {
+                unpack(chunkFrom, chunkTo);
+            }
+        });
+    }
+
+    /**
+     * Merges the sorted runs {@code [from, middle)} and {@code [middle, to)} of {@code source} into {@code target}.
+     *
+     * @param source array with the sorted runs.
+     * @param target array to merge the runs into.
+     * @param from   first index of the first run.
+     * @param middle first index of the second run.
+     * @param to     index after the last index of the second run.
+     */
+    private static void merge(final long[] source, final long[] target, final int from, final int middle,
+                              final int to) {
+        int left = from;
+        int right = middle;
+        for (int j = from; j < to; j++) {
+            if (right == to || (left < middle && source[left] <= source[right])) {
+                target[j] = source[left++];
+            }
+            else {
+                target[j] = source[right++];
+            }
+        }
+    }
+
+    /**
+     * Splits {@code [from, to)} into {@code tasks} chunks and runs this {@code chunk} on each of them on this {@code
+     * executor}, waiting for all of them.
+     *
+     * @param executor {@link ExecutorService} to run the chunks on.
+     * @param from     first index.
+     * @param to       index after the last index.
+     * @param tasks    number of chunks.
+     * @param chunk    work to do on every chunk.
+     */
+    static void forEachChunk(final ExecutorService executor, final int from, final int to, final int tasks,
+                             final Chunk chunk) {
+        final int chunkSize = Math.max(1, (to - from + tasks - 1) / tasks);
+        final List<Callable<Void>> callables = Lists.newArrayList();
+        for (int start = from; start < to; start += chunkSize) {
+            final int chunkFrom = start;
+            final int chunkTo = Math.min(start + chunkSize, to);
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    chunk.run(chunkFrom, chunkTo);
+                    return null;
+                }
+            });
+        }
+        Tasks.invokeAll(executor, callables);
+    }
+
+    /**
+     * Gets the number of tasks to split the work on {@code size} indices into: a few per processor, so that the
+     * threads stay busy when the tasks are uneven, but none smaller than {@value #MIN_CHUNK} indices.
+     *
+     * @param size number of indices.
+     *
+     * @return number of tasks.
+     */
+    static int tasks(final int size) {
+        return Tasks.tasks(size, MIN_CHUNK);
+    }
+
+    /**
+     * Sorts the suffixes of {@code s} on this {@code executor}.
+     *
+     * @param s        symbols to sort the suffixes of, they must not be negative.
+     * @param executor {@link ExecutorService} to run the tasks on.
+     * @param tasks    number of tasks to split the work into, e.g. a few times the number of threads of {@code
+     *                 executor}.
+     *
+     * @return the suffix array of {@code s}.
+     *
+     * @throws NullPointerException     if {@code s} or {@code executor} is null.
+     * @throws IllegalArgumentException if {@code tasks} is not positive.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     */
+    static int[] sortSuffixes(final int[] s, final ExecutorService executor, final int tasks) {
+        checkNotNull(s);
+        checkNotNull(executor);
+        checkArgument(tasks > 0, "Tasks must be positive: %s", tasks);
+        return new ParallelSuffixSorter(s, executor, tasks).sort();
+    }
+}
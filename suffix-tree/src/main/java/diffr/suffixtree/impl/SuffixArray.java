@@ -0,0 +1,752 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.MatchingStatistics;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link IntSuffixTree} implementation backed by a suffix array, rather than by a tree:
+ *
+ * <ul>
+ * <li>the suffix array holds the start of every suffix in lexicographical order and is built in linear time by
+ * induced sorting (SA-IS);</li>
+ * <li>the LCP array holds the length of the longest common prefix of every two adjacent suffixes and is built in
+ * linear time by Kasai's algorithm;</li>
+ * <li>the inverse suffix array holds the rank of every suffix.</li>
+ * </ul>
+ *
+ * Every node of the equivalent suffix tree is an interval of the suffix array, so matching narrows the interval by
+ * binary search. Together with the symbols this takes 16 bytes per symbol, a fraction of the memory of a suffix
+ * tree, at the cost of a logarithmic factor when matching. Matching statistics move from one match to the next by
+ * widening the interval to the enclosing LCP interval, found by {@link LcpIntervals}, which are built the first time
+ * they are computed.
+ *
+ * <p>The arrays are either held on the heap, when the {@link SuffixArray} is built, or read in place from buffers,
+ * when it is mapped from a {@link SuffixIndexFile}. Only one of the two is normally used in a process, so the
+ * accessors are not megamorphic.</p>
+ *
+ * @since 1.0
+ */
+public abstract class SuffixArray implements IntSuffixTree {
+
+    // Built when matching statistics are first computed, see lcpIntervals().
+    private volatile LcpIntervals lcpIntervals;
+
+    /**
+     * Constructor for the implementations in this package.
+     */
+    SuffixArray() {
+    }
+
+    /**
+     * Builds the suffix array, the inverse suffix array and the LCP array on the heap.
+     *
+     * @param symbols  symbols to build the {@link SuffixArray} for, they are copied.
+     * @param executor {@link ExecutorService} to build on, or {@code null} to build on the calling thread.
+     *
+     * @return new {@link SuffixArray} for {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    private static SuffixArray build(final int[] symbols, final ExecutorService executor) {
+
+        final int[] text = checkNotNull(symbols).clone();
+        for (final int symbol : text) {
+            checkArgument(symbol >= 0, "Negative symbol: %s", symbol);
+        }
+
+        final int n = text.length;
+        final int[] suffixes = new int[n];
+        final int[] ranks = new int[n];
+        final int[] lcp = new int[n];
+        if (0 == n) {
+            return new HeapSuffixArray(text, suffixes, ranks, lcp);
+        }
+
+        // SA-IS needs a unique sentinel that is smaller than any other symbol, so the symbols are shifted by one
+        // and replaced by their ranks if the alphabet is sparse.
+        final int[] s = new int[n + 1];
+        final int alphabetSize = rankSymbols(text, s);
+        final int tasks = ParallelSuffixSorter.tasks(n);
+        final int[] sa = null == executor ? sortSuffixes(s, alphabetSize)
+                                          : ParallelSuffixSorter.sortSuffixes(s, executor, tasks);
+
+        // The sentinel is the smallest suffix.
+        System.arraycopy(sa, 1, suffixes, 0, n);
+        computeRanksAndLcp(text, suffixes, ranks, lcp, executor, tasks);
+        return new HeapSuffixArray(text, suffixes, ranks, lcp);
+    }
+
+    /**
+     * Computes the inverse suffix array and the LCP array.
+     *
+     * @param text     symbols.
+     * @param suffixes suffix array.
+     * @param ranks    inverse suffix array to fill in.
+     * @param lcp      LCP array to fill in.
+     * @param executor {@link ExecutorService} to compute on, or {@code null} to compute on the calling thread.
+     * @param tasks    number of tasks to split the arrays into if {@code executor} is not null.
+     */
+    static void computeRanksAndLcp(final int[] text, final int[] suffixes, final int[] ranks, final int[] lcp,
+                                   final ExecutorService executor, final int tasks) {
+        final int n = text.length;
+        if (null == executor) {
+            computeRanks(suffixes, ranks, 0, n);
+            computeLcp(text, suffixes, ranks, lcp, 0, n);
+        }
+        else {
+            ParallelSuffixSorter.forEachChunk(executor, 0, n, tasks, new ParallelSuffixSorter.Chunk() {
+                @Override
+                public void run(final int from, final int to) {
+                    computeRanks(suffixes, ranks, from, to);
+                }
+            });
+            ParallelSuffixSorter.forEachChunk(executor, 0, n, tasks, new ParallelSuffixSorter.Chunk() {
+                @Override
+                public void run(final int from, final int to) {
+                    computeLcp(text, suffixes, ranks, lcp, from, to);
+                }
+            });
+        }
+    }
+
+    /**
+     * Computes the inverse suffix array for the ranks in {@code [from, to)}.
+     *
+     * @param suffixes suffix array.
+     * @param ranks    inverse suffix array to fill in.
+     * @param from     first rank.
+     * @param to       rank after the last rank.
+     */
+    private static void computeRanks(final int[] suffixes, final int[] ranks, final int from, final int to) {
+        for (int rank = from; rank < to; rank++) {
+            ranks[suffixes[rank]] = rank;
+        }
+    }
+
+    /**
+     * Computes the LCP array for the suffixes that start in {@code [from, to)}, by Kasai's algorithm: the LCP of the
+     * suffix at i + 1 and its predecessor is at least the LCP at i minus one. Every chunk of suffixes starts from
+     * zero, so the chunks are independent.
+     *
+     * @param text     symbols.
+     * @param suffixes suffix array.
+     * @param ranks    inverse suffix array.
+     * @param lcp      LCP array to fill in.
+     * @param from     first start of a suffix.
+     * @param to       start after the last start of a suffix.
+     */
+    private static void computeLcp(final int[] text, final int[] suffixes, final int[] ranks, final int[] lcp,
+                                   final int from, final int to) {
+        final int n = text.length;
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            final int rank = ranks[i];
+            if (rank > 0) {
+                final int j = suffixes[rank - 1];
+                while (i + h < n && j + h < n && text[i + h] == text[j + h]) {
+                    h++;
+                }
+                lcp[rank] = h;
+                if (h > 0) {
+                    h--;
+                }
+            }
+            else {
+                h = 0;
+            }
+        }
+    }
+
+    /**
+     * Copies these {@code symbols} into {@code s} shifted by one, replacing them by their ranks if the largest
+     * symbol is greater than the number of symbols, and appends the sentinel {@code 0}.
+     *
+     * @param symbols symbols to copy.
+     * @param s       array of {@code symbols.length + 1} elements to copy the symbols into.
+     *
+     * @return size of the alphabet of {@code s}.
+     */
+    private static int rankSymbols(final int[] symbols, final int[] s) {
+
+        int max = 0;
+        for (final int symbol : symbols) {
+            max = Math.max(max, symbol);
+        }
+
+        if (max <= symbols.length) {
+            for (int i = 0; i < symbols.length; i++) {
+                s[i] = symbols[i] + 1;
+            }
+            s[symbols.length] = 0;
+            return max + 2;
+        }
+
+        final int[] distinct = symbols.clone();
+        Arrays.sort(distinct);
+        int size = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (0 == i || distinct[i] != distinct[i - 1]) {
+                distinct[size++] = distinct[i];
+            }
+        }
+        for (int i = 0; i < symbols.length; i++) {
+            s[i] = Arrays.binarySearch(distinct, 0, size, symbols[i]) + 1;
+        }
+        s[symbols.length] = 0;
+        return size + 1;
+    }
+
+    /**
+     * Sorts the suffixes of {@code s} by induced sorting (SA-IS).
+     *
+     * @param s symbols in {@code [0, k)}, the last of which must be a unique sentinel {@code 0}.
+     * @param k size of the alphabet.
+     *
+     * @return the suffix array of {@code s}, whose first suffix is the sentinel.
+     */
+    static int[] sortSuffixes(final int[] s, final int k) {
+        final int[] sa = new int[s.length];
+        sais(s, sa, s.length, k);
+        return sa;
+    }
+
+    /**
+     * Sorts the suffixes of {@code s} by induced sorting (SA-IS). The last symbol of {@code s} must be a unique
+     * sentinel, smaller than any other symbol.
+     *
+     * @param s  symbols in {@code [0, k)}.
+     * @param sa array to put the suffix array into.
+     * @param n  number of symbols.
+     * @param k  size of the alphabet.
+     */
+    private static void sais(final int[] s, final int[] sa, final int n, final int k) {
+
+        if (1 == n) {
+            sa[0] = 0;
+            return;
+        }
+
+        // S-type suffixes are smaller than the suffix that follows, L-type suffixes are greater.
+        final boolean[] sType = new boolean[n];
+        sType[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && sType[i + 1]);
+        }
+
+        final int[] buckets = new int[k];
+
+        // Stage 1: sort the LMS substrings.
+        getBuckets(s, n, buckets, k, true);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) {
+                sa[--buckets[s[i]]] = i;
+            }
+        }
+        induceL(sType, sa, s, n, k, buckets);
+        induceS(sType, sa, s, n, k, buckets);
+
+        int n1 = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) {
+                sa[n1++] = sa[i];
+            }
+        }
+
+        // Name the LMS substrings, equal substrings get the same name.
+        Arrays.fill(sa, n1, n, -1);
+        int name = 0;
+        int previous = -1;
+        for (int i = 0; i < n1; i++) {
+            final int position = sa[i];
+            boolean different = false;
+            for (int d = 0; d < n; d++) {
+                if (-1 == previous || s[position + d] != s[previous + d]
+                    || sType[position + d] != sType[previous + d]) {
+                    different = true;
+                    break;
+                }
+                else if (d > 0 && (isLms(sType, position + d) || isLms(sType, previous + d))) {
+                    break;
+                }
+            }
+            if (different) {
+                name++;
+                previous = position;
+            }
+            sa[n1 + (position >> 1)] = name - 1;
+        }
+        for (int i = n - 1, j = n - 1; i >= n1; i--) {
+            if (sa[i] >= 0) {
+                sa[j--] = sa[i];
+            }
+        }
+
+        // Stage 2: sort the reduced string, recursively if the names are not unique.
+        final int[] s1 = Arrays.copyOfRange(sa, n - n1, n);
+        final int[] sa1 = new int[n1];
+        if (name < n1) {
+            sais(s1, sa1, n1, name);
+        }
+        else {
+            for (int i = 0; i < n1; i++) {
+                sa1[s1[i]] = i;
+            }
+        }
+
+        // Stage 3: induce the suffix array from the sorted LMS suffixes.
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) {
+                s1[j++] = i;
+            }
+        }
+        for (int i = 0; i < n1; i++) {
+            sa1[i] = s1[sa1[i]];
+        }
+        getBuckets(s, n, buckets, k, true);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = n1 - 1; i >= 0; i--) {
+            sa[--buckets[s[sa1[i]]]] = sa1[i];
+        }
+        induceL(sType, sa, s, n, k, buckets);
+        induceS(sType, sa, s, n, k, buckets);
+    }
+
+    /**
+     * Checks if the suffix at {@code i} is a left-most S-type suffix, i.e. an S-type suffix preceded by an L-type
+     * suffix.
+     *
+     * @param sType types of the suffixes.
+     * @param i     index of the suffix.
+     *
+     * @return {@code true} if the suffix at {@code i} is a left-most S-type suffix.
+     */
+    private static boolean isLms(final boolean[] sType, final int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    /**
+     * Computes the starts or the ends of the buckets of the symbols.
+     *
+     * @param s       symbols.
+     * @param n       number of symbols.
+     * @param buckets array to put the starts or the ends into.
+     * @param k       size of the alphabet.
+     * @param end     {@code true} to compute the ends, {@code false} to compute the starts.
+     */
+    private static void getBuckets(final int[] s, final int n, final int[] buckets, final int k, final boolean end) {
+        Arrays.fill(buckets, 0, k, 0);
+        for (int i = 0; i < n; i++) {
+            buckets[s[i]]++;
+        }
+        int sum = 0;
+        for (int i = 0; i < k; i++) {
+            sum += buckets[i];
+            buckets[i] = end ? sum : sum - buckets[i];
+        }
+    }
+
+    /**
+     * Induces the order of the L-type suffixes from left to right.
+     */
+    private static void induceL(final boolean[] sType, final int[] sa, final int[] s, final int n, final int k,
+                                final int[] buckets) {
+        getBuckets(s, n, buckets, k, false);
+        for (int i = 0; i < n; i++) {
+            final int j = sa[i] - 1;
+            if (j >= 0 && !sType[j]) {
+                sa[buckets[s[j]]++] = j;
+            }
+        }
+    }
+
+    /**
+     * Induces the order of the S-type suffixes from right to left.
+     */
+    private static void induceS(final boolean[] sType, final int[] sa, final int[] s, final int n, final int k,
+                                final int[] buckets) {
+        getBuckets(s, n, buckets, k, true);
+        for (int i = n - 1; i >= 0; i--) {
+            final int j = sa[i] - 1;
+            if (j >= 0 && sType[j]) {
+                sa[--buckets[s[j]]] = j;
+            }
+        }
+    }
+
+    /**
+     * Gets the symbol at {@code depth} of the suffix at this {@code rank}.
+     *
+     * @param rank  rank of the suffix.
+     * @param depth index of the symbol in the suffix.
+     *
+     * @return the symbol or {@code -1} if the suffix is shorter than {@code depth + 1}, so that shorter suffixes
+     *         sort first.
+     */
+    private int symbolAt(final int rank, final int depth) {
+        final int index = suffix(rank) + depth;
+        return index < size() ? symbol(index) : -1;
+    }
+
+    /**
+     * Gets the first rank in {@code [from, to)} whose suffix has a symbol at {@code depth} that is not smaller than
+     * this {@code symbol}. All the suffixes in {@code [from, to)} must share their first {@code depth} symbols.
+     *
+     * @param from   first rank of the interval.
+     * @param to     rank after the last rank of the interval.
+     * @param depth  index of the symbol in the suffixes.
+     * @param symbol symbol to search for.
+     *
+     * @return the first rank whose symbol is not smaller than {@code symbol}.
+     */
+    int lowerBound(int from, int to, final int depth, final int symbol) {
+        while (from < to) {
+            final int middle = (from + to) >>> 1;
+            if (symbolAt(middle, depth) < symbol) {
+                from = middle + 1;
+            }
+            else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Gets the first rank in {@code [from, to)} whose suffix has a symbol at {@code depth} that is greater than this
+     * {@code symbol}. All the suffixes in {@code [from, to)} must share their first {@code depth} symbols.
+     *
+     * @param from   first rank of the interval.
+     * @param to     rank after the last rank of the interval.
+     * @param depth  index of the symbol in the suffixes.
+     * @param symbol symbol to search for.
+     *
+     * @return the first rank whose symbol is greater than {@code symbol}.
+     */
+    int upperBound(int from, int to, final int depth, final int symbol) {
+        while (from < to) {
+            final int middle = (from + to) >>> 1;
+            if (symbolAt(middle, depth) <= symbol) {
+                from = middle + 1;
+            }
+            else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Gets the start of the suffix at this {@code rank}.
+     *
+     * @param rank rank of the suffix.
+     *
+     * @return start of the suffix.
+     */
+    abstract int suffix(final int rank);
+
+    /**
+     * Gets the rank of the suffix that starts at this {@code index}.
+     *
+     * @param index start of the suffix.
+     *
+     * @return rank of the suffix.
+     */
+    abstract int rank(final int index);
+
+    /**
+     * Gets the symbol at this {@code index}.
+     *
+     * @param index index of the symbol.
+     *
+     * @return the symbol.
+     */
+    abstract int symbol(final int index);
+
+    /**
+     * Gets the length of the longest common prefix of the suffix at this {@code rank} and the suffix before it.
+     *
+     * @param rank rank of the suffix.
+     *
+     * @return length of the longest common prefix, {@code 0} for the first suffix.
+     */
+    @VisibleForTesting
+    abstract int lcp(final int rank);
+
+    /**
+     * Gets the LCP array, to be read in place.
+     *
+     * @return LCP array.
+     */
+    abstract IntBuffer lcps();
+
+    /**
+     * Gets the average number of bytes held by the arrays of this {@link SuffixArray} per symbol, on the heap or
+     * mapped.
+     *
+     * @return number of bytes per symbol.
+     */
+    @Override
+    public double bytesPerElement() {
+        return 0 == size() ? 0 : 16;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SuffixArrayMatcher matcher() {
+        return new SuffixArrayMatcher(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final int[] symbols) {
+
+        checkNotNull(symbols);
+        final int[] lengths = new int[symbols.length];
+        final int[] starts = new int[symbols.length];
+        final int size = size();
+        final LcpIntervals intervals = lcpIntervals();
+
+        // The current match is symbols[i, i + length) and the suffixes in [from, to) start with it.
+        int from = 0;
+        int to = size;
+        int length = 0;
+
+        for (int i = 0; i < symbols.length; i++) {
+
+            // Extend the match for as long as possible.
+            while (i + length < symbols.length && symbols[i + length] >= 0) {
+                final int symbol = symbols[i + length];
+                final int lower = lowerBound(from, to, length, symbol);
+                if (lower == to || symbolAt(lower, length) != symbol) {
+                    break;
+                }
+                to = upperBound(lower, to, length, symbol);
+                from = lower;
+                length++;
+            }
+
+            lengths[i] = length;
+            if (0 == length) {
+                continue;
+            }
+            starts[i] = suffix(from);
+
+            // The match for i + 1 is at least symbols[i + 1, i + length), which occurs right after the current
+            // occurrence: widen the interval around it to the suffixes that share the match.
+            length--;
+            if (0 == length) {
+                from = 0;
+                to = size;
+                continue;
+            }
+            final int rank = rank(suffix(from) + 1);
+            from = intervals.from(rank, length);
+            to = intervals.to(rank, length);
+        }
+
+        return new MatchingStatistics(lengths, starts);
+    }
+
+    /**
+     * Gets the {@link LcpIntervals} of this {@link SuffixArray}, building them the first time. Threads that race to
+     * build them build equal ones.
+     *
+     * @return {@link LcpIntervals} of this {@link SuffixArray}.
+     */
+    private LcpIntervals lcpIntervals() {
+        LcpIntervals intervals = lcpIntervals;
+        if (null == intervals) {
+            intervals = new LcpIntervals(lcps());
+            lcpIntervals = intervals;
+        }
+        return intervals;
+    }
+
+    /**
+     * Factory for {@link SuffixArray}s.
+     *
+     * @param symbols symbols to build the {@link SuffixArray} for, they are copied.
+     *
+     * @return new {@link SuffixArray} for {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    public static SuffixArray newSuffixArray(final int[] symbols) {
+        return build(symbols, null);
+    }
+
+    /**
+     * Factory for {@link SuffixArray}s that sorts the suffixes and builds the LCP array on this {@code executor}. The
+     * calling thread waits for the tasks, so it must not be one of the threads of {@code executor}.
+     *
+     * @param symbols  symbols to build the {@link SuffixArray} for, they are copied.
+     * @param executor {@link ExecutorService} to build the {@link SuffixArray} on.
+     *
+     * @return new {@link SuffixArray} for {@code symbols}.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     */
+    public static SuffixArray newSuffixArray(final int[] symbols, final ExecutorService executor) {
+        return build(symbols, checkNotNull(executor));
+    }
+
+    /**
+     * Wraps the arrays of a {@link SuffixArray} that was built before, e.g. mapped from a {@link SuffixIndexFile}.
+     * The buffers are not copied and are only read from.
+     *
+     * @param text     symbols.
+     * @param suffixes start of every suffix in lexicographical order.
+     * @param ranks    rank of every suffix.
+     * @param lcp      length of the longest common prefix of every suffix and the suffix before it.
+     *
+     * @return {@link SuffixArray} that reads the buffers in place.
+     *
+     * @throws NullPointerException     if any parameter is null.
+     * @throws IllegalArgumentException if the buffers are not all of the same size.
+     */
+    static SuffixArray wrap(final IntBuffer text, final IntBuffer suffixes, final IntBuffer ranks,
+                            final IntBuffer lcp) {
+        return new BufferSuffixArray(text, suffixes, ranks, lcp);
+    }
+
+    /**
+     * {@link SuffixArray} whose arrays are on the heap.
+     */
+    private static final class HeapSuffixArray extends SuffixArray {
+
+        private final int[] text;
+
+        private final int[] suffixes;
+
+        private final int[] ranks;
+
+        private final int[] lcp;
+
+        /**
+         * Default constructor.
+         *
+         * @param text     symbols.
+         * @param suffixes start of every suffix in lexicographical order.
+         * @param ranks    rank of every suffix.
+         * @param lcp      length of the longest common prefix of every suffix and the suffix before it.
+         */
+        private HeapSuffixArray(final int[] text, final int[] suffixes, final int[] ranks, final int[] lcp) {
+            this.text = text;
+            this.suffixes = suffixes;
+            this.ranks = ranks;
+            this.lcp = lcp;
+        }
+
+        @Override
+        int suffix(final int rank) {
+            return suffixes[rank];
+        }
+
+        @Override
+        int rank(final int index) {
+            return ranks[index];
+        }
+
+        @Override
+        int symbol(final int index) {
+            return text[index];
+        }
+
+        @Override
+        int lcp(final int rank) {
+            return lcp[rank];
+        }
+
+        @Override
+        IntBuffer lcps() {
+            return IntBuffer.wrap(lcp);
+        }
+
+        @Override
+        public int size() {
+            return text.length;
+        }
+    }
+
+    /**
+     * {@link SuffixArray} whose arrays are read in place from buffers, e.g. mapped from a file.
+     */
+    private static final class BufferSuffixArray extends SuffixArray {
+
+        private final IntBuffer text;
+
+        private final IntBuffer suffixes;
+
+        private final IntBuffer ranks;
+
+        private final IntBuffer lcp;
+
+        /**
+         * Default constructor.
+         *
+         * @param text     symbols.
+         * @param suffixes start of every suffix in lexicographical order.
+         * @param ranks    rank of every suffix.
+         * @param lcp      length of the longest common prefix of every suffix and the suffix before it.
+         *
+         * @throws NullPointerException     if any parameter is null.
+         * @throws IllegalArgumentException if the buffers are not all of the same size.
+         */
+        private BufferSuffixArray(final IntBuffer text, final IntBuffer suffixes, final IntBuffer ranks,
+                                  final IntBuffer lcp) {
+            this.text = checkNotNull(text);
+            this.suffixes = checkNotNull(suffixes);
+            this.ranks = checkNotNull(ranks);
+            this.lcp = checkNotNull(lcp);
+            checkArgument(text.limit() == suffixes.limit() && text.limit() == ranks.limit()
+                          && text.limit() == lcp.limit(), "Buffers of different sizes");
+        }
+
+        @Override
+        int suffix(final int rank) {
+            return suffixes.get(rank);
+        }
+
+        @Override
+        int rank(final int index) {
+            return ranks.get(index);
+        }
+
+        @Override
+        int symbol(final int index) {
+            return text.get(index);
+        }
+
+        @Override
+        int lcp(final int rank) {
+            return lcp.get(rank);
+        }
+
+        @Override
+        IntBuffer lcps() {
+            return lcp;
+        }
+
+        @Override
+        public int size() {
+            return text.limit();
+        }
+    }
+}
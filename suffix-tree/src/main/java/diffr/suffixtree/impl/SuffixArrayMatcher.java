@@ -0,0 +1,121 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link IntMatcher} implementation for {@link SuffixArray}. The position in the tree is the interval of the
+ * suffixes that start with the symbols matched so far, so matching a symbol narrows the interval by binary search
+ * and does not allocate. The range returned is the occurrence of the lexicographically smallest of those suffixes.
+ *
+ * @since 1.0
+ */
+public class SuffixArrayMatcher implements IntMatcher {
+
+    private final SuffixArray suffixArray;
+
+    private int from;
+
+    private int to;
+
+    private int matched;
+
+    private boolean finished;
+
+    /**
+     * Default constructor.
+     *
+     * @param suffixArray {@link SuffixArray} to traverse.
+     *
+     * @throws NullPointerException if {@code suffixArray} is null.
+     */
+    public SuffixArrayMatcher(final SuffixArray suffixArray) {
+        this.suffixArray = checkNotNull(suffixArray);
+        reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final int symbol) {
+
+        checkState(!finished);
+
+        if (symbol < 0) {
+            return notMatched();
+        }
+
+        final int lower = suffixArray.lowerBound(from, to, matched, symbol);
+        final int upper = suffixArray.upperBound(lower, to, matched, symbol);
+        if (lower == upper) {
+            return notMatched();
+        }
+
+        from = lower;
+        to = upper;
+        matched++;
+        return Matched.YES;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return 0 == matched;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        checkState(!isRoot());
+        return suffixArray.suffix(from) + matched - 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        checkState(!isRoot());
+        final int start = suffixArray.suffix(from);
+        return Ranges.closed(start, start + matched - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.from = 0;
+        this.to = suffixArray.size();
+        this.finished = false;
+        this.matched = 0;
+    }
+
+    /**
+     * Sets {@code finished} to {@code true} and returns {@link Matched#NO}.
+     *
+     * @return {@link Matched#NO}.
+     */
+    private Matched notMatched() {
+        finished = true;
+        return Matched.NO;
+    }
+}
@@ -0,0 +1,340 @@
+package diffr.suffixtree.impl;
+
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.MatchingStatistics;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link IntSuffixTree} implementation backed by a suffix automaton (a directed acyclic word graph), rather than by a
+ * tree. Every state of the automaton stands for the substrings that end at the same set of positions, so:
+ *
+ * <ul>
+ * <li>there are at most {@code 2n - 1} states and {@code 3n - 4} transitions for {@code n} symbols;</li>
+ * <li>matching a symbol is a single lookup of a transition in a {@link ChildTable} keyed on the state and the
+ * symbol, there are no edge labels to walk;</li>
+ * <li>the occurrence of a match is recovered from the end of the first occurrence of its state and the number of
+ * symbols matched, so the symbols themselves are not kept.</li>
+ * </ul>
+ *
+ * The automaton is built online, one symbol at a time.
+ *
+ * @since 1.0
+ */
+public final class SuffixAutomaton implements IntSuffixTree {
+
+    static final int ROOT = 0;
+
+    private static final int NO_STATE = -1;
+
+    private static final int NO_TRANSITION = -1;
+
+    private final int size;
+
+    private final ChildTable transitions;
+
+    private int[] lengths;
+
+    private int[] links;
+
+    private int[] ends;
+
+    private int states;
+
+    // The symbols of the transitions of every state, as linked lists, so that they can be copied to clones. They are
+    // only needed while building.
+    private int[] firstTransitions;
+
+    private int[] nextTransitions;
+
+    private int[] transitionSymbols;
+
+    /**
+     * Default constructor.
+     *
+     * @param size number of symbols that this {@link SuffixAutomaton} will be built for.
+     */
+    private SuffixAutomaton(final int size) {
+        this.size = size;
+        this.transitions = new ChildTable(size + (size >>> 1));
+        final int capacity = Math.max(2, 2 * size);
+        this.lengths = new int[capacity];
+        this.links = new int[capacity];
+        this.ends = new int[capacity];
+        this.firstTransitions = new int[capacity];
+        this.nextTransitions = new int[capacity];
+        this.transitionSymbols = new int[capacity];
+        this.states = 0;
+        newState(0, NO_STATE, NO_STATE);
+    }
+
+    /**
+     * Extends the automaton by all these {@code symbols}, one at a time.
+     *
+     * @param symbols symbols to build the automaton for.
+     */
+    private void build(final int[] symbols) {
+
+        int last = ROOT;
+        for (int i = 0; i < symbols.length; i++) {
+            final int symbol = symbols[i];
+            final int current = newState(lengths[last] + 1, NO_STATE, i);
+
+            // Every suffix of the previous symbols that cannot be extended by symbol can now be extended to current.
+            int state = last;
+            while (NO_STATE != state && ChildTable.NO_CHILD == transitions.get(state, symbol)) {
+                addTransition(state, symbol, current);
+                state = links[state];
+            }
+
+            if (NO_STATE == state) {
+                links[current] = ROOT;
+            }
+            else {
+                final int next = transitions.get(state, symbol);
+                if (lengths[state] + 1 == lengths[next]) {
+                    links[current] = next;
+                }
+                else {
+                    // next stands for longer substrings that do not end at i, so split off the shorter ones.
+                    final int clone = newState(lengths[state] + 1, links[next], ends[next]);
+                    for (int t = firstTransitions[next]; NO_TRANSITION != t; t = nextTransitions[t]) {
+                        addTransition(clone, transitionSymbols[t], transitions.get(next, transitionSymbols[t]));
+                    }
+                    while (NO_STATE != state && next == transitions.get(state, symbol)) {
+                        transitions.put(state, symbol, clone);
+                        state = links[state];
+                    }
+                    links[next] = clone;
+                    links[current] = clone;
+                }
+            }
+            last = current;
+        }
+
+        lengths = Arrays.copyOf(lengths, states);
+        links = Arrays.copyOf(links, states);
+        ends = Arrays.copyOf(ends, states);
+        firstTransitions = null;
+        nextTransitions = null;
+        transitionSymbols = null;
+        transitions.trim();
+    }
+
+    /**
+     * Adds a new state.
+     *
+     * @param length length of the longest substring of the state.
+     * @param link   suffix link of the state.
+     * @param end    end of the first occurrence of the substrings of the state.
+     *
+     * @return the new state.
+     */
+    private int newState(final int length, final int link, final int end) {
+        if (states == lengths.length) {
+            final int capacity = states << 1;
+            lengths = Arrays.copyOf(lengths, capacity);
+            links = Arrays.copyOf(links, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            firstTransitions = Arrays.copyOf(firstTransitions, capacity);
+        }
+        lengths[states] = length;
+        links[states] = link;
+        ends[states] = end;
+        firstTransitions[states] = NO_TRANSITION;
+        return states++;
+    }
+
+    /**
+     * Adds a transition that is not yet in the automaton.
+     *
+     * @param state  state to add the transition to.
+     * @param symbol symbol of the transition.
+     * @param target state that the transition leads to.
+     */
+    private void addTransition(final int state, final int symbol, final int target) {
+        final int t = transitions.size();
+        transitions.put(state, symbol, target);
+        if (t == nextTransitions.length) {
+            nextTransitions = Arrays.copyOf(nextTransitions, t << 1);
+            transitionSymbols = Arrays.copyOf(transitionSymbols, t << 1);
+        }
+        transitionSymbols[t] = symbol;
+        nextTransitions[t] = firstTransitions[state];
+        firstTransitions[state] = t;
+    }
+
+    /**
+     * Gets the state that this {@code state} transitions to on this {@code symbol}.
+     *
+     * @param state  state to transition from.
+     * @param symbol symbol of the transition, must not be negative.
+     *
+     * @return the next state or {@link ChildTable#NO_CHILD} if there is no such transition.
+     */
+    int transition(final int state, final int symbol) {
+        return transitions.get(state, symbol);
+    }
+
+    /**
+     * Gets the end of the first occurrence of the substrings of this {@code state}.
+     *
+     * @param state state, other than the root.
+     *
+     * @return index of the last symbol of the first occurrence.
+     */
+    int end(final int state) {
+        return ends[state];
+    }
+
+    /**
+     * Gets the length of the longest substring of this {@code state}.
+     *
+     * @param state state of the automaton.
+     *
+     * @return length of the longest substring of {@code state}.
+     */
+    int length(final int state) {
+        return lengths[state];
+    }
+
+    /**
+     * Gets the suffix link of this {@code state}.
+     *
+     * @param state state, other than the root.
+     *
+     * @return the state of the longest suffix that ends at more positions.
+     */
+    int link(final int state) {
+        return links[state];
+    }
+
+    /**
+     * Gets the number of states.
+     *
+     * @return number of states.
+     */
+    int states() {
+        return states;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the average number of bytes held by this {@link SuffixAutomaton} per symbol.
+     *
+     * @return number of bytes per symbol.
+     */
+    @Override
+    public double bytesPerElement() {
+        final long bytes = 4L * (lengths.length + links.length + ends.length) + transitions.bytes();
+        return (double) bytes / Math.max(1, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SuffixAutomatonMatcher matcher() {
+        return new SuffixAutomatonMatcher(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final int[] symbols) {
+
+        checkNotNull(symbols);
+        final int[] lengths = new int[symbols.length];
+        final int[] starts = new int[symbols.length];
+
+        // First, from left to right, the longest match that ends at every j and its state, following suffix links
+        // whenever the match cannot be extended.
+        int state = ROOT;
+        int length = 0;
+        for (int j = 0; j < symbols.length; j++) {
+            final int symbol = symbols[j];
+            if (symbol < 0) {
+                state = ROOT;
+                length = 0;
+            }
+            else {
+                while (ROOT != state && ChildTable.NO_CHILD == transitions.get(state, symbol)) {
+                    state = links[state];
+                    length = this.lengths[state];
+                }
+                final int next = transitions.get(state, symbol);
+                if (ChildTable.NO_CHILD == next) {
+                    length = 0;
+                }
+                else {
+                    state = next;
+                    length++;
+                }
+            }
+            lengths[j] = length;
+            starts[j] = state;
+        }
+
+        // Then, symbols[i, j] occurs iff the match that ends at j starts at or before i, and the starts of those
+        // matches never decrease, so the match of i ends before the first j whose match starts after i. This reads
+        // at or after i only, so lengths and starts are overwritten in place. The match of i is a suffix of the match
+        // that ends at end - 1, so its state is found by following suffix links from that one, and it starts where
+        // its own first occurrence does, whatever the symbols before i are.
+        int end = 0;
+        int stateEnd = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            end = Math.max(end, i);
+            while (end < symbols.length && end - lengths[end] < i) {
+                end++;
+            }
+            final int matchLength = end - i;
+            if (0 == matchLength) {
+                starts[i] = 0;
+            }
+            else {
+                if (stateEnd != end) {
+                    state = starts[end - 1];
+                    stateEnd = end;
+                }
+                while (this.lengths[links[state]] >= matchLength) {
+                    state = links[state];
+                }
+                starts[i] = ends[state] - matchLength + 1;
+            }
+            lengths[i] = matchLength;
+        }
+
+        return new MatchingStatistics(lengths, starts);
+    }
+
+    /**
+     * Factory for {@link SuffixAutomaton}s.
+     *
+     * @param symbols symbols to build the {@link SuffixAutomaton} for, they are not kept.
+     *
+     * @return new {@link SuffixAutomaton} for {@code symbols}.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if any of the symbols is negative.
+     */
+    public static SuffixAutomaton newSuffixAutomaton(final int[] symbols) {
+        checkNotNull(symbols);
+        for (final int symbol : symbols) {
+            checkArgument(symbol >= 0, "Negative symbol: %s", symbol);
+        }
+        final SuffixAutomaton suffixAutomaton = new SuffixAutomaton(symbols.length);
+        suffixAutomaton.build(symbols);
+        return suffixAutomaton;
+    }
+}
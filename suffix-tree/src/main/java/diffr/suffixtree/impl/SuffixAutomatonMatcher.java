@@ -0,0 +1,116 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * {@link IntMatcher} implementation for {@link SuffixAutomaton}. The position in the tree is the state of the
+ * automaton reached by the symbols matched so far, so matching a symbol is a single lookup of a transition and does
+ * not allocate. The range returned is the first occurrence of the symbols matched so far.
+ *
+ * @since 1.0
+ */
+public class SuffixAutomatonMatcher implements IntMatcher {
+
+    private final SuffixAutomaton suffixAutomaton;
+
+    private int state;
+
+    private int matched;
+
+    private boolean finished;
+
+    /**
+     * Default constructor.
+     *
+     * @param suffixAutomaton {@link SuffixAutomaton} to traverse.
+     *
+     * @throws NullPointerException if {@code suffixAutomaton} is null.
+     */
+    public SuffixAutomatonMatcher(final SuffixAutomaton suffixAutomaton) {
+        this.suffixAutomaton = checkNotNull(suffixAutomaton);
+        reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matched matchNext(final int symbol) {
+
+        checkState(!finished);
+
+        if (symbol < 0) {
+            return notMatched();
+        }
+
+        final int next = suffixAutomaton.transition(state, symbol);
+        if (ChildTable.NO_CHILD == next) {
+            return notMatched();
+        }
+
+        state = next;
+        matched++;
+        return Matched.YES;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot() {
+        return 0 == matched;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndex() {
+        checkState(!isRoot());
+        return suffixAutomaton.end(state);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Range<Integer> range() {
+        checkState(!isRoot());
+        final int end = suffixAutomaton.end(state);
+        return Ranges.closed(end - matched + 1, end);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        this.state = SuffixAutomaton.ROOT;
+        this.finished = false;
+        this.matched = 0;
+    }
+
+    /**
+     * Sets {@code finished} to {@code true} and returns {@link Matched#NO}.
+     *
+     * @return {@link Matched#NO}.
+     */
+    private Matched notMatched() {
+        finished = true;
+        return Matched.NO;
+    }
+}
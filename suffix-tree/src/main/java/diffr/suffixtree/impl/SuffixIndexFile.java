@@ -0,0 +1,292 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.io.Closeables;
+import com.google.common.primitives.Longs;
+import diffr.util.token.LineTokenizer;
+import diffr.util.token.SymbolTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Versioned file format of a {@link SuffixArray} over lines that is memory-mapped and queried in place, so that a
+ * large original file is indexed once and every later diff against it opens the index in a few milliseconds. All the
+ * numbers are big-endian and the file is laid out as:
+ *
+ * <ol>
+ * <li>a header of {@value #HEADER_SIZE} bytes: the magic bytes {@code DIFFRIDX}, the {@code int} version, the {@code
+ * int} number of lines {@code n}, the {@code int} number of distinct lines {@code m}, an {@code int} that is reserved
+ * and the {@code long} number of characters of the distinct lines;</li>
+ * <li>the {@code n} symbols of the lines, the {@code n} starts of the suffixes in lexicographical order, the {@code n}
+ * ranks of the suffixes and the {@code n} lengths of the longest common prefixes, all {@code int}s;</li>
+ * <li>the {@code m} sorted {@code long} fingerprints of the distinct lines, see {@link
+ * SymbolTable#fingerprint(CharSequence)}, and the {@code m} {@code int} symbols of their lines;</li>
+ * <li>the {@code m + 1} {@code int} offsets of the characters of every symbol and the {@code char}s of the distinct
+ * lines, in the order of their symbols.</li>
+ * </ol>
+ *
+ * Every section is mapped on its own, so none of them can be larger than 2GB: {@link #write(List, File)} refuses
+ * lines whose sections would be larger and {@link #open(File)} refuses a file whose header describes them.
+ *
+ * @since 1.0
+ */
+public final class SuffixIndexFile {
+
+    /**
+     * Version of the file format written by {@link #write(List, File)}.
+     */
+    public static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 32;
+
+    private static final byte[] MAGIC = {'D', 'I', 'F', 'F', 'R', 'I', 'D', 'X'};
+
+    // Largest section that FileChannel.map can map as one buffer.
+    private static final long MAX_SECTION_SIZE = Integer.MAX_VALUE;
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public SuffixIndexFile() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Builds a {@link SuffixArray} for these {@code lines} and writes it, together with the table of the distinct
+     * lines, to this {@code file}.
+     *
+     * @param lines lines to index.
+     * @param file  file to write the index to, it is overwritten.
+     *
+     * @throws NullPointerException     if any parameter or any of the lines is null.
+     * @throws IllegalArgumentException if any section of the index would be larger than 2GB.
+     * @throws IOException              if the file cannot be written.
+     */
+    public static void write(final List<String> lines, final File file) throws IOException {
+        checkNotNull(file);
+        final SymbolTable symbolTable = new SymbolTable();
+        final int[] text = LineTokenizer.tokenize(checkNotNull(lines), symbolTable);
+        checkFits(text, symbolTable);
+        write(text, symbolTable, SuffixArray.newSuffixArray(text), file);
+    }
+
+    /**
+     * Builds a {@link SuffixArray} for these {@code lines} and writes it, together with the table of the distinct
+     * lines, to this {@code file}, fingerprinting the lines and sorting the suffixes on this {@code executor}. The
+     * file is the same as the one of {@link #write(List, File)}.
+     *
+     * @param lines    lines to index.
+     * @param file     file to write the index to, it is overwritten.
+     * @param executor {@link ExecutorService} to index the lines on.
+     *
+     * @throws NullPointerException     if any parameter or any of the lines is null.
+     * @throws IllegalArgumentException if any section of the index would be larger than 2GB.
+     * @throws IllegalStateException    if the calling thread is interrupted.
+     * @throws IOException              if the file cannot be written.
+     */
+    public static void write(final List<String> lines, final File file, final ExecutorService executor)
+            throws IOException {
+        checkNotNull(file);
+        checkNotNull(executor);
+        final SymbolTable symbolTable = new SymbolTable();
+        final int[] text = LineTokenizer.tokenize(checkNotNull(lines), symbolTable, executor);
+        checkFits(text, symbolTable);
+        write(text, symbolTable, SuffixArray.newSuffixArray(text, executor), file);
+    }
+
+    /**
+     * Checks that every section of the index of these symbols fits in 2GB.
+     *
+     * @param text        symbols of the lines.
+     * @param symbolTable {@link SymbolTable} of the lines.
+     *
+     * @throws IllegalArgumentException if any section of the index would be larger than 2GB.
+     */
+    private static void checkFits(final int[] text, final SymbolTable symbolTable) {
+        checkArgument(fits(text.length, symbolTable.size(), symbolTable.characters()),
+                      "Too large to index: %s lines, %s distinct lines and %s characters", text.length,
+                      symbolTable.size(), symbolTable.characters());
+    }
+
+    /**
+     * Writes this {@code suffixArray} of these symbols, together with the table of the distinct lines, to this {@code
+     * file}.
+     *
+     * @param text        symbols of the lines.
+     * @param symbolTable {@link SymbolTable} of the lines.
+     * @param suffixArray {@link SuffixArray} of {@code text}.
+     * @param file        file to write the index to, it is overwritten.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    private static void write(final int[] text, final SymbolTable symbolTable, final SuffixArray suffixArray,
+                              final File file) throws IOException {
+
+        final int charCount = symbolTable.characters();
+
+        final Integer[] fingerprintSymbols = new Integer[symbolTable.size()];
+        for (int i = 0; i < fingerprintSymbols.length; i++) {
+            fingerprintSymbols[i] = i;
+        }
+        Arrays.sort(fingerprintSymbols, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer first, final Integer second) {
+                return Longs.compare(symbolTable.fingerprint(first), symbolTable.fingerprint(second));
+            }
+        });
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        boolean threw = true;
+        try {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(text.length);
+            out.writeInt(symbolTable.size());
+            out.writeInt(0);
+            out.writeLong(charCount);
+
+            for (final int symbol : text) {
+                out.writeInt(symbol);
+            }
+            for (int rank = 0; rank < text.length; rank++) {
+                out.writeInt(suffixArray.suffix(rank));
+            }
+            for (int i = 0; i < text.length; i++) {
+                out.writeInt(suffixArray.rank(i));
+            }
+            for (int rank = 0; rank < text.length; rank++) {
+                out.writeInt(suffixArray.lcp(rank));
+            }
+
+            for (final Integer symbol : fingerprintSymbols) {
+                out.writeLong(symbolTable.fingerprint(symbol));
+            }
+            for (final Integer symbol : fingerprintSymbols) {
+                out.writeInt(symbol);
+            }
+
+            int offset = 0;
+            for (int symbol = 0; symbol < symbolTable.size(); symbol++) {
+                out.writeInt(offset);
+                offset += symbolTable.line(symbol).length();
+            }
+            out.writeInt(offset);
+            for (int symbol = 0; symbol < symbolTable.size(); symbol++) {
+                out.writeChars(symbolTable.line(symbol));
+            }
+            threw = false;
+        }
+        finally {
+            Closeables.close(out, threw);
+        }
+    }
+
+    /**
+     * Maps an index written by {@link #write(List, File)}. Nothing is read until it is queried, so opening the index
+     * does not depend on its size.
+     *
+     * @param file file to map.
+     *
+     * @return {@link InternedSuffixTree} over the lines of the index, that reads the file in place.
+     *
+     * @throws NullPointerException if {@code file} is null.
+     * @throws IOException          if the file cannot be read, is not an index, is of another version or has a
+     *                              section larger than 2GB.
+     */
+    public static InternedSuffixTree<String> open(final File file) throws IOException {
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(checkNotNull(file), "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a suffix index: " + file);
+            }
+
+            final ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+            final byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new IOException("Not a suffix index: " + file);
+            }
+            final int version = header.getInt();
+            if (VERSION != version) {
+                throw new IOException("Unsupported suffix index version " + version + ": " + file);
+            }
+            final int n = header.getInt();
+            final int m = header.getInt();
+            header.getInt();
+            final long charCount = header.getLong();
+
+            final long size = HEADER_SIZE + 16L * n + 12L * m + 4L * (m + 1) + 2L * charCount;
+            if (n < 0 || m < 0 || charCount < 0 || channel.size() != size) {
+                throw new IOException("Corrupt suffix index: " + file);
+            }
+            if (!fits(n, m, charCount)) {
+                throw new IOException("Suffix index too large to map: " + file);
+            }
+
+            long position = HEADER_SIZE;
+            final ByteBuffer text = channel.map(MapMode.READ_ONLY, position, 4L * n);
+            position += 4L * n;
+            final ByteBuffer suffixes = channel.map(MapMode.READ_ONLY, position, 4L * n);
+            position += 4L * n;
+            final ByteBuffer ranks = channel.map(MapMode.READ_ONLY, position, 4L * n);
+            position += 4L * n;
+            final ByteBuffer lcp = channel.map(MapMode.READ_ONLY, position, 4L * n);
+            position += 4L * n;
+            final ByteBuffer fingerprints = channel.map(MapMode.READ_ONLY, position, 8L * m);
+            position += 8L * m;
+            final ByteBuffer fingerprintSymbols = channel.map(MapMode.READ_ONLY, position, 4L * m);
+            position += 4L * m;
+            final ByteBuffer offsets = channel.map(MapMode.READ_ONLY, position, 4L * (m + 1));
+            position += 4L * (m + 1);
+            final ByteBuffer chars = channel.map(MapMode.READ_ONLY, position, 2L * charCount);
+
+            final MappedElementTable elementTable = new MappedElementTable(fingerprints.asLongBuffer(),
+                                                                           fingerprintSymbols.asIntBuffer(),
+                                                                           offsets.asIntBuffer(),
+                                                                           chars.asCharBuffer());
+            final SuffixArray suffixArray = SuffixArray.wrap(text.asIntBuffer(), suffixes.asIntBuffer(),
+                                                             ranks.asIntBuffer(), lcp.asIntBuffer());
+            return new InternedSuffixTree<String>(elementTable, suffixArray);
+        }
+        finally {
+            // The mappings stay valid after the file is closed.
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Checks that every section of an index can be mapped as one buffer.
+     *
+     * @param n         number of lines.
+     * @param m         number of distinct lines.
+     * @param charCount number of characters of the distinct lines.
+     *
+     * @return {@code true} if no section is larger than {@link Integer#MAX_VALUE} bytes.
+     */
+    static boolean fits(final int n, final int m, final long charCount) {
+        return 4L * n <= MAX_SECTION_SIZE
+                && 8L * m <= MAX_SECTION_SIZE
+                && 4L * (m + 1L) <= MAX_SECTION_SIZE
+                && 2L * charCount <= MAX_SECTION_SIZE;
+    }
+}
@@ -1,141 +1,203 @@
 package diffr.suffixtree.impl;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
 import com.google.common.collect.Ranges;
+import diffr.suffixtree.MatchingStatistics;
 import diffr.suffixtree.SuffixTree;
 import javolution.util.FastCollection.Record;
-import javolution.util.FastMap;
-import javolution.util.FastTable;
 import javolution.util.Index;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Default {@link SuffixTreeImpl} implementation.
+ * <p/>
+ * A {@link SuffixTreeImpl} is built by a {@link Builder} and only published once it is finished: all its fields are
+ * final and nothing that they refer to is modified afterwards, so it is deeply immutable and safely published even
+ * through a data race. Any number of threads can therefore share one {@link SuffixTreeImpl} and create and use their
+ * own {@link MatcherImpl}s on it at the same time, without locks.
+ * <p/>
+ * The {@link Builder} extends the tree online, one element at a time, so it also backs {@link AppendableSuffixTree}.
  *
  * @author Jakub D Kozlowski
  * @since 0.1
  */
 public final class SuffixTreeImpl<E extends Comparable> implements SuffixTree<E> {
 
-    private final FastTable<E> elements;
+    private final ImmutableList<E> elements;
 
-    private final Map<NodeKey<E>, Edge> edges;
+    private final Map<E, Integer> symbols;
+
+    private final int[] text;
+
+    private final ChildTable children;
+
+    private final Edge[] edges;
+
+    private final Record[] suffixLinks;
 
     private final Record root;
 
-    private Record curRecord;
+    /**
+     * Default constructor. Takes over the state of this finished {@code builder}, which must not be modified
+     * afterwards.
+     *
+     * @param builder finished {@link Builder}.
+     */
+    private SuffixTreeImpl(final Builder<E> builder) {
+        builder.children.trim();
+        this.elements = ImmutableList.copyOf(builder.elements);
+        this.symbols = builder.symbols;
+        this.text = Arrays.copyOf(builder.text, builder.size);
+        this.children = builder.children;
+        this.edges = Arrays.copyOf(builder.edges, builder.nodes());
+        this.suffixLinks = Arrays.copyOf(builder.suffixLinks, builder.nodes());
+        this.root = builder.root;
+    }
 
     /**
-     * Default constructor.
+     * Gets the length of this {@code edge} when only elements up to and including {@code lastIndex} have been
+     * inserted, i.e. the edges of type {@code [a,+∞]} share the same open end, which is {@code lastIndex}. An edge
+     * that was only closed by elements inserted after {@code lastIndex} is still open.
      *
-     * @param elements elements that this {@link SuffixTreeImpl} will be built for.
+     * @param edge      edge to get the length of.
+     * @param lastIndex index of the last element inserted so far.
      *
-     * @throws NullPointerException if {@code elements} is null.
+     * @return length of this {@code edge}.
+     *
+     * @since 1.0
      */
-    private SuffixTreeImpl(final List<E> elements) {
-        checkNotNull(elements);
-        this.elements = FastTable.newInstance();
-        this.elements.addAll(elements);
-        this.curRecord = Index.ZERO.getNext();
-        this.root = this.curRecord;
-        this.edges = FastMap.newInstance();
+    static int edgeLength(final Edge edge, final int lastIndex) {
+        return edgeEnd(edge, lastIndex) - edge.getRange().lowerEndpoint() + 1;
     }
 
     /**
-     * Adds a child to the {@code parent}.
+     * Gets the index of the last element of this {@code edge} when only elements up to and including {@code
+     * lastIndex} have been inserted.
      *
-     * @param range range of the edge that will be created.
+     * @param edge      edge to get the end of.
+     * @param lastIndex index of the last element inserted so far.
      *
-     * @return the new node created.
+     * @return index of the last element of {@code edge}.
      *
-     * @throws NullPointerException     if any parameter is null.
-     * @throws IllegalArgumentException if {@code range} does not have a lower bound.
-     * @since 0.2
+     * @since 1.0
      */
-    private Record addChild(final Record parent, final Range<Integer> range) {
-        checkNotNull(parent);
-        checkNotNull(range);
-        checkArgument(range.hasLowerBound());
-        this.curRecord = curRecord.getNext();
-        final Edge newEdge = new Edge(parent, curRecord, range);
-        addEdge(newEdge);
-        return curRecord;
+    static int edgeEnd(final Edge edge, final int lastIndex) {
+        return isOpen(edge, lastIndex) ? lastIndex : edge.getRange().upperEndpoint();
     }
 
     /**
-     * Removes this {@code oldEdge} and instead creates:
+     * Checks if this {@code edge} is a leaf edge when only elements up to and including {@code lastIndex} have been
+     * inserted, i.e. its end is the open end of the tree.
      *
-     * <ul>
-     * <li>a {@code branchNode} with a {@code branchEdge} {@code [oldEdge.parentNode, branchNode,
-     * [oldNode.range.lowerBound(), lastMatched]}</li>
-     * <li>an {@code leftEdge} {@code [branchNode, oldEdge.childNode, [lastMatched, oldEdge.range.upperBound]]}</li>
-     * <li>a {@code splitNode} with a {@code splitEdge} {@code [branchNode, splitNode, [firstNotMatchedSuffixIndex,
-     * +∞]}</li>
-     * </ul>
+     * @param edge      edge to check.
+     * @param lastIndex index of the last element inserted so far.
      *
-     * @param oldEdge                    edge that will be removed.
-     * @param lastMatchedEdgeIndex       index of the last element matched in the edge.
-     * @param firstNotMatchedSuffixIndex index of the first element not matched from the suffix.
+     * @return {@code true} if {@code edge} is open.
      *
-     * @throws NullPointerException if {@code oldEdge} is null or it does not exists in this {@link SuffixTreeImpl}.
-     * @since 0.2
+     * @since 1.0
      */
-    private void splitEdge(final Edge oldEdge, final int lastMatchedEdgeIndex, final int firstNotMatchedSuffixIndex) {
-
-        checkNotNull(edges.remove(NodeKey.newNodeKey(checkNotNull(oldEdge), this)));
-
-        // {@code [oldEdge.parentNode, branch, [oldNode.range.lowerBound(), lastMatched]}
-        final Record branch
-                = addChild(oldEdge.getParent(),
-                           Ranges.closed(oldEdge.getRange().lowerEndpoint(), lastMatchedEdgeIndex));
-
-        // {@code [branch, oldEdge.childNode, [lastMatchedEdgeIndex + 1, oldEdge.range.lowerBound]]}
-        final Edge leftEdge = Edge.newStartEdge(branch, oldEdge.getChild(), oldEdge.getRange(),
-                                                lastMatchedEdgeIndex + 1);
-        addEdge(leftEdge);
-
-        // {@code [branch, splitNode, [firstNotMatchedSuffixIndex, +∞]}
-        addChild(branch, Ranges.atLeast(firstNotMatchedSuffixIndex));
+    static boolean isOpen(final Edge edge, final int lastIndex) {
+        final Range<Integer> range = edge.getRange();
+        return !range.hasUpperBound() || range.upperEndpoint() > lastIndex;
     }
 
     /**
-     * Adds this {@code edge}. No check is performed whether the {@code parentNode} and {@code childNode} is present
-     * in this {@link SuffixTreeImpl}.
+     * Gets the suffix link of this {@code node}, i.e. the node that represents the path of this {@code node}
+     * without its first element. Nodes that do not have a suffix link are linked to the root.
      *
-     * @param edge new edge.
+     * @param node node to get the suffix link of.
      *
-     * @throws NullPointerException     if {@code edge} is null.
-     * @throws IllegalArgumentException if this {@link SuffixTreeImpl} already contains this {@code edge}.
-     * @since 0.2
+     * @return suffix link of this {@code node}.
+     *
+     * @throws NullPointerException if {@code node} is null.
+     * @since 1.0
      */
     @VisibleForTesting
-    void addEdge(final Edge edge) {
-        final NodeKey<E> nodeKey = NodeKey.newNodeKey(checkNotNull(edge), this);
-        checkArgument(!edges.containsKey(nodeKey));
-        edges.put(nodeKey, edge);
+    Record getSuffixLink(final Record node) {
+        final Record suffixLink = suffixLinks[id(checkNotNull(node))];
+        return null == suffixLink ? root : suffixLink;
     }
 
     /**
-     * Gets the edge from this {@code parent} to this {@code element}.
+     * Gets the edge from this {@code parent} to this {@code element}. The lookup does not allocate.
      *
      * @param parent  parent of the {@link Edge} to get.
      * @param element the first element of the {@code Edge} to get.
      *
-     * @return edge from this {@code parent} to this {@code element}.
+     * @return edge from this {@code parent} to this {@code element} or {@code null} if there is no such edge.
      *
      * @throws NullPointerException if any parameter is null.
      */
     @VisibleForTesting
-    Optional<Edge> getEdge(final Record parent, final E element) {
-        return Optional.fromNullable(edges.get(NodeKey.lookup(checkNotNull(parent), checkNotNull(element))));
+    Edge getEdge(final Record parent, final E element) {
+        final Integer symbol = symbols.get(checkNotNull(element));
+        if (null == symbol) {
+            return null;
+        }
+        return childEdge(checkNotNull(parent), symbol);
+    }
+
+    /**
+     * Gets the edge from this {@code parent} whose first element was interned to this {@code symbol}.
+     *
+     * @param parent parent of the {@link Edge} to get.
+     * @param symbol symbol of the first element of the {@link Edge} to get.
+     *
+     * @return edge from this {@code parent} to this {@code symbol} or {@code null} if there is no such edge.
+     *
+     * @since 1.0
+     */
+    private Edge childEdge(final Record parent, final int symbol) {
+        return childEdge(children, edges, parent, symbol, text.length - 1);
+    }
+
+    /**
+     * Gets the edge from this {@code parent} whose first element was interned to this {@code symbol}, ignoring the
+     * edges that were added after the element at {@code lastIndex} was inserted.
+     *
+     * @param children  children of the nodes.
+     * @param edges     edges to the nodes, indexed by the id of the child.
+     * @param parent    parent of the {@link Edge} to get.
+     * @param symbol    symbol of the first element of the {@link Edge} to get.
+     * @param lastIndex index of the last element inserted so far.
+     *
+     * @return edge from this {@code parent} to this {@code symbol} or {@code null} if there is no such edge.
+     */
+    static Edge childEdge(final ChildTable children, final Edge[] edges, final Record parent, final int symbol,
+                          final int lastIndex) {
+        final int child = children.get(id(parent), symbol);
+        if (ChildTable.NO_CHILD == child) {
+            return null;
+        }
+        // Edges are only ever added for new elements, so an edge added later starts after lastIndex.
+        final Edge edge = edges[child];
+        return edge.getRange().lowerEndpoint() > lastIndex ? null : edge;
+    }
+
+    /**
+     * Gets the id of this {@code node}.
+     *
+     * @param node node to get the id of.
+     *
+     * @return id of {@code node}.
+     *
+     * @since 1.0
+     */
+    static int id(final Record node) {
+        return ((Index) node).intValue();
     }
 
     /**
@@ -149,9 +211,8 @@ public final class SuffixTreeImpl<E extends Comparable> implements SuffixTree<E>
     }
 
     /**
-     * Gets a {@link ListIterator} of elements in this {@link SuffixTreeImpl}, starting from {@code index}. The
-     * returned iterator supports all the mutation operations like {@link ListIterator#remove()} or {@link
-     * ListIterator#set(Object)}, however it should only be used to retrieve elements.
+     * Gets a read-only {@link ListIterator} of elements in this {@link SuffixTreeImpl}, starting from {@code
+     * index}.
      *
      * @param index starting index for this {@link ListIterator}.
      *
@@ -174,13 +235,24 @@ public final class SuffixTreeImpl<E extends Comparable> implements SuffixTree<E>
         return elements.get(index);
     }
 
+    /**
+     * Gets the number of elements in this {@link SuffixTree}.
+     *
+     * @return number of elements.
+     *
+     * @since 1.0
+     */
+    int size() {
+        return elements.size();
+    }
+
     /**
      * Returns a read-only view of elements in this {@link SuffixTree}.
      *
      * @return read-only view of elements in this {@link SuffixTree}.
      */
     List<E> getElements() {
-        return elements.unmodifiable();
+        return elements;
     }
 
     /**
@@ -192,7 +264,107 @@ public final class SuffixTreeImpl<E extends Comparable> implements SuffixTree<E>
     }
 
     /**
-     * Factory for {@link SuffixTreeImpl}s.
+     * {@inheritDoc}
+     */
+    @Override
+    public MatchingStatistics matchingStatistics(final List<E> elements) {
+        final int[] query = InternedSuffixTree.symbolsOf(checkNotNull(elements), symbols);
+        return matchingStatistics(query, text, children, edges, suffixLinks, root, text.length - 1);
+    }
+
+    /**
+     * Computes the {@link MatchingStatistics} of this {@code query} against the tree made of the elements up to and
+     * including {@code lastIndex}, using the suffix links to carry each match over to the next index.
+     *
+     * @param query       symbols to compute the {@link MatchingStatistics} of.
+     * @param text        symbols of the tree.
+     * @param children    children of the nodes.
+     * @param edges       edges to the nodes, indexed by the id of the child.
+     * @param suffixLinks suffix links of the nodes, indexed by their ids, {@code null} for the root.
+     * @param root        root of the tree.
+     * @param lastIndex   index of the last element of the tree to match against.
+     *
+     * @return {@link MatchingStatistics} of {@code query}.
+     */
+    static MatchingStatistics matchingStatistics(final int[] query, final int[] text, final ChildTable children,
+                                                 final Edge[] edges, final Record[] suffixLinks, final Record root,
+                                                 final int lastIndex) {
+
+        final int[] lengths = new int[query.length];
+        final int[] starts = new int[query.length];
+
+        // The current match is query[i, i + length): it passes through the node at depth nodeDepth and ends on
+        // this edge, or at the node itself if the edge is null.
+        Record node = root;
+        int nodeDepth = 0;
+        Edge edge = null;
+        int length = 0;
+
+        for (int i = 0; i < query.length; i++) {
+
+            // Extend the match for as long as possible.
+            while (i + length < query.length && query[i + length] >= 0) {
+                final int symbol = query[i + length];
+                if (null != edge && length - nodeDepth < edgeLength(edge, lastIndex)) {
+                    if (text[edge.getRange().lowerEndpoint() + length - nodeDepth] != symbol) {
+                        break;
+                    }
+                }
+                else {
+                    if (null != edge) {
+                        if (isOpen(edge, lastIndex)) {
+                            break;
+                        }
+                        node = edge.getChild();
+                        nodeDepth = length;
+                        edge = null;
+                    }
+                    final Edge next = childEdge(children, edges, node, symbol, lastIndex);
+                    if (null == next) {
+                        break;
+                    }
+                    edge = next;
+                }
+                length++;
+            }
+
+            lengths[i] = length;
+            if (0 == length) {
+                continue;
+            }
+            final int end = null == edge
+                            ? edges[id(node)].getRange().upperEndpoint() + 1
+                            : edge.getRange().lowerEndpoint() + length - nodeDepth;
+            starts[i] = end - length;
+
+            // The match for i + 1 is at least query[i + 1, i + length): follow the suffix link and use the
+            // skip/count trick to walk down the rest of it.
+            length--;
+            if (root != node) {
+                final Record suffixLink = suffixLinks[id(node)];
+                node = null == suffixLink ? root : suffixLink;
+                nodeDepth--;
+            }
+            edge = null;
+            while (nodeDepth < length) {
+                final Edge next = childEdge(children, edges, node, query[i + 1 + nodeDepth], lastIndex);
+                final int edgeLength = edgeLength(next, lastIndex);
+                if (length - nodeDepth <= edgeLength) {
+                    edge = next;
+                    break;
+                }
+                node = next.getChild();
+                nodeDepth += edgeLength;
+            }
+        }
+
+        return new MatchingStatistics(lengths, starts);
+    }
+
+
+    /**
+     * Factory for {@link SuffixTreeImpl}s. The tree is built online using Ukkonen's algorithm, see {@link
+     * Builder#append(Comparable)}, therefore it is built in time linear in the number of {@code elements}.
      *
      * @param elements elements to build the {@link SuffixTreeImpl} for.
      *
@@ -201,38 +373,383 @@ public final class SuffixTreeImpl<E extends Comparable> implements SuffixTree<E>
      * @throws NullPointerException if {@code elements} is null.
      */
     public static <E extends Comparable<E>> SuffixTreeImpl<E> newSuffixTree(final List<E> elements) {
-
         checkNotNull(elements);
+        final Builder<E> builder = new Builder<E>(elements.size());
+        builder.appendAll(elements);
+        return builder.freeze();
+    }
+
+    /**
+     * Mutable state of a {@link SuffixTreeImpl} while it is being built. It is frozen into the {@link
+     * SuffixTreeImpl} once the tree is finished, or extended for as long as it lives by an {@link
+     * AppendableSuffixTree}. It is not thread-safe.
+     *
+     * @since 1.0
+     */
+    static final class Builder<E extends Comparable> {
+
+        private final ArrayList<E> elements;
+
+        private final Map<E, Integer> symbols;
+
+        private int[] text;
+
+        private int size;
+
+        private final ChildTable children;
 
-        final SuffixTreeImpl<E> suffixTree = new SuffixTreeImpl<E>(elements);
+        private Edge[] edges;
 
-        final ListIterator<E> suffixes = elements.listIterator();
+        private Record[] suffixLinks;
 
-        while (suffixes.hasNext()) {
+        private final Record root;
 
-            suffixes.next();
+        private Record curRecord;
 
-            final MatcherImpl<E> suffixMatcher = suffixTree.matcher();
-            final ListIterator<E> suffixIterator = elements.listIterator(suffixes.previousIndex());
+        // Active point: the end of the longest suffix that is already in the tree, stored as a node, the index of the
+        // first element of the edge going out of that node and the number of elements matched along that edge.
+        private Record activeNode;
 
-            while (suffixIterator.hasNext()) {
+        private int activeEdgeIndex;
 
-                if (!suffixMatcher.matchNext(suffixIterator.next()).isMatched()) {
-                    if (suffixMatcher.edgeHasNext()) {
-                        suffixTree.splitEdge(suffixMatcher.lastEdge(),
-                                             suffixMatcher.lastIndex(),
-                                             suffixIterator.previousIndex());
+        private int activeLength;
+
+        // Number of suffixes that still need to be inserted explicitly.
+        private int remainder;
+
+        private boolean frozen;
+
+        /**
+         * Default constructor.
+         *
+         * @param expectedSize number of elements expected to be appended.
+         *
+         * @throws IllegalArgumentException if {@code expectedSize} is negative.
+         */
+        Builder(final int expectedSize) {
+            checkArgument(expectedSize >= 0);
+            this.elements = Lists.newArrayListWithCapacity(expectedSize);
+            this.symbols = Maps.newHashMap();
+            this.text = new int[Math.max(1, expectedSize)];
+            this.size = 0;
+            this.curRecord = Index.ZERO.getNext();
+            this.root = this.curRecord;
+            this.children = new ChildTable(2 * expectedSize);
+            this.edges = new Edge[2 * expectedSize + 2];
+            this.suffixLinks = new Record[edges.length];
+            this.activeNode = root;
+        }
+
+        /**
+         * Appends all these {@code elements}, one at a time, see {@link #append(Comparable)}.
+         *
+         * @param elements elements to append.
+         *
+         * @throws NullPointerException  if {@code elements} or any of the elements is null, the elements before it
+         *                               are appended.
+         * @throws IllegalStateException if this {@link Builder} is already frozen.
+         */
+        void appendAll(final List<E> elements) {
+            for (final E element : checkNotNull(elements)) {
+                append(element);
+            }
+        }
+
+        /**
+         * Extends the tree by this {@code element}, i.e. one phase of Ukkonen's algorithm: the edges of type {@code
+         * [a,+∞]} share the same open end, so they are extended implicitly, and suffix links are followed between
+         * the extensions of the phase, therefore appending takes amortized constant time. Because no unique
+         * terminator is appended, suffixes that are also prefixes of other suffixes end inside an edge.
+         *
+         * @param element element to append.
+         *
+         * @throws NullPointerException  if {@code element} is null.
+         * @throws IllegalStateException if this {@link Builder} is already frozen.
+         */
+        void append(final E element) {
+
+            checkNotNull(element);
+            checkState(!frozen, "The tree is already frozen");
+
+            final int i = size;
+            Integer symbol = symbols.get(element);
+            if (null == symbol) {
+                symbol = symbols.size();
+                symbols.put(element, symbol);
+            }
+            if (i == text.length) {
+                text = Arrays.copyOf(text, i + (i >>> 1) + 1);
+            }
+            text[i] = symbol;
+            elements.add(element);
+            size++;
+
+            Record lastBranch = null;
+            remainder++;
+
+            while (remainder > 0) {
+
+                if (0 == activeLength) {
+                    activeEdgeIndex = i;
+                }
+
+                final Edge edge = childEdge(children, edges, activeNode, text[activeEdgeIndex], i);
+                if (null == edge) {
+                    addChild(activeNode, Ranges.atLeast(i));
+                    if (null != lastBranch) {
+                        suffixLinks[id(lastBranch)] = activeNode;
+                        lastBranch = null;
+                    }
+                }
+                else {
+                    final int edgeLength = edgeLength(edge, i);
+
+                    // Skip/count trick: jump over whole edges.
+                    if (activeLength >= edgeLength) {
+                        activeEdgeIndex += edgeLength;
+                        activeLength -= edgeLength;
+                        activeNode = edge.getChild();
+                        continue;
                     }
-                    else {
-                        suffixTree.addChild(suffixMatcher.lastNode(),
-                                            Ranges.atLeast(suffixIterator.previousIndex()));
 
+                    if (text[edge.getRange().lowerEndpoint() + activeLength] == symbol) {
+                        // The suffix is already in the tree, so are all the shorter ones: end the phase.
+                        if (null != lastBranch && activeNode != root) {
+                            suffixLinks[id(lastBranch)] = activeNode;
+                        }
+                        activeLength++;
+                        break;
                     }
-                    break;
+
+                    final Record branch = splitEdge(edge, edge.getRange().lowerEndpoint() + activeLength - 1, i);
+                    if (null != lastBranch) {
+                        suffixLinks[id(lastBranch)] = branch;
+                    }
+                    lastBranch = branch;
+                }
+
+                remainder--;
+
+                if (activeNode == root && activeLength > 0) {
+                    activeLength--;
+                    activeEdgeIndex = i - remainder + 1;
+                }
+                else if (activeNode != root) {
+                    activeNode = getSuffixLink(activeNode);
                 }
             }
         }
 
-        return suffixTree;
+        /**
+         * Adds a child to the {@code parent}.
+         *
+         * @param range range of the edge that will be created.
+         *
+         * @return the new node created.
+         *
+         * @throws NullPointerException     if any parameter is null.
+         * @throws IllegalArgumentException if {@code range} does not have a lower bound.
+         * @since 0.2
+         */
+        private Record addChild(final Record parent, final Range<Integer> range) {
+            checkNotNull(parent);
+            checkNotNull(range);
+            checkArgument(range.hasLowerBound());
+            this.curRecord = curRecord.getNext();
+            final Edge newEdge = new Edge(parent, curRecord, range);
+            addEdge(newEdge);
+            return curRecord;
+        }
+
+        /**
+         * Removes this {@code oldEdge} and instead creates:
+         *
+         * <ul>
+         * <li>a {@code branchNode} with a {@code branchEdge} {@code [oldEdge.parentNode, branchNode,
+         * [oldNode.range.lowerBound(), lastMatched]}</li>
+         * <li>an {@code leftEdge} {@code [branchNode, oldEdge.childNode, [lastMatched,
+         * oldEdge.range.upperBound]]}</li>
+         * <li>a {@code splitNode} with a {@code splitEdge} {@code [branchNode, splitNode,
+         * [firstNotMatchedSuffixIndex, +∞]}</li>
+         * </ul>
+         *
+         * The old edge is not modified, so a reader that still holds it follows the same path as before.
+         *
+         * @param oldEdge                    edge that will be removed.
+         * @param lastMatchedEdgeIndex       index of the last element matched in the edge.
+         * @param firstNotMatchedSuffixIndex index of the first element not matched from the suffix.
+         *
+         * @return the {@code branchNode} created.
+         *
+         * @throws NullPointerException     if {@code oldEdge} is null.
+         * @throws IllegalArgumentException if {@code oldEdge} does not exists in the tree.
+         * @since 0.2
+         */
+        private Record splitEdge(final Edge oldEdge, final int lastMatchedEdgeIndex,
+                                 final int firstNotMatchedSuffixIndex) {
+
+            checkNotNull(oldEdge);
+            final int parent = id(oldEdge.getParent());
+            final int firstSymbol = text[oldEdge.getRange().lowerEndpoint()];
+            checkArgument(id(oldEdge.getChild()) == children.get(parent, firstSymbol));
+
+            // {@code [oldEdge.parentNode, branch, [oldNode.range.lowerBound(), lastMatched]}, which replaces oldEdge
+            this.curRecord = curRecord.getNext();
+            final Record branch = curRecord;
+            putEdge(new Edge(oldEdge.getParent(), branch,
+                             Ranges.closed(oldEdge.getRange().lowerEndpoint(), lastMatchedEdgeIndex)));
+
+            // {@code [branch, oldEdge.childNode, [lastMatchedEdgeIndex + 1, oldEdge.range.lowerBound]]}
+            final Edge leftEdge = Edge.newStartEdge(branch, oldEdge.getChild(), oldEdge.getRange(),
+                                                    lastMatchedEdgeIndex + 1);
+            addEdge(leftEdge);
+
+            // {@code [branch, splitNode, [firstNotMatchedSuffixIndex, +∞]}
+            addChild(branch, Ranges.atLeast(firstNotMatchedSuffixIndex));
+
+            return branch;
+        }
+
+        /**
+         * Adds this {@code edge}. No check is performed whether the {@code parentNode} and {@code childNode} is
+         * present in the tree.
+         *
+         * @param edge new edge.
+         *
+         * @throws NullPointerException     if {@code edge} is null.
+         * @throws IllegalStateException    if this {@link Builder} is already frozen.
+         * @throws IllegalArgumentException if the tree already contains this {@code edge}.
+         * @since 0.2
+         */
+        @VisibleForTesting
+        void addEdge(final Edge edge) {
+            checkNotNull(edge);
+            checkState(!frozen, "The tree is already frozen");
+            checkArgument(ChildTable.NO_CHILD == children.get(id(edge.getParent()),
+                                                              text[edge.getRange().lowerEndpoint()]));
+            putEdge(edge);
+        }
+
+        /**
+         * Puts this {@code edge}, replacing the edge from the same parent that starts with the same element if there
+         * is one.
+         *
+         * @param edge new edge.
+         *
+         * @since 1.0
+         */
+        private void putEdge(final Edge edge) {
+            final int child = id(edge.getChild());
+            if (child >= edges.length) {
+                final int capacity = Math.max(child + 1, edges.length + (edges.length >>> 1));
+                edges = Arrays.copyOf(edges, capacity);
+                suffixLinks = Arrays.copyOf(suffixLinks, capacity);
+            }
+            edges[child] = edge;
+            children.put(id(edge.getParent()), text[edge.getRange().lowerEndpoint()], child);
+        }
+
+        /**
+         * Gets the edge from this {@code parent} to this {@code element}, ignoring the edges that were added after
+         * the element at {@code lastIndex} was appended.
+         *
+         * @param parent    parent of the {@link Edge} to get.
+         * @param element   the first element of the {@code Edge} to get.
+         * @param lastIndex index of the last element appended so far.
+         *
+         * @return edge from this {@code parent} to this {@code element} or {@code null} if there is no such edge.
+         */
+        Edge getEdge(final Record parent, final E element, final int lastIndex) {
+            final Integer symbol = symbols.get(element);
+            return null == symbol ? null : childEdge(children, edges, parent, symbol, lastIndex);
+        }
+
+        /**
+         * Gets the suffix link of this {@code node}, or the root if it does not have one.
+         *
+         * @param node node to get the suffix link of.
+         *
+         * @return suffix link of this {@code node}.
+         */
+        Record getSuffixLink(final Record node) {
+            final Record suffixLink = suffixLinks[id(node)];
+            return null == suffixLink ? root : suffixLink;
+        }
+
+        /**
+         * Gets the root node.
+         *
+         * @return root of the tree.
+         */
+        Record getRoot() {
+            return root;
+        }
+
+        /**
+         * Gets the element at this {@code index}.
+         *
+         * @param index index of the element.
+         *
+         * @return element at this {@code index}.
+         */
+        E getElement(final int index) {
+            return elements.get(index);
+        }
+
+        /**
+         * Gets the number of elements appended so far.
+         *
+         * @return number of elements.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Gets the number of nodes, including the root.
+         *
+         * @return number of nodes.
+         */
+        private int nodes() {
+            return id(curRecord) + 1;
+        }
+
+        /**
+         * Computes the {@link MatchingStatistics} of this {@code query} against the elements up to and including
+         * {@code lastIndex}.
+         *
+         * @param query     symbols to compute the {@link MatchingStatistics} of.
+         * @param lastIndex index of the last element to match against.
+         *
+         * @return {@link MatchingStatistics} of {@code query}.
+         */
+        MatchingStatistics matchingStatistics(final int[] query, final int lastIndex) {
+            return SuffixTreeImpl.matchingStatistics(query, text, children, edges, suffixLinks, root, lastIndex);
+        }
+
+        /**
+         * Gets the symbols of these {@code elements}, see {@link InternedSuffixTree#symbolsOf(List, Map)}.
+         *
+         * @param elements elements to get the symbols of.
+         *
+         * @return symbols of {@code elements}.
+         */
+        int[] symbolsOf(final List<E> elements) {
+            return InternedSuffixTree.symbolsOf(elements, symbols);
+        }
+
+        /**
+         * Freezes this {@link Builder} into a {@link SuffixTreeImpl}, after which this {@link Builder} cannot be
+         * modified.
+         *
+         * @return the finished {@link SuffixTreeImpl}.
+         *
+         * @throws IllegalStateException if this {@link Builder} is already frozen.
+         */
+        SuffixTreeImpl<E> freeze() {
+            checkState(!frozen, "The tree is already frozen");
+            frozen = true;
+            return new SuffixTreeImpl<E>(this);
+        }
     }
 }
@@ -0,0 +1,171 @@
+package diffr.suffixtree.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable sequence of symbols in {@code [0, 2^levels)} that answers access and rank queries in time
+ * proportional to the number of bits of a symbol, rather than to the number of symbols. Every level holds one bit
+ * of every symbol, starting from the most significant one, in a {@link BitVector}; between the levels the symbols
+ * are stably partitioned by that bit, the zeros first. This takes a little more than {@code levels} bits per symbol.
+ *
+ * @since 1.0
+ */
+final class WaveletMatrix {
+
+    private final BitVector[] bits;
+
+    private final int[] zeros;
+
+    private final int size;
+
+    /**
+     * Default constructor.
+     *
+     * @param symbols symbols to hold, they are not modified.
+     * @param levels  number of bits of the largest symbol.
+     *
+     * @throws NullPointerException     if {@code symbols} is null.
+     * @throws IllegalArgumentException if {@code levels} is not in {@code [0, 31]} or any of the symbols is out of
+     *                                  {@code [0, 2^levels)}.
+     */
+    WaveletMatrix(final int[] symbols, final int levels) {
+        checkNotNull(symbols);
+        checkArgument(levels >= 0 && levels < 32);
+        this.size = symbols.length;
+        this.bits = new BitVector[levels];
+        this.zeros = new int[levels];
+
+        int[] current = symbols.clone();
+        int[] next = new int[size];
+        for (final int symbol : current) {
+            checkArgument(symbol >= 0 && (symbol >>> levels) == 0, "Symbol out of range: %s", symbol);
+        }
+
+        for (int level = 0; level < levels; level++) {
+            final int shift = levels - 1 - level;
+            final long[] words = new long[BitVector.words(size)];
+            int zeroCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (0 == ((current[i] >>> shift) & 1)) {
+                    zeroCount++;
+                }
+                else {
+                    BitVector.set(words, i);
+                }
+            }
+
+            int zero = 0;
+            int one = zeroCount;
+            for (int i = 0; i < size; i++) {
+                if (0 == ((current[i] >>> shift) & 1)) {
+                    next[zero++] = current[i];
+                }
+                else {
+                    next[one++] = current[i];
+                }
+            }
+
+            bits[level] = new BitVector(words, size);
+            zeros[level] = zeroCount;
+
+            final int[] swap = current;
+            current = next;
+            next = swap;
+        }
+    }
+
+    /**
+     * Gets the symbol at this {@code index}.
+     *
+     * @param index index of the symbol.
+     *
+     * @return the symbol at {@code index}.
+     */
+    int access(int index) {
+        int symbol = 0;
+        for (int level = 0; level < bits.length; level++) {
+            symbol <<= 1;
+            if (bits[level].get(index)) {
+                symbol |= 1;
+                index = zeros[level] + bits[level].rank1(index);
+            }
+            else {
+                index = bits[level].rank0(index);
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Gets the number of occurrences of this {@code symbol} before this {@code index}.
+     *
+     * @param symbol symbol to count.
+     * @param index  index in {@code [0, size]}.
+     *
+     * @return number of occurrences of {@code symbol} in {@code [0, index)}.
+     */
+    int rank(final int symbol, int index) {
+        int start = 0;
+        for (int level = 0; level < bits.length; level++) {
+            if (0 == ((symbol >>> (bits.length - 1 - level)) & 1)) {
+                start = bits[level].rank0(start);
+                index = bits[level].rank0(index);
+            }
+            else {
+                start = zeros[level] + bits[level].rank1(start);
+                index = zeros[level] + bits[level].rank1(index);
+            }
+        }
+        return index - start;
+    }
+
+    /**
+     * Gets the number of symbols smaller than this {@code symbol} in {@code [from, to)}.
+     *
+     * @param symbol symbol to compare to.
+     * @param from   first index of the range.
+     * @param to     index after the last index of the range.
+     *
+     * @return number of symbols smaller than {@code symbol} in {@code [from, to)}.
+     */
+    int rankLess(final int symbol, int from, int to) {
+        int less = 0;
+        for (int level = 0; level < bits.length && from < to; level++) {
+            final int fromOnes = bits[level].rank1(from);
+            final int toOnes = bits[level].rank1(to);
+            if (0 == ((symbol >>> (bits.length - 1 - level)) & 1)) {
+                from -= fromOnes;
+                to -= toOnes;
+            }
+            else {
+                less += (to - toOnes) - (from - fromOnes);
+                from = zeros[level] + fromOnes;
+                to = zeros[level] + toOnes;
+            }
+        }
+        return less;
+    }
+
+    /**
+     * Gets the number of symbols.
+     *
+     * @return number of symbols.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes held by the bits of this {@link WaveletMatrix}.
+     *
+     * @return number of bytes held by this {@link WaveletMatrix}.
+     */
+    long bytes() {
+        long bytes = 4L * zeros.length;
+        for (final BitVector level : bits) {
+            bytes += level.bytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package diffr.suffixtree;
+
+import com.google.common.collect.Ranges;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link MatchingStatistics}.
+ *
+ * @since 1.0
+ */
+public class MatchingStatisticsTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullLengths() {
+        new MatchingStatistics(null, new int[0]);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullStarts() {
+        new MatchingStatistics(new int[0], null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorDifferentLengths() {
+        new MatchingStatistics(new int[1], new int[2]);
+    }
+
+    @Test
+    public void testRange() {
+        final MatchingStatistics statistics = new MatchingStatistics(new int[]{3, 0}, new int[]{4, 0});
+        assertThat(statistics.size(), is(2));
+        assertThat(statistics.length(0), is(3));
+        assertThat(statistics.start(0), is(4));
+        assertThat(statistics.range(0), is(Ranges.closed(4, 6)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testStartNoMatch() {
+        new MatchingStatistics(new int[]{3, 0}, new int[]{4, 0}).start(1);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testLengthOutOfBounds() {
+        new MatchingStatistics(new int[]{3, 0}, new int[]{4, 0}).length(2);
+    }
+}
@@ -0,0 +1,143 @@
+package diffr.suffixtree;
+
+import com.google.common.collect.Lists;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.suffixtree.impl.InternedSuffixTree;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests {@link SuffixTreeCache}.
+ *
+ * @since 1.0
+ */
+public class SuffixTreeCacheTest {
+
+    private static final long MAXIMUM_BYTES = 1L << 20;
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorNegativeMaximumBytes() {
+        new SuffixTreeCache(-1);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetNullElements() {
+        new SuffixTreeCache(MAXIMUM_BYTES).get(null, Backend.SUFFIX_ARRAY);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetNullElement() {
+        new SuffixTreeCache(MAXIMUM_BYTES).get(Arrays.asList("a", null), Backend.SUFFIX_ARRAY);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetNullBackend() {
+        new SuffixTreeCache(MAXIMUM_BYTES).get(Lists.newArrayList("a"), null);
+    }
+
+    @Test
+    public void testGet() {
+        final SuffixTreeCache cache = new SuffixTreeCache(MAXIMUM_BYTES);
+        final InternedSuffixTree<String> suffixTree = cache.get(Lists.newArrayList("a", "b", "a"),
+                                                                 Backend.SUFFIX_ARRAY);
+
+        assertThat(suffixTree.matchingStatistics(Lists.newArrayList("b", "a")).length(0), is(2));
+        assertThat(cache.get(Lists.newArrayList("a", "b", "a"), Backend.SUFFIX_ARRAY), is(sameInstance(suffixTree)));
+        assertThat(cache.get(Lists.newArrayList("a", "b", "a"), Backend.FM_INDEX), is(not(sameInstance(suffixTree))));
+        assertThat(cache.get(Lists.newArrayList("a", "b"), Backend.SUFFIX_ARRAY), is(not(sameInstance(suffixTree))));
+
+        assertThat(cache.size(), is(3L));
+        assertThat(cache.stats().hitCount(), is(1L));
+        assertThat(cache.stats().missCount(), is(3L));
+        assertThat(cache.stats().evictionCount(), is(0L));
+
+        cache.invalidateAll();
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testGetEvicts() {
+        final List<String> first = lines("first", 1000);
+        final List<String> second = lines("second", 1000);
+        final InternedSuffixTree<String> suffixTree = SuffixTrees.newSuffixTree(first, Backend.SUFFIX_ARRAY);
+        final long bytes = (long) Math.ceil(suffixTree.bytesPerElement() * first.size()) + 8 * first.size();
+
+        // Room for one of the trees, but not for both.
+        final SuffixTreeCache cache = new SuffixTreeCache(bytes + bytes / 2);
+        cache.get(first, Backend.SUFFIX_ARRAY);
+        cache.get(second, Backend.SUFFIX_ARRAY);
+        assertThat(cache.size(), is(1L));
+        assertThat(cache.stats().evictionCount(), is(1L));
+
+        cache.get(second, Backend.SUFFIX_ARRAY);
+        assertThat(cache.stats().hitCount(), is(1L));
+        cache.get(first, Backend.SUFFIX_ARRAY);
+        assertThat(cache.stats().missCount(), is(3L));
+        assertThat(cache.stats().evictionCount(), is(2L));
+    }
+
+    @Test
+    public void testGetZeroMaximumBytes() {
+        final SuffixTreeCache cache = new SuffixTreeCache(0);
+        final List<String> elements = lines("line", 10);
+        assertThat(cache.get(elements, Backend.SUFFIX_ARRAY).matchingStatistics(elements).length(0), is(10));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testGetConcurrently() throws Exception {
+        final SuffixTreeCache cache = new SuffixTreeCache(Long.MAX_VALUE);
+        final List<String> elements = lines("line", 20000);
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<InternedSuffixTree<String>>> futures = Lists.newArrayList();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<InternedSuffixTree<String>>() {
+                    @Override
+                    public InternedSuffixTree<String> call() throws InterruptedException {
+                        start.await();
+                        return cache.get(Lists.newArrayList(elements), Backend.SUFFIX_ARRAY);
+                    }
+                }));
+            }
+            start.countDown();
+            for (final Future<InternedSuffixTree<String>> future : futures) {
+                assertThat(future.get(), is(sameInstance(futures.get(0).get())));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertThat(cache.stats().loadSuccessCount(), is(1L));
+    }
+
+    /**
+     * Gets distinct lines that start with this {@code prefix}.
+     *
+     * @param prefix prefix of the lines.
+     * @param size   number of lines.
+     *
+     * @return list of lines.
+     */
+    private static List<String> lines(final String prefix, final int size) {
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            lines.add(prefix + i);
+        }
+        return lines;
+    }
+}
@@ -2,9 +2,24 @@ package diffr.suffixtree;
 
 import com.google.common.collect.Lists;
 import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.suffixtree.impl.AppendableSuffixTree;
+import diffr.suffixtree.impl.CompactSuffixTree;
+import diffr.suffixtree.impl.FmIndex;
+import diffr.suffixtree.impl.InternedSuffixTree;
+import diffr.suffixtree.impl.SuffixArray;
+import diffr.suffixtree.impl.SuffixAutomaton;
 import diffr.suffixtree.impl.SuffixTreeImpl;
+import diffr.util.RandomFiles;
+import javolution.text.Text;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static diffr.util.Allocations.allocatedBytes;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -30,4 +45,122 @@ public class SuffixTreesTest {
     public void testNewSuffixTree() {
         assertThat(SuffixTrees.newSuffixTree(Lists.charactersOf("bla")), is(SuffixTreeImpl.class));
     }
+
+    @Test
+    public void testNewAppendableSuffixTree() {
+        final AppendableSuffixTree<Character> suffixTree = SuffixTrees.newAppendableSuffixTree();
+        suffixTree.appendAll(Lists.charactersOf("bla"));
+        assertThat(suffixTree.matchingStatistics(Lists.charactersOf("la")).length(0), is(2));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewCompactSuffixTreeNullElements() {
+        SuffixTrees.newCompactSuffixTree(null);
+    }
+
+    @Test
+    public void testNewCompactSuffixTree() {
+        assertThat(SuffixTrees.newCompactSuffixTree(Lists.charactersOf("bla")), is(InternedSuffixTree.class));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewIntSuffixTreeNullSymbols() {
+        SuffixTrees.newIntSuffixTree(null);
+    }
+
+    @Test
+    public void testNewIntSuffixTree() {
+        assertThat(SuffixTrees.newIntSuffixTree(new int[]{1, 2, 1}), is(CompactSuffixTree.class));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixTreeBackendNullElements() {
+        SuffixTrees.newSuffixTree(null, Backend.SUFFIX_ARRAY);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixTreeNullBackend() {
+        SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), null);
+    }
+
+    @Test
+    public void testNewSuffixTreeBackend() {
+        assertThat(SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), Backend.SUFFIX_TREE).getIntSuffixTree(),
+                   is(CompactSuffixTree.class));
+        assertThat(SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), Backend.SUFFIX_ARRAY).getIntSuffixTree(),
+                   is(SuffixArray.class));
+        assertThat(SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), Backend.FM_INDEX).getIntSuffixTree(),
+                   is(FmIndex.class));
+        assertThat(SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), Backend.SUFFIX_AUTOMATON).getIntSuffixTree(),
+                   is(SuffixAutomaton.class));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewIntSuffixTreeNullBackend() {
+        SuffixTrees.newIntSuffixTree(new int[]{1, 2, 1}, null);
+    }
+
+    @Test
+    public void testNewIntSuffixTreeBackend() {
+        assertThat(SuffixTrees.newIntSuffixTree(new int[]{1, 2, 1}, Backend.SUFFIX_ARRAY), is(SuffixArray.class));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixTreeNullExecutor() {
+        SuffixTrees.newSuffixTree(Lists.charactersOf("bla"), Backend.SUFFIX_ARRAY, null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewIntSuffixTreeNullExecutor() {
+        SuffixTrees.newIntSuffixTree(new int[]{1, 2, 1}, Backend.SUFFIX_ARRAY, null);
+    }
+
+    @Test
+    public void testNewSuffixTreeExecutor() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (final Backend backend : Backend.values()) {
+                final SuffixTree<Character> suffixTree = SuffixTrees.newSuffixTree(Lists.charactersOf("mississippi"),
+                                                                                   backend, executor);
+                assertThat(suffixTree.matchingStatistics(Lists.charactersOf("issip")).length(0), is(5));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DataProvider(name = "suffix-trees")
+    public Object[][] suffixTrees() {
+        final List<Text> file = RandomFiles.getRandomFile(100, 1341376661708488015L);
+        final List<Object[]> suffixTrees = Lists.newArrayList();
+        suffixTrees.add(new Object[]{file, SuffixTrees.newSuffixTree(file)});
+        for (final Backend backend : Backend.values()) {
+            suffixTrees.add(new Object[]{file, SuffixTrees.newSuffixTree(file, backend)});
+        }
+        return suffixTrees.toArray(new Object[][]{});
+    }
+
+    /**
+     * Tests that matching every tenth suffix of the file against the {@link SuffixTree} built from it, with the
+     * {@link SuffixTree.Matcher} of {@link SuffixTreeImpl} and of every {@link Backend}, does not allocate.
+     */
+    @Test(dataProvider = "suffix-trees")
+    public void testMatchNextDoesNotAllocate(final List<Text> file, final SuffixTree<Text> suffixTree) {
+        final SuffixTree.Matcher<Text> matcher = suffixTree.matcher();
+
+        final Runnable matchAllSuffixes = new Runnable() {
+            @Override
+            public void run() {
+                for (int suffixIndex = 0; suffixIndex < file.size(); suffixIndex += 10) {
+                    matcher.reset();
+                    for (int i = suffixIndex; i < file.size() && matcher.matchNext(file.get(i)).isMatched(); ) {
+                        i++;
+                    }
+                }
+            }
+        };
+
+        assertThat(allocatedBytes(matchAllSuffixes), is(0L));
+    }
 }
@@ -0,0 +1,158 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Lists;
+import diffr.suffixtree.SuffixTree.Matched;
+import diffr.suffixtree.SuffixTree.Matcher;
+import diffr.util.RandomFiles;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateRanges;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link AppendableSuffixTree}.
+ *
+ * @since 1.0
+ */
+public class AppendableSuffixTreeTest {
+
+    @Test
+    public void testNewAppendableSuffixTree() {
+        final AppendableSuffixTree<Character> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+        assertThat(suffixTree.size(), is(0));
+        assertThat(suffixTree.matcher().matchNext('a'), is(Matched.NO));
+        assertThat(suffixTree.matchingStatistics(Lists.newArrayList('a')).length(0), is(0));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testAppendNullElement() {
+        AppendableSuffixTree.<Character>newAppendableSuffixTree().append(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testAppendAllNullElements() {
+        AppendableSuffixTree.<Character>newAppendableSuffixTree().appendAll(null);
+    }
+
+    @Test
+    public void testAppendAllNullElement() {
+        final AppendableSuffixTree<Character> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+        try {
+            suffixTree.appendAll(Arrays.asList('a', null));
+            throw new AssertionError();
+        }
+        catch (final NullPointerException e) {
+            assertThat(suffixTree.size(), is(0));
+        }
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testAppendStrings(final String testString) {
+        final AppendableSuffixTree<Character> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+        for (final Character c : Lists.charactersOf(testString)) {
+            suffixTree.append(c);
+        }
+        assertThat(suffixTree.size(), is(testString.length()));
+        validateSuffixTree(suffixTree, Lists.charactersOf(testString));
+        validateRanges(suffixTree, testString);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatcherSnapshotStrings(final String testString) {
+
+        for (int size = 0; size < testString.length(); size += 1 + size / 4) {
+
+            final String snapshot = testString.substring(0, size);
+            final AppendableSuffixTree<Character> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+            suffixTree.appendAll(Lists.charactersOf(snapshot));
+
+            // One matcher for every suffix of the snapshot, all created before the rest of the string is appended.
+            final List<Matcher<Character>> matchers = Lists.newArrayList();
+            for (int suffixIndex = 0; suffixIndex <= size; suffixIndex++) {
+                matchers.add(suffixTree.matcher());
+            }
+            suffixTree.appendAll(Lists.charactersOf(testString.substring(size)));
+
+            final char next = testString.charAt(size);
+            for (int suffixIndex = 0; suffixIndex <= size; suffixIndex++) {
+                final Matcher<Character> matcher = matchers.get(suffixIndex);
+                for (int i = suffixIndex; i < size; i++) {
+                    assertThat(matcher.matchNext(testString.charAt(i)), is(Matched.YES));
+                }
+                assertThat(matcher.matchNext(next).isMatched(),
+                           is(snapshot.contains(snapshot.substring(suffixIndex) + next)));
+            }
+        }
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final AppendableSuffixTree<Text> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+        final List<Text> query = getQuery(testFile);
+        for (int size = 0; size < testFile.size(); size += 100) {
+            suffixTree.appendAll(testFile.subList(size, Math.min(testFile.size(), size + 100)));
+            final List<Text> appended = testFile.subList(0, suffixTree.size());
+            validateMatchingStatistics(suffixTree.matchingStatistics(query), appended, query);
+        }
+    }
+
+    @Test
+    public void testAppendConcurrently() throws Exception {
+
+        final List<Text> testFile = RandomFiles.getRandomFile(2000, 1341376661708488015L);
+        final AppendableSuffixTree<Text> suffixTree = AppendableSuffixTree.newAppendableSuffixTree();
+        final int readers = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            final List<Future<Integer>> futures = Lists.newArrayList();
+            for (int reader = 0; reader < readers; reader++) {
+                final int seed = reader;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        // Whatever was appended before a read must be found by it.
+                        int reads = 0;
+                        for (int size = suffixTree.size(); size < testFile.size(); size = suffixTree.size()) {
+                            final int suffixIndex = size * seed / readers;
+                            final Matcher<Text> matcher = suffixTree.matcher();
+                            for (int i = suffixIndex; i < size; i++) {
+                                assertThat(matcher.matchNext(testFile.get(i)), is(Matched.YES));
+                            }
+                            if (size > 0) {
+                                assertThat(suffixTree.matchingStatistics(testFile.subList(0, size)).length(0),
+                                           is(size));
+                            }
+                            reads++;
+                        }
+                        return reads;
+                    }
+                }));
+            }
+            for (final Text line : testFile) {
+                suffixTree.append(line);
+            }
+            for (final Future<Integer> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        validateSuffixTree(suffixTree, testFile);
+    }
+}
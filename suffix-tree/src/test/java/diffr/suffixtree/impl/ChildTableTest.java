@@ -0,0 +1,57 @@
+package diffr.suffixtree.impl;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link ChildTable}.
+ *
+ * @since 1.0
+ */
+public class ChildTableTest {
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorNegativeExpectedSize() {
+        new ChildTable(-1);
+    }
+
+    @Test
+    public void testGetEmpty() {
+        assertThat(new ChildTable(0).get(0, 0), is(ChildTable.NO_CHILD));
+    }
+
+    @Test
+    public void testPutReplaces() {
+        final ChildTable childTable = new ChildTable(0);
+        childTable.put(1, 2, 3);
+        childTable.put(1, 2, ~4);
+        assertThat(childTable.get(1, 2), is(~4));
+        assertThat(childTable.get(2, 1), is(ChildTable.NO_CHILD));
+        assertThat(childTable.size(), is(1));
+    }
+
+    @Test
+    public void testPutGrowsAndTrims() {
+        final ChildTable childTable = new ChildTable(0);
+        final Random random = new Random(1341376661705837014L);
+        final int[] parents = new int[10000];
+        final int[] symbols = new int[parents.length];
+
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i / 7;
+            symbols[i] = random.nextInt(Integer.MAX_VALUE);
+            childTable.put(parents[i], symbols[i], i % 2 == 0 ? i : ~i);
+        }
+
+        childTable.trim();
+
+        assertThat(childTable.size(), is(parents.length));
+        for (int i = 0; i < parents.length; i++) {
+            assertThat(childTable.get(parents[i], symbols[i]), is(i % 2 == 0 ? i : ~i));
+        }
+    }
+}
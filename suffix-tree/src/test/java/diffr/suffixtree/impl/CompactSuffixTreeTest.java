@@ -0,0 +1,163 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import diffr.suffixtree.MatchingStatistics;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests {@link CompactSuffixTree}.
+ *
+ * @since 1.0
+ */
+public class CompactSuffixTreeTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixTreeNullSymbols() {
+        CompactSuffixTree.newSuffixTree(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNewSuffixTreeNegativeSymbol() {
+        CompactSuffixTree.newSuffixTree(new int[]{1, -1, 3});
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewSuffixTreeStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        validateSuffixTree(CompactSuffixTree.newSuffixTree(symbols), symbols);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatchingStatisticsStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final int[] query = symbols(getQuery(testString));
+        validateMatchingStatistics(CompactSuffixTree.newSuffixTree(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsNegativeSymbol() {
+        final MatchingStatistics statistics = CompactSuffixTree.newSuffixTree(symbols("mississippi"))
+                                                               .matchingStatistics(new int[]{'s', 's', -1, 'p'});
+        assertThat(statistics.length(0), is(2));
+        assertThat(statistics.length(1), is(1));
+        assertThat(statistics.length(2), is(0));
+        assertThat(statistics.length(3), is(1));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullSymbols() {
+        CompactSuffixTree.newSuffixTree(symbols("mississippi")).matchingStatistics(null);
+    }
+
+    @Test
+    public void testNewSuffixTreeCopiesSymbols() {
+        final int[] symbols = symbols("bananas");
+        final CompactSuffixTree suffixTree = CompactSuffixTree.newSuffixTree(symbols);
+        symbols[0] = 'x';
+        validateSuffixTree(suffixTree, symbols("bananas"));
+    }
+
+    @Test
+    public void testNewSuffixTreeEmpty() {
+        final CompactSuffixTree suffixTree = CompactSuffixTree.newSuffixTree(new int[0]);
+        assertThat(suffixTree.size(), is(0));
+        assertThat(suffixTree.matcher().matchNext(1).isMatched(), is(false));
+    }
+
+    @Test
+    public void testSuffixLinks() {
+        final String testString = "mississippi";
+        final CompactSuffixTree suffixTree = CompactSuffixTree.newSuffixTree(symbols(testString));
+
+        // Every internal node, apart from the root, links to the node that represents its path without the
+        // first element.
+        for (int node = 1; node < suffixTree.nodes(); node++) {
+            final String path = path(suffixTree, testString, node);
+            final int link = suffixTree.suffixLink(node);
+            final String linkPath = CompactSuffixTree.ROOT == link ? "" : path(suffixTree, testString, link);
+            assertThat(linkPath, is(path.substring(1)));
+        }
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testBytesPerElement(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        assertThat(CompactSuffixTree.newSuffixTree(symbols).bytesPerElement(), is(lessThan(64d)));
+    }
+
+    /**
+     * Gets the characters of {@code testString} as symbols.
+     *
+     * @param testString string to get the symbols of.
+     *
+     * @return characters of {@code testString}.
+     */
+    static int[] symbols(final String testString) {
+        final int[] symbols = new int[testString.length()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = testString.charAt(i);
+        }
+        return symbols;
+    }
+
+    /**
+     * Gets the path from the root to this internal {@code node}.
+     *
+     * @param suffixTree {@link CompactSuffixTree} built for {@code testString}.
+     * @param testString string that {@code suffixTree} was built for.
+     * @param node       internal node.
+     *
+     * @return path from the root to {@code node}.
+     */
+    private static String path(final CompactSuffixTree suffixTree, final String testString,
+                               final int node) {
+        // The path of a node is unique, so it is the longest string that ends with the edge of the node and whose
+        // first occurrence ends at the end of the edge.
+        final int end = suffixTree.edgeEnd(node);
+        for (int start = 0; start < suffixTree.edgeStart(node); start++) {
+            final String candidate = testString.substring(start, end);
+            if (testString.indexOf(candidate) == start && isPath(suffixTree, candidate, node)) {
+                return candidate;
+            }
+        }
+        return testString.substring(suffixTree.edgeStart(node), end);
+    }
+
+    /**
+     * Checks if matching {@code path} from the root ends at the end of the edge to this {@code node}.
+     *
+     * @param suffixTree {@link CompactSuffixTree} to match {@code path} in.
+     * @param path       path to match.
+     * @param node       internal node.
+     *
+     * @return {@code true} if {@code path} ends at {@code node}.
+     */
+    private static boolean isPath(final CompactSuffixTree suffixTree, final String path, final int node) {
+        int current = CompactSuffixTree.ROOT;
+        int i = 0;
+        while (i < path.length()) {
+            final int child = suffixTree.child(current, path.charAt(i));
+            if (ChildTable.NO_CHILD == child || CompactSuffixTree.isLeaf(child)) {
+                return false;
+            }
+            i += suffixTree.edgeEnd(child) - suffixTree.edgeStart(child);
+            current = child;
+        }
+        return i == path.length() && current == node;
+    }
+}
@@ -0,0 +1,178 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static diffr.suffixtree.impl.CompactSuffixTreeTest.symbols;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.runs;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateRunMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests {@link FmIndex}.
+ *
+ * @since 1.0
+ */
+public class FmIndexTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewFmIndexNullSymbols() {
+        FmIndex.newFmIndex(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNewFmIndexNegativeSymbol() {
+        FmIndex.newFmIndex(new int[]{1, -1, 3});
+    }
+
+    @Test
+    public void testNewFmIndexEmpty() {
+        final FmIndex fmIndex = FmIndex.newFmIndex(new int[0]);
+        assertThat(fmIndex.size(), is(0));
+        assertThat(fmIndex.matcher().matchNext(1).isMatched(), is(false));
+        assertThat(fmIndex.matchingStatistics(new int[]{1}).length(0), is(0));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewFmIndexStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final FmIndex fmIndex = FmIndex.newFmIndex(symbols);
+        assertThat(fmIndex.size(), is(symbols.length));
+        validateSuffixTree(fmIndex, symbols);
+    }
+
+    @Test
+    public void testLocate() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final int[] symbols = symbols(testString.toString());
+        final FmIndex fmIndex = FmIndex.newFmIndex(symbols);
+        final SuffixArray suffixArray = SuffixArray.newSuffixArray(symbols);
+        // Row 0 of the transforms is the empty suffix.
+        assertThat(fmIndex.locate(0), is(symbols.length));
+        for (int rank = 0; rank < suffixArray.size(); rank++) {
+            assertThat(fmIndex.locate(rank + 1), is(suffixArray.suffix(rank)));
+        }
+    }
+
+    @Test
+    public void testNewFmIndexSparseSymbols() {
+        final int[] symbols = {Integer.MAX_VALUE, 7, Integer.MAX_VALUE, 1000000, 7};
+        final FmIndex fmIndex = FmIndex.newFmIndex(symbols);
+        validateSuffixTree(fmIndex, symbols);
+
+        final MatchingStatistics statistics = fmIndex.matchingStatistics(new int[]{7, Integer.MAX_VALUE, 8, 1000000});
+        assertThat(statistics.length(0), is(2));
+        assertThat(statistics.start(0), is(1));
+        assertThat(statistics.length(1), is(1));
+        assertThat(statistics.length(2), is(0));
+        assertThat(statistics.length(3), is(1));
+        assertThat(statistics.start(3), is(3));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatchingStatisticsStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final int[] query = symbols(getQuery(testString));
+        validateMatchingStatistics(FmIndex.newFmIndex(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsRepetitive() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final int[] symbols = symbols(testString.toString());
+        final int[] query = symbols(getQuery(testString.toString()));
+        validateMatchingStatistics(FmIndex.newFmIndex(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsStartOfMatch() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final FmIndex fmIndex = FmIndex.newFmIndex(symbols(testString.toString()));
+        final int[] query = symbols(getQuery(testString.toString()));
+        final MatchingStatistics statistics = fmIndex.matchingStatistics(query);
+        // A match starts at the same occurrence whatever the symbols after it are.
+        for (int to = query.length - 1; to > 0; to -= 37) {
+            final MatchingStatistics prefix = fmIndex.matchingStatistics(Arrays.copyOf(query, to));
+            for (int i = 0; i < to; i++) {
+                if (0 != prefix.length(i) && i + prefix.length(i) < to) {
+                    assertThat(prefix.length(i), is(statistics.length(i)));
+                    assertThat(prefix.start(i), is(statistics.start(i)));
+                }
+            }
+        }
+    }
+
+    @Test(timeOut = 2000)
+    public void testMatchingStatisticsRuns() {
+        // No run can be prepended to a match as long as a run, so every match is contracted rather than matched
+        // again from the root.
+        final int[] symbols = runs(8000, 20);
+        validateRunMatchingStatistics(FmIndex.newFmIndex(symbols).matchingStatistics(new int[50000]),
+                                      symbols, 8000, 50000);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final List<Text> query = getQuery(testFile);
+        validateMatchingStatistics(SuffixTrees.newSuffixTree(testFile, Backend.FM_INDEX).matchingStatistics(query),
+                                   testFile, query);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testNewFmIndexExecutor(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final FmIndex fmIndex = FmIndex.newFmIndex(symbols, executor);
+            validateSuffixTree(fmIndex, symbols);
+            validateMatchingStatistics(fmIndex.matchingStatistics(symbols), Ints.asList(symbols),
+                                       Ints.asList(symbols));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullSymbols() {
+        FmIndex.newFmIndex(symbols("mississippi")).matchingStatistics(null);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testBytesPerElement(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        assertThat(FmIndex.newFmIndex(symbols).bytesPerElement(),
+                   lessThan(SuffixArray.newSuffixArray(symbols).bytesPerElement()));
+    }
+}
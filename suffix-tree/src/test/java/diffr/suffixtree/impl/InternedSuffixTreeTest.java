@@ -0,0 +1,113 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree.Matcher;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateRanges;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link InternedSuffixTree}.
+ *
+ * @since 1.0
+ */
+public class InternedSuffixTreeTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullSymbols() {
+        new InternedSuffixTree<Integer>(null, CompactSuffixTree.newSuffixTree(new int[0]));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullIntSuffixTree() {
+        new InternedSuffixTree<Integer>(Maps.<Integer, Integer>newHashMap(), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewCompactSuffixTreeNullElements() {
+        InternedSuffixTree.newCompactSuffixTree(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewCompactSuffixTreeNullElement() {
+        InternedSuffixTree.newCompactSuffixTree(Lists.newArrayList(1, null, 3));
+    }
+
+    @Test
+    public void testIntern() {
+        final Map<String, Integer> symbols = Maps.newHashMap();
+        final int[] text = InternedSuffixTree.intern(Lists.newArrayList("a", "b", "a", "c", "b"), symbols);
+        assertThat(text, is(new int[]{0, 1, 0, 2, 1}));
+        assertThat(symbols.size(), is(3));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewCompactSuffixTreeStrings(final String testString) {
+        final List<Character> elements = Lists.charactersOf(testString);
+        validateSuffixTree(InternedSuffixTree.newCompactSuffixTree(elements), elements);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewCompactSuffixTreeRanges(final String testString) {
+        validateRanges(InternedSuffixTree.newCompactSuffixTree(Lists.charactersOf(testString)), testString);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testNewCompactSuffixTreeFiles(final List<Text> testFile) {
+        validateSuffixTree(InternedSuffixTree.newCompactSuffixTree(testFile), testFile);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final List<Text> query = getQuery(testFile);
+        validateMatchingStatistics(InternedSuffixTree.newCompactSuffixTree(testFile).matchingStatistics(query),
+                                   testFile, query);
+    }
+
+    @Test
+    public void testMatchingStatisticsUnknownElement() {
+        final MatchingStatistics statistics = InternedSuffixTree.newCompactSuffixTree(Lists.newArrayList("a", "b"))
+                                                                .matchingStatistics(Lists.newArrayList("a", "c"));
+        assertThat(statistics.length(0), is(1));
+        assertThat(statistics.length(1), is(0));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullElement() {
+        InternedSuffixTree.newCompactSuffixTree(Lists.newArrayList("a", "b"))
+                          .matchingStatistics(Lists.newArrayList("a", null));
+    }
+
+    @Test
+    public void testSymbolOfUnknownElement() {
+        assertThat(InternedSuffixTree.newCompactSuffixTree(Lists.charactersOf("bla")).symbolOf('k'), is(-1));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchNextNullElement() {
+        InternedSuffixTree.newCompactSuffixTree(Lists.charactersOf("bla")).matcher().matchNext(null);
+    }
+
+    @Test
+    public void testMatchNextUnknownElement() {
+        final Matcher<Character> matcher = InternedSuffixTree.newCompactSuffixTree(Lists.charactersOf("bla")).matcher();
+        assertThat(matcher.matchNext('k').isMatched(), is(false));
+        assertThat(matcher.isFinished(), is(true));
+        assertThat(matcher.isRoot(), is(true));
+    }
+}
@@ -0,0 +1,57 @@
+package diffr.suffixtree.impl;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.runs;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link LcpIntervals}.
+ *
+ * @since 1.0
+ */
+public class LcpIntervalsTest {
+
+    @Test
+    public void testIntervals() {
+        final Random random = new Random(1341376661708488015L);
+        // Sizes around the blocks, random symbols and long runs whose intervals span many blocks.
+        for (final int size : new int[]{1, LcpIntervals.BLOCK_SIZE - 1, LcpIntervals.BLOCK_SIZE,
+                                        LcpIntervals.BLOCK_SIZE + 1, 1000}) {
+            final int[] symbols = new int[size];
+            for (int i = 0; i < size; i++) {
+                symbols[i] = random.nextInt(3);
+            }
+            validateIntervals(SuffixArray.newSuffixArray(symbols));
+        }
+        validateIntervals(SuffixArray.newSuffixArray(runs(300, 5)));
+    }
+
+    /**
+     * Validates the {@link LcpIntervals} of every rank and length of this {@code suffixArray} against scanning the
+     * LCP array.
+     *
+     * @param suffixArray {@link SuffixArray} to validate.
+     */
+    private static void validateIntervals(final SuffixArray suffixArray) {
+        final LcpIntervals intervals = new LcpIntervals(suffixArray.lcps());
+        final int size = suffixArray.size();
+        for (int rank = 0; rank < size; rank++) {
+            for (int length = 1; length <= size - suffixArray.suffix(rank); length += 1 + length / 8) {
+                int from = rank;
+                while (from > 0 && suffixArray.lcp(from) >= length) {
+                    from--;
+                }
+                int to = rank + 1;
+                while (to < size && suffixArray.lcp(to) >= length) {
+                    to++;
+                }
+                assertThat(intervals.from(rank, length), is(from));
+                assertThat(intervals.to(rank, length), is(to));
+            }
+        }
+    }
+}
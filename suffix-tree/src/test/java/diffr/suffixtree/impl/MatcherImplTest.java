@@ -2,12 +2,14 @@ package diffr.suffixtree.impl;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
 import diffr.suffixtree.SuffixTree;
 import diffr.suffixtree.SuffixTree.Matched;
 import diffr.suffixtree.SuffixTree.Matcher;
 import diffr.suffixtree.SuffixTrees;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.ListIterator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -129,4 +131,19 @@ public class MatcherImplTest {
             }
         }
     }
+
+    @Test
+    public void testReset() {
+        final Matcher<Character> matcher = SuffixTrees.newSuffixTree(Lists.charactersOf("mississippi")).matcher();
+        matcher.matchNext('s');
+        matcher.matchNext('k');
+        matcher.reset();
+
+        assertThat(matcher.isFinished(), is(false));
+        assertThat(matcher.isRoot(), is(true));
+        for (Character c : Lists.charactersOf("ppi")) {
+            assertThat(matcher.matchNext(c), is(Matched.YES));
+        }
+        assertThat(matcher.range(), is(Ranges.closed(8, 10)));
+    }
 }
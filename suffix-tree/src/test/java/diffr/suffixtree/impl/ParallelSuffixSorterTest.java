@@ -0,0 +1,110 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import javolution.text.Text;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static diffr.suffixtree.impl.CompactSuffixTreeTest.symbols;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link ParallelSuffixSorter}.
+ *
+ * @since 1.0
+ */
+public class ParallelSuffixSorterTest {
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testSortSuffixesNullSymbols() {
+        ParallelSuffixSorter.sortSuffixes(null, executor, 1);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testSortSuffixesNullExecutor() {
+        ParallelSuffixSorter.sortSuffixes(new int[]{1, 0}, null, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSortSuffixesNoTasks() {
+        ParallelSuffixSorter.sortSuffixes(new int[]{1, 0}, executor, 0);
+    }
+
+    @Test
+    public void testSortSuffixesSingleSymbol() {
+        assertThat(ParallelSuffixSorter.sortSuffixes(new int[]{0}, executor, 3), is(new int[]{0}));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testSortSuffixesStrings(final String testString) {
+        validateSortSuffixes(sentinel(symbols(testString)), Character.MAX_VALUE + 1);
+    }
+
+    @Test
+    public void testSortSuffixesRepetitive() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        validateSortSuffixes(sentinel(symbols(testString.toString())), Character.MAX_VALUE + 1);
+        // A single symbol makes a single group that every task sorts a run of, in every round.
+        validateSortSuffixes(sentinel(symbols(testString.toString().replace('b', 'a').replace('c', 'a'))),
+                             Character.MAX_VALUE + 1);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testSortSuffixesFiles(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i]++;
+        }
+        validateSortSuffixes(sentinel(symbols), symbols.length + 2);
+    }
+
+    /**
+     * Validates that sorting the suffixes of {@code s} with any number of tasks gives the same suffix array as
+     * sorting them by induced sorting.
+     *
+     * @param s symbols in {@code [0, k)}, the last of which is a unique sentinel {@code 0}.
+     * @param k size of the alphabet.
+     */
+    private void validateSortSuffixes(final int[] s, final int k) {
+        final int[] expected = SuffixArray.sortSuffixes(s, k);
+        for (final int tasks : new int[]{1, 2, 3, 8, 64}) {
+            assertThat(ParallelSuffixSorter.sortSuffixes(s, executor, tasks), is(expected));
+        }
+    }
+
+    /**
+     * Appends the sentinel {@code 0} to these {@code symbols}, none of which may be {@code 0}.
+     *
+     * @param symbols symbols to append the sentinel to.
+     *
+     * @return {@code symbols} followed by the sentinel.
+     */
+    private static int[] sentinel(final int[] symbols) {
+        final int[] s = new int[symbols.length + 1];
+        System.arraycopy(symbols, 0, s, 0, symbols.length);
+        return s;
+    }
+}
@@ -0,0 +1,131 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.SuffixTree.Matched;
+import org.testng.annotations.Test;
+
+import static diffr.suffixtree.impl.CompactSuffixTreeTest.symbols;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link SuffixArrayMatcher}.
+ *
+ * @since 1.0
+ */
+public class SuffixArrayMatcherTest {
+
+    private final IntSuffixTree suffixTree = SuffixArray.newSuffixArray(symbols("mississippi"));
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullSuffixTree() {
+        new SuffixArrayMatcher(null);
+    }
+
+    @Test
+    public void testMatchNextElementMatches() {
+        final IntMatcher matcher = suffixTree.matcher();
+
+        for (final int symbol : symbols("issippi")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+
+        assertThat(matcher.isFinished(), is(false));
+        assertThat(matcher.lastIndex(), is(10));
+    }
+
+    @Test
+    public void testMatchNextElementDoesNotMatch() {
+        final IntMatcher matcher = suffixTree.matcher();
+
+        for (final int symbol : symbols("issipp")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+
+        assertThat(matcher.matchNext('p'), is(Matched.NO));
+        assertThat(matcher.isFinished(), is(true));
+    }
+
+    @Test
+    public void testGetRangeSmallestSuffix() {
+        final IntMatcher matcher = suffixTree.matcher();
+
+        for (final int symbol : symbols("iss")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+
+        // "issippi" is smaller than "ississippi"
+        assertThat(matcher.range(), is(Ranges.closed(4, 6)));
+    }
+
+    @Test
+    public void testMatchNextPastEndOfLeaf() {
+        final IntMatcher matcher = suffixTree.matcher();
+
+        for (final int symbol : symbols("ppi")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+
+        assertThat(matcher.matchNext('i'), is(Matched.NO));
+    }
+
+    @Test
+    public void testMatchNextNegativeSymbol() {
+        final IntMatcher matcher = suffixTree.matcher();
+        assertThat(matcher.matchNext(-1), is(Matched.NO));
+        assertThat(matcher.isRoot(), is(true));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMatchNextElementMatcherFinished() {
+        final IntMatcher matcher = suffixTree.matcher();
+        matcher.matchNext('k');
+        matcher.matchNext('i');
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testLastIndexNotStarted() {
+        suffixTree.matcher().lastIndex();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testGetRangeNotStarted() {
+        suffixTree.matcher().range();
+    }
+
+    @Test
+    public void testGetRange() {
+        final IntMatcher matcher = suffixTree.matcher();
+
+        for (final int symbol : symbols("ssi")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+
+        assertThat(matcher.range().lowerEndpoint(), is(5));
+        assertThat(matcher.range().upperEndpoint(), is(7));
+    }
+
+    @Test
+    public void testIsRootMatcherNotAtRoot() {
+        final IntMatcher matcher = suffixTree.matcher();
+        matcher.matchNext('i');
+        assertThat(matcher.isRoot(), is(false));
+    }
+
+    @Test
+    public void testReset() {
+        final IntMatcher matcher = suffixTree.matcher();
+        matcher.matchNext('s');
+        matcher.matchNext('k');
+        matcher.reset();
+
+        assertThat(matcher.isFinished(), is(false));
+        assertThat(matcher.isRoot(), is(true));
+        for (final int symbol : symbols("ppi")) {
+            assertThat(matcher.matchNext(symbol), is(Matched.YES));
+        }
+        assertThat(matcher.range(), is(Ranges.closed(8, 10)));
+    }
+}
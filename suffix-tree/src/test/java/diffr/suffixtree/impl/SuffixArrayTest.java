@@ -0,0 +1,176 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static diffr.suffixtree.impl.CompactSuffixTreeTest.symbols;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.runs;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateRunMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Tests {@link SuffixArray}.
+ *
+ * @since 1.0
+ */
+public class SuffixArrayTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixArrayNullSymbols() {
+        SuffixArray.newSuffixArray(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNewSuffixArrayNegativeSymbol() {
+        SuffixArray.newSuffixArray(new int[]{1, -1, 3});
+    }
+
+    @Test
+    public void testNewSuffixArrayEmpty() {
+        final SuffixArray suffixArray = SuffixArray.newSuffixArray(new int[0]);
+        assertThat(suffixArray.size(), is(0));
+        assertThat(suffixArray.matcher().matchNext(1).isMatched(), is(false));
+        assertThat(suffixArray.matchingStatistics(new int[]{1}).length(0), is(0));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewSuffixArrayStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final SuffixArray suffixArray = SuffixArray.newSuffixArray(symbols);
+        validateSuffixArray(suffixArray, testString);
+        validateSuffixTree(suffixArray, symbols);
+    }
+
+    @Test
+    public void testNewSuffixArrayRepetitive() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        validateSuffixArray(SuffixArray.newSuffixArray(symbols(testString.toString())), testString.toString());
+    }
+
+    @Test
+    public void testNewSuffixArraySparseSymbols() {
+        final SuffixArray suffixArray = SuffixArray.newSuffixArray(new int[]{Integer.MAX_VALUE, 7, Integer.MAX_VALUE,
+                                                                             1000000, 7});
+        assertThat(suffixArray.suffix(0), is(4));
+        assertThat(suffixArray.suffix(1), is(1));
+        assertThat(suffixArray.suffix(2), is(3));
+        assertThat(suffixArray.suffix(3), is(0));
+        assertThat(suffixArray.suffix(4), is(2));
+        assertThat(suffixArray.lcp(1), is(1));
+        assertThat(suffixArray.lcp(2), is(0));
+        assertThat(suffixArray.lcp(4), is(1));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatchingStatisticsStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final int[] query = symbols(getQuery(testString));
+        validateMatchingStatistics(SuffixArray.newSuffixArray(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsRepetitive() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final int[] symbols = symbols(testString.toString());
+        final int[] query = symbols(getQuery(testString.toString()));
+        validateMatchingStatistics(SuffixArray.newSuffixArray(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test(timeOut = 2000)
+    public void testMatchingStatisticsRuns() {
+        // Every match is as long as a run and shares its interval with every other run, so widening the interval
+        // must not take time in the length of the match.
+        final int[] symbols = runs(8000, 20);
+        validateRunMatchingStatistics(SuffixArray.newSuffixArray(symbols).matchingStatistics(new int[50000]),
+                                      symbols, 8000, 50000);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final List<Text> query = getQuery(testFile);
+        validateMatchingStatistics(SuffixTrees.newSuffixTree(testFile, Backend.SUFFIX_ARRAY).matchingStatistics(query),
+                                   testFile, query);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testNewSuffixArrayExecutor(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        final SuffixArray expected = SuffixArray.newSuffixArray(symbols);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final SuffixArray suffixArray = SuffixArray.newSuffixArray(symbols, executor);
+            for (int rank = 0; rank < symbols.length; rank++) {
+                assertThat(suffixArray.suffix(rank), is(expected.suffix(rank)));
+                assertThat(suffixArray.lcp(rank), is(expected.lcp(rank)));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixArrayNullExecutor() {
+        SuffixArray.newSuffixArray(symbols("mississippi"), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullSymbols() {
+        SuffixArray.newSuffixArray(symbols("mississippi")).matchingStatistics(null);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testBytesPerElement(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        final SuffixArray suffixArray = SuffixArray.newSuffixArray(symbols);
+        assertThat(suffixArray.bytesPerElement(), is(16.0));
+        assertThat(suffixArray.bytesPerElement(), lessThan(CompactSuffixTree.newSuffixTree(symbols).bytesPerElement()));
+    }
+
+    /**
+     * Validates that the suffixes of this {@code suffixArray} are sorted and that its LCP array is correct.
+     *
+     * @param suffixArray {@link SuffixArray} built for {@code testString}.
+     * @param testString  string that {@code suffixArray} was built for.
+     */
+    private static void validateSuffixArray(final SuffixArray suffixArray, final String testString) {
+        assertThat(suffixArray.size(), is(testString.length()));
+        for (int rank = 1; rank < suffixArray.size(); rank++) {
+            final String previous = testString.substring(suffixArray.suffix(rank - 1));
+            final String current = testString.substring(suffixArray.suffix(rank));
+            assertThat(previous.compareTo(current), lessThan(0));
+
+            int lcp = 0;
+            while (lcp < previous.length() && lcp < current.length() && previous.charAt(lcp) == current.charAt(lcp)) {
+                lcp++;
+            }
+            assertThat(suffixArray.lcp(rank), is(lcp));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static diffr.suffixtree.impl.CompactSuffixTreeTest.symbols;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateRanges;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Tests {@link SuffixAutomaton}.
+ *
+ * @since 1.0
+ */
+public class SuffixAutomatonTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewSuffixAutomatonNullSymbols() {
+        SuffixAutomaton.newSuffixAutomaton(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNewSuffixAutomatonNegativeSymbol() {
+        SuffixAutomaton.newSuffixAutomaton(new int[]{1, -1, 3});
+    }
+
+    @Test
+    public void testNewSuffixAutomatonEmpty() {
+        final SuffixAutomaton suffixAutomaton = SuffixAutomaton.newSuffixAutomaton(new int[0]);
+        assertThat(suffixAutomaton.size(), is(0));
+        assertThat(suffixAutomaton.states(), is(1));
+        assertThat(suffixAutomaton.matcher().matchNext(1).isMatched(), is(false));
+        assertThat(suffixAutomaton.matchingStatistics(new int[]{1}).length(0), is(0));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testNewSuffixAutomatonStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final SuffixAutomaton suffixAutomaton = SuffixAutomaton.newSuffixAutomaton(symbols);
+        assertThat(suffixAutomaton.size(), is(symbols.length));
+        assertThat(suffixAutomaton.states(), is(lessThanOrEqualTo(Math.max(1, 2 * symbols.length - 1))));
+        validateSuffixTree(suffixAutomaton, symbols);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testRangesStrings(final String testString) {
+        validateRanges(SuffixTrees.newSuffixTree(Lists.charactersOf(testString), Backend.SUFFIX_AUTOMATON),
+                       testString);
+    }
+
+    @Test
+    public void testSuffixLinks() {
+        final String testString = "mississippi";
+        final SuffixAutomaton suffixAutomaton = SuffixAutomaton.newSuffixAutomaton(symbols(testString));
+
+        // Every state, apart from the root, links to the state of a shorter suffix of its longest substring, and
+        // the longest substring of every state first occurs at the end of the state.
+        for (int state = 1; state < suffixAutomaton.states(); state++) {
+            final String longest = longest(suffixAutomaton, testString, state);
+            assertThat(testString.indexOf(longest) + longest.length() - 1, is(suffixAutomaton.end(state)));
+
+            final int link = suffixAutomaton.link(state);
+            final String linkLongest = SuffixAutomaton.ROOT == link ? "" : longest(suffixAutomaton, testString, link);
+            assertThat(linkLongest.length(), is(lessThan(longest.length())));
+            assertThat(longest.endsWith(linkLongest), is(true));
+        }
+    }
+
+    @Test
+    public void testMatchingStatisticsNegativeSymbol() {
+        final MatchingStatistics statistics = SuffixAutomaton.newSuffixAutomaton(symbols("mississippi"))
+                                                             .matchingStatistics(new int[]{'s', 's', -1, 'p'});
+        assertThat(statistics.length(0), is(2));
+        assertThat(statistics.start(0), is(2));
+        assertThat(statistics.length(1), is(1));
+        assertThat(statistics.length(2), is(0));
+        assertThat(statistics.length(3), is(1));
+        assertThat(statistics.start(3), is(8));
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatchingStatisticsStrings(final String testString) {
+        final int[] symbols = symbols(testString);
+        final int[] query = symbols(getQuery(testString));
+        validateMatchingStatistics(SuffixAutomaton.newSuffixAutomaton(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsRepetitive() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final int[] symbols = symbols(testString.toString());
+        final int[] query = symbols(getQuery(testString.toString()));
+        validateMatchingStatistics(SuffixAutomaton.newSuffixAutomaton(symbols).matchingStatistics(query),
+                                   Ints.asList(symbols), Ints.asList(query));
+    }
+
+    @Test
+    public void testMatchingStatisticsStartOfMatch() {
+        final StringBuilder testString = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            testString.append(0 == i % 7 ? "abc" : "ab");
+        }
+        final SuffixAutomaton suffixAutomaton = SuffixAutomaton.newSuffixAutomaton(symbols(testString.toString()));
+        final int[] query = symbols(getQuery(testString.toString()));
+        final MatchingStatistics statistics = suffixAutomaton.matchingStatistics(query);
+        // A match starts where it first occurs, whatever the symbols before it are.
+        for (int from = 1; from < query.length; from += 37) {
+            final MatchingStatistics suffix = suffixAutomaton.matchingStatistics(
+                    Arrays.copyOfRange(query, from, query.length));
+            for (int i = from; i < query.length; i++) {
+                assertThat(suffix.length(i - from), is(statistics.length(i)));
+                if (0 != statistics.length(i)) {
+                    assertThat(suffix.start(i - from), is(statistics.start(i)));
+                }
+            }
+        }
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final List<Text> query = getQuery(testFile);
+        validateMatchingStatistics(SuffixTrees.newSuffixTree(testFile, Backend.SUFFIX_AUTOMATON)
+                                              .matchingStatistics(query), testFile, query);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullSymbols() {
+        SuffixAutomaton.newSuffixAutomaton(symbols("mississippi")).matchingStatistics(null);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testBytesPerElement(final List<Text> testFile) {
+        final int[] symbols = InternedSuffixTree.intern(testFile, Maps.<Text, Integer>newHashMap());
+        assertThat(SuffixAutomaton.newSuffixAutomaton(symbols).bytesPerElement(), is(lessThan(96d)));
+    }
+
+    /**
+     * Gets the longest substring of this {@code state}.
+     *
+     * @param suffixAutomaton {@link SuffixAutomaton} built for {@code testString}.
+     * @param testString      string that {@code suffixAutomaton} was built for.
+     * @param state           state other than the root.
+     *
+     * @return longest substring of {@code state}.
+     */
+    private static String longest(final SuffixAutomaton suffixAutomaton, final String testString, final int state) {
+        final int end = suffixAutomaton.end(state) + 1;
+        return testString.substring(end - suffixAutomaton.length(state), end);
+    }
+}
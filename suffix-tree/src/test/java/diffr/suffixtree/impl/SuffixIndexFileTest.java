@@ -0,0 +1,271 @@
+package diffr.suffixtree.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree;
+import diffr.suffixtree.SuffixTrees;
+import diffr.suffixtree.SuffixTrees.Backend;
+import diffr.util.token.SymbolTable;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests {@link SuffixIndexFile}.
+ *
+ * @since 1.0
+ */
+public class SuffixIndexFileTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new SuffixIndexFile();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testWriteNullLines() throws IOException {
+        SuffixIndexFile.write(null, newIndexFile());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testWriteNullFile() throws IOException {
+        SuffixIndexFile.write(Collections.<String>emptyList(), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testOpenNullFile() throws IOException {
+        SuffixIndexFile.open(null);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(Collections.<String>emptyList(), indexFile);
+        final InternedSuffixTree<String> index = SuffixIndexFile.open(indexFile);
+        assertThat(indexFile.length(), is((long) SuffixIndexFile.HEADER_SIZE + 4));
+        assertThat(index.matchingStatistics(Lists.newArrayList("a")).length(0), is(0));
+    }
+
+    @Test
+    public void testOpen() throws IOException {
+        final List<String> lines = Lists.newArrayList("a", "b", "", "a", "b", "c", "é€", "a");
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(lines, indexFile);
+        final InternedSuffixTree<String> index = SuffixIndexFile.open(indexFile);
+
+        final MatchingStatistics statistics = index.matchingStatistics(Lists.newArrayList("a", "b", "c", "d", "",
+                                                                                         "é€", "a", "b"));
+        assertThat(statistics.length(0), is(3));
+        assertThat(statistics.start(0), is(3));
+        assertThat(statistics.length(3), is(0));
+        assertThat(statistics.length(4), is(1));
+        assertThat(statistics.start(4), is(2));
+        assertThat(statistics.length(5), is(2));
+        assertThat(statistics.start(5), is(6));
+        assertThat(statistics.length(6), is(2));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testWriteNullExecutor() throws IOException {
+        SuffixIndexFile.write(Collections.<String>emptyList(), newIndexFile(), null);
+    }
+
+    @Test
+    public void testWriteParallel() throws IOException {
+        final Random random = new Random(5);
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < 50000; i++) {
+            lines.add("line " + random.nextInt(1000));
+        }
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(lines, indexFile);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final File parallelIndexFile = newIndexFile();
+            SuffixIndexFile.write(lines, parallelIndexFile, executor);
+            assertThat(Files.equal(parallelIndexFile, indexFile), is(true));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSymbolOf() throws IOException {
+        final List<String> lines = Lists.newArrayList("a", "bb", "", "a", "é€");
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(lines, indexFile);
+        final InternedSuffixTree<String> index = SuffixIndexFile.open(indexFile);
+
+        assertThat(index.symbolOf("a"), is(index.symbolOf(lines.get(3))));
+        assertThat(Sets.newHashSet(index.symbolOf("a"), index.symbolOf("bb"), index.symbolOf(""),
+                                   index.symbolOf("é€")).size(), is(4));
+        assertThat(index.symbolOf("b"), is(-1));
+        assertThat(index.symbolOf("bbb"), is(-1));
+    }
+
+    @Test
+    public void testElementTableCollision() {
+        // Both elements have the fingerprint of "ab", so only their characters tell them apart.
+        final long fingerprint = SymbolTable.fingerprint("ab");
+        final MappedElementTable elements = new MappedElementTable(LongBuffer.wrap(new long[]{fingerprint,
+                                                                                              fingerprint}),
+                                                                   IntBuffer.wrap(new int[]{0, 1}),
+                                                                   IntBuffer.wrap(new int[]{0, 2, 4}),
+                                                                   CharBuffer.wrap("baab"));
+        assertThat(elements.size(), is(2));
+        assertThat(elements.get("ab"), is(1));
+        assertThat(elements.get("ba"), is(nullValue()));
+        assertThat(elements.get(1), is(nullValue()));
+        assertThat(elements.containsKey("ab"), is(true));
+        assertThat(elements.element(0), is("ba"));
+        assertThat(elements.keySet(), is((Set<String>) Sets.newHashSet("ba", "ab")));
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        final Random random = new Random(11);
+        final List<String> lines = randomLines(random, 2000);
+        final List<String> query = randomLines(random, 2000);
+        for (int i = 0; i < 50; i++) {
+            final int start = random.nextInt(lines.size() - 20);
+            query.addAll(random.nextInt(query.size()), lines.subList(start, start + random.nextInt(20)));
+        }
+
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(lines, indexFile);
+        final SuffixTree<String> index = SuffixIndexFile.open(indexFile);
+        final SuffixTree<String> suffixArray = SuffixTrees.newSuffixTree(lines, Backend.SUFFIX_ARRAY);
+
+        final MatchingStatistics expected = suffixArray.matchingStatistics(query);
+        final MatchingStatistics actual = index.matchingStatistics(query);
+        for (int i = 0; i < query.size(); i++) {
+            assertThat(actual.length(i), is(expected.length(i)));
+            assertThat(actual.start(i), is(expected.start(i)));
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenNotIndex() throws IOException {
+        final File indexFile = newIndexFile();
+        Files.write(new byte[64], indexFile);
+        SuffixIndexFile.open(indexFile);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenTooShort() throws IOException {
+        final File indexFile = newIndexFile();
+        Files.write(new byte[]{'D', 'I', 'F', 'F'}, indexFile);
+        SuffixIndexFile.open(indexFile);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenOtherVersion() throws IOException {
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(Lists.newArrayList("a", "b"), indexFile);
+        final RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+        try {
+            file.seek(8);
+            file.writeInt(SuffixIndexFile.VERSION + 1);
+        }
+        finally {
+            file.close();
+        }
+        SuffixIndexFile.open(indexFile);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenTruncated() throws IOException {
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(Lists.newArrayList("a", "b"), indexFile);
+        final RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+        try {
+            file.setLength(file.length() - 1);
+        }
+        finally {
+            file.close();
+        }
+        SuffixIndexFile.open(indexFile);
+    }
+
+    @Test
+    public void testFits() {
+        assertThat(SuffixIndexFile.fits(0, 0, 0), is(true));
+        assertThat(SuffixIndexFile.fits(Integer.MAX_VALUE / 4, Integer.MAX_VALUE / 8, Integer.MAX_VALUE / 2), is(true));
+        assertThat(SuffixIndexFile.fits(Integer.MAX_VALUE / 4 + 1, 0, 0), is(false));
+        assertThat(SuffixIndexFile.fits(0, Integer.MAX_VALUE / 8 + 1, 0), is(false));
+        assertThat(SuffixIndexFile.fits(0, 0, Integer.MAX_VALUE / 2 + 1), is(false));
+        // More characters than fit in an int.
+        assertThat(SuffixIndexFile.fits(0, 0, Integer.MAX_VALUE), is(false));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenSectionTooLarge() throws IOException {
+        final File indexFile = newIndexFile();
+        SuffixIndexFile.write(Collections.<String>emptyList(), indexFile);
+        final long charCount = Integer.MAX_VALUE / 2 + 1;
+        final RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+        try {
+            // A header that describes a section of characters larger than 2GB, in a sparse file of that size.
+            file.seek(SuffixIndexFile.HEADER_SIZE - 8);
+            file.writeLong(charCount);
+            file.setLength(file.length() + 2L * charCount);
+        }
+        finally {
+            file.close();
+        }
+        try {
+            SuffixIndexFile.open(indexFile);
+        }
+        finally {
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Gets random lines over a small alphabet, so that they repeat.
+     *
+     * @param random {@link Random} to use.
+     * @param size   number of lines.
+     *
+     * @return random lines.
+     */
+    private static List<String> randomLines(final Random random, final int size) {
+        final List<String> lines = Lists.newArrayList();
+        for (int i = 0; i < size; i++) {
+            lines.add("line " + random.nextInt(100));
+        }
+        return lines;
+    }
+
+    /**
+     * Creates a temporary file for an index that is deleted on exit.
+     *
+     * @return new temporary file.
+     *
+     * @throws IOException if the file cannot be created.
+     */
+    private static File newIndexFile() throws IOException {
+        final File file = File.createTempFile("diffr", ".idx");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -23,7 +23,7 @@ public class SuffixTreeImplPerfTest {
 
     @Test
     public void testPerformance() {
-        Runner.main(SuffixTreeImplBenchmark.class, new String[]{"--trials", "2", "-DfileLength=100,1000,10000"});
+        Runner.main(SuffixTreeImplBenchmark.class, new String[]{"--trials", "2", "-DfileLength=100,1000,10000,100000"});
     }
 
     /**
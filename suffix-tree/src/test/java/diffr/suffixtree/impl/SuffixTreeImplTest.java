@@ -1,12 +1,28 @@
 package diffr.suffixtree.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import com.google.common.collect.Ranges;
+import diffr.suffixtree.MatchingStatistics;
+import diffr.suffixtree.SuffixTree.Matched;
+import diffr.util.RandomFiles;
 import javolution.text.Text;
+import javolution.util.FastCollection.Record;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.getQuery;
+import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateMatchingStatistics;
 import static diffr.suffixtree.impl.SuffixTreeImplTestUtils.validateSuffixTree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * Tests {@link SuffixTreeImpl}.
@@ -29,15 +45,178 @@ public class SuffixTreeImplTest {
         validateSuffixTree(SuffixTreeImpl.newSuffixTree(testFile));
     }
 
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.STRING_DATA_PROVIDER)
+    public void testMatchingStatisticsStrings(final String testString) {
+        final List<Character> elements = Lists.charactersOf(testString);
+        final List<Character> query = Lists.charactersOf(getQuery(testString));
+        validateMatchingStatistics(SuffixTreeImpl.newSuffixTree(elements).matchingStatistics(query), elements, query);
+    }
+
+    @Test(dataProviderClass = SuffixTreeImplTestUtils.class,
+          dataProvider = SuffixTreeImplTestUtils.FILE_DATA_PROVIDER)
+    public void testMatchingStatisticsFiles(final List<Text> testFile) {
+        final List<Text> query = getQuery(testFile);
+        validateMatchingStatistics(SuffixTreeImpl.newSuffixTree(testFile).matchingStatistics(query), testFile, query);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testMatchingStatisticsNullElements() {
+        SuffixTreeImpl.newSuffixTree(Lists.charactersOf("mississippi")).matchingStatistics(null);
+    }
+
+    @Test
+    public void testNewSuffixTreeSuffixLinks() {
+        final SuffixTreeImpl<Character> suffixTree = SuffixTreeImpl.newSuffixTree(Lists.charactersOf("mississippi"));
+
+        assertThat(suffixTree.getSuffixLink(matchedNode(suffixTree, "issi")), is(matchedNode(suffixTree, "ssi")));
+        assertThat(suffixTree.getSuffixLink(matchedNode(suffixTree, "ssi")), is(matchedNode(suffixTree, "si")));
+        assertThat(suffixTree.getSuffixLink(matchedNode(suffixTree, "si")), is(matchedNode(suffixTree, "i")));
+        assertThat(suffixTree.getSuffixLink(matchedNode(suffixTree, "i")), is(suffixTree.getRoot()));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetSuffixLinkNullNode() {
+        SuffixTreeImpl.newSuffixTree(Lists.charactersOf("123")).getSuffixLink(null);
+    }
+
+    @Test
+    public void testGetEdge() {
+        final SuffixTreeImpl<Character> suffixTree = SuffixTreeImpl.newSuffixTree(Lists.charactersOf("abcab"));
+        final Edge edge = suffixTree.getEdge(suffixTree.getRoot(), 'b');
+        assertThat(edge.getParent(), is(suffixTree.getRoot()));
+        assertThat(edge.getRange().lowerEndpoint(), is(1));
+        assertThat(suffixTree.getEdge(suffixTree.getRoot(), 'd'), is(nullValue()));
+        assertThat(suffixTree.getEdge(edge.getChild(), 'a'), is(nullValue()));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetEdgeNullParent() {
+        SuffixTreeImpl.newSuffixTree(Lists.charactersOf("123")).getEdge(null, '1');
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetEdgeNullElement() {
+        final SuffixTreeImpl<Character> suffixTree = SuffixTreeImpl.newSuffixTree(Lists.charactersOf("123"));
+        suffixTree.getEdge(suffixTree.getRoot(), null);
+    }
+
     @Test(expectedExceptions = NullPointerException.class)
     public void testAddEdgeNullEdge() {
-        SuffixTreeImpl.newSuffixTree(Lists.charactersOf("123")).addEdge(null);
+        new SuffixTreeImpl.Builder<Character>(0).addEdge(null);
     }
 
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testAddEdgeContainsEdge() {
-        final SuffixTreeImpl<Character> suffixTree
-                = SuffixTreeImpl.newSuffixTree(Lists.charactersOf("123"));
-        suffixTree.addEdge(suffixTree.getEdge(suffixTree.getRoot(), '1').get());
+        final SuffixTreeImpl.Builder<Character> builder = new SuffixTreeImpl.Builder<Character>(3);
+        builder.appendAll(Lists.charactersOf("123"));
+        builder.addEdge(builder.getEdge(builder.getRoot(), '1', 2));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAppendFrozen() {
+        final SuffixTreeImpl.Builder<Character> builder = new SuffixTreeImpl.Builder<Character>(0);
+        builder.freeze();
+        builder.append('1');
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddEdgeFrozen() {
+        final SuffixTreeImpl.Builder<Character> builder = new SuffixTreeImpl.Builder<Character>(3);
+        builder.appendAll(Lists.charactersOf("123"));
+        builder.freeze();
+        builder.addEdge(new Edge(builder.getRoot(), builder.getRoot().getNext(), Ranges.atLeast(0)));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFreezeFrozen() {
+        final SuffixTreeImpl.Builder<Character> builder = new SuffixTreeImpl.Builder<Character>(3);
+        builder.appendAll(Lists.charactersOf("123"));
+        builder.freeze();
+        builder.freeze();
+    }
+
+    @Test
+    public void testSharedAcrossThreads() throws Exception {
+
+        final List<Text> testFile = RandomFiles.getRandomFile(1000, 1341376661708488015L);
+        final List<Text> query = getQuery(testFile);
+        final SuffixTreeImpl<Text> suffixTree = SuffixTreeImpl.newSuffixTree(testFile);
+        final List<Range<Integer>> expected = matchAllSuffixes(suffixTree, query);
+        final MatchingStatistics expectedStatistics = suffixTree.matchingStatistics(query);
+        validateMatchingStatistics(expectedStatistics, testFile, query);
+
+        // Every thread starts at once and matches with its own matchers against the one shared tree.
+        final int threads = 8;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<List<Range<Integer>>>> futures = Lists.newArrayList();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<List<Range<Integer>>>() {
+                    @Override
+                    public List<Range<Integer>> call() throws Exception {
+                        barrier.await();
+                        List<Range<Integer>> ranges = null;
+                        for (int i = 0; i < 5; i++) {
+                            ranges = matchAllSuffixes(suffixTree, query);
+                            final MatchingStatistics statistics = suffixTree.matchingStatistics(query);
+                            for (int j = 0; j < query.size(); j++) {
+                                assertThat(statistics.length(j), is(expectedStatistics.length(j)));
+                                if (0 != statistics.length(j)) {
+                                    assertThat(statistics.start(j), is(expectedStatistics.start(j)));
+                                }
+                            }
+                        }
+                        return ranges;
+                    }
+                }));
+            }
+            for (final Future<List<Range<Integer>>> future : futures) {
+                assertThat(future.get(), is(expected));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Matches every suffix of this {@code query} from the root with a new {@link MatcherImpl}.
+     *
+     * @param suffixTree {@link SuffixTreeImpl} to match in.
+     * @param query      elements to match the suffixes of.
+     *
+     * @return range of the longest match of every suffix, {@code null} where nothing matched.
+     */
+    private static <E extends Comparable> List<Range<Integer>> matchAllSuffixes(final SuffixTreeImpl<E> suffixTree,
+                                                                             final List<E> query) {
+        final MatcherImpl<E> matcher = suffixTree.matcher();
+        final List<Range<Integer>> ranges = Lists.newArrayList();
+        for (int suffixIndex = 0; suffixIndex < query.size(); suffixIndex++) {
+            matcher.reset();
+            for (int i = suffixIndex; i < query.size() && matcher.matchNext(query.get(i)).isMatched(); ) {
+                i++;
+            }
+            ranges.add(matcher.isRoot() ? null : matcher.range());
+        }
+        return ranges;
+    }
+
+    /**
+     * Matches {@code path} and gets the node it ends at.
+     *
+     * @param suffixTree {@link SuffixTreeImpl} to match {@code path} in.
+     * @param path       path that ends at a node.
+     *
+     * @return node that {@code path} ends at.
+     */
+    private static Record matchedNode(final SuffixTreeImpl<Character> suffixTree, final String path) {
+        final MatcherImpl<Character> matcher = suffixTree.matcher();
+        for (final Character c : Lists.charactersOf(path)) {
+            assertThat(matcher.matchNext(c), is(Matched.YES));
+        }
+        assertThat(matcher.edgeHasNext(), is(false));
+        return matcher.lastNode();
     }
 }
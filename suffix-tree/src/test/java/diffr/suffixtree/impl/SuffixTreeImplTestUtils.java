@@ -1,6 +1,10 @@
 package diffr.suffixtree.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import diffr.suffixtree.IntSuffixTree;
+import diffr.suffixtree.IntSuffixTree.IntMatcher;
+import diffr.suffixtree.MatchingStatistics;
 import diffr.suffixtree.SuffixTree;
 import diffr.suffixtree.SuffixTree.Matched;
 import diffr.suffixtree.SuffixTree.Matcher;
@@ -9,7 +13,6 @@ import javolution.text.Text;
 import org.testng.annotations.DataProvider;
 
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Random;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -82,15 +85,176 @@ public class SuffixTreeImplTestUtils {
      * @param <E>        type of elements in {@code suffixTree}.
      */
     public static <E extends Comparable> void validateSuffixTree(final SuffixTreeImpl<E> suffixTree) {
+        validateSuffixTree(suffixTree, suffixTree.getElements());
+    }
 
-        for (int suffixIndex = 0; suffixIndex < suffixTree.getElements().size(); suffixIndex++) {
+    /**
+     * Validates that every suffix of {@code elements} can be matched in this {@code suffixTree}.
+     *
+     * @param suffixTree {@link SuffixTree} to validate.
+     * @param elements   elements that {@code suffixTree} was built for.
+     * @param <E>        type of elements in {@code suffixTree}.
+     */
+    public static <E extends Comparable> void validateSuffixTree(final SuffixTree<E> suffixTree,
+                                                                 final List<E> elements) {
+
+        for (int suffixIndex = 0; suffixIndex < elements.size(); suffixIndex++) {
 
-            final ListIterator<E> suffixIterator = suffixTree.elementsListIterator(suffixIndex);
             final Matcher<E> suffixMatcher = suffixTree.matcher();
 
-            while (suffixIterator.hasNext()) {
-                assertThat(suffixMatcher.matchNext(suffixIterator.next()), is(Matched.YES));
+            for (int i = suffixIndex; i < elements.size(); i++) {
+                assertThat(suffixMatcher.matchNext(elements.get(i)), is(Matched.YES));
+            }
+        }
+    }
+
+    /**
+     * Validates that every suffix of {@code symbols} can be matched in this {@code suffixTree}.
+     *
+     * @param suffixTree {@link IntSuffixTree} to validate.
+     * @param symbols    symbols that {@code suffixTree} was built for.
+     */
+    public static void validateSuffixTree(final IntSuffixTree suffixTree, final int[] symbols) {
+
+        for (int suffixIndex = 0; suffixIndex < symbols.length; suffixIndex++) {
+
+            final IntMatcher suffixMatcher = suffixTree.matcher();
+
+            for (int i = suffixIndex; i < symbols.length; i++) {
+                assertThat(suffixMatcher.matchNext(symbols[i]), is(Matched.YES));
             }
         }
     }
+
+    /**
+     * Validates that matching every substring of {@code testString} in this {@code suffixTree} gives the range of
+     * the first occurrence of that substring.
+     *
+     * @param suffixTree {@link SuffixTree} built for {@code testString}.
+     * @param testString string that {@code suffixTree} was built for.
+     */
+    public static void validateRanges(final SuffixTree<Character> suffixTree, final String testString) {
+
+        for (int suffixIndex = 0; suffixIndex < testString.length(); suffixIndex++) {
+
+            final Matcher<Character> suffixMatcher = suffixTree.matcher();
+
+            for (int i = suffixIndex; i < testString.length(); i++) {
+                assertThat(suffixMatcher.matchNext(testString.charAt(i)), is(Matched.YES));
+                final Range<Integer> matchedRange = suffixMatcher.range();
+                final String matched = testString.substring(suffixIndex, i + 1);
+
+                assertThat(matchedRange.lowerEndpoint(), is(testString.indexOf(matched)));
+                assertThat(matchedRange.upperEndpoint(), is(testString.indexOf(matched) + matched.length() - 1));
+            }
+        }
+    }
+
+    /**
+     * Gets a query for matching statistics of this {@code testString}: its reverse, followed by its second half and a
+     * character that does not occur in it, so that the query has both short and long matches.
+     *
+     * @param testString string to get the query for.
+     *
+     * @return query for {@code testString}.
+     */
+    public static String getQuery(final String testString) {
+        return new StringBuilder(testString).reverse().append(testString.substring(testString.length() / 2))
+                                            .append('\u2603').toString();
+    }
+
+    /**
+     * Gets a query for matching statistics of this {@code testFile}: its second half, followed by lines of another
+     * file and by its first half.
+     *
+     * @param testFile file to get the query for.
+     *
+     * @return query for {@code testFile}.
+     */
+    public static List<Text> getQuery(final List<Text> testFile) {
+        final List<Text> query = Lists.newArrayList(testFile.subList(testFile.size() / 2, testFile.size()));
+        query.addAll(RandomFiles.getRandomFile(100, 1341376661708488015L - testFile.size()));
+        query.addAll(testFile.subList(0, testFile.size() / 2));
+        return query;
+    }
+
+    /**
+     * Validates that these {@code statistics} give, for every index of {@code query}, the length of the longest
+     * prefix of {@code query} starting at that index that occurs in {@code elements}, and the start of one of its
+     * occurrences.
+     *
+     * @param statistics {@link MatchingStatistics} of {@code query}.
+     * @param elements   elements of the {@link SuffixTree} that {@code statistics} were computed against.
+     * @param query      elements that {@code statistics} were computed for.
+     * @param <E>        type of elements.
+     */
+    public static <E> void validateMatchingStatistics(final MatchingStatistics statistics,
+                                                      final List<E> elements,
+                                                      final List<E> query) {
+
+        assertThat(statistics.size(), is(query.size()));
+
+        for (int queryIndex = 0; queryIndex < query.size(); queryIndex++) {
+
+            int longest = 0;
+            for (int start = 0; start < elements.size(); start++) {
+                int length = 0;
+                while (queryIndex + length < query.size() && start + length < elements.size()
+                       && query.get(queryIndex + length).equals(elements.get(start + length))) {
+                    length++;
+                }
+                longest = Math.max(longest, length);
+            }
+
+            assertThat(statistics.length(queryIndex), is(longest));
+            if (longest > 0) {
+                final int start = statistics.start(queryIndex);
+                assertThat(elements.subList(start, start + longest),
+                           is(query.subList(queryIndex, queryIndex + longest)));
+            }
+        }
+    }
+
+    /**
+     * Gets symbols that are runs of {@code runLength} zeros, every run followed by a symbol of its own, like a log
+     * with runs of blank lines.
+     *
+     * @param runLength number of zeros of every run.
+     * @param runs      number of runs.
+     *
+     * @return the symbols.
+     */
+    public static int[] runs(final int runLength, final int runs) {
+        final int[] symbols = new int[runs * (runLength + 1)];
+        for (int run = 0; run < runs; run++) {
+            symbols[run * (runLength + 1) + runLength] = run + 1;
+        }
+        return symbols;
+    }
+
+    /**
+     * Validates the {@link MatchingStatistics} of a query of {@code queryLength} zeros against symbols of {@link
+     * #runs(int, int)}: the match at every index is as long as the rest of the query or a run, whichever is shorter.
+     *
+     * @param statistics  {@link MatchingStatistics} to validate.
+     * @param symbols     symbols of the {@link SuffixTree}.
+     * @param runLength   number of zeros of every run.
+     * @param queryLength number of zeros of the query.
+     */
+    public static void validateRunMatchingStatistics(final MatchingStatistics statistics, final int[] symbols,
+                                                     final int runLength, final int queryLength) {
+        // zeros[i] is the number of zeros in symbols[0, i), so that a match is checked in constant time.
+        final int[] zeros = new int[symbols.length + 1];
+        for (int i = 0; i < symbols.length; i++) {
+            zeros[i + 1] = zeros[i] + (0 == symbols[i] ? 1 : 0);
+        }
+
+        assertThat(statistics.size(), is(queryLength));
+        for (int i = 0; i < queryLength; i++) {
+            final int length = Math.min(runLength, queryLength - i);
+            assertThat(statistics.length(i), is(length));
+            final int start = statistics.start(i);
+            assertThat(zeros[start + length] - zeros[start], is(length));
+        }
+    }
 }
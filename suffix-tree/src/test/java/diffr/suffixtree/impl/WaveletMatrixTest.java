@@ -0,0 +1,68 @@
+package diffr.suffixtree.impl;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link WaveletMatrix} and the {@link BitVector}s it is made of.
+ *
+ * @since 1.0
+ */
+public class WaveletMatrixTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullSymbols() {
+        new WaveletMatrix(null, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorSymbolOutOfRange() {
+        new WaveletMatrix(new int[]{0, 4, 1}, 2);
+    }
+
+    @Test
+    public void testEmpty() {
+        final WaveletMatrix waveletMatrix = new WaveletMatrix(new int[0], 3);
+        assertThat(waveletMatrix.size(), is(0));
+        assertThat(waveletMatrix.rank(5, 0), is(0));
+        assertThat(waveletMatrix.rankLess(5, 0, 0), is(0));
+    }
+
+    @Test
+    public void testAccessAndRank() {
+        final Random random = new Random(1341376661705837014L);
+        // Sizes around the blocks of the bit vectors.
+        for (final int size : new int[]{1, 63, 64, 65, 255, 256, 257, 1000}) {
+            final int[] symbols = new int[size];
+            for (int i = 0; i < size; i++) {
+                symbols[i] = random.nextInt(37);
+            }
+            final WaveletMatrix waveletMatrix = new WaveletMatrix(symbols, 6);
+            assertThat(waveletMatrix.size(), is(size));
+
+            for (int i = 0; i < size; i++) {
+                assertThat(waveletMatrix.access(i), is(symbols[i]));
+            }
+
+            final int from = random.nextInt(size + 1);
+            for (int symbol = 0; symbol < 40; symbol++) {
+                int rank = 0;
+                int less = 0;
+                for (int i = 0; i <= size; i++) {
+                    assertThat(waveletMatrix.rank(symbol, i), is(rank));
+                    if (i >= from) {
+                        assertThat(waveletMatrix.rankLess(symbol, from, i), is(less));
+                    }
+                    if (i < size) {
+                        rank += symbols[i] == symbol ? 1 : 0;
+                        less += i >= from && symbols[i] < symbol ? 1 : 0;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package diffr.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Utility methods for splitting work into tasks and running them on an {@link ExecutorService}.
+ *
+ * @since 1.0
+ */
+public final class Tasks {
+
+    private static final int TASKS_PER_PROCESSOR = 4;
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public Tasks() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Gets the number of tasks to split work on {@code size} items into: a few per processor, so that the threads
+     * stay busy when the tasks are uneven, but none smaller than {@code minChunk} items.
+     *
+     * @param size     number of items.
+     * @param minChunk smallest number of items that is worth a task of its own.
+     *
+     * @return number of tasks, at least {@code 1}.
+     *
+     * @throws IllegalArgumentException if {@code minChunk} is not positive.
+     */
+    public static int tasks(final long size, final int minChunk) {
+        checkArgument(minChunk > 0, "Chunk must be positive: %s", minChunk);
+        return (int) Math.max(1, Math.min(TASKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors(),
+                                          size / minChunk));
+    }
+
+    /**
+     * Runs these {@code callables} on this {@code executor} and waits for all of them.
+     *
+     * @param executor  {@link ExecutorService} to run the callables on.
+     * @param callables callables to run.
+     * @param <T>       type of the results.
+     *
+     * @return results of {@code callables}, in order.
+     *
+     * @throws NullPointerException  if any parameter is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     */
+    public static <T> List<T> invokeAll(final ExecutorService executor,
+                                        final List<? extends Callable<T>> callables) {
+        checkNotNull(executor);
+        final List<T> results = Lists.newArrayListWithCapacity(checkNotNull(callables).size());
+        try {
+            for (final Future<T> future : executor.invokeAll(callables)) {
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tasks", e);
+        }
+        catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        return results;
+    }
+}
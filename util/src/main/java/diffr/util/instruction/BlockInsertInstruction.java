@@ -0,0 +1,49 @@
+package diffr.util.instruction;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link Instruction} for inserting a block of consecutive lines, which is one instruction to apply rather than one
+ * {@link InsertInstruction} per line. It is composed as the {@link InsertInstruction}s of its lines, so patch files
+ * do not change.
+ *
+ * @since 1.0
+ */
+public class BlockInsertInstruction implements Instruction {
+
+    private final List<String> lines;
+
+    /**
+     * Default constructor.
+     *
+     * @param lines the lines to insert.
+     *
+     * @throws NullPointerException     if {@code lines} or any of the lines is null.
+     * @throws IllegalArgumentException if {@code lines} is empty.
+     */
+    public BlockInsertInstruction(final List<String> lines) {
+        this.lines = ImmutableList.copyOf(lines);
+        checkArgument(!this.lines.isEmpty(), "No lines to insert");
+    }
+
+    /**
+     * Gets the lines.
+     *
+     * @return the lines.
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Type getType() {
+        return Type.BlockInsert;
+    }
+}
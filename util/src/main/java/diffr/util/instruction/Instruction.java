@@ -12,7 +12,7 @@ public interface Instruction {
      * Enumerates the possible Instruction types.
      */
     public enum Type {
-        Copy, Insert;
+        Copy, Insert, BlockInsert;
     }
 
     /**
@@ -31,6 +31,15 @@ public class InstructionComposer {
                 final String text = ((InsertInstruction) instruction).getText();
                 stringBuilder.append(INSERT);
                 stringBuilder.append(text);
+                break;
+            case BlockInsert:
+                for (final String line : ((BlockInsertInstruction) instruction).getLines()) {
+                    if (0 < stringBuilder.length()) {
+                        stringBuilder.append('\n');
+                    }
+                    stringBuilder.append(INSERT);
+                    stringBuilder.append(line);
+                }
         }
         return stringBuilder.toString();
     }
@@ -0,0 +1,118 @@
+package diffr.util.instruction;
+
+import com.google.common.collect.Range;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cost model of {@link Instruction}s: the number of bytes that an {@link Instruction} takes in a patch file, as
+ * composed by {@link InstructionComposer} in UTF-8 and ended by a new line. A {@link CopyInstruction} therefore costs
+ * the digits of its endpoints and two bytes, whatever the number of lines it copies, and an {@link InsertInstruction}
+ * costs its line and three bytes, as does every line of a {@link BlockInsertInstruction}.
+ *
+ * @since 1.0
+ */
+public final class InstructionCosts {
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public InstructionCosts() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Gets the cost of this {@code instruction}.
+     *
+     * @param instruction {@link Instruction} to get the cost of.
+     *
+     * @return number of bytes of {@code instruction} in a patch file.
+     *
+     * @throws NullPointerException if {@code instruction} is null.
+     */
+    public static int cost(final Instruction instruction) {
+        switch (checkNotNull(instruction).getType()) {
+            case Copy:
+                final Range<Integer> range = ((CopyInstruction) instruction).getRange();
+                return copyCost(range.lowerEndpoint(), range.upperEndpoint());
+            case BlockInsert:
+                int cost = 0;
+                for (final String line : ((BlockInsertInstruction) instruction).getLines()) {
+                    cost += insertCost(line);
+                }
+                return cost;
+            default:
+                return insertCost(((InsertInstruction) instruction).getText());
+        }
+    }
+
+    /**
+     * Gets the cost of a {@link CopyInstruction} of the lines from {@code start} to {@code end}.
+     *
+     * @param start index of the first line to copy.
+     * @param end   index of the last line to copy.
+     *
+     * @return number of bytes of the {@link CopyInstruction} in a patch file.
+     *
+     * @throws IllegalArgumentException if {@code start} is negative or greater than {@code end}.
+     */
+    public static int copyCost(final int start, final int end) {
+        checkArgument(0 <= start && start <= end, "Invalid copy: %s,%s", start, end);
+        return digits(start) + InstructionComposer.COMMA.length() + digits(end) + 1;
+    }
+
+    /**
+     * Gets the cost of an {@link InsertInstruction} of this {@code text}.
+     *
+     * @param text line to insert.
+     *
+     * @return number of bytes of the {@link InsertInstruction} in a patch file.
+     *
+     * @throws NullPointerException if {@code text} is null.
+     */
+    public static int insertCost(final String text) {
+        return InstructionComposer.INSERT.length() + utf8Length(checkNotNull(text)) + 1;
+    }
+
+    /**
+     * Gets the number of decimal digits of this {@code value}.
+     *
+     * @param value non-negative value.
+     *
+     * @return number of decimal digits of {@code value}.
+     */
+    public static int digits(final int value) {
+        int digits = 1;
+        for (long power = 10; power <= value; power *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Gets the number of bytes of this {@code text} encoded in UTF-8, without encoding it.
+     *
+     * @param text text to measure.
+     *
+     * @return number of bytes of {@code text} in UTF-8.
+     */
+    private static int utf8Length(final String text) {
+        int length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c >= 0x800) {
+                // Three bytes, or four for a surrogate pair, i.e. two bytes for each of its chars.
+                length += Character.isHighSurrogate(c) || Character.isLowSurrogate(c) ? 1 : 2;
+            }
+            else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,218 @@
+package diffr.util.instruction;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link InstructionSink} that rewrites a stream of {@link Instruction}s into an equivalent, canonical one and passes
+ * it on to another {@link InstructionSink}:
+ *
+ * <ul>
+ * <li>copies of consecutive ranges of the original file are merged into one copy, e.g. {@code 0,4} and {@code 5,9}
+ * into {@code 0,9};</li>
+ * <li>consecutive inserts are grouped into a {@link BlockInsertInstruction}, of at most {@value #MAX_BLOCK_LINES}
+ * lines;</li>
+ * <li>if the original file is given, copies of at most {@code maxInlinedLines} lines that cost more than inserting
+ * their lines, see {@link InstructionCosts}, are replaced by inserts.</li>
+ * </ul>
+ *
+ * A copy is only passed on once the next {@link Instruction} shows that it cannot be merged, and inserts once a copy
+ * ends them, so at most a copy and a block of inserts are held back. {@link #finish()} must be called after the last
+ * {@link Instruction} to pass them on. The {@link Instruction}s can come from a diff or from an existing patch file,
+ * see {@link Instructions#readInstruction(java.io.BufferedReader)}.
+ *
+ * @since 1.0
+ */
+public final class InstructionOptimizer implements InstructionSink {
+
+    /**
+     * Largest number of lines of a {@link BlockInsertInstruction}, so that the lines held back are bounded.
+     */
+    public static final int MAX_BLOCK_LINES = 1024;
+
+    private final InstructionSink sink;
+
+    private final List<String> originalFile;
+
+    private final int maxInlinedLines;
+
+    private final List<String> inserts = Lists.newArrayList();
+
+    // Range of the copy held back, or -1 if there is none.
+    private int copyStart = -1;
+
+    private int copyEnd = -1;
+
+    /**
+     * Constructor that merges copies and groups inserts, but does not replace copies by inserts.
+     *
+     * @param sink {@link InstructionSink} to pass the rewritten {@link Instruction}s to.
+     *
+     * @throws NullPointerException if {@code sink} is null.
+     */
+    public InstructionOptimizer(final InstructionSink sink) {
+        this.sink = checkNotNull(sink);
+        this.originalFile = null;
+        this.maxInlinedLines = 0;
+    }
+
+    /**
+     * Constructor that also replaces copies of at most {@code maxInlinedLines} lines by inserts when that is cheaper.
+     *
+     * @param sink            {@link InstructionSink} to pass the rewritten {@link Instruction}s to.
+     * @param originalFile    original file that the copies copy from.
+     * @param maxInlinedLines largest number of lines of a copy that may be replaced by inserts.
+     *
+     * @throws NullPointerException     if {@code sink} or {@code originalFile} is null.
+     * @throws IllegalArgumentException if {@code maxInlinedLines} is negative.
+     */
+    public InstructionOptimizer(final InstructionSink sink, final List<String> originalFile,
+                                final int maxInlinedLines) {
+        checkArgument(maxInlinedLines >= 0, "Negative max inlined lines: %s", maxInlinedLines);
+        this.sink = checkNotNull(sink);
+        this.originalFile = checkNotNull(originalFile);
+        this.maxInlinedLines = maxInlinedLines;
+    }
+
+    /**
+     * Rewrites these {@code instructions}, see {@link InstructionOptimizer}.
+     *
+     * @param instructions    {@link Instruction}s to rewrite.
+     * @param originalFile    original file that the copies copy from.
+     * @param maxInlinedLines largest number of lines of a copy that may be replaced by inserts.
+     *
+     * @return the rewritten {@link Instruction}s.
+     *
+     * @throws NullPointerException     if any parameter or any of the instructions is null.
+     * @throws IllegalArgumentException if {@code maxInlinedLines} is negative.
+     */
+    public static List<Instruction> optimize(final List<Instruction> instructions, final List<String> originalFile,
+                                             final int maxInlinedLines) {
+        final List<Instruction> optimized = Lists.newArrayList();
+        final InstructionOptimizer optimizer = new InstructionOptimizer(new InstructionSink() {
+            @Override
+            public void accept(final Instruction instruction) {
+                optimized.add(instruction);
+            }
+        }, originalFile, maxInlinedLines);
+        try {
+            for (final Instruction instruction : checkNotNull(instructions)) {
+                optimizer.accept(instruction);
+            }
+            optimizer.finish();
+        }
+        catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+        return optimized;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if {@code instruction} is null.
+     */
+    @Override
+    public void accept(final Instruction instruction) throws IOException {
+        switch (checkNotNull(instruction).getType()) {
+            case Copy:
+                final int start = ((CopyInstruction) instruction).getRange().lowerEndpoint();
+                final int end = ((CopyInstruction) instruction).getRange().upperEndpoint();
+                if (-1 != copyStart && copyEnd + 1 == start) {
+                    copyEnd = end;
+                }
+                else {
+                    flushCopy();
+                    copyStart = start;
+                    copyEnd = end;
+                }
+                break;
+            case Insert:
+                flushCopy();
+                insert(((InsertInstruction) instruction).getText());
+                break;
+            case BlockInsert:
+                flushCopy();
+                for (final String line : ((BlockInsertInstruction) instruction).getLines()) {
+                    insert(line);
+                }
+        }
+    }
+
+    /**
+     * Passes the {@link Instruction}s held back on. This {@link InstructionOptimizer} can be used again afterwards.
+     *
+     * @throws IOException if the sink throws it.
+     */
+    public void finish() throws IOException {
+        flushCopy();
+        flushInserts();
+    }
+
+    /**
+     * Holds this {@code line} back as an insert.
+     *
+     * @param line line to insert.
+     *
+     * @throws IOException if the sink throws it.
+     */
+    private void insert(final String line) throws IOException {
+        inserts.add(line);
+        if (MAX_BLOCK_LINES == inserts.size()) {
+            flushInserts();
+        }
+    }
+
+    /**
+     * Passes the copy held back on, or holds its lines back as inserts if they are cheaper.
+     *
+     * @throws IOException if the sink throws it.
+     */
+    private void flushCopy() throws IOException {
+        if (-1 == copyStart) {
+            return;
+        }
+        final int start = copyStart;
+        final int end = copyEnd;
+        copyStart = -1;
+        copyEnd = -1;
+
+        if (null != originalFile && end - start < maxInlinedLines) {
+            int insertCost = 0;
+            for (int i = start; i <= end; i++) {
+                insertCost += InstructionCosts.insertCost(originalFile.get(i));
+            }
+            if (insertCost < InstructionCosts.copyCost(start, end)) {
+                for (int i = start; i <= end; i++) {
+                    insert(originalFile.get(i));
+                }
+                return;
+            }
+        }
+
+        flushInserts();
+        sink.accept(new CopyInstruction(Ranges.closed(start, end)));
+    }
+
+    /**
+     * Passes the inserts held back on, as an {@link InsertInstruction} if there is one and as a {@link
+     * BlockInsertInstruction} if there are more.
+     *
+     * @throws IOException if the sink throws it.
+     */
+    private void flushInserts() throws IOException {
+        if (1 == inserts.size()) {
+            sink.accept(new InsertInstruction(inserts.get(0)));
+        }
+        else if (1 < inserts.size()) {
+            sink.accept(new BlockInsertInstruction(inserts));
+        }
+        inserts.clear();
+    }
+}
@@ -0,0 +1,21 @@
+package diffr.util.instruction;
+
+import java.io.IOException;
+
+/**
+ * Receives {@link Instruction}s one at a time, as soon as they are generated, so that they do not have to be
+ * collected before they are written.
+ *
+ * @since 1.0
+ */
+public interface InstructionSink {
+
+    /**
+     * Receives the next {@link Instruction}.
+     *
+     * @param instruction the next {@link Instruction}.
+     *
+     * @throws IOException if the {@link Instruction} cannot be written.
+     */
+    public void accept(Instruction instruction) throws IOException;
+}
@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Factory methods for Instruction classes.
  *
@@ -31,6 +33,25 @@ public class Instructions {
         writer.write("\n");
     }
 
+    /**
+     * Gets an {@link InstructionSink} that writes every {@link Instruction} to the supplied writer, see {@link
+     * #writeInstruction(Instruction, BufferedWriter)}. The writer is neither flushed nor closed.
+     *
+     * @param writer writer to write to.
+     * @return {@link InstructionSink} that writes to {@code writer}.
+     * @throws NullPointerException if {@code writer} is null.
+     * @since 1.0
+     */
+    public static InstructionSink newWriterSink(final BufferedWriter writer) {
+        checkNotNull(writer);
+        return new InstructionSink() {
+            @Override
+            public void accept(final Instruction instruction) throws IOException {
+                writeInstruction(instruction, writer);
+            }
+        };
+    }
+
     /**
      * Reads the next {@link diffr.util.instruction.Instruction} in the input.
      *
@@ -0,0 +1,121 @@
+package diffr.util.io;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Line of a {@link LineIndex}: a slice of the mapped bytes of the file, without the end of the line. Lines are equal
+ * if they have the same bytes and are ordered by their bytes, as unsigned values, so they can be compared, hashed and
+ * indexed without decoding them; {@link #toString()} decodes them with the charset of the {@link LineIndex}.
+ *
+ * @since 1.0
+ */
+public final class ByteLine implements Comparable<ByteLine> {
+
+    private final LineIndex lineIndex;
+
+    private final long start;
+
+    private final long end;
+
+    private int hashCode;
+
+    /**
+     * Default constructor.
+     *
+     * @param lineIndex {@link LineIndex} of the line.
+     * @param start     position of the first byte of the line.
+     * @param end       position after the last byte of the line.
+     */
+    ByteLine(final LineIndex lineIndex, final long start, final long end) {
+        this.lineIndex = lineIndex;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the number of bytes of this line.
+     *
+     * @return number of bytes.
+     */
+    public int length() {
+        return (int) (end - start);
+    }
+
+    /**
+     * Gets the byte at this {@code index} of this line.
+     *
+     * @param index index of the byte.
+     *
+     * @return the byte.
+     *
+     * @throws IndexOutOfBoundsException if there is no byte at {@code index}.
+     */
+    public byte byteAt(final int index) {
+        checkElementIndex(index, length());
+        return lineIndex.byteAt(start + index);
+    }
+
+    /**
+     * Gets a copy of the bytes of this line.
+     *
+     * @return bytes of this line.
+     */
+    public byte[] toByteArray() {
+        return lineIndex.bytes(start, end);
+    }
+
+    @Override
+    public int compareTo(final ByteLine other) {
+        final int length = Math.min(length(), other.length());
+        for (int i = 0; i < length; i++) {
+            final int difference = (lineIndex.byteAt(start + i) & 0xff)
+                    - (other.lineIndex.byteAt(other.start + i) & 0xff);
+            if (0 != difference) {
+                return difference;
+            }
+        }
+        return length() - other.length();
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof ByteLine)) {
+            return false;
+        }
+        final ByteLine other = (ByteLine) object;
+        if (length() != other.length() || (0 != hashCode && 0 != other.hashCode && hashCode != other.hashCode)) {
+            return false;
+        }
+        for (int i = 0; i < length(); i++) {
+            if (lineIndex.byteAt(start + i) != other.lineIndex.byteAt(other.start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = hashCode;
+        if (0 == hash) {
+            for (long position = start; position < end; position++) {
+                hash = 31 * hash + lineIndex.byteAt(position);
+            }
+            hashCode = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Decodes this line with the charset of its {@link LineIndex}.
+     *
+     * @return this line.
+     */
+    @Override
+    public String toString() {
+        return new String(toByteArray(), lineIndex.charset());
+    }
+}
@@ -0,0 +1,511 @@
+package diffr.util.io;
+
+import com.google.common.collect.Lists;
+import diffr.util.Tasks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lines of a file that is memory-mapped rather than read: opening a file only finds where its lines end, and the
+ * lines are {@link ByteLine}s, slices of the mapped bytes that are compared byte for byte and only decoded when
+ * {@link ByteLine#toString()} is called. Neither the bytes nor the lines are copied onto the heap, so a file of
+ * several gigabytes takes the heap of one {@code long} per line.
+ * <p/>
+ * <p>
+ * The line ends are found eight bytes at a time, by testing every byte of a {@code long} for {@code '\n'} and
+ * {@code '\r'} with a few arithmetic operations, and in parallel over chunks of the file if an {@link ExecutorService}
+ * is given. Lines end at {@code '\n'}, {@code "\r\n"} or a lone {@code '\r'}, and the last line may or may not end
+ * with one, like {@link com.google.common.io.Files#readLines(File, Charset)} and {@link java.io.BufferedReader} do, so
+ * a line has the same index whichever of them reads the file.
+ * </p>
+ * <p>
+ * The file must not be modified while it is open. The lines can be read from any number of threads.
+ * </p>
+ *
+ * @since 1.0
+ */
+public final class LineIndex extends AbstractList<ByteLine> implements RandomAccess, Closeable {
+
+    /**
+     * Largest part of the file that is mapped by one {@link MappedByteBuffer}.
+     */
+    static final int REGION_SIZE = 1 << 30;
+
+    /**
+     * Smallest number of bytes that is worth a task of its own.
+     */
+    private static final int MIN_CHUNK = 1 << 20;
+
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+    private static final long NEWLINES = '\n' * ONES;
+
+    private static final long RETURNS = '\r' * ONES;
+
+    private final RandomAccessFile file;
+
+    private final MappedByteBuffer[] regions;
+
+    private final int regionShift;
+
+    private final long length;
+
+    // Position of the last byte of every line end, i.e. of every '\n' and lone '\r', plus the end of the file if the
+    // last line does not end with one.
+    private final long[] ends;
+
+    private final Charset charset;
+
+    /**
+     * Default constructor.
+     *
+     * @param file        file to map.
+     * @param regionShift binary logarithm of the size of the regions.
+     * @param charset     charset to decode the lines with.
+     * @param executor    {@link ExecutorService} to find the ends of the lines on, or {@code null}.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    private LineIndex(final File file, final int regionShift, final Charset charset, final ExecutorService executor)
+            throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            this.charset = charset;
+            this.regionShift = regionShift;
+            final FileChannel channel = this.file.getChannel();
+            this.length = channel.size();
+            final long regionSize = 1L << regionShift;
+            this.regions = new MappedByteBuffer[(int) ((length + regionSize - 1) >>> regionShift)];
+            for (int i = 0; i < regions.length; i++) {
+                final long position = (long) i << regionShift;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                         Math.min(regionSize, length - position));
+                regions[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            this.ends = null == executor ? findEnds(0, length) : findEnds(executor);
+        }
+        catch (final IOException e) {
+            this.file.close();
+            throw e;
+        }
+        catch (final RuntimeException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens this {@code file}, whose lines are decoded with the default charset.
+     *
+     * @param file file to open.
+     *
+     * @return {@link LineIndex} of {@code file}.
+     *
+     * @throws NullPointerException if {@code file} is null.
+     * @throws IOException          if the file cannot be read.
+     */
+    public static LineIndex open(final File file) throws IOException {
+        return new LineIndex(checkNotNull(file), Integer.numberOfTrailingZeros(REGION_SIZE),
+                             Charset.defaultCharset(), null);
+    }
+
+    /**
+     * Opens this {@code file}, whose lines are decoded with this {@code charset}, finding the ends of its lines on
+     * this {@code executor}. The calling thread waits for them, so it must not be one of the threads of {@code
+     * executor}.
+     *
+     * @param file     file to open.
+     * @param charset  charset to decode the lines with, which must encode {@code '\n'} and {@code '\r'} as single
+     *                 bytes, as UTF-8, ISO-8859-1 and ASCII do.
+     * @param executor {@link ExecutorService} to find the ends of the lines on.
+     *
+     * @return {@link LineIndex} of {@code file}.
+     *
+     * @throws NullPointerException  if any parameter is null.
+     * @throws IOException           if the file cannot be read.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     */
+    public static LineIndex open(final File file, final Charset charset, final ExecutorService executor)
+            throws IOException {
+        return open(file, charset, executor, REGION_SIZE);
+    }
+
+    /**
+     * Opens this {@code file} mapped in regions of this {@code regionSize}, see {@link #open(File, Charset,
+     * ExecutorService)}.
+     *
+     * @param file       file to open.
+     * @param charset    charset to decode the lines with.
+     * @param executor   {@link ExecutorService} to find the ends of the lines on.
+     * @param regionSize size of the regions, a power of two of at most {@link #REGION_SIZE}.
+     *
+     * @return {@link LineIndex} of {@code file}.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    static LineIndex open(final File file, final Charset charset, final ExecutorService executor,
+                          final int regionSize) throws IOException {
+        checkNotNull(file);
+        checkNotNull(charset);
+        checkNotNull(executor);
+        checkArgument(0 < regionSize && regionSize <= REGION_SIZE && 0 == (regionSize & (regionSize - 1)),
+                      "Illegal region size: %s", regionSize);
+        return new LineIndex(file, Integer.numberOfTrailingZeros(regionSize), charset, executor);
+    }
+
+    /**
+     * Gets the line at this {@code index}.
+     *
+     * @param index index of the line.
+     *
+     * @return {@link ByteLine} of the line.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    @Override
+    public ByteLine get(final int index) {
+        return new ByteLine(this, start(index), end(index));
+    }
+
+    /**
+     * Gets the number of lines.
+     *
+     * @return number of lines.
+     */
+    @Override
+    public int size() {
+        return ends.length;
+    }
+
+    /**
+     * Gets the position of the first byte of the line at this {@code index}.
+     *
+     * @param index index of the line.
+     *
+     * @return position of the first byte.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    public long start(final int index) {
+        checkElementIndex(index, ends.length);
+        return 0 == index ? 0 : ends[index - 1] + 1;
+    }
+
+    /**
+     * Gets the position after the last byte of the line at this {@code index}, not counting the end of the line.
+     *
+     * @param index index of the line.
+     *
+     * @return position after the last byte.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    public long end(final int index) {
+        checkElementIndex(index, ends.length);
+        final long end = ends[index];
+        return end > start(index) && '\r' == byteAt(end - 1) ? end - 1 : end;
+    }
+
+    /**
+     * Gets the position after the end of the line at this {@code index}, i.e. the position of the first byte of the
+     * next line or the length of the file.
+     *
+     * @param index index of the line.
+     *
+     * @return position after the end of the line.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    public long next(final int index) {
+        checkElementIndex(index, ends.length);
+        return Math.min(length, ends[index] + 1);
+    }
+
+    /**
+     * Tells whether the line at this {@code index} ends with a line end, which only the last line may not.
+     *
+     * @param index index of the line.
+     *
+     * @return true if the line ends with a line end.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    public boolean isTerminated(final int index) {
+        checkElementIndex(index, ends.length);
+        return ends[index] < length;
+    }
+
+    /**
+     * Gets the line end of the line at this {@code index}.
+     *
+     * @param index index of the line.
+     *
+     * @return {@code "\n"}, {@code "\r\n"} or {@code "\r"}, or an empty string if the line is not terminated.
+     *
+     * @throws IndexOutOfBoundsException if there is no line at {@code index}.
+     */
+    public String lineEnd(final int index) {
+        return new String(bytes(end(index), next(index)), charset);
+    }
+
+    /**
+     * Writes the bytes between these positions of the file to this {@code target}, with {@link
+     * FileChannel#transferTo(long, long, WritableByteChannel)}, which lets the operating system copy them without
+     * bringing them into the JVM. If the channel transfers nothing, e.g. to a non-blocking {@code target}, the mapped
+     * bytes are written instead.
+     *
+     * @param from   position of the first byte, inclusive.
+     * @param to     position of the last byte, exclusive.
+     * @param target channel to write to.
+     *
+     * @throws NullPointerException      if {@code target} is null.
+     * @throws IndexOutOfBoundsException if the positions are not in the file.
+     * @throws IOException               if the bytes cannot be written.
+     */
+    public void transferTo(final long from, final long to, final WritableByteChannel target) throws IOException {
+        checkNotNull(target);
+        if (from < 0 || to < from || to > length) {
+            throw new IndexOutOfBoundsException("Bytes " + from + " to " + to + " are not in the file");
+        }
+        final FileChannel channel = file.getChannel();
+        long position = from;
+        while (position < to) {
+            final long transferred = channel.transferTo(position, to - position, target);
+            if (0 < transferred) {
+                position += transferred;
+            }
+            else {
+                final MappedByteBuffer region = regions[(int) (position >>> regionShift)];
+                final ByteBuffer bytes = region.duplicate();
+                final int offset = (int) (position & ((1L << regionShift) - 1));
+                bytes.limit((int) Math.min(region.capacity(), offset + to - position));
+                bytes.position(offset);
+                position += target.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes of the file.
+     *
+     * @return number of bytes.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets the charset that the lines are decoded with.
+     *
+     * @return charset of the lines.
+     */
+    public Charset charset() {
+        return charset;
+    }
+
+    /**
+     * Closes the file. The mapped bytes are released once the {@link ByteLine}s are no longer used.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Gets the byte at this {@code position} of the file.
+     *
+     * @param position position of the byte.
+     *
+     * @return the byte.
+     */
+    byte byteAt(final long position) {
+        return regions[(int) (position >>> regionShift)].get((int) (position & ((1L << regionShift) - 1)));
+    }
+
+    /**
+     * Copies the bytes between these positions of the file, which must be in the file.
+     *
+     * @param from position of the first byte, inclusive.
+     * @param to   position of the last byte, exclusive.
+     *
+     * @return the bytes.
+     */
+    byte[] bytes(final long from, final long to) {
+        final byte[] bytes = new byte[(int) (to - from)];
+        int copied = 0;
+        while (copied < bytes.length) {
+            final long position = from + copied;
+            final MappedByteBuffer region = regions[(int) (position >>> regionShift)].duplicate();
+            final int offset = (int) (position & ((1L << regionShift) - 1));
+            final int count = Math.min(bytes.length - copied, region.capacity() - offset);
+            region.position(offset);
+            region.get(bytes, copied, count);
+            copied += count;
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the line ends in parallel over chunks of the file on this {@code executor}.
+     *
+     * @param executor {@link ExecutorService} to find the line ends on.
+     *
+     * @return line ends, see {@link #ends}.
+     *
+     * @throws IllegalStateException if the calling thread is interrupted.
+     */
+    private long[] findEnds(final ExecutorService executor) {
+        final int tasks = Tasks.tasks(length, MIN_CHUNK);
+        final long chunkSize = Math.max(1, (length + tasks - 1) / tasks);
+        final List<Callable<long[]>> callables = Lists.newArrayList();
+        for (long start = 0; start < length; start += chunkSize) {
+            final long from = start;
+            final long to = Math.min(start + chunkSize, length);
+            callables.add(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    return newlines(from, to);
+                }
+            });
+        }
+
+        final List<long[]> chunks = Tasks.invokeAll(executor, callables);
+
+        int count = 0;
+        for (final long[] chunk : chunks) {
+            count += (int) chunk[0];
+        }
+        final long[] newlines = new long[count];
+        int offset = 0;
+        for (final long[] chunk : chunks) {
+            System.arraycopy(chunk, 1, newlines, offset, (int) chunk[0]);
+            offset += (int) chunk[0];
+        }
+        return withLastLine(newlines);
+    }
+
+    /**
+     * Finds the line ends between these positions on this thread.
+     *
+     * @param from position of the first byte, inclusive.
+     * @param to   position of the last byte, exclusive.
+     *
+     * @return line ends, see {@link #ends}.
+     */
+    private long[] findEnds(final long from, final long to) {
+        final long[] chunk = newlines(from, to);
+        return withLastLine(Arrays.copyOfRange(chunk, 1, 1 + (int) chunk[0]));
+    }
+
+    /**
+     * Adds the end of the file to these {@code newlines} if the last line does not end with one.
+     *
+     * @param newlines positions of the last byte of every line end.
+     *
+     * @return line ends, see {@link #ends}.
+     */
+    private long[] withLastLine(final long[] newlines) {
+        final long lastEnd = 0 == newlines.length ? -1 : newlines[newlines.length - 1];
+        if (lastEnd + 1 == length) {
+            return newlines;
+        }
+        final long[] ends = Arrays.copyOf(newlines, newlines.length + 1);
+        ends[newlines.length] = length;
+        return ends;
+    }
+
+    /**
+     * Finds the positions of every {@code '\n'} and lone {@code '\r'} between these positions, eight bytes at a time.
+     *
+     * @param from position of the first byte, inclusive.
+     * @param to   position of the last byte, exclusive.
+     *
+     * @return number of line ends followed by their positions, in an array that may be longer.
+     */
+    private long[] newlines(final long from, final long to) {
+        long[] newlines = new long[1 + 64];
+        int count = 0;
+        long position = from;
+        while (position < to) {
+            final MappedByteBuffer region = regions[(int) (position >>> regionShift)];
+            final long base = position & ~((1L << regionShift) - 1);
+            final long regionTo = Math.min(to, base + region.capacity());
+
+            for (; position + 8 <= regionTo; position += 8) {
+                // A byte of matches is 0x80 exactly where the word has a '\n' or a '\r', without carries between bytes.
+                final long word = region.getLong((int) (position - base));
+                long matches = zeroBytes(word ^ NEWLINES) | zeroBytes(word ^ RETURNS);
+                while (0 != matches) {
+                    final long match = position + (Long.numberOfTrailingZeros(matches) >>> 3);
+                    matches &= matches - 1;
+                    if (!endsLine(match, region.get((int) (match - base)))) {
+                        continue;
+                    }
+                    if (count + 1 == newlines.length) {
+                        newlines = Arrays.copyOf(newlines, 2 * newlines.length);
+                    }
+                    newlines[1 + count++] = match;
+                }
+            }
+            for (; position < regionTo; position++) {
+                final byte b = region.get((int) (position - base));
+                if (('\n' == b || '\r' == b) && endsLine(position, b)) {
+                    if (count + 1 == newlines.length) {
+                        newlines = Arrays.copyOf(newlines, 2 * newlines.length);
+                    }
+                    newlines[1 + count++] = position;
+                }
+            }
+        }
+        newlines[0] = count;
+        return newlines;
+    }
+
+    /**
+     * Marks the bytes of this {@code word} that are {@code 0}.
+     *
+     * @param word eight bytes.
+     *
+     * @return a word whose bytes are {@code 0x80} where the bytes of {@code word} are {@code 0}, and {@code 0}
+     *         elsewhere.
+     */
+    private static long zeroBytes(final long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /**
+     * Tells whether this {@code '\n'} or {@code '\r'} ends a line: a {@code '\r'} that is followed by a {@code '\n'}
+     * does not, the {@code '\n'} does.
+     *
+     * @param position position of the byte.
+     * @param b        the byte, {@code '\n'} or {@code '\r'}.
+     *
+     * @return true if the line ends at {@code position}.
+     */
+    private boolean endsLine(final long position, final byte b) {
+        return '\n' == b || position + 1 == length || '\n' != byteAt(position + 1);
+    }
+}
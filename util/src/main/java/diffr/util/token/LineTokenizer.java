@@ -0,0 +1,123 @@
+package diffr.util.token;
+
+import com.google.common.collect.Lists;
+import diffr.util.Tasks;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Turns files into streams of {@code int} symbols of a {@link SymbolTable}, so that lines are compared by comparing
+ * {@code int}s and every distinct line is held once however often it occurs, e.g. in logs or generated code. The
+ * files that are compared must be tokenized into the same {@link SymbolTable}.
+ * <p/>
+ * <p>
+ * Tokenizing a file takes two passes: the fingerprints of the lines are computed first, in parallel over chunks of
+ * the file if an {@link ExecutorService} is given, and the lines are then interned in order, so that the symbols do
+ * not depend on how the file was split.
+ * </p>
+ *
+ * @since 1.0
+ */
+public final class LineTokenizer {
+
+    /**
+     * Smallest number of lines that is worth a task of its own.
+     */
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private static final String ERROR_MSG = "This class should not be instantiated";
+
+    /**
+     * This class should not be instantiated.
+     *
+     * @throws UnsupportedOperationException this class should not be instantiated.
+     */
+    public LineTokenizer() {
+        throw new UnsupportedOperationException(ERROR_MSG);
+    }
+
+    /**
+     * Tokenizes these {@code lines} into this {@code symbolTable}.
+     *
+     * @param lines       lines to tokenize.
+     * @param symbolTable {@link SymbolTable} to intern the lines into.
+     *
+     * @return symbols of {@code lines}.
+     *
+     * @throws NullPointerException if any parameter or any of the lines is null.
+     */
+    public static int[] tokenize(final List<? extends CharSequence> lines, final SymbolTable symbolTable) {
+        checkNotNull(lines);
+        checkNotNull(symbolTable);
+        final int[] symbols = new int[lines.size()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolTable.intern(lines.get(i));
+        }
+        return symbols;
+    }
+
+    /**
+     * Tokenizes these {@code lines} into this {@code symbolTable}, computing their fingerprints on this {@code
+     * executor}. The calling thread interns the lines, so it must not be one of the threads of {@code executor}.
+     *
+     * @param lines       lines to tokenize.
+     * @param symbolTable {@link SymbolTable} to intern the lines into.
+     * @param executor    {@link ExecutorService} to fingerprint the lines on.
+     *
+     * @return symbols of {@code lines}, the same as the ones of {@link #tokenize(List, SymbolTable)}.
+     *
+     * @throws NullPointerException  if any parameter or any of the lines is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     */
+    public static int[] tokenize(final List<? extends CharSequence> lines, final SymbolTable symbolTable,
+                                 final ExecutorService executor) {
+        checkNotNull(symbolTable);
+        final long[] fingerprints = fingerprints(lines, executor);
+        final int[] symbols = new int[fingerprints.length];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolTable.intern(lines.get(i), fingerprints[i]);
+        }
+        return symbols;
+    }
+
+    /**
+     * Gets the fingerprints of these {@code lines}, see {@link SymbolTable#fingerprint(CharSequence)}, computed in
+     * parallel over chunks of at least {@value #MIN_CHUNK} lines on this {@code executor}.
+     *
+     * @param lines    lines to fingerprint.
+     * @param executor {@link ExecutorService} to fingerprint the lines on.
+     *
+     * @return fingerprints of {@code lines}.
+     *
+     * @throws NullPointerException  if any parameter or any of the lines is null.
+     * @throws IllegalStateException if the calling thread is interrupted.
+     */
+    public static long[] fingerprints(final List<? extends CharSequence> lines, final ExecutorService executor) {
+        checkNotNull(lines);
+        checkNotNull(executor);
+        final long[] fingerprints = new long[lines.size()];
+        final int tasks = Tasks.tasks(lines.size(), MIN_CHUNK);
+        final int chunkSize = Math.max(1, (lines.size() + tasks - 1) / tasks);
+
+        final List<Callable<Void>> callables = Lists.newArrayList();
+        for (int start = 0; start < lines.size(); start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(start + chunkSize, lines.size());
+            callables.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = from; i < to; i++) {
+                        fingerprints[i] = SymbolTable.fingerprint(checkNotNull(lines.get(i)));
+                    }
+                    return null;
+                }
+            });
+        }
+        Tasks.invokeAll(executor, callables);
+        return fingerprints;
+    }
+}
@@ -0,0 +1,254 @@
+package diffr.util.token;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Table of the distinct lines of one or more files, which interns every line to an {@code int} symbol: the first
+ * occurrence of each distinct line is given the next free symbol, starting from {@code 0}, and is stored once.
+ * <p/>
+ * <p>
+ * The table is kept in flat primitive arrays rather than in a map of strings: the characters of all the lines are
+ * stored one after another in a single array, and every symbol only takes its offset, its 64-bit fingerprint and a
+ * slot of an open-addressing hash table. Lines are looked up by their fingerprint, see
+ * {@link #fingerprint(CharSequence)}, and a line whose fingerprint matches is compared character by character, so
+ * lines whose fingerprints collide are still given different symbols.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @since 1.0
+ */
+public final class SymbolTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Characters of every symbol, symbol s takes chars[offsets[s]] to chars[offsets[s + 1]].
+    private char[] chars = new char[INITIAL_CAPACITY];
+
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+
+    // Open-addressing hash table of the symbols, plus one, keyed on their fingerprints; 0 marks an empty slot.
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+    private int size;
+
+    private int collisions;
+
+    /**
+     * Gets the 64-bit fingerprint of this {@code line}: the FNV-1a hash of its characters, mixed so that its low bits
+     * depend on all the characters.
+     *
+     * @param line line to fingerprint.
+     *
+     * @return fingerprint of {@code line}.
+     *
+     * @throws NullPointerException if {@code line} is null.
+     */
+    public static long fingerprint(final CharSequence line) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < line.length(); i++) {
+            hash = (hash ^ line.charAt(i)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Interns this {@code line}.
+     *
+     * @param line line to intern.
+     *
+     * @return symbol of {@code line}.
+     *
+     * @throws NullPointerException if {@code line} is null.
+     */
+    public int intern(final CharSequence line) {
+        return intern(line, fingerprint(line));
+    }
+
+    /**
+     * Interns this {@code line} whose fingerprint is already known, e.g. because the fingerprints of a file were
+     * computed in parallel.
+     *
+     * @param line        line to intern.
+     * @param fingerprint fingerprint of {@code line}, see {@link #fingerprint(CharSequence)}.
+     *
+     * @return symbol of {@code line}.
+     *
+     * @throws NullPointerException if {@code line} is null.
+     */
+    public int intern(final CharSequence line, final long fingerprint) {
+        checkNotNull(line);
+        int slot = (int) fingerprint & (slots.length - 1);
+        for (int symbol = slots[slot] - 1; -1 != symbol; symbol = slots[slot] - 1) {
+            if (fingerprint == fingerprints[symbol]) {
+                if (matches(symbol, line)) {
+                    return symbol;
+                }
+                collisions++;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return add(line, fingerprint, slot);
+    }
+
+    /**
+     * Gets the symbol of this {@code line}, without interning it.
+     *
+     * @param line line to get the symbol of.
+     *
+     * @return symbol of {@code line}, or {@code -1} if it was not interned.
+     *
+     * @throws NullPointerException if {@code line} is null.
+     */
+    public int symbolOf(final CharSequence line) {
+        checkNotNull(line);
+        final long fingerprint = fingerprint(line);
+        int slot = (int) fingerprint & (slots.length - 1);
+        for (int symbol = slots[slot] - 1; -1 != symbol; symbol = slots[slot] - 1) {
+            if (fingerprint == fingerprints[symbol] && matches(symbol, line)) {
+                return symbol;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the line of this {@code symbol}.
+     *
+     * @param symbol symbol to get the line of.
+     *
+     * @return line of {@code symbol}.
+     *
+     * @throws IndexOutOfBoundsException if {@code symbol} is not in this table.
+     */
+    public String line(final int symbol) {
+        checkElementIndex(symbol, size);
+        return new String(chars, offsets[symbol], offsets[symbol + 1] - offsets[symbol]);
+    }
+
+    /**
+     * Gets the fingerprint of the line of this {@code symbol}.
+     *
+     * @param symbol symbol to get the fingerprint of.
+     *
+     * @return fingerprint of the line of {@code symbol}.
+     *
+     * @throws IndexOutOfBoundsException if {@code symbol} is not in this table.
+     */
+    public long fingerprint(final int symbol) {
+        checkElementIndex(symbol, size);
+        return fingerprints[symbol];
+    }
+
+    /**
+     * Gets the number of symbols, i.e. of distinct lines.
+     *
+     * @return number of symbols.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of characters stored for all the symbols.
+     *
+     * @return number of characters.
+     */
+    public int characters() {
+        return offsets[size];
+    }
+
+    /**
+     * Gets the number of times that a line had the fingerprint of another line, which is expected to be {@code 0}
+     * unless the table holds billions of lines.
+     *
+     * @return number of fingerprint collisions.
+     */
+    public int collisions() {
+        return collisions;
+    }
+
+    /**
+     * Whether the line of this {@code symbol} is this {@code line}.
+     *
+     * @param symbol symbol to compare.
+     * @param line   line to compare.
+     *
+     * @return {@code true} if they have the same characters.
+     */
+    private boolean matches(final int symbol, final CharSequence line) {
+        final int offset = offsets[symbol];
+        if (offsets[symbol + 1] - offset != line.length()) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            if (chars[offset + i] != line.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds this {@code line} as a new symbol.
+     *
+     * @param line        line to add.
+     * @param fingerprint fingerprint of {@code line}.
+     * @param slot        empty slot of the hash table to put the symbol into.
+     *
+     * @return the new symbol.
+     */
+    private int add(final CharSequence line, final long fingerprint, final int slot) {
+        final int symbol = size;
+        if (symbol == fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, 2 * symbol);
+            offsets = Arrays.copyOf(offsets, 2 * symbol + 1);
+        }
+        final int offset = offsets[symbol];
+        if (chars.length - offset < line.length()) {
+            chars = Arrays.copyOf(chars, (int) Math.min(Integer.MAX_VALUE,
+                                                        Math.max(2L * chars.length, (long) offset + line.length())));
+        }
+        for (int i = 0; i < line.length(); i++) {
+            chars[offset + i] = line.charAt(i);
+        }
+        offsets[symbol + 1] = offset + line.length();
+        fingerprints[symbol] = fingerprint;
+        slots[slot] = symbol + 1;
+        size++;
+
+        // At most half of the slots are taken, so that probes stay short.
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    /**
+     * Doubles the hash table.
+     */
+    private void rehash() {
+        slots = new int[2 * slots.length];
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = (int) fingerprints[symbol] & (slots.length - 1);
+            while (0 != slots[slot]) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+}
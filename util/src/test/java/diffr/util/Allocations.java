@@ -0,0 +1,46 @@
+package diffr.util;
+
+import com.sun.management.ThreadMXBean;
+import org.testng.SkipException;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Utilities for measuring how many bytes code allocates.
+ *
+ * @since 1.0
+ */
+public final class Allocations {
+
+    /**
+     * Gets the number of bytes allocated by the current thread while running this {@code task}. The {@code task}
+     * is run a number of times before, so that it is compiled, and the cost of reading the counter is subtracted.
+     *
+     * @param task task to measure.
+     *
+     * @return number of bytes allocated by {@code task}.
+     *
+     * @throws SkipException if the JVM does not support measuring allocated bytes per thread.
+     */
+    public static long allocatedBytes(final Runnable task) {
+        final java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        if (!(mxBean instanceof ThreadMXBean) || !((ThreadMXBean) mxBean).isThreadAllocatedMemorySupported()) {
+            throw new SkipException("Measuring allocated bytes is not supported.");
+        }
+
+        final ThreadMXBean threadMXBean = (ThreadMXBean) mxBean;
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        final long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 10000; i++) {
+            task.run();
+        }
+
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        final long overhead = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+        final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        task.run();
+        final long after = threadMXBean.getThreadAllocatedBytes(threadId);
+        return after - before - overhead;
+    }
+}
@@ -0,0 +1,103 @@
+package diffr.util;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link Tasks}.
+ *
+ * @since 1.0
+ */
+public class TasksTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new Tasks();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTasksNoChunk() {
+        Tasks.tasks(10, 0);
+    }
+
+    @Test
+    public void testTasks() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        assertThat(Tasks.tasks(0, 10), is(1));
+        assertThat(Tasks.tasks(19, 10), is(1));
+        assertThat(Tasks.tasks(20, 10), is(Math.min(2, 4 * processors)));
+        assertThat(Tasks.tasks(Long.MAX_VALUE, 10), is(4 * processors));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testInvokeAllNullExecutor() {
+        Tasks.invokeAll(null, Collections.<Callable<Integer>>emptyList());
+    }
+
+    @Test
+    public void testInvokeAll() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Callable<Integer>> callables = Lists.newArrayList();
+            for (int i = 0; i < 10; i++) {
+                final int result = i;
+                callables.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return result;
+                    }
+                });
+            }
+            assertThat(Tasks.invokeAll(executor, callables), is((List<Integer>) Lists.newArrayList(
+                    0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvokeAllPropagatesCause() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Tasks.invokeAll(executor, Collections.singletonList(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    throw new IllegalArgumentException();
+                }
+            }));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInvokeAllInterrupted() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        Thread.currentThread().interrupt();
+        try {
+            Tasks.invokeAll(executor, Collections.singletonList(new Callable<Void>() {
+                @Override
+                public Void call() throws InterruptedException {
+                    new CountDownLatch(1).await();
+                    return null;
+                }
+            }));
+        }
+        finally {
+            assertThat(Thread.interrupted(), is(true));
+            executor.shutdownNow();
+        }
+    }
+}
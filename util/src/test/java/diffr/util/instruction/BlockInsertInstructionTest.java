@@ -0,0 +1,53 @@
+package diffr.util.instruction;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link BlockInsertInstruction}
+ *
+ * @since 1.0
+ */
+public class BlockInsertInstructionTest {
+
+    /**
+     * Tests whether an exception is thrown when the constructor is invoked with null lines.
+     */
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullConstructorArgument() {
+        new BlockInsertInstruction(null);
+    }
+
+    /**
+     * Tests whether an exception is thrown when the constructor is invoked with a null line.
+     */
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullLine() {
+        new BlockInsertInstruction(Arrays.asList("a", null));
+    }
+
+    /**
+     * Tests whether an exception is thrown when the constructor is invoked with no lines.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEmptyLines() {
+        new BlockInsertInstruction(Collections.<String>emptyList());
+    }
+
+    /**
+     * Tests whether the lines getter works correctly.
+     */
+    @Test
+    public void testGetLines() {
+        final List<String> lines = Arrays.asList("hello", "world");
+        final BlockInsertInstruction instruction = new BlockInsertInstruction(lines);
+        assertThat(instruction.getLines(), is(lines));
+        assertThat(instruction.getType(), is(Instruction.Type.BlockInsert));
+    }
+}
@@ -3,6 +3,8 @@ package diffr.util.instruction;
 import com.google.common.collect.Ranges;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -30,4 +32,13 @@ public class InstructionComposerTest {
         final String formattedString = InstructionComposer.composeString(instruction);
         assertThat(formattedString.matches(InstructionParser.COPY_REGEX), is(true));
     }
+
+    /**
+     * Tests whether a block insert is composed as the inserts of its lines.
+     */
+    @Test
+    public void testStringComposerBlockInsert() {
+        instruction = new BlockInsertInstruction(Arrays.asList("hello", "", "world"));
+        assertThat(InstructionComposer.composeString(instruction), is("> hello\n> \n> world"));
+    }
 }
@@ -0,0 +1,68 @@
+package diffr.util.instruction;
+
+import com.google.common.collect.Ranges;
+import org.testng.annotations.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link InstructionCosts}.
+ *
+ * @since 1.0
+ */
+public class InstructionCostsTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new InstructionCosts();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testCostNullInstruction() {
+        InstructionCosts.cost(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testInsertCostNullText() {
+        InstructionCosts.insertCost(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCopyCostNegativeStart() {
+        InstructionCosts.copyCost(-1, 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCopyCostEndBeforeStart() {
+        InstructionCosts.copyCost(3, 2);
+    }
+
+    @Test
+    public void testDigits() {
+        assertThat(InstructionCosts.digits(0), is(1));
+        assertThat(InstructionCosts.digits(9), is(1));
+        assertThat(InstructionCosts.digits(10), is(2));
+        assertThat(InstructionCosts.digits(999999999), is(9));
+        assertThat(InstructionCosts.digits(1000000000), is(10));
+        assertThat(InstructionCosts.digits(Integer.MAX_VALUE), is(10));
+    }
+
+    @Test
+    public void testCost() throws UnsupportedEncodingException {
+        final Instruction[] instructions = {new CopyInstruction(Ranges.closed(0, 0)),
+                                            new CopyInstruction(Ranges.closed(7, 10)),
+                                            new CopyInstruction(Ranges.closed(99999, 1234567)),
+                                            new InsertInstruction(""),
+                                            new InsertInstruction("hello world"),
+                                            new InsertInstruction("é€ 😀"),
+                                            new BlockInsertInstruction(Arrays.asList("a", "é€", ""))};
+        for (final Instruction instruction : instructions) {
+            final String line = InstructionComposer.composeString(instruction) + "\n";
+            assertThat(InstructionCosts.cost(instruction), is(line.getBytes("UTF-8").length));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package diffr.util.instruction;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ranges;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Tests {@link InstructionOptimizer}.
+ *
+ * @since 1.0
+ */
+public class InstructionOptimizerTest {
+
+    private static final List<String> ORIGINAL_FILE = Arrays.asList("a", "b", "c");
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullSink() {
+        new InstructionOptimizer(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testConstructorNullOriginalFile() {
+        new InstructionOptimizer(new CollectingSink(), null, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorNegativeMaxInlinedLines() {
+        new InstructionOptimizer(new CollectingSink(), ORIGINAL_FILE, -1);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testAcceptNullInstruction() throws IOException {
+        new InstructionOptimizer(new CollectingSink()).accept(null);
+    }
+
+    @Test
+    public void testMergesCopies() throws IOException {
+        final CollectingSink sink = new CollectingSink();
+        final InstructionOptimizer optimizer = new InstructionOptimizer(sink);
+        optimizer.accept(copy(0, 4));
+        optimizer.accept(copy(5, 9));
+        optimizer.accept(copy(10, 10));
+        assertThat(sink.instructions.size(), is(0));
+        optimizer.accept(copy(5, 9));
+        optimizer.finish();
+        assertThat(sink.instructions, is((List<String>) Lists.newArrayList("0,10", "5,9")));
+    }
+
+    @Test
+    public void testGroupsInserts() throws IOException {
+        final CollectingSink sink = new CollectingSink();
+        final InstructionOptimizer optimizer = new InstructionOptimizer(sink);
+        optimizer.accept(new InsertInstruction("x"));
+        optimizer.accept(new BlockInsertInstruction(Arrays.asList("y", "z")));
+        optimizer.accept(copy(3, 4));
+        optimizer.accept(new InsertInstruction("w"));
+        optimizer.finish();
+        assertThat(sink.instructions, is((List<String>) Lists.newArrayList("> x\n> y\n> z", "3,4", "> w")));
+        assertThat(sink.types, is((List<Instruction.Type>) Lists.newArrayList(Instruction.Type.BlockInsert,
+                                                                                Instruction.Type.Copy,
+                                                                                Instruction.Type.Insert)));
+    }
+
+    @Test
+    public void testGroupsAtMostMaxBlockLines() throws IOException {
+        final CollectingSink sink = new CollectingSink();
+        final InstructionOptimizer optimizer = new InstructionOptimizer(sink);
+        for (int i = 0; i < InstructionOptimizer.MAX_BLOCK_LINES + 1; i++) {
+            optimizer.accept(new InsertInstruction("line " + i));
+        }
+        assertThat(sink.instructions.size(), is(1));
+        optimizer.finish();
+        assertThat(sink.types, is((List<Instruction.Type>) Lists.newArrayList(Instruction.Type.BlockInsert,
+                                                                                Instruction.Type.Insert)));
+    }
+
+    @Test
+    public void testInlinesCheaperCopies() throws IOException {
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 20000; i++) {
+            originalFile.add("line " + i);
+        }
+        originalFile.set(12345, "b");
+        originalFile.set(12346, "c");
+        originalFile.set(15000, "a");
+
+        final CollectingSink sink = new CollectingSink();
+        final InstructionOptimizer optimizer = new InstructionOptimizer(sink, originalFile, 2);
+        optimizer.accept(copy(12345, 12346));
+        optimizer.accept(new InsertInstruction("x"));
+        optimizer.accept(copy(10, 11));
+        optimizer.accept(copy(15000, 15002));
+        optimizer.accept(copy(15000, 15000));
+        optimizer.finish();
+
+        // "12345,12346" costs more than "> b" and "> c", "10,11" less than its lines and "15000,15002" is longer
+        // than 2 lines.
+        assertThat(sink.instructions, is((List<String>) Lists.newArrayList("> b\n> c\n> x", "10,11", "15000,15002",
+                                                                           "> a")));
+    }
+
+    @Test
+    public void testOptimizeRandom() {
+        final Random random = new Random(19);
+        final List<String> originalFile = Lists.newArrayList();
+        for (int i = 0; i < 1000; i++) {
+            originalFile.add(random.nextBoolean() ? String.valueOf(random.nextInt(10)) : "line " + i);
+        }
+        final List<Instruction> instructions = Lists.newArrayList();
+        for (int i = 0; i < 500; i++) {
+            if (random.nextBoolean()) {
+                final int start = random.nextInt(originalFile.size() - 10);
+                instructions.add(copy(start, start + random.nextInt(10)));
+            }
+            else {
+                instructions.add(new InsertInstruction("new line " + random.nextInt(100)));
+            }
+        }
+
+        final List<Instruction> optimized = InstructionOptimizer.optimize(instructions, originalFile, 8);
+        assertThat(patch(originalFile, optimized), is(patch(originalFile, instructions)));
+        assertThat(optimized.size(), is(lessThan(instructions.size())));
+        assertThat(cost(optimized), is(lessThanOrEqualTo(cost(instructions))));
+        assertThat(InstructionOptimizer.optimize(Collections.<Instruction>emptyList(), originalFile, 8).size(),
+                   is(0));
+    }
+
+    /**
+     * Creates a {@link CopyInstruction} of the lines from {@code start} to {@code end}.
+     *
+     * @param start first line.
+     * @param end   last line.
+     *
+     * @return new {@link CopyInstruction}.
+     */
+    private static Instruction copy(final int start, final int end) {
+        return new CopyInstruction(Ranges.closed(start, end));
+    }
+
+    /**
+     * Gets the cost of these {@code instructions}.
+     *
+     * @param instructions {@link Instruction}s to get the cost of.
+     *
+     * @return total cost.
+     */
+    private static long cost(final List<Instruction> instructions) {
+        long cost = 0;
+        for (final Instruction instruction : instructions) {
+            cost += InstructionCosts.cost(instruction);
+        }
+        return cost;
+    }
+
+    /**
+     * Applies these {@code instructions} to this {@code originalFile}.
+     *
+     * @param originalFile original file.
+     * @param instructions {@link Instruction}s to apply.
+     *
+     * @return the patched file.
+     */
+    private static List<String> patch(final List<String> originalFile, final List<Instruction> instructions) {
+        final List<String> patched = Lists.newArrayList();
+        for (final Instruction instruction : instructions) {
+            switch (instruction.getType()) {
+                case Copy:
+                    final CopyInstruction copy = (CopyInstruction) instruction;
+                    patched.addAll(originalFile.subList(copy.getRange().lowerEndpoint(),
+                                                        copy.getRange().upperEndpoint() + 1));
+                    break;
+                case Insert:
+                    patched.add(((InsertInstruction) instruction).getText());
+                    break;
+                case BlockInsert:
+                    patched.addAll(((BlockInsertInstruction) instruction).getLines());
+            }
+        }
+        return patched;
+    }
+
+    /**
+     * {@link InstructionSink} that collects the {@link Instruction}s that it receives, composed to strings, and their
+     * types.
+     */
+    private static final class CollectingSink implements InstructionSink {
+
+        private final List<String> instructions = Lists.newArrayList();
+
+        private final List<Instruction.Type> types = Lists.newArrayList();
+
+        @Override
+        public void accept(final Instruction instruction) {
+            instructions.add(InstructionComposer.composeString(instruction));
+            types.add(instruction.getType());
+        }
+    }
+}
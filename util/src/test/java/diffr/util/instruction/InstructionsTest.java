@@ -83,6 +83,28 @@ public class InstructionsTest {
         }
     }
 
+    /**
+     * Tests whether the writer sink writes the instructions like the write instruction method.
+     */
+    @Test
+    public void testNewWriterSink() throws IOException {
+        final StringWriter stringWriter = new StringWriter();
+        final BufferedWriter writer = new BufferedWriter(stringWriter);
+        final InstructionSink sink = Instructions.newWriterSink(writer);
+        sink.accept(InstructionParser.parseInstruction("3,4").get());
+        sink.accept(InstructionParser.parseInstruction("> hello world").get());
+        writer.flush();
+        assertThat(stringWriter.toString(), is("3,4\n> hello world\n"));
+    }
+
+    /**
+     * Tests whether the writer sink rejects a null writer.
+     */
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNewWriterSinkNullWriter() {
+        Instructions.newWriterSink(null);
+    }
+
     /**
      * Tests whether the read instructions method works correctly.
      */
@@ -0,0 +1,63 @@
+package diffr.util.io;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Tests {@link ByteLine}.
+ *
+ * @since 1.0
+ */
+public class ByteLineTest {
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testByteAtMissingByte() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(LineIndexTest.file("ab\n"));
+        try {
+            lineIndex.get(0).byteAt(2);
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test
+    public void testByteLine() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        // The second "équipe" crosses a region.
+        final LineIndex lineIndex = LineIndex.open(LineIndexTest.file("équipe\r\néquipe\nequipe\n\néquip\n"),
+                                                   Charsets.UTF_8, executor, 4);
+        try {
+            final ByteLine first = lineIndex.get(0);
+            assertThat(first.length(), is(7));
+            assertThat(first.byteAt(6), is((byte) 'e'));
+            assertThat(first.toString(), is("équipe"));
+
+            assertThat(first, is(lineIndex.get(1)));
+            assertThat(first.hashCode(), is(lineIndex.get(1).hashCode()));
+            assertThat(first, is(not(lineIndex.get(2))));
+            assertThat(Sets.newHashSet(lineIndex).size(), is(4));
+
+            // Bytes are compared as unsigned values, so "é" comes after "e".
+            assertThat(first.compareTo(lineIndex.get(1)), is(0));
+            assertThat(first.compareTo(lineIndex.get(2)), is(greaterThan(0)));
+            assertThat(lineIndex.get(3).compareTo(lineIndex.get(2)), is(lessThan(0)));
+            assertThat(lineIndex.get(4).compareTo(first), is(lessThan(0)));
+        }
+        finally {
+            lineIndex.close();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package diffr.util.io;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link LineIndex}.
+ *
+ * @since 1.0
+ */
+public class LineIndexTest {
+
+    private static final String[] CONTENTS = {"", "\n", "a", "a\n", "a\nb", "a\r\nb\r\n", "\n\n\r\n", "x\ra\nb\n",
+                                              "\r", "a\r\rb\r", "\r\r\n\n\r", "é\nü\n",
+                                              "a longer line than eight bytes\nand another one\n"};
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testOpenNullFile() throws IOException {
+        LineIndex.open(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testOpenNullCharset() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LineIndex.open(file(""), null, executor);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testOpenNullExecutor() throws IOException {
+        LineIndex.open(file(""), Charsets.UTF_8, null);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testOpenMissingFile() throws IOException {
+        LineIndex.open(new File(Files.createTempDir(), "missing"));
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetMissingLine() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(file("a\n"));
+        try {
+            lineIndex.get(1);
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test
+    public void testOpen() throws IOException {
+        for (final String content : CONTENTS) {
+            final File file = file(content);
+            final LineIndex lineIndex = LineIndex.open(file);
+            try {
+                assertThat(strings(lineIndex), is(Files.readLines(file, Charsets.UTF_8)));
+                assertThat(lineIndex.length(), is(file.length()));
+                if (!lineIndex.isEmpty()) {
+                    assertThat(lineIndex.next(lineIndex.size() - 1), is(file.length()));
+                }
+            }
+            finally {
+                lineIndex.close();
+            }
+        }
+    }
+
+    @Test
+    public void testOpenPositions() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(file("ab\r\n\ncd"));
+        try {
+            assertThat(lineIndex.size(), is(3));
+            assertThat(new long[]{lineIndex.start(0), lineIndex.end(0), lineIndex.next(0)}, is(new long[]{0, 2, 4}));
+            assertThat(new long[]{lineIndex.start(1), lineIndex.end(1), lineIndex.next(1)}, is(new long[]{4, 4, 5}));
+            assertThat(new long[]{lineIndex.start(2), lineIndex.end(2), lineIndex.next(2)}, is(new long[]{5, 7, 7}));
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test
+    public void testIsTerminated() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(file("a\r\nb\nc"));
+        try {
+            assertThat(lineIndex.isTerminated(0), is(true));
+            assertThat(lineIndex.isTerminated(1), is(true));
+            assertThat(lineIndex.isTerminated(2), is(false));
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test
+    public void testLineEnd() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(file("a\r\nb\rc\n\rd"));
+        try {
+            assertThat(lineIndex.size(), is(5));
+            assertThat(lineIndex.lineEnd(0), is("\r\n"));
+            assertThat(lineIndex.lineEnd(1), is("\r"));
+            assertThat(lineIndex.lineEnd(2), is("\n"));
+            assertThat(lineIndex.lineEnd(3), is("\r"));
+            assertThat(lineIndex.lineEnd(4), is(""));
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testTransferToOutsideFile() throws IOException {
+        final LineIndex lineIndex = LineIndex.open(file("ab\n"));
+        try {
+            lineIndex.transferTo(1, 4, Channels.newChannel(new ByteArrayOutputStream()));
+        }
+        finally {
+            lineIndex.close();
+        }
+    }
+
+    @Test
+    public void testTransferTo() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final LineIndex lineIndex = LineIndex.open(file("first\nsecond\nthird"), Charsets.UTF_8, executor, 4);
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            lineIndex.transferTo(lineIndex.start(1), lineIndex.next(2), Channels.newChannel(bytes));
+            lineIndex.transferTo(0, 0, Channels.newChannel(bytes));
+            assertThat(new String(bytes.toByteArray(), Charsets.UTF_8), is("second\nthird"));
+
+            final File target = File.createTempFile("diffr", "transfer", Files.createTempDir());
+            final FileChannel channel = new FileOutputStream(target).getChannel();
+            try {
+                lineIndex.transferTo(2, 9, channel);
+            }
+            finally {
+                channel.close();
+            }
+            assertThat(Files.toString(target, Charsets.UTF_8), is("rst\nsec"));
+        }
+        finally {
+            lineIndex.close();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testOpenParallel() throws IOException {
+        final Random random = new Random(37);
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 150000; i++) {
+            for (int j = random.nextInt(40); 0 < j; j--) {
+                content.append((char) ('a' + random.nextInt(26)));
+            }
+            final int end = random.nextInt(10);
+            content.append(0 == end ? "\r" : end < 3 ? "\r\n" : "\n");
+        }
+        content.append("last");
+        final File file = file(content.toString());
+        final List<String> expected = Files.readLines(file, Charsets.UTF_8);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Several chunks, and lines and words that cross regions.
+            for (final int regionSize : new int[]{1 << 12, LineIndex.REGION_SIZE}) {
+                final LineIndex lineIndex = LineIndex.open(file, Charsets.UTF_8, executor, regionSize);
+                try {
+                    assertThat(strings(lineIndex), is(expected));
+                }
+                finally {
+                    lineIndex.close();
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Writes this {@code content} to a new temporary file.
+     *
+     * @param content content of the file.
+     *
+     * @return the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    static File file(final String content) throws IOException {
+        final File file = File.createTempFile("diffr", "lines", Files.createTempDir());
+        Files.write(content, file, Charsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Decodes these {@code lines}.
+     *
+     * @param lines lines to decode.
+     *
+     * @return decoded lines.
+     */
+    private static List<String> strings(final List<ByteLine> lines) {
+        final List<String> strings = Lists.newArrayList();
+        for (final ByteLine line : lines) {
+            strings.add(new String(line.toByteArray(), Charsets.UTF_8));
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,80 @@
+package diffr.util.token;
+
+import diffr.util.RandomFiles;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link LineTokenizer}.
+ *
+ * @since 1.0
+ */
+public class LineTokenizerTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testConstructor() {
+        new LineTokenizer();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testTokenizeNullLines() {
+        LineTokenizer.tokenize(null, new SymbolTable());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testTokenizeNullSymbolTable() {
+        LineTokenizer.tokenize(Collections.<String>emptyList(), null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testTokenizeNullLine() {
+        LineTokenizer.tokenize(Arrays.asList("a", null), new SymbolTable());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testFingerprintsNullExecutor() {
+        LineTokenizer.fingerprints(Collections.<String>emptyList(), null);
+    }
+
+    @Test
+    public void testTokenize() {
+        final SymbolTable symbolTable = new SymbolTable();
+        assertThat(LineTokenizer.tokenize(Arrays.asList("a", "b", "a", "c"), symbolTable), is(new int[]{0, 1, 0, 2}));
+        // Files tokenized into the same table share their symbols.
+        assertThat(LineTokenizer.tokenize(Arrays.asList("c", "d", "a"), symbolTable), is(new int[]{2, 3, 0}));
+        assertThat(symbolTable.size(), is(4));
+    }
+
+    @Test
+    public void testTokenizeParallel() {
+        final List<Text> file = RandomFiles.getRandomFile(100000, 11);
+        final SymbolTable symbolTable = new SymbolTable();
+        final int[] expected = LineTokenizer.tokenize(file, symbolTable);
+        for (int i = 0; i < file.size(); i++) {
+            assertThat(symbolTable.line(expected[i]), is(file.get(i).toString()));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final long[] fingerprints = LineTokenizer.fingerprints(file, executor);
+            for (int i = 0; i < file.size(); i++) {
+                assertThat(fingerprints[i], is(SymbolTable.fingerprint(file.get(i))));
+            }
+            assertThat(LineTokenizer.tokenize(file, new SymbolTable(), executor), is(expected));
+            assertThat(LineTokenizer.tokenize(Collections.<String>emptyList(), new SymbolTable(), executor),
+                       is(new int[0]));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package diffr.util.token;
+
+import com.google.common.collect.Maps;
+import diffr.util.RandomFiles;
+import javolution.text.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests {@link SymbolTable}.
+ *
+ * @since 1.0
+ */
+public class SymbolTableTest {
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testFingerprintNullLine() {
+        SymbolTable.fingerprint(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testInternNullLine() {
+        new SymbolTable().intern(null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testSymbolOfNullLine() {
+        new SymbolTable().symbolOf(null);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testLineMissingSymbol() {
+        new SymbolTable().line(0);
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertThat(SymbolTable.fingerprint("a line"), is(SymbolTable.fingerprint(new StringBuilder("a line"))));
+        assertThat(SymbolTable.fingerprint("a line") == SymbolTable.fingerprint("a lime"), is(false));
+        assertThat(SymbolTable.fingerprint("") == SymbolTable.fingerprint("\u0000"), is(false));
+    }
+
+    @Test
+    public void testIntern() {
+        final SymbolTable symbolTable = new SymbolTable();
+        assertThat(symbolTable.intern("a"), is(0));
+        assertThat(symbolTable.intern("bc"), is(1));
+        assertThat(symbolTable.intern(new StringBuilder("a")), is(0));
+        assertThat(symbolTable.intern(""), is(2));
+        assertThat(symbolTable.intern("bc"), is(1));
+
+        assertThat(symbolTable.size(), is(3));
+        assertThat(symbolTable.characters(), is(3));
+        assertThat(symbolTable.line(1), is("bc"));
+        assertThat(symbolTable.line(2), is(""));
+        assertThat(symbolTable.fingerprint(1), is(SymbolTable.fingerprint("bc")));
+        assertThat(symbolTable.symbolOf("bc"), is(1));
+        assertThat(symbolTable.symbolOf("b"), is(-1));
+        assertThat(symbolTable.size(), is(3));
+    }
+
+    @Test
+    public void testInternCollision() {
+        final SymbolTable symbolTable = new SymbolTable();
+        // Lines with the same fingerprint are still told apart by their characters.
+        assertThat(symbolTable.intern("a", 42L), is(0));
+        assertThat(symbolTable.intern("b", 42L), is(1));
+        assertThat(symbolTable.intern("a", 42L), is(0));
+        assertThat(symbolTable.intern("b", 42L), is(1));
+        assertThat(symbolTable.collisions(), is(2));
+        assertThat(symbolTable.line(0), is("a"));
+        assertThat(symbolTable.line(1), is("b"));
+    }
+
+    @Test
+    public void testInternRandom() {
+        final List<Text> file = RandomFiles.getRandomFile(50000, 7);
+        final SymbolTable symbolTable = new SymbolTable();
+        final Map<String, Integer> expected = Maps.newHashMap();
+        int characters = 0;
+        for (final Text line : file) {
+            final int symbol = symbolTable.intern(line);
+            if (!expected.containsKey(line.toString())) {
+                expected.put(line.toString(), expected.size());
+                characters += line.length();
+            }
+            assertThat(symbol, is(expected.get(line.toString())));
+        }
+
+        assertThat(symbolTable.size(), is(expected.size()));
+        assertThat(symbolTable.characters(), is(characters));
+        assertThat(symbolTable.collisions(), is(0));
+        for (final Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertThat(symbolTable.line(entry.getValue()), is(entry.getKey()));
+            assertThat(symbolTable.symbolOf(entry.getKey()), is(entry.getValue()));
+        }
+    }
+}